@@ -0,0 +1,202 @@
+package com.eventbooking.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the responses of hot GET routes at the gateway, so that repeated reads of the same event
+ * never reach the event service.
+ * <p>
+ * Successful responses of the paths listed in {@code gateway.response-cache.paths} are kept by path
+ * and query, for {@code gateway.response-cache.ttl} and up to {@code gateway.response-cache.max-size}
+ * entries. A hit is served with the stored headers, or with 304 NOT MODIFIED when the If-None-Match
+ * header of the request holds the stored ETag. Requests with credentials or a no-cache directive,
+ * and responses marked private or no-store, bypass the cache. A successful write under
+ * {@code gateway.response-cache.invalidate-paths} clears it. </p>
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    static final String CACHE_HEADER = "X-Cache";
+
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase());
+
+    private final boolean enabled;
+    private final long maxEntryBytes;
+    private final Map<PathPattern, RouteMeters> routes = new LinkedHashMap<>();
+    private final List<PathPattern> invalidatePaths = new ArrayList<>();
+    private final Cache<String, CachedResponse> cache;
+
+    public ResponseCacheFilter(MeterRegistry meterRegistry,
+                               @Value("${gateway.response-cache.enabled:true}") boolean enabled,
+                               @Value("${gateway.response-cache.paths:}") List<String> paths,
+                               @Value("${gateway.response-cache.invalidate-paths:}") List<String> invalidatePaths,
+                               @Value("${gateway.response-cache.max-size:10000}") long maxSize,
+                               @Value("${gateway.response-cache.max-entry-bytes:262144}") long maxEntryBytes,
+                               @Value("${gateway.response-cache.ttl:5s}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntryBytes;
+        for (String path : paths) {
+            PathPattern pattern = PathPatternParser.defaultInstance.parse(path.trim());
+            routes.put(pattern, new RouteMeters(meterRegistry, pattern.getPatternString()));
+        }
+        for (String path : invalidatePaths) {
+            this.invalidatePaths.add(PathPatternParser.defaultInstance.parse(path.trim()));
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        Gauge.builder("gateway.cache.size", cache, Cache::estimatedSize)
+                .description("Responses held in the gateway response cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            if (response.getStatus() < 400 && invalidatePaths.stream().anyMatch(pattern -> pattern.matches(path))) {
+                cache.invalidateAll();
+            }
+            return;
+        }
+        RouteMeters route = routeOf(path);
+        if (route == null || !isCacheable(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            route.hits.increment();
+            route.bytesSaved.increment(cached.body().length);
+            write(cached, request, response);
+            return;
+        }
+
+        route.misses.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        wrapper.setHeader(CACHE_HEADER, "MISS");
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpStatus.OK.value()
+                && wrapper.getContentSize() <= maxEntryBytes
+                && isCacheable(wrapper)) {
+            cache.put(key, capture(wrapper));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private RouteMeters routeOf(PathContainer path) {
+        for (Map.Entry<PathPattern, RouteMeters> route : routes.entrySet()) {
+            if (route.getKey().matches(path)) {
+                return route.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCacheable(HttpServletRequest request) {
+        String cacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+        return request.getHeader(HttpHeaders.AUTHORIZATION) == null
+                && (cacheControl == null || !cacheControl.contains("no-cache"));
+    }
+
+    private static boolean isCacheable(HttpServletResponse response) {
+        String cacheControl = response.getHeader(HttpHeaders.CACHE_CONTROL);
+        return response.getHeader(HttpHeaders.SET_COOKIE) == null
+                && (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")));
+    }
+
+    private static CachedResponse capture(ContentCachingResponseWrapper response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!UNCACHED_HEADERS.contains(name.toLowerCase()) && !name.equalsIgnoreCase(CACHE_HEADER)) {
+                headers.put(name, List.copyOf(response.getHeaders(name)));
+            }
+        }
+        return new CachedResponse(headers, response.getContentAsByteArray());
+    }
+
+    private static void write(CachedResponse cached, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(CACHE_HEADER, "HIT");
+        List<String> eTag = cached.headers().get(HttpHeaders.ETAG);
+        if (eTag != null && new ServletWebRequest(request, response).checkNotModified(eTag.get(0))) {
+            return;
+        }
+        cached.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    private record CachedResponse(Map<String, List<String>> headers, byte[] body) {
+    }
+
+    /**
+     * Hit, miss and bytes saved counters of a cached route, tagged with its path pattern.
+     */
+    private static final class RouteMeters {
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter bytesSaved;
+
+        RouteMeters(MeterRegistry meterRegistry, String route) {
+            this.hits = requestCounter(meterRegistry, route, "hit");
+            this.misses = requestCounter(meterRegistry, route, "miss");
+            this.bytesSaved = Counter.builder("gateway.cache.bytes.saved")
+                    .description("Response bytes served from the gateway cache instead of the upstream service")
+                    .baseUnit("bytes")
+                    .tag("route", route)
+                    .register(meterRegistry);
+        }
+
+        private static Counter requestCounter(MeterRegistry meterRegistry, String route, String result) {
+            return Counter.builder("gateway.cache.requests")
+                    .description("Requests of cached routes, by cache result")
+                    .tag("route", route)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
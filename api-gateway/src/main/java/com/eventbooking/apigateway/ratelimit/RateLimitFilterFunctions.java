@@ -0,0 +1,78 @@
+package com.eventbooking.apigateway.ratelimit;
+
+import org.springframework.cloud.gateway.server.mvc.common.MvcUtils;
+import org.springframework.cloud.gateway.server.mvc.common.Shortcut;
+import org.springframework.cloud.gateway.server.mvc.filter.SimpleFilterSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rate limiting filters of the gateway routes, configured in their definition, for instance
+ * {@code TokenBucket=user,5,10} for 5 requests per second and per client with bursts of 10, or
+ * {@code TokenBucket=route,500,1000} for 500 requests per second over all clients of the route.
+ * A refused request gets 429 TOO MANY REQUESTS with a Retry-After header, without reaching the
+ * service.
+ */
+public abstract class RateLimitFilterFunctions {
+
+    private RateLimitFilterFunctions() {
+    }
+
+    /**
+     * Limits the requests of a route with token buckets of {@link TokenBucketRateLimiter}.
+     *
+     * @param key {@code user} for a bucket per client of the route, as identified by
+     *            {@link TokenBucketRateLimiter#clientOf}, or {@code route} for one bucket per route.
+     * @param replenishRate The requests allowed per second.
+     * @param burstCapacity The requests allowed at once after an idle period.
+     * @return the filter function
+     */
+    @Shortcut
+    public static HandlerFilterFunction<ServerResponse, ServerResponse> tokenBucket(String key, double replenishRate, long burstCapacity) {
+        boolean perClient = switch (key.toLowerCase(Locale.ROOT)) {
+            case "user" -> true;
+            case "route" -> false;
+            default -> throw new IllegalArgumentException("TokenBucket key must be user or route, not " + key);
+        };
+        if (replenishRate <= 0 || burstCapacity < 1) {
+            throw new IllegalArgumentException("TokenBucket needs a positive replenish rate and burst capacity");
+        }
+        String scope = perClient ? "user" : "route";
+        // Looked up on the first request, the context is not known before
+        AtomicReference<TokenBucketRateLimiter> limiterRef = new AtomicReference<>();
+        return (request, next) -> {
+            TokenBucketRateLimiter limiter = limiterRef.get();
+            if (limiter == null) {
+                limiter = MvcUtils.getApplicationContext(request).getBean(TokenBucketRateLimiter.class);
+                limiterRef.set(limiter);
+            }
+            String routeId = MvcUtils.getAttribute(request, MvcUtils.GATEWAY_ROUTE_ID_ATTR);
+            String bucket = perClient
+                    ? routeId + "|" + limiter.clientOf(request.servletRequest())
+                    : routeId;
+            long waitNanos = limiter.tryAcquire(bucket, replenishRate, burstCapacity);
+            if (waitNanos == 0) {
+                return next.handle(request);
+            }
+            limiter.recordRefused(routeId, scope);
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body("{\"status\":429,\"message\":\"Too many requests, please retry in " + retryAfterSeconds + " s\"}");
+        };
+    }
+
+    public static class FilterSupplier extends SimpleFilterSupplier {
+        public FilterSupplier() {
+            super(RateLimitFilterFunctions.class);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.eventbooking.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the token buckets of the {@code TokenBucket} route filter.
+ * <p>
+ * A bucket is a single AtomicLong, the instant at which it will be full again, in the manner of the
+ * generic cell rate algorithm: taking a token pushes that instant one emission interval,
+ * {@code 1 / replenishRate}, later, and is refused when it would then be more than
+ * {@code burstCapacity} intervals ahead of now. Taking a token is therefore one compare-and-set,
+ * with no lock and no refill task. The buckets live in a Caffeine cache bounded to
+ * {@code gateway.rate-limit.max-buckets} entries, which drops those idle for
+ * {@code gateway.rate-limit.idle-timeout}. A bucket idle for longer than it takes to refill is full
+ * anyway, so dropping it loses nothing. </p>
+ * <p>
+ * Clients are told apart by what they cannot choose: the authenticated principal of the request,
+ * else its address. X-Forwarded-For is only read when the request comes from one of
+ * {@code gateway.rate-limit.trusted-proxies}, and then only the hops those proxies appended. </p>
+ */
+@Component
+public class TokenBucketRateLimiter {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+    private final Set<String> trustedProxies;
+    private final Map<String, Counter> refusedRequests = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenBucketRateLimiter(MeterRegistry meterRegistry,
+                                  @Value("${gateway.rate-limit.max-buckets:100000}") long maxBuckets,
+                                  @Value("${gateway.rate-limit.idle-timeout:10m}") Duration idleTimeout,
+                                  @Value("${gateway.rate-limit.trusted-proxies:}") List<String> trustedProxies) {
+        this(meterRegistry, maxBuckets, idleTimeout, trustedProxies, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(MeterRegistry meterRegistry, long maxBuckets, Duration idleTimeout, List<String> trustedProxies,
+                           LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                .ticker(nanoClock::getAsLong)
+                .build();
+        Gauge.builder("gateway.rate-limit.buckets", buckets, Cache::estimatedSize)
+                .description("Token buckets held by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from a bucket, creating it full if needed.
+     *
+     * @param key The key of the bucket.
+     * @param replenishRate The tokens added to the bucket per second.
+     * @param burstCapacity The tokens the bucket holds when full.
+     * @return the nanoseconds to wait before a token is available, 0 if one was taken
+     */
+    public long tryAcquire(String key, double replenishRate, long burstCapacity) {
+        long interval = (long) (NANOS_PER_SECOND / replenishRate);
+        long capacity = interval * burstCapacity;
+        AtomicLong bucket = buckets.get(key, ignored -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + interval;
+            if (next - now > capacity) {
+                return next - now - capacity;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Identifies the client of a request: the authenticated principal if any, else the client address.
+     *
+     * @param request The request.
+     * @return the key of the client
+     */
+    public String clientOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        return "ip:" + clientAddress(request);
+    }
+
+    /**
+     * Walks X-Forwarded-For from the right while the hops are trusted proxies: each of them appended
+     * the address it got the request from, while anything left of the first untrusted hop may be
+     * forged by the client.
+     */
+    private String clientAddress(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+        List<String> hops = new ArrayList<>();
+        for (String forwardedFor : Collections.list(request.getHeaders(FORWARDED_FOR_HEADER))) {
+            hops.addAll(Arrays.asList(forwardedFor.split(",")));
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            String hop = hops.get(i).trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            address = hop;
+            if (!trustedProxies.contains(hop)) {
+                break;
+            }
+        }
+        return address;
+    }
+
+    /**
+     * Counts a request refused by the limit of a route.
+     *
+     * @param routeId The ID of the route.
+     * @param key The key of the limit, {@code user} or {@code route}.
+     */
+    public void recordRefused(String routeId, String key) {
+        refusedRequests.computeIfAbsent(routeId + "|" + key, ignored -> Counter.builder("gateway.rate-limit.refused")
+                        .description("Requests refused by the rate limit of their route")
+                        .tag("route", String.valueOf(routeId))
+                        .tag("key", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * @return the number of buckets held
+     */
+    public long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
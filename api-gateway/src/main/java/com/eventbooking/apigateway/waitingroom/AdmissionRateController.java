@@ -0,0 +1,94 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sets how many clients per second the waiting room admits, from the health of booking-service as
+ * seen in its responses through the gateway.
+ * <p>
+ * Every adjustment interval with booking traffic, the rate grows by
+ * {@code gateway.waiting-room.admission-rate.increase} if booking-service answered well, and is
+ * multiplied by {@code decrease-ratio} if more than a tenth of its responses were slower than
+ * {@code target-latency} or refused with 429, 503 or 504, as it does when it sheds load. </p>
+ */
+@Component
+public class AdmissionRateController {
+    private static final double OVERLOADED_SHARE = 0.1;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increase;
+    private final double decreaseRatio;
+    private final long targetLatencyNanos;
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder overloadedResponses = new LongAdder();
+    private volatile double rate;
+
+    public AdmissionRateController(MeterRegistry meterRegistry,
+                                   @Value("${gateway.waiting-room.admission-rate.initial:50}") double initialRate,
+                                   @Value("${gateway.waiting-room.admission-rate.min:5}") double minRate,
+                                   @Value("${gateway.waiting-room.admission-rate.max:500}") double maxRate,
+                                   @Value("${gateway.waiting-room.admission-rate.increase:5}") double increase,
+                                   @Value("${gateway.waiting-room.admission-rate.decrease-ratio:0.7}") double decreaseRatio,
+                                   @Value("${gateway.waiting-room.admission-rate.target-latency:500ms}") Duration targetLatency) {
+        this.rate = initialRate;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increase = increase;
+        this.decreaseRatio = decreaseRatio;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        Gauge.builder("gateway.waiting-room.admission-rate", this, AdmissionRateController::rate)
+                .description("Clients admitted per second from the waiting room")
+                .baseUnit("clients/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a response of booking-service.
+     *
+     * @param status The HTTP status of the response.
+     * @param latencyNanos How long the response took.
+     */
+    public void record(int status, long latencyNanos) {
+        responses.increment();
+        if (latencyNanos > targetLatencyNanos
+                || status == HttpStatus.TOO_MANY_REQUESTS.value()
+                || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            overloadedResponses.increment();
+        }
+    }
+
+    /**
+     * Adjusts the rate to the responses recorded since the last adjustment.
+     *
+     * @return the new rate
+     */
+    @Scheduled(fixedDelayString = "${gateway.waiting-room.admission-rate.adjust-interval-ms:1000}")
+    public double adjust() {
+        long total = responses.sumThenReset();
+        long overloaded = overloadedResponses.sumThenReset();
+        if (total == 0) {
+            return rate;
+        }
+        rate = overloaded > total * OVERLOADED_SHARE
+                ? Math.max(minRate, rate * decreaseRatio)
+                : Math.min(maxRate, rate + increase);
+        return rate;
+    }
+
+    /**
+     * @return the clients admitted per second, over all open waiting rooms
+     */
+    public double rate() {
+        return rate;
+    }
+}
@@ -0,0 +1,122 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the admission queues in the memory of the gateway; they are lost when it restarts.
+ * Admission times are recorded per batch of admitted clients rather than per client, and are
+ * forgotten along with the bookings of their clients once the admissions expire.
+ */
+public class InMemoryWaitingRoomStore implements WaitingRoomStore {
+    private final Map<Long, Queue> queues = new ConcurrentHashMap<>();
+
+    @Override
+    public void open(long eventId) {
+        queues.computeIfAbsent(eventId, id -> new Queue());
+    }
+
+    @Override
+    public void close(long eventId) {
+        queues.remove(eventId);
+    }
+
+    @Override
+    public boolean isOpen(long eventId) {
+        return queues.containsKey(eventId);
+    }
+
+    @Override
+    public Set<Long> openEvents() {
+        return Set.copyOf(queues.keySet());
+    }
+
+    @Override
+    public long join(long eventId) {
+        Queue queue = queues.get(eventId);
+        if (queue == null) {
+            throw new IllegalStateException("No waiting room is open for event " + eventId);
+        }
+        return queue.joined.incrementAndGet();
+    }
+
+    @Override
+    public long admittedThrough(long eventId) {
+        Queue queue = queues.get(eventId);
+        return queue == null ? 0 : queue.admittedThrough.get();
+    }
+
+    @Override
+    public long joined(long eventId) {
+        Queue queue = queues.get(eventId);
+        return queue == null ? 0 : queue.joined.get();
+    }
+
+    @Override
+    public long admit(long eventId, long count) {
+        Queue queue = queues.get(eventId);
+        if (queue == null || count <= 0) {
+            return 0;
+        }
+        synchronized (queue) {
+            long admitted = queue.admittedThrough.get();
+            long target = Math.min(admitted + count, queue.joined.get());
+            if (target <= admitted) {
+                return 0;
+            }
+            // Recorded before the clients are seen as admitted, so that their admission time is always found
+            queue.admissions.put(target, System.currentTimeMillis());
+            queue.admittedThrough.set(target);
+            return target - admitted;
+        }
+    }
+
+    @Override
+    public long admittedAt(long eventId, long sequence) {
+        Queue queue = queues.get(eventId);
+        if (queue == null || sequence > queue.admittedThrough.get() || sequence <= queue.forgottenThrough) {
+            return -1;
+        }
+        Map.Entry<Long, Long> batch = queue.admissions.ceilingEntry(sequence);
+        return batch == null ? -1 : batch.getValue();
+    }
+
+    @Override
+    public void forgetAdmittedBefore(long eventId, long before) {
+        Queue queue = queues.get(eventId);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            Map.Entry<Long, Long> oldest;
+            while ((oldest = queue.admissions.firstEntry()) != null && oldest.getValue() < before) {
+                queue.forgottenThrough = oldest.getKey();
+                queue.admissions.remove(oldest.getKey());
+            }
+            queue.bookings.headMap(queue.forgottenThrough, true).clear();
+        }
+    }
+
+    @Override
+    public long recordBooking(long eventId, long sequence) {
+        Queue queue = queues.get(eventId);
+        if (queue == null) {
+            return 0;
+        }
+        return queue.bookings.computeIfAbsent(sequence, s -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static final class Queue {
+        private final AtomicLong joined = new AtomicLong();
+        private final AtomicLong admittedThrough = new AtomicLong();
+        // Admission time of each batch of clients, by the last sequence number of the batch
+        private final NavigableMap<Long, Long> admissions = new ConcurrentSkipListMap<>();
+        private final ConcurrentNavigableMap<Long, AtomicLong> bookings = new ConcurrentSkipListMap<>();
+        private volatile long forgottenThrough;
+    }
+}
@@ -0,0 +1,13 @@
+package com.eventbooking.apigateway.waitingroom;
+
+/**
+ * Where a client stands in the waiting room of an event.
+ *
+ * @param ticket The signed ticket to poll the status with, in the X-Queue-Ticket header.
+ * @param position The number of clients ahead plus one, 0 once admitted.
+ * @param etaSeconds The estimated wait before admission, 0 once admitted.
+ * @param admissionToken The signed token to send in the X-Admission-Token header of booking
+ *                       requests, once admitted; null before.
+ */
+public record QueueStatus(String ticket, long position, long etaSeconds, String admissionToken) {
+}
@@ -0,0 +1,70 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Signs the waiting room tokens with HMAC-SHA256, so that clients can hold their place in the
+ * queue and their admission without the gateway keeping any state per client.
+ * A token is the base64url payload followed by a dot and the base64url signature of the payload.
+ */
+public class TokenSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Mac prototype;
+
+    public TokenSigner(byte[] secret) {
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot sign waiting room tokens", ex);
+        }
+    }
+
+    /**
+     * @param payload The content of the token.
+     * @return the signed token
+     */
+    public String sign(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(mac().doFinal(bytes));
+    }
+
+    /**
+     * @param token A token, possibly forged or malformed.
+     * @return the payload of the token, or null if its signature does not match
+     */
+    public String verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            return MessageDigest.isEqual(signature, mac().doFinal(payload))
+                    ? new String(payload, StandardCharsets.UTF_8)
+                    : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private Mac mac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits the clients who want to book an on-sale event at the rate booking-service can take, in
+ * the order they arrived.
+ * <p>
+ * A client joins the queue of the event and gets a signed ticket holding its sequence number, then
+ * polls its position and estimated wait with it. Every {@code gateway.waiting-room.tick-ms}, the
+ * rate of {@link AdmissionRateController}, shared evenly between the open queues, admits the next
+ * clients of each queue. Once admitted, polling returns a signed admission token holding the
+ * sequence number of the ticket, which {@code WaitingRoomFilter} requires on the booking requests
+ * for that event. The token expires {@code gateway.waiting-room.admission-token-ttl} after the
+ * client was admitted, however often it polls, and lets through at most
+ * {@code gateway.waiting-room.bookings-per-admission} booking requests. Rooms are opened for
+ * {@code gateway.waiting-room.events} at startup, or through {@link WaitingRoomController}. </p>
+ */
+@Slf4j
+@Component
+public class WaitingRoom {
+    private static final String TICKET = "Q";
+    private static final String ADMISSION = "A";
+
+    private final WaitingRoomStore store;
+    private final AdmissionRateController admissionRateController;
+    private final TokenSigner tokenSigner;
+    private final Duration admissionTokenTtl;
+    private final int bookingsPerAdmission;
+    private final Map<Long, Double> admissionCredits = new ConcurrentHashMap<>();
+    private final Counter admittedClients;
+    private long lastTickNanos = System.nanoTime();
+
+    public WaitingRoom(WaitingRoomStore store,
+                       AdmissionRateController admissionRateController,
+                       MeterRegistry meterRegistry,
+                       @Value("${gateway.waiting-room.secret:}") String secret,
+                       @Value("${gateway.waiting-room.admission-token-ttl:10m}") Duration admissionTokenTtl,
+                       @Value("${gateway.waiting-room.bookings-per-admission:5}") int bookingsPerAdmission,
+                       @Value("${gateway.waiting-room.events:}") List<Long> events) {
+        this.store = store;
+        this.admissionRateController = admissionRateController;
+        this.tokenSigner = new TokenSigner(signingKey(secret));
+        this.admissionTokenTtl = admissionTokenTtl;
+        this.bookingsPerAdmission = bookingsPerAdmission;
+        this.admittedClients = Counter.builder("gateway.waiting-room.admitted")
+                .description("Clients admitted from the waiting room")
+                .register(meterRegistry);
+        Gauge.builder("gateway.waiting-room.waiting", this, WaitingRoom::waiting)
+                .description("Clients waiting in the open waiting rooms")
+                .register(meterRegistry);
+        events.forEach(this::open);
+    }
+
+    /**
+     * Opens the waiting room of an event: from now on its bookings need an admission token.
+     *
+     * @param eventId The ID of the event.
+     */
+    public void open(long eventId) {
+        store.open(eventId);
+        log.info("Opened the waiting room of event {}", eventId);
+    }
+
+    /**
+     * Closes the waiting room of an event: its bookings no longer need an admission token.
+     *
+     * @param eventId The ID of the event.
+     */
+    public void close(long eventId) {
+        store.close(eventId);
+        admissionCredits.remove(eventId);
+        log.info("Closed the waiting room of event {}", eventId);
+    }
+
+    /**
+     * @param eventId The ID of the event.
+     * @return true if the bookings of the event need an admission token
+     */
+    public boolean isOpen(long eventId) {
+        return store.isOpen(eventId);
+    }
+
+    /**
+     * @return true if at least one waiting room is open
+     */
+    public boolean hasOpenRooms() {
+        return !store.openEvents().isEmpty();
+    }
+
+    /**
+     * Adds a client at the end of the queue of an event.
+     *
+     * @param eventId The ID of the event.
+     * @return The QueueStatus of the client, with its ticket.
+     * @throws ResponseStatusException NOT_FOUND if the event has no open waiting room.
+     */
+    public QueueStatus join(long eventId) {
+        if (!store.isOpen(eventId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No waiting room is open for event " + eventId);
+        }
+        long sequence = store.join(eventId);
+        return status(eventId, sequence, tokenSigner.sign(TICKET + "|" + eventId + "|" + sequence));
+    }
+
+    /**
+     * Tells a client where it stands in the queue of an event.
+     *
+     * @param eventId The ID of the event.
+     * @param ticket The ticket the client got when joining.
+     * @return The QueueStatus of the client, with its admission token once admitted.
+     * @throws ResponseStatusException BAD_REQUEST if the ticket is not one of this event,
+     *                                 NOT_FOUND if the event has no open waiting room,
+     *                                 GONE if the admission of the ticket expired.
+     */
+    public QueueStatus status(long eventId, String ticket) {
+        String[] payload = parse(ticket, TICKET, 3);
+        if (payload == null || Long.parseLong(payload[1]) != eventId) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid queue ticket for event " + eventId);
+        }
+        if (!store.isOpen(eventId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No waiting room is open for event " + eventId);
+        }
+        return status(eventId, Long.parseLong(payload[2]), ticket);
+    }
+
+    /**
+     * @param eventId The ID of the event.
+     * @param admissionToken The admission token sent by the client, possibly null.
+     * @return true if the token admits the client to book the event
+     */
+    public boolean isAdmitted(long eventId, String admissionToken) {
+        return admittedSequence(eventId, admissionToken) > 0;
+    }
+
+    /**
+     * Counts a booking request against the admission of its client.
+     *
+     * @param eventId The ID of the event.
+     * @param admissionToken The admission token sent by the client, possibly null.
+     * @return true if the token admits the client to book the event and its booking budget is not spent
+     */
+    public boolean tryBook(long eventId, String admissionToken) {
+        long sequence = admittedSequence(eventId, admissionToken);
+        return sequence > 0 && store.recordBooking(eventId, sequence) <= bookingsPerAdmission;
+    }
+
+    @Scheduled(fixedRateString = "${gateway.waiting-room.tick-ms:100}")
+    public void admitDueClients() {
+        long now = System.nanoTime();
+        long elapsed = now - lastTickNanos;
+        lastTickNanos = now;
+        admit(elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Admits the clients due over a period at the current admission rate.
+     * The fractions of clients left over carry to the next period while clients are waiting.
+     *
+     * @param seconds The length of the period.
+     * @return the number of clients admitted
+     */
+    public long admit(double seconds) {
+        Set<Long> events = store.openEvents();
+        if (events.isEmpty()) {
+            return 0;
+        }
+        double perEvent = admissionRateController.rate() / events.size() * seconds;
+        long expiredBefore = System.currentTimeMillis() - admissionTokenTtl.toMillis();
+        long admitted = 0;
+        for (Long eventId : events) {
+            store.forgetAdmittedBefore(eventId, expiredBefore);
+            double credit = admissionCredits.getOrDefault(eventId, 0.0) + perEvent;
+            long due = (long) credit;
+            long eventAdmitted = store.admit(eventId, due);
+            // Nobody left to admit: do not save up admissions for a burst later
+            admissionCredits.put(eventId, eventAdmitted < due ? 0.0 : credit - due);
+            admitted += eventAdmitted;
+        }
+        admittedClients.increment(admitted);
+        return admitted;
+    }
+
+    private QueueStatus status(long eventId, long sequence, String ticket) {
+        long admittedThrough = store.admittedThrough(eventId);
+        if (sequence <= admittedThrough) {
+            return new QueueStatus(ticket, 0, 0, admissionToken(eventId, sequence));
+        }
+        long position = sequence - admittedThrough;
+        double perEventRate = admissionRateController.rate() / Math.max(1, store.openEvents().size());
+        return new QueueStatus(ticket, position, (long) Math.ceil(position / perEventRate), null);
+    }
+
+    /**
+     * Signs the admission of a client. The token depends only on the ticket and its admission time,
+     * so polling again returns the same token instead of extending it.
+     */
+    private String admissionToken(long eventId, long sequence) {
+        long admittedAt = store.admittedAt(eventId, sequence);
+        long expiresAt = admittedAt + admissionTokenTtl.toMillis();
+        if (admittedAt < 0 || expiresAt <= System.currentTimeMillis()) {
+            throw new ResponseStatusException(HttpStatus.GONE, "The admission of this ticket to event " + eventId
+                    + " expired, join the waiting room again");
+        }
+        return tokenSigner.sign(ADMISSION + "|" + eventId + "|" + sequence + "|" + expiresAt);
+    }
+
+    /**
+     * @return the sequence number of the ticket the token admits to book the event, 0 if none
+     */
+    private long admittedSequence(long eventId, String admissionToken) {
+        String[] payload = parse(admissionToken, ADMISSION, 4);
+        if (payload == null
+                || Long.parseLong(payload[1]) != eventId
+                || Long.parseLong(payload[3]) <= System.currentTimeMillis()) {
+            return 0;
+        }
+        return Long.parseLong(payload[2]);
+    }
+
+    private String[] parse(String token, String type, int fields) {
+        String payload = tokenSigner.verify(token);
+        if (payload == null) {
+            return null;
+        }
+        String[] parts = payload.split("\\|");
+        return parts.length == fields && parts[0].equals(type) ? parts : null;
+    }
+
+    private long waiting() {
+        long waiting = 0;
+        for (Long eventId : store.openEvents()) {
+            waiting += store.joined(eventId) - store.admittedThrough(eventId);
+        }
+        return waiting;
+    }
+
+    private static byte[] signingKey(String secret) {
+        if (!secret.isBlank()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        // Tokens then only hold on this node and until it restarts
+        log.warn("gateway.waiting-room.secret is not set, signing waiting room tokens with a random key");
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
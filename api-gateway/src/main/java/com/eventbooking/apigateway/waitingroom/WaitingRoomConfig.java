@@ -0,0 +1,20 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class WaitingRoomConfig {
+
+    /**
+     * Keeps the waiting room queues in memory, unless another store is declared.
+     *
+     * @return The WaitingRoomStore of a single gateway node.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public WaitingRoomStore waitingRoomStore() {
+        return new InMemoryWaitingRoomStore();
+    }
+}
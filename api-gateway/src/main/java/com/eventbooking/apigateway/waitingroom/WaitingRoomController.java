@@ -0,0 +1,73 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/waiting-room/events/{eventId}")
+public class WaitingRoomController {
+    static final String QUEUE_TICKET_HEADER = "X-Queue-Ticket";
+
+    private final WaitingRoom waitingRoom;
+
+    public WaitingRoomController(WaitingRoom waitingRoom) {
+        this.waitingRoom = waitingRoom;
+    }
+
+    /**
+     * Opens the waiting room of an event, ahead of its on-sale.
+     *
+     * @param eventId The ID of the event.
+     */
+    @PutMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void openWaitingRoom(@PathVariable long eventId) {
+        waitingRoom.open(eventId);
+    }
+
+    /**
+     * Closes the waiting room of an event; its bookings no longer need an admission token.
+     *
+     * @param eventId The ID of the event.
+     */
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void closeWaitingRoom(@PathVariable long eventId) {
+        waitingRoom.close(eventId);
+    }
+
+    /**
+     * Joins the waiting room of an event.
+     *
+     * @param eventId The ID of the event.
+     * @return A ResponseEntity containing the QueueStatus of the client, with the ticket to poll it with, and an HTTP status of CREATED (201).
+     */
+    @PostMapping("/join")
+    public ResponseEntity<QueueStatus> join(@PathVariable long eventId) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(waitingRoom.join(eventId));
+    }
+
+    /**
+     * Retrieves the position and estimated wait of a client, and its admission token once admitted.
+     * Clients poll it no more often than every few seconds. Once the admission expired, the client
+     * gets GONE (410) and has to join again.
+     *
+     * @param eventId The ID of the event.
+     * @param ticket The ticket the client got when joining.
+     * @return A ResponseEntity containing the QueueStatus of the client and an HTTP status of OK (200).
+     */
+    @GetMapping
+    public ResponseEntity<QueueStatus> getStatus(@PathVariable long eventId,
+                                                 @RequestHeader(QUEUE_TICKET_HEADER) String ticket) {
+        return ResponseEntity.ok(waitingRoom.status(eventId, ticket));
+    }
+}
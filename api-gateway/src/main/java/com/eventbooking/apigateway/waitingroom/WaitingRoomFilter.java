@@ -0,0 +1,193 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Guards the bookings of events with an open {@link WaitingRoom}, and reports the responses of
+ * booking-service to {@link AdmissionRateController}.
+ * <p>
+ * While a waiting room is open, the event IDs of the POST and PUT bodies sent to
+ * {@code /api/booking/**}, single bookings or batches, are read before the request is forwarded.
+ * A booking of an event with an open waiting room is refused with 403 FORBIDDEN unless it carries
+ * an admission token of that event in the X-Admission-Token header, and the ticket of that token
+ * has booking requests left. </p>
+ */
+@Component
+public class WaitingRoomFilter extends OncePerRequestFilter {
+    static final String ADMISSION_TOKEN_HEADER = "X-Admission-Token";
+    private static final String BOOKING_PATH = "/api/booking";
+
+    private final WaitingRoom waitingRoom;
+    private final AdmissionRateController admissionRateController;
+    private final ObjectMapper objectMapper;
+
+    public WaitingRoomFilter(WaitingRoom waitingRoom, AdmissionRateController admissionRateController, ObjectMapper objectMapper) {
+        this.waitingRoom = waitingRoom;
+        this.admissionRateController = admissionRateController;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !(path.equals(BOOKING_PATH) || path.startsWith(BOOKING_PATH + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (waitingRoom.hasOpenRooms()
+                && (HttpMethod.POST.matches(request.getMethod()) || HttpMethod.PUT.matches(request.getMethod()))) {
+            CachedBodyRequest cached = new CachedBodyRequest(request);
+            request = cached;
+            String admissionToken = request.getHeader(ADMISSION_TOKEN_HEADER);
+            List<Long> guarded = new ArrayList<>();
+            for (Long eventId : eventIds(cached.body)) {
+                if (waitingRoom.isOpen(eventId)) {
+                    if (!waitingRoom.isAdmitted(eventId, admissionToken)) {
+                        refuse(response, eventId);
+                        return;
+                    }
+                    guarded.add(eventId);
+                }
+            }
+            // Counted once the whole request is admitted, so that a refused batch spends no booking of
+            // its client; a token admits to a single event, so a batch spends at most one here
+            for (Long eventId : guarded) {
+                if (!waitingRoom.tryBook(eventId, admissionToken)) {
+                    refuse(response, eventId);
+                    return;
+                }
+            }
+        }
+        long start = System.nanoTime();
+        filterChain.doFilter(request, response);
+        admissionRateController.record(response.getStatus(), System.nanoTime() - start);
+    }
+
+    private Set<Long> eventIds(byte[] body) {
+        Set<Long> eventIds = new LinkedHashSet<>();
+        if (body.length == 0) {
+            return eventIds;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            for (JsonNode booking : root.isArray() ? root : List.of(root)) {
+                if (booking.hasNonNull("eventId")) {
+                    eventIds.add(booking.get("eventId").asLong());
+                }
+            }
+        } catch (IOException ex) {
+            // Not JSON: booking-service rejects it anyway
+        }
+        return eventIds;
+    }
+
+    private static void refuse(HttpServletResponse response, long eventId) throws IOException {
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"status\":403,\"message\":\"Event " + eventId
+                + " is on sale through its waiting room, join it at /waiting-room/events/" + eventId + "/join\"}")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Request whose body is read upfront, so that it can be read again when forwarded.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new CachedBodyInputStream(body);
+        }
+    }
+
+    /**
+     * Stream of a body held in memory, so always ready: a read listener is told at once that data is
+     * available, and that all of it was read as soon as it is.
+     */
+    private static final class CachedBodyInputStream extends ServletInputStream {
+        private final ByteArrayInputStream input;
+        private ReadListener readListener;
+        private boolean allDataReadNotified;
+
+        CachedBodyInputStream(byte[] body) {
+            this.input = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return input.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            if (readListener != null) {
+                throw new IllegalStateException("The read listener is already set");
+            }
+            readListener = Objects.requireNonNull(listener, "listener");
+            try {
+                if (!isFinished()) {
+                    listener.onDataAvailable();
+                }
+                notifyIfAllDataRead();
+            } catch (IOException | RuntimeException ex) {
+                listener.onError(ex);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = input.read();
+            notifyIfAllDataRead();
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = input.read(buffer, offset, length);
+            notifyIfAllDataRead();
+            return read;
+        }
+
+        private void notifyIfAllDataRead() throws IOException {
+            if (readListener != null && isFinished() && !allDataReadNotified) {
+                allDataReadNotified = true;
+                readListener.onAllDataRead();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import java.util.Set;
+
+/**
+ * Holds the admission queues of the waiting room, one per event.
+ * <p>
+ * A queue is two counters: the sequence number given to the last client who joined, and the
+ * sequence number up to which clients are admitted. A client's position is the difference between
+ * its own sequence number and the second counter, so queues of any length cost the same. The time
+ * each batch of clients was admitted is kept until their admission expires, along with the number
+ * of bookings each admitted client made, so that an admission is neither extended nor shared. The
+ * in-process {@link InMemoryWaitingRoomStore} serves a single gateway node; a store shared by
+ * several nodes, Redis counters for instance, can replace it by declaring a bean of this type. </p>
+ */
+public interface WaitingRoomStore {
+
+    /**
+     * Opens the queue of an event, if not open yet.
+     *
+     * @param eventId The ID of the event.
+     */
+    void open(long eventId);
+
+    /**
+     * Closes the queue of an event and forgets its clients.
+     *
+     * @param eventId The ID of the event.
+     */
+    void close(long eventId);
+
+    /**
+     * @param eventId The ID of the event.
+     * @return true if the queue of the event is open
+     */
+    boolean isOpen(long eventId);
+
+    /**
+     * @return the IDs of the events whose queue is open
+     */
+    Set<Long> openEvents();
+
+    /**
+     * Adds a client at the end of the queue of an event.
+     *
+     * @param eventId The ID of the event, whose queue must be open.
+     * @return the sequence number of the client, from 1
+     */
+    long join(long eventId);
+
+    /**
+     * @param eventId The ID of the event.
+     * @return the sequence number up to which clients are admitted, 0 if the queue is not open
+     */
+    long admittedThrough(long eventId);
+
+    /**
+     * @param eventId The ID of the event.
+     * @return the number of clients that joined the queue, 0 if it is not open
+     */
+    long joined(long eventId);
+
+    /**
+     * Admits the next clients of the queue of an event.
+     *
+     * @param eventId The ID of the event.
+     * @param count The number of clients to admit.
+     * @return the number of clients admitted, less than {@code count} if fewer are waiting
+     */
+    long admit(long eventId, long count);
+
+    /**
+     * @param eventId The ID of the event.
+     * @param sequence The sequence number of a client.
+     * @return when the client was admitted, in epoch milliseconds, or -1 if it is not admitted yet
+     *         or its admission was forgotten
+     */
+    long admittedAt(long eventId, long sequence);
+
+    /**
+     * Forgets the clients admitted before a given time, and the bookings they made.
+     *
+     * @param eventId The ID of the event.
+     * @param before The time in epoch milliseconds, whose admissions are kept.
+     */
+    void forgetAdmittedBefore(long eventId, long before);
+
+    /**
+     * Counts a booking made by an admitted client.
+     *
+     * @param eventId The ID of the event.
+     * @param sequence The sequence number of the client.
+     * @return the number of bookings the client made, this one included
+     */
+    long recordBooking(long eventId, long sequence);
+}
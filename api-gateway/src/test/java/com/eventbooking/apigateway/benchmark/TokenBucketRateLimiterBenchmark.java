@@ -0,0 +1,73 @@
+package com.eventbooking.apigateway.benchmark;
+
+import com.eventbooking.apigateway.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes tokens from 16 threads at once, all from the one bucket of a route or from the buckets of
+ * many clients, to measure the latency the rate limiter adds to a request under contention.
+ * <p>
+ * With {@code clients} at 1 every thread hits the same compare-and-set; with 100000 the lookup of
+ * the bucket dominates, and with 1000000 buckets keep being evicted and created again, the cache
+ * holding at most {@code 100000}. The buckets allow far more than the benchmark sends, so every
+ * token is taken. Run with {@code mvn -pl api-gateway test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.eventbooking.apigateway.benchmark.TokenBucketRateLimiterBenchmark}. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class TokenBucketRateLimiterBenchmark {
+
+    @Param({"1", "100000", "1000000"})
+    public int clients;
+
+    private TokenBucketRateLimiter limiter;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new TokenBucketRateLimiter(new SimpleMeterRegistry(), 100_000, Duration.ofMinutes(10), List.of());
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "booking-service|user:" + i;
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+        return limiter.tryAcquire(key, 1_000_000_000, 1_000_000_000);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenBucketRateLimiterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
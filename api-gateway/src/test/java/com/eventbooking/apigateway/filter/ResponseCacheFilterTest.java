@@ -0,0 +1,120 @@
+package com.eventbooking.apigateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+	private static final String EVENT_ROUTE = "/api/events/{eventId:\\d+}";
+	private static final String BODY = "{\"id\":1,\"name\":\"concert\"}";
+
+	private MeterRegistry meterRegistry;
+	private ResponseCacheFilter filter;
+	private AtomicInteger upstreamCalls;
+	private FilterChain upstream;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new ResponseCacheFilter(meterRegistry, true,
+				List.of("/api/events", EVENT_ROUTE), List.of("/api/events/**"),
+				100, 1024, Duration.ofMinutes(1));
+		upstreamCalls = new AtomicInteger();
+		upstream = (request, response) -> {
+			upstreamCalls.incrementAndGet();
+			HttpServletResponse http = (HttpServletResponse) response;
+			http.setStatus(200);
+			http.setContentType("application/json");
+			http.setHeader(HttpHeaders.ETAG, "\"1-0-100\"");
+			http.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	@Test
+	void repeatedReadIsServedFromTheCache() throws Exception {
+		MockHttpServletResponse first = get("/api/events/1", null);
+		MockHttpServletResponse second = get("/api/events/1", null);
+
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(first.getHeader(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+		assertThat(second.getHeader(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+		assertThat(second.getContentAsString()).isEqualTo(BODY);
+		assertThat(second.getContentType()).isEqualTo("application/json");
+		assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1-0-100\"");
+		assertThat(requests("hit")).isEqualTo(1);
+		assertThat(requests("miss")).isEqualTo(1);
+		assertThat(meterRegistry.get("gateway.cache.bytes.saved").tag("route", EVENT_ROUTE).counter().count())
+				.isEqualTo(BODY.length());
+	}
+
+	@Test
+	void hitWithMatchingETagIsNotModified() throws Exception {
+		get("/api/events/1", null);
+
+		MockHttpServletResponse response = get("/api/events/1", "\"1-0-100\"");
+
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+		assertThat(upstreamCalls).hasValue(1);
+	}
+
+	@Test
+	void queriesAreCachedSeparately() throws Exception {
+		get("/api/events?size=10", null);
+		get("/api/events?size=20", null);
+		get("/api/events?size=10", null);
+
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	@Test
+	void uncachedPathsAreAlwaysForwarded() throws Exception {
+		get("/api/events/stream", null);
+		get("/api/events/stream", null);
+
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	@Test
+	void writeClearsTheCache() throws Exception {
+		get("/api/events/1", null);
+		MockHttpServletRequest update = new MockHttpServletRequest("PUT", "/api/events/1");
+		filter.doFilter(update, new MockHttpServletResponse(), upstream);
+
+		get("/api/events/1", null);
+
+		assertThat(upstreamCalls).hasValue(3);
+	}
+
+	private MockHttpServletResponse get(String uri, String ifNoneMatch) throws Exception {
+		int query = uri.indexOf('?');
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", query < 0 ? uri : uri.substring(0, query));
+		if (query >= 0) {
+			request.setQueryString(uri.substring(query + 1));
+		}
+		if (ifNoneMatch != null) {
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, upstream);
+		return response;
+	}
+
+	private double requests(String result) {
+		return meterRegistry.get("gateway.cache.requests").tag("route", EVENT_ROUTE).tag("result", result).counter().count();
+	}
+}
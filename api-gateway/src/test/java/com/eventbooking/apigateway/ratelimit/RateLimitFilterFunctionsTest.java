@@ -0,0 +1,76 @@
+package com.eventbooking.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.server.mvc.common.MvcUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitFilterFunctionsTest {
+
+	private MeterRegistry meterRegistry;
+	private StaticWebApplicationContext context;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		context = new StaticWebApplicationContext();
+		context.getBeanFactory().registerSingleton("tokenBucketRateLimiter",
+				new TokenBucketRateLimiter(meterRegistry, 1000, Duration.ofMinutes(10), List.of()));
+		context.refresh();
+	}
+
+	@Test
+	void eachClientHasItsOwnBucket() throws Exception {
+		HandlerFilterFunction<ServerResponse, ServerResponse> filter = RateLimitFilterFunctions.tokenBucket("user", 1, 2);
+
+		assertThat(call(filter, "alice").statusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(call(filter, "alice").statusCode()).isEqualTo(HttpStatus.OK);
+		ServerResponse refused = call(filter, "alice");
+		assertThat(call(filter, "bob").statusCode()).isEqualTo(HttpStatus.OK);
+
+		assertThat(refused.statusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+		assertThat(refused.headers().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(meterRegistry.get("gateway.rate-limit.refused").tag("route", "booking-service").tag("key", "user")
+				.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void routeBucketIsSharedByAllClients() throws Exception {
+		HandlerFilterFunction<ServerResponse, ServerResponse> filter = RateLimitFilterFunctions.tokenBucket("route", 1, 2);
+
+		assertThat(call(filter, "alice").statusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(call(filter, "bob").statusCode()).isEqualTo(HttpStatus.OK);
+
+		assertThat(call(filter, "carol").statusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+	}
+
+	@Test
+	void unknownKeyIsRejected() {
+		assertThatThrownBy(() -> RateLimitFilterFunctions.tokenBucket("session", 1, 2))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private ServerResponse call(HandlerFilterFunction<ServerResponse, ServerResponse> filter, String user) throws Exception {
+		MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST", "/api/booking");
+		servletRequest.setUserPrincipal(() -> user);
+		servletRequest.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, context);
+		ServerRequest request = ServerRequest.create(servletRequest, List.of());
+		MvcUtils.setRouteId(request, "booking-service");
+		return filter.filter(request, ignored -> ServerResponse.ok().build());
+	}
+}
@@ -0,0 +1,139 @@
+package com.eventbooking.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private AtomicLong clock;
+	private TokenBucketRateLimiter limiter;
+
+	@BeforeEach
+	void setUp() {
+		clock = new AtomicLong(42 * SECOND);
+		limiter = new TokenBucketRateLimiter(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), List.of("10.0.0.1", "10.0.0.2"), clock::get);
+	}
+
+	@Test
+	void burstIsAllowedThenTheReplenishRate() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.tryAcquire("alice", 5, 10)).isZero();
+		}
+		assertThat(limiter.tryAcquire("alice", 5, 10)).isEqualTo(SECOND / 5);
+
+		clock.addAndGet(SECOND);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(limiter.tryAcquire("alice", 5, 10)).isZero();
+		}
+		assertThat(limiter.tryAcquire("alice", 5, 10)).isPositive();
+	}
+
+	@Test
+	void idleBucketRefillsUpToItsCapacityOnly() {
+		for (int i = 0; i < 10; i++) {
+			limiter.tryAcquire("alice", 5, 10);
+		}
+
+		clock.addAndGet(30 * SECOND);
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.tryAcquire("alice", 5, 10)).isZero();
+		}
+		assertThat(limiter.tryAcquire("alice", 5, 10)).isPositive();
+	}
+
+	@Test
+	void bucketsAreIndependent() {
+		assertThat(limiter.tryAcquire("alice", 1, 1)).isZero();
+		assertThat(limiter.tryAcquire("alice", 1, 1)).isPositive();
+
+		assertThat(limiter.tryAcquire("bob", 1, 1)).isZero();
+	}
+
+	@Test
+	void concurrentRequestsNeverTakeMoreThanTheBurst() throws Exception {
+		LongAdder allowed = new LongAdder();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		for (int thread = 0; thread < 16; thread++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					if (limiter.tryAcquire("route", 1, 1000) == 0) {
+						allowed.increment();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(allowed.sum()).isEqualTo(1000);
+	}
+
+	@Test
+	void bucketsAreBoundedAndDroppedWhenIdle() {
+		for (int i = 0; i < 1000; i++) {
+			limiter.tryAcquire("client-" + i, 5, 10);
+		}
+		assertThat(limiter.size()).isLessThanOrEqualTo(100);
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+		assertThat(limiter.size()).isZero();
+	}
+
+	@Test
+	void clientIsThePrincipalThenTheAddress() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("203.0.113.7");
+		assertThat(limiter.clientOf(request)).isEqualTo("ip:203.0.113.7");
+
+		request.setUserPrincipal(() -> "alice");
+		assertThat(limiter.clientOf(request)).isEqualTo("user:alice");
+	}
+
+	@Test
+	void spoofedHeadersOfADirectClientAreIgnored() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("203.0.113.7");
+		request.addHeader("X-Forwarded-For", "198.51.100.1");
+		request.addHeader("X-User-Id", "alice");
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer forged");
+
+		assertThat(limiter.clientOf(request)).isEqualTo("ip:203.0.113.7");
+	}
+
+	@Test
+	void forwardedAddressIsTakenFromTheTrustedProxiesOnly() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("10.0.0.1");
+		// The client forged the first hop; the trusted proxies appended the rest
+		request.addHeader("X-Forwarded-For", "198.51.100.1, 203.0.113.7");
+		request.addHeader("X-Forwarded-For", "10.0.0.2");
+
+		assertThat(limiter.clientOf(request)).isEqualTo("ip:203.0.113.7");
+	}
+
+	@Test
+	void requestOfAProxyWithoutForwardedForIsItsOwnClient() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("10.0.0.1");
+
+		assertThat(limiter.clientOf(request)).isEqualTo("ip:10.0.0.1");
+	}
+}
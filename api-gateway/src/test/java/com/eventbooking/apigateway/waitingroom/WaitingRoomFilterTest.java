@@ -0,0 +1,162 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WaitingRoomFilterTest {
+
+	private static final long EVENT_ID = 42;
+
+	private AdmissionRateController admissionRate;
+	private WaitingRoom waitingRoom;
+	private WaitingRoomFilter filter;
+	private List<String> forwardedBodies;
+	private int upstreamStatus;
+	private FilterChain upstream;
+
+	@BeforeEach
+	void setUp() {
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		admissionRate = new AdmissionRateController(meterRegistry, 100, 10, 1000, 10, 0.5, Duration.ofMillis(500));
+		waitingRoom = new WaitingRoom(new InMemoryWaitingRoomStore(), admissionRate, meterRegistry, "secret",
+				Duration.ofMinutes(10), 2, List.of(EVENT_ID));
+		filter = new WaitingRoomFilter(waitingRoom, admissionRate, new ObjectMapper());
+		forwardedBodies = new ArrayList<>();
+		upstreamStatus = 201;
+		upstream = (request, response) -> {
+			forwardedBodies.add(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+			((HttpServletResponse) response).setStatus(upstreamStatus);
+		};
+	}
+
+	@Test
+	void bookingOfAnOnSaleEventNeedsAnAdmissionToken() throws Exception {
+		MockHttpServletResponse response = book("/api/booking", "{\"eventId\":42,\"numberOfTickets\":2}", null);
+
+		assertThat(response.getStatus()).isEqualTo(403);
+		assertThat(response.getContentAsString()).contains("/waiting-room/events/42/join");
+		assertThat(forwardedBodies).isEmpty();
+	}
+
+	@Test
+	void admittedBookingIsForwardedWithItsBody() throws Exception {
+		QueueStatus client = waitingRoom.join(EVENT_ID);
+		waitingRoom.admit(1);
+		String token = waitingRoom.status(EVENT_ID, client.ticket()).admissionToken();
+		String body = "{\"eventId\":42,\"numberOfTickets\":2}";
+
+		MockHttpServletResponse response = book("/api/booking", body, token);
+
+		assertThat(response.getStatus()).isEqualTo(201);
+		assertThat(forwardedBodies).containsExactly(body);
+	}
+
+	@Test
+	void admissionTokenIsRefusedOnceItsBookingsAreSpent() throws Exception {
+		QueueStatus client = waitingRoom.join(EVENT_ID);
+		waitingRoom.admit(1);
+		String token = waitingRoom.status(EVENT_ID, client.ticket()).admissionToken();
+		String body = "{\"eventId\":42,\"numberOfTickets\":2}";
+
+		assertThat(book("/api/booking", body, token).getStatus()).isEqualTo(201);
+		assertThat(book("/api/booking", body, token).getStatus()).isEqualTo(201);
+		// Polling again does not give the client more bookings
+		String polled = waitingRoom.status(EVENT_ID, client.ticket()).admissionToken();
+		assertThat(book("/api/booking", body, polled).getStatus()).isEqualTo(403);
+		assertThat(forwardedBodies).hasSize(2);
+	}
+
+	@Test
+	void batchIsRefusedIfOneOfItsEventsIsOnSale() throws Exception {
+		assertThat(book("/api/booking/batch", "[{\"eventId\":7},{\"eventId\":42}]", null).getStatus()).isEqualTo(403);
+		assertThat(book("/api/booking/batch", "[{\"eventId\":7},{\"eventId\":8}]", null).getStatus()).isEqualTo(201);
+	}
+
+	@Test
+	void refusedBatchDoesNotSpendTheBookingsOfItsAdmission() throws Exception {
+		waitingRoom.open(43);
+		QueueStatus client = waitingRoom.join(EVENT_ID);
+		waitingRoom.admit(1);
+		String token = waitingRoom.status(EVENT_ID, client.ticket()).admissionToken();
+
+		assertThat(book("/api/booking/batch", "[{\"eventId\":42},{\"eventId\":43}]", token).getStatus()).isEqualTo(403);
+
+		String body = "{\"eventId\":42,\"numberOfTickets\":2}";
+		assertThat(book("/api/booking", body, token).getStatus()).isEqualTo(201);
+		assertThat(book("/api/booking", body, token).getStatus()).isEqualTo(201);
+		assertThat(forwardedBodies).hasSize(2);
+	}
+
+	@Test
+	void forwardedBodyCanBeReadWithAReadListener() throws Exception {
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		AtomicBoolean allDataRead = new AtomicBoolean();
+		upstream = (request, response) -> {
+			ServletInputStream input = request.getInputStream();
+			input.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					byte[] buffer = new byte[8];
+					while (input.isReady() && !input.isFinished()) {
+						read.write(buffer, 0, input.read(buffer));
+					}
+				}
+
+				@Override
+				public void onAllDataRead() {
+					allDataRead.set(true);
+				}
+
+				@Override
+				public void onError(Throwable error) {
+					throw new AssertionError(error);
+				}
+			});
+			((HttpServletResponse) response).setStatus(upstreamStatus);
+		};
+		String body = "[{\"eventId\":7,\"numberOfTickets\":2},{\"eventId\":8,\"numberOfTickets\":1}]";
+
+		assertThat(book("/api/booking/batch", body, null).getStatus()).isEqualTo(201);
+		assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(body);
+		assertThat(allDataRead).isTrue();
+	}
+
+	@Test
+	void overloadedBookingServiceSlowsAdmissionDown() throws Exception {
+		upstreamStatus = 503;
+		book("/api/booking", "{\"eventId\":7}", null);
+
+		assertThat(admissionRate.adjust()).isEqualTo(50);
+	}
+
+	private MockHttpServletResponse book(String path, String body, String admissionToken) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		if (admissionToken != null) {
+			request.addHeader(WaitingRoomFilter.ADMISSION_TOKEN_HEADER, admissionToken);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, upstream);
+		return response;
+	}
+}
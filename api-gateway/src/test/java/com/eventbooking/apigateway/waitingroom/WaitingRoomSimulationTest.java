@@ -0,0 +1,194 @@
+package com.eventbooking.apigateway.waitingroom;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WaitingRoomSimulationTest {
+
+	private static final long EVENT_ID = 42;
+	private static final int CLIENTS = 100_000;
+	private static final double TICK_SECONDS = 0.1;
+
+	private MeterRegistry meterRegistry;
+	private WaitingRoomStore store;
+	private AdmissionRateController admissionRate;
+	private WaitingRoom waitingRoom;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		store = new InMemoryWaitingRoomStore();
+		admissionRate = new AdmissionRateController(meterRegistry, 1000, 10, 5000, 100, 0.5, Duration.ofMillis(500));
+		waitingRoom = new WaitingRoom(store, admissionRate, meterRegistry, "secret", Duration.ofMinutes(10), 5, List.of(EVENT_ID));
+	}
+
+	@Test
+	void queuedClientsAreAdmittedInOrderAtTheRateBookingServiceTakes() {
+		List<QueueStatus> clients = IntStream.range(0, CLIENTS).parallel()
+				.mapToObj(i -> waitingRoom.join(EVENT_ID))
+				.sorted(Comparator.comparingLong(QueueStatus::position))
+				.toList();
+		assertThat(clients).extracting(QueueStatus::position)
+				.containsExactlyElementsOf(IntStream.rangeClosed(1, CLIENTS).asLongStream().boxed().toList());
+		assertThat(clients.get(CLIENTS - 1).etaSeconds()).isEqualTo(100);
+		assertThat(meterRegistry.get("gateway.waiting-room.waiting").gauge().value()).isEqualTo(CLIENTS);
+
+		// 10 s of healthy booking-service at 1000 clients per second
+		simulate(10, clients);
+		assertThat(store.admittedThrough(EVENT_ID)).isEqualTo(10_000);
+		assertThat(poll(clients.get(9_999)).admissionToken()).isNotNull();
+		assertThat(poll(clients.get(10_000)).position()).isEqualTo(1);
+
+		// booking-service starts shedding load: the admission rate halves
+		for (int i = 0; i < 100; i++) {
+			admissionRate.record(503, 0);
+		}
+		assertThat(admissionRate.adjust()).isEqualTo(500);
+		simulate(10, clients);
+		assertThat(store.admittedThrough(EVENT_ID)).isEqualTo(15_000);
+		assertThat(poll(clients.get(CLIENTS - 1)).etaSeconds()).isEqualTo(170);
+
+		// Recovered: the rate grows back while the queue drains
+		int seconds = 0;
+		while (store.admittedThrough(EVENT_ID) < CLIENTS) {
+			admissionRate.record(200, 0);
+			admissionRate.adjust();
+			simulate(1, clients);
+			seconds++;
+		}
+		assertThat(seconds).isLessThan(85);
+		assertThat(clients).allSatisfy(client -> assertThat(poll(client).admissionToken()).isNotNull());
+		assertThat(meterRegistry.get("gateway.waiting-room.admitted").counter().count()).isEqualTo(CLIENTS);
+	}
+
+	@Test
+	void idleRoomDoesNotSaveUpAdmissions() {
+		assertThat(waitingRoom.admit(60)).isZero();
+		IntStream.range(0, 1000).forEach(i -> waitingRoom.join(EVENT_ID));
+
+		assertThat(waitingRoom.admit(TICK_SECONDS)).isEqualTo(100);
+	}
+
+	@Test
+	void openRoomsShareTheAdmissionRate() {
+		waitingRoom.open(43);
+		IntStream.range(0, 1000).forEach(i -> {
+			waitingRoom.join(EVENT_ID);
+			waitingRoom.join(43);
+		});
+
+		waitingRoom.admit(1);
+
+		assertThat(store.admittedThrough(EVENT_ID)).isEqualTo(500);
+		assertThat(store.admittedThrough(43)).isEqualTo(500);
+	}
+
+	@Test
+	void admissionTokensOnlyAdmitToTheirEvent() {
+		waitingRoom.open(43);
+		QueueStatus client = waitingRoom.join(EVENT_ID);
+		assertThat(poll(client).admissionToken()).isNull();
+		waitingRoom.admit(1);
+		String token = poll(client).admissionToken();
+
+		assertThat(waitingRoom.isAdmitted(EVENT_ID, token)).isTrue();
+		assertThat(waitingRoom.isAdmitted(43, token)).isFalse();
+		assertThat(waitingRoom.isAdmitted(EVENT_ID, client.ticket())).isFalse();
+		assertThat(waitingRoom.isAdmitted(EVENT_ID, token.substring(0, token.length() - 2) + "AA")).isFalse();
+		assertThat(waitingRoom.isAdmitted(EVENT_ID, null)).isFalse();
+		assertThatThrownBy(() -> waitingRoom.status(43, client.ticket()))
+				.isInstanceOf(ResponseStatusException.class);
+	}
+
+	@Test
+	void pollingAgainReturnsTheSameAdmissionToken() throws InterruptedException {
+		QueueStatus client = waitingRoom.join(EVENT_ID);
+		waitingRoom.admit(1);
+		String token = poll(client).admissionToken();
+		Thread.sleep(5);
+
+		assertThat(poll(client).admissionToken()).isEqualTo(token);
+		assertThat(poll(waitingRoom.join(EVENT_ID)).admissionToken()).isNull();
+	}
+
+	@Test
+	void admissionExpiresAfterTheTokenLifetimeHoweverOftenTheClientPolls() {
+		WaitingRoom shortLived = new WaitingRoom(store, admissionRate, new SimpleMeterRegistry(), "secret", Duration.ZERO, 5, List.of());
+		QueueStatus client = shortLived.join(EVENT_ID);
+		shortLived.admit(1);
+
+		assertThatThrownBy(() -> poll(shortLived, client))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasMessageContaining("410")
+				.hasMessageContaining("expired");
+		// Forgotten on the next tick, and still not admitted again
+		shortLived.admit(1);
+		assertThat(store.admittedAt(EVENT_ID, client.position())).isEqualTo(-1);
+		assertThatThrownBy(() -> poll(shortLived, client)).isInstanceOf(ResponseStatusException.class);
+	}
+
+	@Test
+	void admissionTokenLetsThroughALimitedNumberOfBookings() {
+		QueueStatus client = waitingRoom.join(EVENT_ID);
+		QueueStatus other = waitingRoom.join(EVENT_ID);
+		waitingRoom.admit(1);
+		String token = poll(client).admissionToken();
+
+		for (int booking = 0; booking < 5; booking++) {
+			assertThat(waitingRoom.tryBook(EVENT_ID, token)).isTrue();
+		}
+		assertThat(waitingRoom.tryBook(EVENT_ID, token)).isFalse();
+		assertThat(waitingRoom.tryBook(EVENT_ID, poll(other).admissionToken())).isTrue();
+	}
+
+	@Test
+	void joiningAnEventWithoutWaitingRoomFails() {
+		assertThatThrownBy(() -> waitingRoom.join(7))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasMessageContaining("No waiting room is open for event 7");
+	}
+
+	/**
+	 * Runs the waiting room for some seconds, and checks after each second that a sample of the
+	 * clients polling their status are admitted in order.
+	 */
+	private void simulate(int seconds, List<QueueStatus> clients) {
+		Random random = new Random(seconds);
+		for (int second = 0; second < seconds; second++) {
+			for (int tick = 0; tick < 1 / TICK_SECONDS; tick++) {
+				waitingRoom.admit(TICK_SECONDS);
+			}
+			long admittedThrough = store.admittedThrough(EVENT_ID);
+			long previousEta = 0;
+			for (int sample = 0; sample < 1000; sample++) {
+				QueueStatus client = clients.get((int) (clients.size() * (long) sample / 1000 + random.nextInt(clients.size() / 1000)));
+				QueueStatus status = poll(client);
+				long sequence = client.position();
+				assertThat(status.admissionToken() != null).isEqualTo(sequence <= admittedThrough);
+				assertThat(status.position()).isEqualTo(Math.max(0, sequence - admittedThrough));
+				assertThat(status.etaSeconds()).isGreaterThanOrEqualTo(previousEta);
+				previousEta = status.etaSeconds();
+			}
+		}
+	}
+
+	private QueueStatus poll(QueueStatus client) {
+		return poll(waitingRoom, client);
+	}
+
+	private static QueueStatus poll(WaitingRoom waitingRoom, QueueStatus client) {
+		return waitingRoom.status(EVENT_ID, client.ticket());
+	}
+}
@@ -0,0 +1,117 @@
+package com.eventbooking.booking_service.config;
+
+import com.eventbooking.booking_service.event.BookingChangeEvent;
+import com.eventbooking.booking_service.event.EventChangeEvent;
+import com.eventbooking.common.saga.SagaReply;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * Creates a Kafka ConsumerFactory for consuming EventChangeEvent messages published by the event service.
+     * Only changes published after startup matter to the near cache, hence the latest offset reset.
+     *
+     * @return A ConsumerFactory configured with Kafka properties and deserializers.
+     */
+    @Bean
+    public ConsumerFactory<String, EventChangeEvent> eventChangeConsumerFactory(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        JsonDeserializer<EventChangeEvent> deserializer = new JsonDeserializer<>(EventChangeEvent.class);
+        deserializer.ignoreTypeHeaders();
+        deserializer.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EventChangeEvent> eventChangeListenerContainerFactory(
+            ConsumerFactory<String, EventChangeEvent> eventChangeConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, EventChangeEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(eventChangeConsumerFactory);
+        return factory;
+    }
+
+    /**
+     * Creates a Kafka ConsumerFactory for consuming the SagaReply messages of event-service and payment-service.
+     * Replies must all be processed, hence the earliest offset reset.
+     *
+     * @return A ConsumerFactory configured with Kafka properties and deserializers.
+     */
+    @Bean
+    public ConsumerFactory<String, SagaReply> sagaReplyConsumerFactory(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        JsonDeserializer<SagaReply> deserializer = new JsonDeserializer<>(SagaReply.class);
+        deserializer.ignoreTypeHeaders();
+        deserializer.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
+
+    /**
+     * Replies are keyed by saga, so throughput grows with the partitions of the reply topic
+     * up to {@code booking.saga.reply-concurrency} consumers per instance.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, SagaReply> sagaReplyListenerContainerFactory(
+            ConsumerFactory<String, SagaReply> sagaReplyConsumerFactory,
+            @Value("${booking.saga.reply-concurrency:3}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, SagaReply> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(sagaReplyConsumerFactory);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+
+    /**
+     * Creates a Kafka ConsumerFactory for consuming the BookingChangeEvent messages the read model is built from.
+     * Every change must be applied, hence the earliest offset reset.
+     *
+     * @return A ConsumerFactory configured with Kafka properties and deserializers.
+     */
+    @Bean
+    public ConsumerFactory<String, BookingChangeEvent> bookingChangeConsumerFactory(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        JsonDeserializer<BookingChangeEvent> deserializer = new JsonDeserializer<>(BookingChangeEvent.class);
+        deserializer.ignoreTypeHeaders();
+        deserializer.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
+
+    /**
+     * Changes are keyed by booking, so throughput grows with the partitions of the change topic
+     * up to {@code booking.read-model.concurrency} consumers per instance.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BookingChangeEvent> bookingChangeListenerContainerFactory(
+            ConsumerFactory<String, BookingChangeEvent> bookingChangeConsumerFactory,
+            @Value("${booking.read-model.concurrency:3}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, BookingChangeEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(bookingChangeConsumerFactory);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+}
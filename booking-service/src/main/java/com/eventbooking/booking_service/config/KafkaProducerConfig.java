@@ -1,14 +1,16 @@
 package com.eventbooking.booking_service.config;
 
-import com.eventbooking.booking_service.event.BookingEvent;
+import com.eventbooking.common.serialization.BookingEventCodec;
+import com.eventbooking.common.serialization.FileSchemaRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,17 +18,47 @@ import java.util.Map;
 @Configuration
 public class KafkaProducerConfig {
 
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    /**
+     * Creates the codec notifications are encoded with before being stored in the outbox.
+     *
+     * @return A BookingEventCodec writing the latest BookingEvent schema of the registry.
+     */
+    @Bean
+    public BookingEventCodec bookingEventCodec() {
+        return new BookingEventCodec(FileSchemaRegistry.defaultRegistry());
+    }
+
+    /**
+     * Creates the producer used by the outbox relay. Messages are already serialized in the outbox,
+     * and are sent in large idempotent, compressed batches.
+     *
+     * @return A ProducerFactory of binary messages.
+     */
     @Bean
-    public ProducerFactory<String, BookingEvent> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // No duplicates or reordering when the producer retries a batch
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        // Bounds how long the relay waits on an unreachable broker before retrying on the next poll
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 10_000);
+        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 10_000);
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30_000);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, BookingEvent> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 }
@@ -0,0 +1,25 @@
+package com.eventbooking.booking_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "true")
+public class ReactiveBookingConfig {
+
+    /**
+     * Creates the scheduler blocking JPA calls are offloaded to in reactive mode.
+     * It is sized to the connection pool so that queued calls wait here rather than on a connection.
+     *
+     * @return A bounded elastic Scheduler dedicated to JPA work.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jpaScheduler(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                  @Value("${booking.reactive.jpa-queue-size:10000}") int queueSize) {
+        return Schedulers.newBoundedElastic(poolSize, queueSize, "jpa");
+    }
+}
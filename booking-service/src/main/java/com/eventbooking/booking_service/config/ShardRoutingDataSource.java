@@ -0,0 +1,71 @@
+package com.eventbooking.booking_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * DataSource handing out connections to the shard selected on the current thread, or to the first
+ * shard when none is. A transaction keeps the connection it started with, so the shard must be
+ * selected before the transaction begins.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    /**
+     * Runs work with the connections of a shard.
+     *
+     * @param shard the index of the shard
+     * @param work the work
+     * @return the result of the work
+     */
+    public static <T> T callOn(int shard, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the index of the shard selected on the current thread, 0 if none is
+     */
+    public static int currentShard() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT_SHARD.get();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
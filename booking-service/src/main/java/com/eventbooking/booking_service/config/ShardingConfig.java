@@ -0,0 +1,62 @@
+package com.eventbooking.booking_service.config;
+
+import com.eventbooking.booking_service.entities.ShardedSequenceGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Configuration
+@ConditionalOnProperty(name = "booking.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    /**
+     * Creates a connection pool per shard, routed to by {@link ShardRoutingDataSource}. It replaces the
+     * {@code spring.datasource} one, so JPA, JdbcTemplate and the transaction manager go through it.
+     *
+     * @return The routing DataSource, on the first shard by default.
+     */
+    @Bean
+    public ShardRoutingDataSource dataSource(ShardingProperties properties) {
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        if (shards.isEmpty() || shards.size() > ShardedSequenceGenerator.MAX_SHARDS) {
+            throw new IllegalStateException("booking.sharding.shards must list 1 to "
+                    + ShardedSequenceGenerator.MAX_SHARDS + " shards, got " + shards.size());
+        }
+        Set<String> names = new HashSet<>();
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (ShardingProperties.Shard shard : shards) {
+            if (shard.getName() == null || !names.add(shard.getName())) {
+                throw new IllegalStateException("Every shard needs a name of its own, got " + shard.getName());
+            }
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(shard.getDriverClassName())
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            pool.setPoolName("booking-" + shard.getName());
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            pools.add(pool);
+        }
+        return new ShardRoutingDataSource(pools);
+    }
+
+    /**
+     * Turns the bucket of bookings into their IDs.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardedIds() {
+        return hibernateProperties -> hibernateProperties.put(ShardedSequenceGenerator.SHARDED, true);
+    }
+}
@@ -0,0 +1,44 @@
+package com.eventbooking.booking_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Databases bookings are sharded over, under {@code booking.sharding}. The first shard also holds the
+ * tables that are not sharded. Shards are only ever appended: the position of a shard in the list
+ * picks the range of its booking IDs.
+ */
+@Data
+@ConfigurationProperties("booking.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * Points of each shard on the hash ring
+     */
+    private int virtualNodes = 128;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        /**
+         * Placed on the hash ring, so renaming a shard moves its buckets
+         */
+        private String name;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private String driverClassName;
+
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,7 @@
+package com.eventbooking.booking_service.constants;
+
+public enum BookingChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+}
@@ -0,0 +1,24 @@
+package com.eventbooking.booking_service.constants;
+
+public enum BookingStatus {
+    /**
+     * Created by the booking saga, waiting for the event service to reserve the seats
+     */
+    PENDING,
+    /**
+     * The seats are reserved until the hold expires, waiting for payment
+     */
+    HELD,
+    /**
+     * Paid for; the seats are the user's
+     */
+    CONFIRMED,
+    /**
+     * Not paid for in time; the seats went back to the event inventory
+     */
+    EXPIRED,
+    /**
+     * The booking saga could not reserve the seats or take the payment
+     */
+    FAILED,
+}
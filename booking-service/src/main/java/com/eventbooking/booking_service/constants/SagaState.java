@@ -0,0 +1,28 @@
+package com.eventbooking.booking_service.constants;
+
+public enum SagaState {
+    /**
+     * The seat reservation was requested from the event service
+     */
+    RESERVING_SEATS,
+    /**
+     * The seats are reserved and the payment was requested from the payment service
+     */
+    TAKING_PAYMENT,
+    /**
+     * The payment was taken and the booking confirmed
+     */
+    COMPLETED,
+    /**
+     * The seats could not be reserved; there is nothing to undo
+     */
+    FAILED,
+    /**
+     * A step failed or timed out and the seats are being released
+     */
+    COMPENSATING,
+    /**
+     * The seats were released after a failure
+     */
+    COMPENSATED,
+}
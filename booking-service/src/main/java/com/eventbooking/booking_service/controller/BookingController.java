@@ -1,11 +1,22 @@
 package com.eventbooking.booking_service.controller;
 
+import com.eventbooking.booking_service.dto.BatchBookingResultDto;
 import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.BookingViewDto;
+import com.eventbooking.booking_service.dto.PageDto;
+import com.eventbooking.booking_service.services.BookingQueryService;
+import com.eventbooking.booking_service.services.BookingSagaOrchestrator;
 import com.eventbooking.booking_service.services.BookingService;
+import com.eventbooking.serviceclient.idempotency.IdempotencyService;
+import com.eventbooking.serviceclient.loadshedding.LoadPriority;
+import com.eventbooking.serviceclient.loadshedding.RequestPriority;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,8 +24,12 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/booking")
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "false", matchIfMissing = true)
 public class BookingController {
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
+    private final BookingSagaOrchestrator bookingSagaOrchestrator;
+    private final BookingQueryService bookingQueryService;
 
     /**
      * Retrieves a list of all bookings.
@@ -22,23 +37,110 @@ public class BookingController {
      * @return A ResponseEntity containing a list of BookingDto objects and an HTTP status of FOUND (302).
      */
     @GetMapping
+    @LoadPriority(RequestPriority.LOW)
     @ResponseStatus(HttpStatus.FOUND)
     public ResponseEntity<List<BookingDto>> getAllBookings() {
         var result = bookingService.getAllBookings();
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Retrieves a page of bookings in ID order.
+     *
+     * @param afterId The ID of the last booking of the previous page, 0 for the first page.
+     * @param size The maximum number of bookings to return.
+     * @return A ResponseEntity containing the PageDto of bookings and an HTTP status of OK (200).
+     */
+    @GetMapping(params = "size")
+    @LoadPriority(RequestPriority.LOW)
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<PageDto<BookingDto>> getBookingsPage(@RequestParam(defaultValue = "0") Long afterId,
+                                                               @RequestParam int size) {
+        var result = bookingService.getBookingsPage(afterId, size);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Retrieves a page of the bookings of a user, with the details of their events, from the read model.
+     *
+     * @param userName The name of the user.
+     * @param afterId The ID of the last booking of the previous page, 0 for the first page.
+     * @param size The maximum number of bookings to return.
+     * @return A ResponseEntity containing the PageDto of bookings and an HTTP status of OK (200).
+     */
+    @GetMapping("/user/{userName}")
+    @LoadPriority(RequestPriority.LOW)
+    public ResponseEntity<PageDto<BookingViewDto>> getBookingsOfUser(@PathVariable String userName,
+                                                                     @RequestParam(defaultValue = "0") Long afterId,
+                                                                     @RequestParam(defaultValue = "100") int size) {
+        var result = bookingQueryService.getBookingsOfUser(userName, afterId, size);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Retrieves a page of the bookings of an event from the read model.
+     *
+     * @param eventId The ID of the event.
+     * @param afterId The ID of the last booking of the previous page, 0 for the first page.
+     * @param size The maximum number of bookings to return.
+     * @return A ResponseEntity containing the PageDto of bookings and an HTTP status of OK (200).
+     */
+    @GetMapping("/event/{eventId}")
+    @LoadPriority(RequestPriority.LOW)
+    public ResponseEntity<PageDto<BookingViewDto>> getBookingsOfEvent(@PathVariable Long eventId,
+                                                                      @RequestParam(defaultValue = "0") Long afterId,
+                                                                      @RequestParam(defaultValue = "100") int size) {
+        var result = bookingQueryService.getBookingsOfEvent(eventId, afterId, size);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Streams all bookings as newline-delimited JSON, one booking per line, without loading them all in memory.
+     *
+     * @return A ResponseEntity whose body writes the bookings as they are read from the database.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @LoadPriority(value = RequestPriority.LOW, sampled = false)
+    public ResponseEntity<StreamingResponseBody> streamAllBookings() {
+        StreamingResponseBody body = bookingService::streamAllBookings;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Creates a new booking.
+     * When {@code booking.saga.enabled} is true, the booking is only recorded as PENDING and the response
+     * status is ACCEPTED (202); the booking saga then reserves the seats and takes the payment asynchronously.
      *
+     * @param idempotencyKey Optional key of the request; a retry with the same key gets the response of the first attempt.
      * @param bookingDto The BookingDto object containing the booking details.
      * @return A ResponseEntity containing the created BookingDto object and an HTTP status of CREATED (201).
      */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<BookingDto> createBooking(@RequestBody BookingDto bookingDto) {
-        var result = bookingService.createBooking(bookingDto);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<BookingDto> createBooking(@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                    @RequestBody BookingDto bookingDto) {
+        return idempotencyService.execute(idempotencyKey, bookingDto, BookingDto.class,
+                () -> bookingSagaOrchestrator.isEnabled()
+                        ? ResponseEntity.status(HttpStatus.ACCEPTED).body(bookingSagaOrchestrator.start(bookingDto))
+                        : ResponseEntity.ok(bookingService.createBooking(bookingDto)));
+    }
+
+    /**
+     * Creates a batch of bookings, for partners booking many tickets at once.
+     *
+     * @param idempotencyKey Optional key of the request; a retry with the same key gets the response of the first attempt.
+     * @param bookingDtos The BookingDto objects containing the booking details.
+     * @return A ResponseEntity containing the outcome of each booking and an HTTP status of CREATED (201).
+     */
+    @PostMapping("/batch")
+    @LoadPriority(RequestPriority.LOW)
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<BatchBookingResultDto> createBookings(@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                @RequestBody List<BookingDto> bookingDtos) {
+        return idempotencyService.execute(idempotencyKey, bookingDtos, BatchBookingResultDto.class,
+                () -> ResponseEntity.ok(bookingService.createBookings(bookingDtos)));
     }
 
     /**
@@ -48,12 +150,26 @@ public class BookingController {
      * @return A ResponseEntity containing the BookingDto object if found, wrapped in an Optional, and an HTTP status of FOUND (302).
      */
     @GetMapping("/{bookingId}")
+    @LoadPriority(RequestPriority.LOW)
     @ResponseStatus(HttpStatus.FOUND)
     public ResponseEntity<Optional<BookingDto>> getBookingById(@PathVariable Long bookingId) {
         var result = bookingService.getBookingById(bookingId);
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Confirms a held booking once it is paid for.
+     *
+     * @param id The ID of the booking to confirm.
+     * @return A ResponseEntity containing the confirmed BookingDto and an HTTP status of OK (200).
+     */
+    @PutMapping("/confirm/{id}")
+    @LoadPriority(RequestPriority.CRITICAL)
+    public ResponseEntity<BookingDto> confirmBooking(@PathVariable Long id) {
+        var result = bookingService.confirmBooking(id);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Cancels a booking by its ID.
      *
@@ -61,6 +177,7 @@ public class BookingController {
      * @return A ResponseEntity containing a cancellation confirmation message and an HTTP status of OK (200).
      */
     @PutMapping("/cancel/{id}")
+    @LoadPriority(RequestPriority.CRITICAL)
     public ResponseEntity<String> cancelBooking(@PathVariable Long id) {
         var result = bookingService.cancelBooking(id);
         return ResponseEntity.ok(result);
@@ -0,0 +1,209 @@
+package com.eventbooking.booking_service.controller;
+
+import com.eventbooking.booking_service.dto.BatchBookingResultDto;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.BookingViewDto;
+import com.eventbooking.booking_service.dto.PageDto;
+import com.eventbooking.booking_service.services.BookingQueryService;
+import com.eventbooking.booking_service.services.BookingSagaOrchestrator;
+import com.eventbooking.booking_service.services.BookingService;
+import com.eventbooking.booking_service.services.ReactiveBookingService;
+import com.eventbooking.serviceclient.idempotency.IdempotencyService;
+import com.eventbooking.serviceclient.loadshedding.LoadPriority;
+import com.eventbooking.serviceclient.loadshedding.RequestPriority;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reactive variant of {@link BookingController}, serving the same API when {@code booking.reactive.enabled} is true.
+ * Handlers return a Mono, so the request thread is released while the booking pipeline runs.
+ */
+@RestController
+@RequestMapping("/api/booking")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "true")
+public class ReactiveBookingController {
+    private final BookingService bookingService;
+    private final ReactiveBookingService reactiveBookingService;
+    private final IdempotencyService idempotencyService;
+    private final BookingSagaOrchestrator bookingSagaOrchestrator;
+    private final BookingQueryService bookingQueryService;
+
+    /**
+     * Retrieves a list of all bookings.
+     *
+     * @return A Mono of ResponseEntity containing a list of BookingDto objects.
+     */
+    @GetMapping
+    @LoadPriority(RequestPriority.LOW)
+    @ResponseStatus(HttpStatus.FOUND)
+    public Mono<ResponseEntity<List<BookingDto>>> getAllBookings() {
+        return reactiveBookingService.offload(bookingService::getAllBookings)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.ok(null));
+    }
+
+    /**
+     * Retrieves a page of bookings in ID order.
+     *
+     * @param afterId The ID of the last booking of the previous page, 0 for the first page.
+     * @param size The maximum number of bookings to return.
+     * @return A Mono of ResponseEntity containing the PageDto of bookings.
+     */
+    @GetMapping(params = "size")
+    @LoadPriority(RequestPriority.LOW)
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<ResponseEntity<PageDto<BookingDto>>> getBookingsPage(@RequestParam(defaultValue = "0") Long afterId,
+                                                                     @RequestParam int size) {
+        return reactiveBookingService.offload(() -> bookingService.getBookingsPage(afterId, size))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Retrieves a page of the bookings of a user, with the details of their events, from the read model.
+     *
+     * @param userName The name of the user.
+     * @param afterId The ID of the last booking of the previous page, 0 for the first page.
+     * @param size The maximum number of bookings to return.
+     * @return A Mono of ResponseEntity containing the PageDto of bookings.
+     */
+    @GetMapping("/user/{userName}")
+    @LoadPriority(RequestPriority.LOW)
+    public Mono<ResponseEntity<PageDto<BookingViewDto>>> getBookingsOfUser(@PathVariable String userName,
+                                                                           @RequestParam(defaultValue = "0") Long afterId,
+                                                                           @RequestParam(defaultValue = "100") int size) {
+        return reactiveBookingService.offload(() -> bookingQueryService.getBookingsOfUser(userName, afterId, size))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Retrieves a page of the bookings of an event from the read model.
+     *
+     * @param eventId The ID of the event.
+     * @param afterId The ID of the last booking of the previous page, 0 for the first page.
+     * @param size The maximum number of bookings to return.
+     * @return A Mono of ResponseEntity containing the PageDto of bookings.
+     */
+    @GetMapping("/event/{eventId}")
+    @LoadPriority(RequestPriority.LOW)
+    public Mono<ResponseEntity<PageDto<BookingViewDto>>> getBookingsOfEvent(@PathVariable Long eventId,
+                                                                            @RequestParam(defaultValue = "0") Long afterId,
+                                                                            @RequestParam(defaultValue = "100") int size) {
+        return reactiveBookingService.offload(() -> bookingQueryService.getBookingsOfEvent(eventId, afterId, size))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Streams all bookings as newline-delimited JSON, one booking per line, without loading them all in memory.
+     *
+     * @return A ResponseEntity whose body writes the bookings as they are read from the database.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @LoadPriority(value = RequestPriority.LOW, sampled = false)
+    public ResponseEntity<StreamingResponseBody> streamAllBookings() {
+        StreamingResponseBody body = bookingService::streamAllBookings;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Creates a new booking.
+     *
+     * Requests with an Idempotency-Key header are handled on the bounded elastic scheduler,
+     * as the key store blocks. When {@code booking.saga.enabled} is true, the booking is only
+     * recorded as PENDING and completed asynchronously by the booking saga.
+     *
+     * @param idempotencyKey Optional key of the request; a retry with the same key gets the response of the first attempt.
+     * @param bookingDto The BookingDto object containing the booking details.
+     * @return A Mono of ResponseEntity containing the created BookingDto object.
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<ResponseEntity<BookingDto>> createBooking(@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                          @RequestBody BookingDto bookingDto) {
+        Mono<ResponseEntity<BookingDto>> create = bookingSagaOrchestrator.isEnabled()
+                ? reactiveBookingService.offload(() -> bookingSagaOrchestrator.start(bookingDto))
+                        .map(booking -> ResponseEntity.status(HttpStatus.ACCEPTED).body(booking))
+                : reactiveBookingService.createBooking(bookingDto)
+                        .map(ResponseEntity::ok);
+        if (idempotencyKey == null) {
+            return create;
+        }
+        return Mono.fromCallable(() -> idempotencyService.execute(idempotencyKey, bookingDto, BookingDto.class, create::block))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Creates a batch of bookings, for partners booking many tickets at once.
+     *
+     * @param idempotencyKey Optional key of the request; a retry with the same key gets the response of the first attempt.
+     * @param bookingDtos The BookingDto objects containing the booking details.
+     * @return A Mono of ResponseEntity containing the outcome of each booking.
+     */
+    @PostMapping("/batch")
+    @LoadPriority(RequestPriority.LOW)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<ResponseEntity<BatchBookingResultDto>> createBookings(@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                      @RequestBody List<BookingDto> bookingDtos) {
+        return reactiveBookingService.offload(() -> idempotencyService.execute(idempotencyKey, bookingDtos, BatchBookingResultDto.class,
+                () -> ResponseEntity.ok(bookingService.createBookings(bookingDtos))));
+    }
+
+    /**
+     * Retrieves a booking by its ID.
+     *
+     * @param bookingId The ID of the booking to retrieve.
+     * @return A Mono of ResponseEntity containing the BookingDto object if found, wrapped in an Optional.
+     */
+    @GetMapping("/{bookingId}")
+    @LoadPriority(RequestPriority.LOW)
+    @ResponseStatus(HttpStatus.FOUND)
+    public Mono<ResponseEntity<Optional<BookingDto>>> getBookingById(@PathVariable Long bookingId) {
+        return reactiveBookingService.offload(() -> bookingService.getBookingById(bookingId))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Confirms a held booking once it is paid for.
+     *
+     * @param id The ID of the booking to confirm.
+     * @return A Mono of ResponseEntity containing the confirmed BookingDto.
+     */
+    @PutMapping("/confirm/{id}")
+    @LoadPriority(RequestPriority.CRITICAL)
+    public Mono<ResponseEntity<BookingDto>> confirmBooking(@PathVariable Long id) {
+        return reactiveBookingService.offload(() -> bookingService.confirmBooking(id))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Cancels a booking by its ID.
+     *
+     * @param id The ID of the booking to cancel.
+     * @return A Mono of ResponseEntity containing a cancellation confirmation message.
+     */
+    @PutMapping("/cancel/{id}")
+    @LoadPriority(RequestPriority.CRITICAL)
+    public Mono<ResponseEntity<String>> cancelBooking(@PathVariable Long id) {
+        return reactiveBookingService.cancelBooking(id)
+                .map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{bookingId}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<ResponseEntity<String>> deleteBooking(@PathVariable Long bookingId) {
+        return reactiveBookingService.offload(() -> bookingService.deleteBooking(bookingId))
+                .map(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,29 @@
+package com.eventbooking.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class BatchBookingItemDto {
+    /**
+     * Position of the booking in the batch request
+     */
+    private int index;
+    /**
+     * State if the booking was created
+     */
+    private boolean created;
+    /**
+     * The created booking, when created
+     */
+    private BookingDto booking;
+    /**
+     * Why the booking was not created, when not created
+     */
+    private String error;
+}
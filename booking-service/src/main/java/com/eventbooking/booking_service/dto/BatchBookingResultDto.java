@@ -0,0 +1,27 @@
+package com.eventbooking.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class BatchBookingResultDto {
+    /**
+     * Number of bookings created
+     */
+    private int created;
+    /**
+     * Number of bookings rejected
+     */
+    private int failed;
+    /**
+     * Outcome of each booking, in request order
+     */
+    private List<BatchBookingItemDto> items;
+}
@@ -1,5 +1,6 @@
 package com.eventbooking.booking_service.dto;
 
+import com.eventbooking.booking_service.constants.BookingStatus;
 import com.eventbooking.booking_service.constants.TicketType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -43,5 +44,13 @@ public class BookingDto {
      * Time when user booked
      */
     private LocalDateTime bookingTime;
+    /**
+     * Whether the booking is held, confirmed by a payment or expired
+     */
+    private BookingStatus status;
+    /**
+     * Time until which a held booking waits for its payment
+     */
+    private LocalDateTime holdExpiresAt;
 
 }
@@ -0,0 +1,62 @@
+package com.eventbooking.booking_service.dto;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A booking with the details of its event, as listed from the read model.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class BookingViewDto {
+    /**
+     * Id of the Booking
+     */
+    private Long id;
+    /**
+     * Id of the event
+     */
+    private Long eventId;
+    /**
+     * Name of the event, null if it could not be looked up yet
+     */
+    private String eventName;
+    /**
+     * The date when the event is schedule
+     */
+    private LocalDate eventDate;
+    /**
+     * The place where the event will happen
+     */
+    private String eventLocation;
+    /**
+     * Username of the user who booked
+     */
+    private String userName;
+    /**
+     * Number of tickets booked
+     */
+    private Integer numberOfTickets;
+
+    private BigDecimal totalAmount;
+
+    private TicketType ticketType;
+
+    private boolean isCancelled;
+
+    private LocalDateTime bookingTime;
+
+    private BookingStatus status;
+
+    private LocalDateTime holdExpiresAt;
+}
@@ -0,0 +1,39 @@
+package com.eventbooking.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryDto {
+    private Long eventId;
+
+    /**
+     * The number of tickets to reserve or release
+     */
+    private Integer quantity;
+
+    /**
+     * The user reserving or releasing the tickets
+     */
+    private String userName;
+
+    /**
+     * The tickets still available once the operation was applied
+     */
+    private Integer ticketsAvailable;
+
+    /**
+     * Whether the operation was applied by the event service
+     */
+    private Boolean applied;
+
+    /**
+     * Why the operation was not applied
+     */
+    private String message;
+}
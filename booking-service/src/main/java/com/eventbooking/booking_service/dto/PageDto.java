@@ -0,0 +1,28 @@
+package com.eventbooking.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of a keyset-paginated listing, ordered by ID.
+ *
+ * @param <T> the type of the items
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class PageDto<T> {
+    /**
+     * Items of the page
+     */
+    private List<T> items;
+    /**
+     * ID to pass as afterId to fetch the next page, or null on the last page
+     */
+    private Long nextAfterId;
+}
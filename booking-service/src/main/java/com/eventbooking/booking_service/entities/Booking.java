@@ -1,8 +1,10 @@
 package com.eventbooking.booking_service.entities;
 
+import com.eventbooking.booking_service.constants.BookingStatus;
 import com.eventbooking.booking_service.constants.TicketType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,12 +15,19 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "booking")
+@Table(name = "booking", indexes = {
+        @Index(name = "idx_booking_event_id", columnList = "event_id"),
+        @Index(name = "idx_booking_username", columnList = "username"),
+        @Index(name = "idx_booking_status_id", columnList = "status, id")
+})
 public class Booking {
+    public static final String SEQUENCE = "sequence_generator";
 
+    /**
+     * Tells the storage shard of the booking once bookings are sharded by event
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @ShardedSequence(sequenceName = SEQUENCE, shardKey = "eventId")
     private Long id;
 
     @Column(name = "event_id", nullable = false)
@@ -43,6 +52,26 @@ public class Booking {
     @Column(name = "is_cancelled", nullable = false)
     private boolean isCancelled;
 
+    /**
+     * Null for bookings made before holds were introduced, which are confirmed
+     */
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+
+    /**
+     * When an unpaid hold releases its seats, null once the booking is no longer held
+     */
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
+    /**
+     * Incremented by each change published to the read model, while the booking is locked
+     */
+    @Column(name = "revision", nullable = false)
+    @ColumnDefault("0")
+    private long revision;
+
     @PrePersist()
     protected void onCreate() {
         bookingTime = LocalDateTime.now();
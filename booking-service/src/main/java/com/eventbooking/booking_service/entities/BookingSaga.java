@@ -0,0 +1,53 @@
+package com.eventbooking.booking_service.entities;
+
+import com.eventbooking.booking_service.constants.SagaState;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the saga creating a booking, which shares the ID of the booking.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "booking_saga", indexes = @Index(name = "idx_booking_saga_deadline", columnList = "deadline"))
+public class BookingSaga {
+
+    @Id
+    private Long id;
+
+    @Column(name = "state", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SagaState state;
+
+    /**
+     * When the current step times out, null once the saga is over
+     */
+    @Column(name = "deadline")
+    private LocalDateTime deadline;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist()
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate()
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,94 @@
+package com.eventbooking.booking_service.entities;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A booking as seen by the read side, denormalised with the details of its event and indexed for
+ * listing the bookings of a user or of an event. Maintained by the booking projector from the
+ * booking changes, never written by the booking flows themselves.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "booking_view", indexes = {
+        @Index(name = "idx_booking_view_user", columnList = "username, booking_id"),
+        @Index(name = "idx_booking_view_event", columnList = "event_id, booking_id")
+})
+public class BookingView {
+
+    @Id
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "username", nullable = false)
+    private String userName;
+
+    @Column(name = "number_of_tickets", nullable = false)
+    private Integer numberOfTickets;
+
+    @Column(name = "price")
+    private BigDecimal totalAmount;
+
+    @Column(name = "ticket_type")
+    @Enumerated(EnumType.STRING)
+    private TicketType ticketType;
+
+    @Column(name = "is_cancelled", nullable = false)
+    private boolean isCancelled;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+
+    @Column(name = "booking_time")
+    private LocalDateTime bookingTime;
+
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
+    /**
+     * Null while the event service could not be reached, filled in by the next change of the booking or event
+     */
+    @Column(name = "event_name")
+    private String eventName;
+
+    @Column(name = "event_date")
+    private LocalDate eventDate;
+
+    @Column(name = "event_location")
+    private String eventLocation;
+
+    /**
+     * When the last change applied to this row was committed on the write side
+     */
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    /**
+     * The revision of the booking the last change applied to this row was made at
+     */
+    @Column(name = "revision", nullable = false)
+    @ColumnDefault("0")
+    private long revision;
+
+    /**
+     * True once the booking is deleted; the row is kept so that older changes are not applied again
+     */
+    @Column(name = "deleted", nullable = false)
+    @ColumnDefault("false")
+    private boolean deleted;
+}
@@ -0,0 +1,21 @@
+package com.eventbooking.booking_service.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Row locked by the outbox relay while it relays a batch, so that the relays of all instances take turns.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "booking_outbox_lock")
+public class OutboxLock {
+    public static final String RELAY = "relay";
+
+    @Id
+    @Column(name = "name")
+    private String name;
+}
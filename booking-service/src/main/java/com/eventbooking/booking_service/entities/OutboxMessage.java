@@ -0,0 +1,48 @@
+package com.eventbooking.booking_service.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Kafka message waiting to be relayed, written in the same transaction as the booking change it reports.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "booking_outbox")
+public class OutboxMessage {
+    public static final String SEQUENCE = "outbox_sequence_generator";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outboxSequenceGenerator")
+    @SequenceGenerator(name = "outboxSequenceGenerator", sequenceName = SEQUENCE, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    /**
+     * Id of the schema the payload is encoded with, sent in the schema-id header
+     */
+    @Column(name = "schema_id")
+    private Integer schemaId;
+
+    @Column(name = "payload", nullable = false, length = 4000)
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist()
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
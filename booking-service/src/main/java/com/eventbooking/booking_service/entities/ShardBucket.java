@@ -0,0 +1,45 @@
+package com.eventbooking.booking_service.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The shard a bucket of bookings is stored on. The first shard holds the row of every bucket once bookings
+ * are sharded, and each shard also holds the rows of the buckets it stores or stored, which the work on their
+ * bookings locks to check that they are still stored there.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "shard_bucket")
+public class ShardBucket {
+
+    @Id
+    private Integer bucket;
+
+    /**
+     * Name of the shard
+     */
+    @Column(name = "shard", nullable = false)
+    private String shard;
+
+    /**
+     * Name of the shard the bucket is being moved to, set on the shard it is moved from until the move completes
+     */
+    @Column(name = "moving_to")
+    private String movingTo;
+
+    @Column(name = "assigned_at", nullable = false)
+    private LocalDateTime assignedAt;
+
+    @PrePersist()
+    @PreUpdate()
+    protected void onAssign() {
+        assignedAt = LocalDateTime.now();
+    }
+}
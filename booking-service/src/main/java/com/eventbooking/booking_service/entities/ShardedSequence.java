@@ -0,0 +1,33 @@
+package com.eventbooking.booking_service.entities;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates an ID from a database sequence, which also tells the storage shard of the entity once
+ * bookings are sharded. See {@link ShardedSequenceGenerator}.
+ */
+@IdGeneratorType(ShardedSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ShardedSequence {
+
+    /**
+     * @return the name of the database sequence
+     */
+    String sequenceName();
+
+    /**
+     * @return the IDs allocated per sequence call, the increment of the sequence
+     */
+    int allocationSize() default 50;
+
+    /**
+     * @return the attribute hashed to the bucket of the entity
+     */
+    String shardKey();
+}
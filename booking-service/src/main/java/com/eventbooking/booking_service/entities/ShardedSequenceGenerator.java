@@ -0,0 +1,101 @@
+package com.eventbooking.booking_service.entities;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * Generator of {@link ShardedSequence} IDs.
+ * <p>
+ * Unsharded, an ID is the value allocated from the sequence, as with a plain sequence generator. Once
+ * {@value #SHARDED} is set, the entity is stored in one of {@value #BUCKETS} buckets, picked by hashing
+ * its shard key, and its ID is the sequence value times {@value #BUCKETS} plus its bucket, so that the
+ * shard of an entity is found from its ID alone. The sequence of each shard hands out its own range
+ * of values, from {@link #firstSequenceValue(int)}, so that IDs stay unique over all shards whichever
+ * shard the sequence was read from. </p>
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+    /**
+     * Hibernate setting turning the bucket into IDs
+     */
+    public static final String SHARDED = "booking.sharding.enabled";
+    public static final int BUCKETS = 1024;
+    public static final int MAX_SHARDS = 64;
+    /**
+     * Sequence values of each shard, keeping IDs below 2^63
+     */
+    private static final long SEQUENCE_RANGE = (Long.MAX_VALUE / BUCKETS) / MAX_SHARDS;
+
+    private final ShardedSequence config;
+    private boolean sharded;
+
+    public ShardedSequenceGenerator(ShardedSequence config, Member member, CustomIdGeneratorCreationContext context) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.setProperty(SEQUENCE_PARAM, config.sequenceName());
+        parameters.setProperty(OptimizableGenerator.INCREMENT_PARAM, Integer.toString(config.allocationSize()));
+        this.sharded = ConfigurationHelper.getBoolean(SHARDED,
+                serviceRegistry.requireService(ConfigurationService.class).getSettings(), false);
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner) {
+        long value = ((Number) super.generate(session, owner)).longValue();
+        if (!sharded) {
+            return value;
+        }
+        Object shardKey = session.getEntityPersister(null, owner).getPropertyValue(owner, config.shardKey());
+        return value * BUCKETS + bucketOf(((Number) shardKey).longValue());
+    }
+
+    /**
+     * IDs are computed from the sequence, they cannot be generated in an insert-select.
+     */
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return false;
+    }
+
+    /**
+     * @param shardKey the shard key of an entity
+     * @return the bucket of the entity
+     */
+    public static int bucketOf(long shardKey) {
+        // Finalizer of MurmurHash3, so that consecutive keys spread over the buckets
+        long hash = shardKey;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) BUCKETS);
+    }
+
+    /**
+     * @param id an ID generated sharded
+     * @return the bucket of its entity
+     */
+    public static int bucketOfId(long id) {
+        return (int) Math.floorMod(id, (long) BUCKETS);
+    }
+
+    /**
+     * @param shard the index of a shard, below {@value #MAX_SHARDS}
+     * @return the first value the sequence of the shard hands out
+     */
+    public static long firstSequenceValue(int shard) {
+        return shard * SEQUENCE_RANGE + 1;
+    }
+}
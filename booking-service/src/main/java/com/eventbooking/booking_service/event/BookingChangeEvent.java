@@ -0,0 +1,41 @@
+package com.eventbooking.booking_service.event;
+
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The state of a booking after a change, published on the booking-changes topic to maintain the read model.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BookingChangeEvent {
+    private Long bookingId;
+    private BookingChangeType changeType;
+    private Long eventId;
+    private String userName;
+    private Integer numberOfTickets;
+    private TicketType ticketType;
+    private BigDecimal totalAmount;
+    private boolean cancelled;
+    private BookingStatus status;
+    private LocalDateTime bookingTime;
+    private LocalDateTime holdExpiresAt;
+    /**
+     * When the change was committed, to measure how far the read model lags behind
+     */
+    private LocalDateTime changedAt;
+    /**
+     * The revision of the booking after the change, increasing with each change of the booking
+     */
+    private long revision;
+}
@@ -1,23 +0,0 @@
-package com.eventbooking.booking_service.event;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.math.BigDecimal;
-import java.time.LocalDate;
-
-@Builder
-@AllArgsConstructor
-@NoArgsConstructor
-@Data
-public class BookingEvent {
-    private String eventName;
-    private LocalDate eventDate;
-    private String eventLocation;
-    private String userName;
-    private String ticketType;
-    private Integer numberOfTicket;
-    private BigDecimal paymentAmount;
-}
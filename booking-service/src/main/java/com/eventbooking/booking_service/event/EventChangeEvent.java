@@ -0,0 +1,23 @@
+package com.eventbooking.booking_service.event;
+
+import com.eventbooking.booking_service.constants.EventChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EventChangeEvent {
+    private Long eventId;
+    private EventChangeType changeType;
+    private String name;
+    private String location;
+    private LocalDate date;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package com.eventbooking.booking_service.exceptionshandller;
+
+public class BatchSizeExceededException extends RuntimeException {
+    public BatchSizeExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.eventbooking.booking_service.exceptionshandller;
+
+public class BookingHoldExpiredException extends RuntimeException {
+    public BookingHoldExpiredException(String message) {
+        super(message);
+    }
+}
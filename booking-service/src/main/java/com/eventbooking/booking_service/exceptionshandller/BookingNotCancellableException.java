@@ -0,0 +1,7 @@
+package com.eventbooking.booking_service.exceptionshandller;
+
+public class BookingNotCancellableException extends RuntimeException {
+    public BookingNotCancellableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.eventbooking.booking_service.exceptionshandller;
+
+public class BucketMovingException extends RuntimeException {
+    public BucketMovingException(String message) {
+        super(message);
+    }
+}
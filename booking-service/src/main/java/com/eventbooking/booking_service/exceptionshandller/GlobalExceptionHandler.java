@@ -1,5 +1,10 @@
 package com.eventbooking.booking_service.exceptionshandller;
 
+import com.eventbooking.serviceclient.ServiceClientException;
+import com.eventbooking.serviceclient.idempotency.IdempotencyKeyInProgressException;
+import com.eventbooking.serviceclient.idempotency.IdempotencyKeyReusedException;
+import com.eventbooking.serviceclient.loadshedding.ServiceOverloadedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -29,6 +34,69 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(TicketsUnavailableException.class)
+    public ResponseEntity<Object> handleTicketsUnavailable(TicketsUnavailableException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ResponseEntity<Object> handleBatchSizeExceeded(BatchSizeExceededException ex){
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(BookingHoldExpiredException.class)
+    public ResponseEntity<Object> handleBookingHoldExpired(BookingHoldExpiredException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(BookingNotCancellableException.class)
+    public ResponseEntity<Object> handleBookingNotCancellable(BookingNotCancellableException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex){
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(
+                new ErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(ServiceClientException.class)
+    public ResponseEntity<Object> handleServiceClient(ServiceClientException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(BucketMovingException.class)
+    public ResponseEntity<Object> handleBucketMoving(BucketMovingException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleServiceOverloaded(ServiceOverloadedException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage()));
+    }
+
     public static class ErrorResponse {
         private int status;
         private String message;
@@ -0,0 +1,7 @@
+package com.eventbooking.booking_service.exceptionshandller;
+
+public class TicketsUnavailableException extends RuntimeException {
+    public TicketsUnavailableException(String message) {
+        super(message);
+    }
+}
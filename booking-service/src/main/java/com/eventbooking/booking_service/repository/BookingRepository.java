@@ -1,10 +1,89 @@
 package com.eventbooking.booking_service.repository;
 
+import com.eventbooking.booking_service.constants.BookingStatus;
 import com.eventbooking.booking_service.entities.Booking;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> { }
+public interface BookingRepository extends JpaRepository<Booking, Long> {
+
+    /**
+     * Finds the next page of bookings after a given ID, seeking on the primary key index.
+     *
+     * @param afterId the ID of the last booking of the previous page
+     * @param limit the maximum number of bookings to return
+     * @return the bookings with an ID greater than afterId, in ID order
+     */
+    List<Booking> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Streams all bookings in ID order through a database cursor. Must be consumed
+     * inside a transaction and closed afterwards.
+     *
+     * @return a Stream of all bookings
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Booking b ORDER BY b.id")
+    Stream<Booking> streamAll();
+
+    /**
+     * Finds a booking and locks its row until the end of the transaction, so that confirming,
+     * cancelling and expiring the same booking are serialized.
+     *
+     * @param id the ID of the booking
+     * @return an Optional containing the locked booking, or empty if it does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findAndLockById(@Param("id") Long id);
+
+    /**
+     * Finds the bookings among the given IDs that are still in a status and not cancelled,
+     * and locks their rows until the end of the transaction.
+     *
+     * @param ids the IDs of the bookings
+     * @param status the status the bookings must be in
+     * @return the locked bookings
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id IN :ids AND b.status = :status AND b.isCancelled = false")
+    List<Booking> findAndLockByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") BookingStatus status);
+
+    /**
+     * Finds which of the given bookings exist.
+     *
+     * @param ids the IDs of the bookings
+     * @return the IDs of those in the table
+     */
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds the next page of bookings in a status that have a hold expiry set, after a given ID.
+     *
+     * @param status the status of the bookings
+     * @param afterId the ID of the last booking of the previous page
+     * @param limit the maximum number of bookings to return
+     * @return the bookings in ID order
+     */
+    @Query("SELECT b FROM Booking b WHERE b.status = :status AND b.holdExpiresAt IS NOT NULL AND b.isCancelled = false "
+            + "AND b.id > :afterId ORDER BY b.id")
+    List<Booking> findHolds(@Param("status") BookingStatus status, @Param("afterId") Long afterId, Limit limit);
+}
@@ -0,0 +1,40 @@
+package com.eventbooking.booking_service.repository;
+
+import com.eventbooking.booking_service.entities.BookingSaga;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookingSagaRepository extends JpaRepository<BookingSaga, Long> {
+
+    /**
+     * Finds a saga and locks its row until the end of the transaction, so that its replies
+     * and its timeout are handled one at a time.
+     *
+     * @param id the ID of the saga
+     * @return an Optional containing the locked saga, or empty if it does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BookingSaga s WHERE s.id = :id")
+    Optional<BookingSaga> findAndLockById(@Param("id") Long id);
+
+    /**
+     * Finds the sagas whose current step timed out, seeking on the deadline index, and locks them.
+     *
+     * @param now the current time
+     * @param limit the maximum number of sagas to return
+     * @return the timed out sagas, oldest deadline first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BookingSaga s WHERE s.deadline < :now ORDER BY s.deadline")
+    List<BookingSaga> findAndLockTimedOut(@Param("now") LocalDateTime now, Limit limit);
+}
@@ -0,0 +1,57 @@
+package com.eventbooking.booking_service.repository;
+
+import com.eventbooking.booking_service.entities.BookingView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BookingViewRepository extends JpaRepository<BookingView, Long> {
+
+    /**
+     * Finds the next page of the bookings of a user, seeking on the user index and skipping deleted bookings.
+     *
+     * @param userName the name of the user
+     * @param afterId the ID of the last booking of the previous page
+     * @param limit the maximum number of bookings to return
+     * @return the bookings of the user with an ID greater than afterId, in ID order
+     */
+    List<BookingView> findByUserNameAndDeletedFalseAndBookingIdGreaterThanOrderByBookingIdAsc(String userName, Long afterId, Limit limit);
+
+    /**
+     * Finds the next page of the bookings of an event, seeking on the event index and skipping deleted bookings.
+     *
+     * @param eventId the ID of the event
+     * @param afterId the ID of the last booking of the previous page
+     * @param limit the maximum number of bookings to return
+     * @return the bookings of the event with an ID greater than afterId, in ID order
+     */
+    List<BookingView> findByEventIdAndDeletedFalseAndBookingIdGreaterThanOrderByBookingIdAsc(Long eventId, Long afterId, Limit limit);
+
+    /**
+     * Copies the new details of an event to all its bookings.
+     *
+     * @return the number of bookings updated
+     */
+    @Modifying
+    @Query("UPDATE BookingView v SET v.eventName = :name, v.eventDate = :date, v.eventLocation = :location "
+            + "WHERE v.eventId = :eventId")
+    int updateEventDetails(@Param("eventId") Long eventId, @Param("name") String name,
+                           @Param("date") LocalDate date, @Param("location") String location);
+
+    /**
+     * Deletes the tombstones of the bookings deleted before a given time.
+     *
+     * @return the number of tombstones deleted
+     */
+    @Modifying
+    @Query("DELETE FROM BookingView v WHERE v.deleted = true AND v.changedAt < :before")
+    int deleteTombstonesBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,22 @@
+package com.eventbooking.booking_service.repository;
+
+import com.eventbooking.booking_service.entities.OutboxLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OutboxLockRepository extends JpaRepository<OutboxLock, String> {
+
+    /**
+     * Locks a row until the current transaction ends, without waiting if another transaction holds it.
+     *
+     * @param name the name of the lock
+     * @return the name if the lock was taken, empty if another transaction holds it
+     */
+    @Query(value = "SELECT name FROM booking_outbox_lock WHERE name = :name FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<String> tryLock(@Param("name") String name);
+}
@@ -0,0 +1,28 @@
+package com.eventbooking.booking_service.repository;
+
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Finds the oldest pending messages, in the order they were written.
+     *
+     * @param limit the maximum number of messages to return
+     * @return the pending messages in ID order
+     */
+    List<OutboxMessage> findAllByOrderByIdAsc(Limit limit);
+
+    /**
+     * Finds the oldest pending message.
+     *
+     * @return an Optional containing the oldest message, or empty if the outbox is drained
+     */
+    Optional<OutboxMessage> findFirstByOrderByIdAsc();
+}
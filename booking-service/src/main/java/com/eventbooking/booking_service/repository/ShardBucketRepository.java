@@ -0,0 +1,38 @@
+package com.eventbooking.booking_service.repository;
+
+import com.eventbooking.booking_service.entities.ShardBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ShardBucketRepository extends JpaRepository<ShardBucket, Integer> {
+
+    /**
+     * Finds the rows of buckets and locks them shared until the end of the transaction,
+     * so that a move of the buckets waits for the work on their bookings.
+     *
+     * @param buckets the buckets
+     * @return the rows found
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT b FROM ShardBucket b WHERE b.bucket IN :buckets")
+    List<ShardBucket> findAndLockSharedByBucketIn(@Param("buckets") Collection<Integer> buckets);
+
+    /**
+     * Finds the row of a bucket and locks it exclusively until the end of the transaction.
+     *
+     * @param bucket the bucket
+     * @return an Optional containing the locked row, or empty if it does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ShardBucket b WHERE b.bucket = :bucket")
+    Optional<ShardBucket> findAndLockByBucket(@Param("bucket") Integer bucket);
+}
@@ -0,0 +1,89 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.booking_service.event.BookingChangeEvent;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queues the changes of bookings in the outbox table, from where {@link OutboxRelay} sends them to Kafka
+ * for {@link BookingProjector} to apply to the read model. Changes are stored as JSON and keyed by
+ * booking, so that the changes of a booking are applied in the order they were committed. Each change
+ * past the creation also increments the revision of the booking, which the projector orders changes by
+ * when they are consumed again.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingChangeOutbox {
+    static final String BOOKING_CHANGES_TOPIC = "booking-changes";
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Queues the new state of a booking. Must be called in the transaction that changes the booking,
+     * after the change, so that it is published if and only if the change is committed. The booking
+     * must be locked by that transaction unless it is new, so that its revisions are not given twice.
+     *
+     * @param booking The booking, already saved.
+     * @param changeType CREATED for a new booking, UPDATED otherwise.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Booking booking, BookingChangeType changeType) {
+        if (changeType != BookingChangeType.CREATED) {
+            booking.setRevision(booking.getRevision() + 1);
+        }
+        save(change(booking, changeType));
+    }
+
+    /**
+     * Queues the deletion of a booking, with its last state. Must be called in the transaction that
+     * deletes it, with the booking locked.
+     *
+     * @param booking The deleted booking.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDeleted(Booking booking) {
+        booking.setRevision(booking.getRevision() + 1);
+        save(change(booking, BookingChangeType.DELETED));
+    }
+
+    private static BookingChangeEvent change(Booking booking, BookingChangeType changeType) {
+        return BookingChangeEvent.builder()
+                .bookingId(booking.getId())
+                .changeType(changeType)
+                .eventId(booking.getEventId())
+                .userName(booking.getUserName())
+                .numberOfTickets(booking.getNumberOfTickets())
+                .ticketType(booking.getTicketType())
+                .totalAmount(booking.getTotalAmount())
+                .cancelled(booking.isCancelled())
+                .status(booking.getStatus())
+                .bookingTime(booking.getBookingTime())
+                .holdExpiresAt(booking.getHoldExpiresAt())
+                .changedAt(LocalDateTime.now())
+                .revision(booking.getRevision())
+                .build();
+    }
+
+    private void save(BookingChangeEvent change) {
+        try {
+            outboxMessageRepository.save(OutboxMessage.builder()
+                    .topic(BOOKING_CHANGES_TOPIC)
+                    .messageKey(String.valueOf(change.getBookingId()))
+                    .payload(objectMapper.writeValueAsBytes(change))
+                    .build());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Could not serialize change of booking " + change.getBookingId(), ex);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.common.event.BookingEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts new bookings into a local {@link WriteAheadLog} and applies them to the booking table in batches,
+ * active for {@code POST /api/booking} when {@code booking.wal.enabled} is true.
+ * <p>
+ * A booking gets its ID from the booking sequence, through the Hibernate generator so that the IDs handed
+ * out here and by JPA never overlap, and is acknowledged once it is durable in the log, together with
+ * its notification. Every {@code booking.wal.apply-interval-ms}, the durable bookings are inserted in
+ * batches of {@code booking.wal.apply-batch-size} with JDBC batching, their notification and change
+ * queued in the outbox, and their holds scheduled, after which the log is released up to them. When
+ * bookings are sharded, a batch is inserted with one transaction per shard. </p>
+ * <p>
+ * A booking is read back from the booking table only once applied, usually within the apply interval.
+ * After a crash, the bookings logged since the last release are applied again when the application
+ * starts; those whose row was committed before the crash are skipped, but their holds scheduled. </p>
+ * <p>
+ * A batch that fails is applied again booking by booking, so that a booking that cannot be inserted
+ * does not hold back those logged after it. Once it has failed {@code booking.wal.max-attempts} times
+ * while other bookings were applied, it is parked as a file of the {@code parked} subdirectory of the
+ * log, to be applied by hand, and the log released past it. </p>
+ * <p>
+ * Publishes {@code booking.wal.ack} (time until a booking is durable), {@code booking.wal.applied}
+ * (bookings inserted), {@code booking.wal.parked} (bookings parked) and {@code booking.wal.lag}
+ * (bookings durable but not applied yet). </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "booking.wal.enabled", havingValue = "true")
+public class BookingIngestionLog implements DisposableBean {
+    private static final String PARKED = "parked";
+    private static final String INSERT_BOOKING = "INSERT INTO booking (id, event_id, username, number_of_tickets, price, "
+            + "booking_time, ticket_type, is_cancelled, status, hold_expires_at, revision) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final BookingRepository bookingRepository;
+    private final NotificationOutbox notificationOutbox;
+    private final BookingChangeOutbox bookingChangeOutbox;
+    private final HoldExpiryScheduler holdExpiryScheduler;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SessionFactoryImplementor sessionFactory;
+    private final BeforeExecutionGenerator idGenerator;
+    private final WriteAheadLog wal;
+    private final Path parkedDirectory;
+    private final int applyBatchSize;
+    private final int maxAttempts;
+    private final Timer ack;
+    private final Counter applied;
+    private final Counter parked;
+
+    /**
+     * Failed attempts to apply a logged booking on its own, by sequence, guarded by the apply lock
+     */
+    private final Map<Long, Integer> failedAttempts = new HashMap<>();
+
+    /**
+     * A booking as logged, with the notification queued once it is applied.
+     */
+    record Entry(Booking booking, BookingEvent notification) {
+    }
+
+    public BookingIngestionLog(BookingRepository bookingRepository,
+                               NotificationOutbox notificationOutbox,
+                               BookingChangeOutbox bookingChangeOutbox,
+                               HoldExpiryScheduler holdExpiryScheduler,
+                               ShardRouter shardRouter,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               EntityManagerFactory entityManagerFactory,
+                               MeterRegistry meterRegistry,
+                               @Value("${booking.wal.directory}") Path directory,
+                               @Value("${booking.wal.segment-size:64MB}") DataSize segmentSize,
+                               @Value("${booking.wal.apply-batch-size:1000}") int applyBatchSize,
+                               @Value("${booking.wal.max-attempts:5}") int maxAttempts) throws IOException {
+        this.bookingRepository = bookingRepository;
+        this.notificationOutbox = notificationOutbox;
+        this.bookingChangeOutbox = bookingChangeOutbox;
+        this.holdExpiryScheduler = holdExpiryScheduler;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.idGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Booking.class)
+                .getGenerator();
+        this.wal = new WriteAheadLog(directory, Math.toIntExact(segmentSize.toBytes()));
+        this.parkedDirectory = directory.resolve(PARKED);
+        this.applyBatchSize = applyBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.ack = Timer.builder("booking.wal.ack")
+                .description("Time until a new booking is durable in the write-ahead log")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.applied = Counter.builder("booking.wal.applied")
+                .description("Bookings applied from the write-ahead log to the booking table")
+                .register(meterRegistry);
+        this.parked = Counter.builder("booking.wal.parked")
+                .description("Logged bookings that could not be applied, parked to be applied by hand")
+                .register(meterRegistry);
+        Gauge.builder("booking.wal.lag", wal, logged -> logged.durableSequence() - logged.appliedSequence())
+                .description("Bookings durable in the write-ahead log but not applied yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Logs a new booking and waits until it is durable.
+     *
+     * @param booking The booking, not yet persisted. Its ID is set.
+     * @param notification The confirmation to send once the booking is applied.
+     * @return The booking, with its ID.
+     * @throws UncheckedIOException If the booking could not be made durable.
+     */
+    public Booking append(Booking booking, BookingEvent notification) {
+        long start = System.nanoTime();
+        booking.setId(nextId(booking));
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(new Entry(booking, notification));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Could not serialize booking " + booking.getId(), ex);
+        }
+        try {
+            wal.append(payload);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not log booking " + booking.getId(), ex);
+        }
+        ack.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return booking;
+    }
+
+    /**
+     * Reports the bookings a previous run logged but did not apply, which the next apply inserts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        long pending = wal.durableSequence() - wal.appliedSequence();
+        if (pending > 0) {
+            log.info("Applying {} bookings logged before the last shutdown", pending);
+        }
+    }
+
+    /**
+     * Applies the durable bookings to the booking table until the log is caught up or a booking fails.
+     *
+     * @return the number of bookings released from the log
+     */
+    @Scheduled(fixedDelayString = "${booking.wal.apply-interval-ms:50}")
+    public synchronized int apply() {
+        int read = 0;
+        List<WriteAheadLog.Entry> batch;
+        do {
+            batch = wal.read(wal.appliedSequence(), applyBatchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            int released = apply(batch);
+            read += released;
+            if (released < batch.size()) {
+                break;
+            }
+        } while (batch.size() == applyBatchSize);
+        return read;
+    }
+
+    /**
+     * Applies a batch of logged bookings in one transaction per shard, then releases the log up to them.
+     * If the batch fails, its bookings are applied one by one.
+     *
+     * @return the number of bookings released, fewer than the batch if some are to be applied again on the next poll
+     */
+    private int apply(List<WriteAheadLog.Entry> batch) {
+        if (batch.size() > 1) {
+            try {
+                List<Entry> entries = new ArrayList<>(batch.size());
+                for (WriteAheadLog.Entry logged : batch) {
+                    entries.add(decode(logged));
+                }
+                insert(entries);
+                wal.release(batch.get(batch.size() - 1).sequence());
+                return batch.size();
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Could not apply {} logged bookings, applying them one by one: {}", batch.size(), ex.getMessage());
+            }
+        }
+        return applyEach(batch);
+    }
+
+    /**
+     * Applies logged bookings one by one, and releases the log up to the first that failed.
+     * Those applied after it are skipped as already committed when it is applied again.
+     * A failure counts towards the attempts of a booking only if others were applied: when they all fail,
+     * as while the database is down, none of them is to blame. A booking that cannot be read is parked at once.
+     *
+     * @return the number of bookings released
+     */
+    private int applyEach(List<WriteAheadLog.Entry> batch) {
+        Map<Long, Exception> failures = new HashMap<>();
+        boolean progress = false;
+        for (WriteAheadLog.Entry logged : batch) {
+            Entry entry;
+            try {
+                entry = decode(logged);
+            } catch (IllegalStateException ex) {
+                failedAttempts.put(logged.sequence(), maxAttempts);
+                failures.put(logged.sequence(), ex);
+                continue;
+            }
+            try {
+                insert(List.of(entry));
+                progress = true;
+            } catch (RuntimeException ex) {
+                failures.put(logged.sequence(), ex);
+            }
+        }
+        if (progress) {
+            failures.keySet().forEach(sequence -> failedAttempts.merge(sequence, 1, Integer::sum));
+        }
+
+        int released = 0;
+        try {
+            for (WriteAheadLog.Entry logged : batch) {
+                Exception failure = failures.get(logged.sequence());
+                if (failure != null) {
+                    if (failedAttempts.getOrDefault(logged.sequence(), 0) < maxAttempts) {
+                        log.warn("Could not apply logged booking {}, will retry: {}", logged.sequence(), failure.getMessage());
+                        break;
+                    }
+                    park(logged, failure);
+                }
+                failedAttempts.remove(logged.sequence());
+                released++;
+            }
+            if (released > 0) {
+                wal.release(batch.get(released - 1).sequence());
+            }
+            return released;
+        } catch (IOException ex) {
+            log.warn("Could not release {} applied bookings, will retry: {}", released, ex.getMessage());
+            return 0;
+        }
+    }
+
+    private void park(WriteAheadLog.Entry logged, Exception failure) throws IOException {
+        Path file = Files.createDirectories(parkedDirectory).resolve(logged.sequence() + ".json");
+        Files.write(file, logged.payload());
+        parked.increment();
+        log.error("Parked logged booking {} in {} after {} failed attempts, it must be applied by hand",
+                logged.sequence(), file, failedAttempts.get(logged.sequence()), failure);
+    }
+
+    /**
+     * Inserts logged bookings in one transaction per shard, and schedules the holds of each shard once committed.
+     * The holds of the bookings whose row was committed by an earlier attempt are scheduled again; those no longer
+     * held are left alone when they fall due.
+     */
+    private void insert(List<Entry> entries) {
+        for (List<Entry> part : shardRouter.partition(entries, BookingIngestionLog::bucketOf)) {
+            int inserted = shardRouter.onPart(part, BookingIngestionLog::bucketOf,
+                    () -> transactionTemplate.execute(status -> insertPart(part)));
+            part.forEach(entry -> holdExpiryScheduler.schedule(entry.booking().getId(), entry.booking().getHoldExpiresAt()));
+            applied.increment(inserted);
+        }
+    }
+
+    private Entry decode(WriteAheadLog.Entry logged) {
+        try {
+            return objectMapper.readValue(logged.payload(), Entry.class);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read logged booking " + logged.sequence(), ex);
+        }
+    }
+
+    private static int bucketOf(Entry entry) {
+        return ShardRouter.bucketOfBooking(entry.booking().getId());
+    }
+
+    /**
+     * Inserts the bookings that are not in the table yet, and queues their notification and change.
+     * Must be called in a transaction.
+     *
+     * @return the number of bookings inserted
+     */
+    private int insertPart(List<Entry> batch) {
+        List<Entry> entries = new ArrayList<>(batch);
+        // Rows committed by an apply whose release was lost in a crash
+        Set<Long> existing = new HashSet<>(bookingRepository.findExistingIds(entries.stream()
+                .map(entry -> entry.booking().getId())
+                .collect(Collectors.toList())));
+        entries.removeIf(entry -> existing.contains(entry.booking().getId()));
+
+        jdbcTemplate.batchUpdate(INSERT_BOOKING, entries, entries.size(), (statement, entry) -> {
+            Booking booking = entry.booking();
+            statement.setLong(1, booking.getId());
+            statement.setLong(2, booking.getEventId());
+            statement.setString(3, booking.getUserName());
+            statement.setInt(4, booking.getNumberOfTickets());
+            statement.setBigDecimal(5, booking.getTotalAmount());
+            statement.setTimestamp(6, Timestamp.valueOf(booking.getBookingTime()));
+            statement.setString(7, booking.getTicketType() == null ? null : booking.getTicketType().name());
+            statement.setBoolean(8, booking.isCancelled());
+            statement.setString(9, booking.getStatus() == null ? null : booking.getStatus().name());
+            if (booking.getHoldExpiresAt() == null) {
+                statement.setNull(10, Types.TIMESTAMP);
+            } else {
+                statement.setTimestamp(10, Timestamp.valueOf(booking.getHoldExpiresAt()));
+            }
+        });
+        for (Entry entry : entries) {
+            notificationOutbox.enqueue(entry.booking().getId(), entry.notification());
+            bookingChangeOutbox.enqueue(entry.booking(), BookingChangeType.CREATED);
+        }
+        return entries.size();
+    }
+
+    private Long nextId(Booking booking) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) idGenerator.generate((SharedSessionContractImplementor) session, booking, null, EventType.INSERT);
+        }
+    }
+
+    /**
+     * Applies what was logged, then closes the log. What could not be applied is applied on the next start.
+     */
+    @Override
+    public void destroy() throws IOException {
+        apply();
+        wal.close();
+    }
+}
@@ -0,0 +1,147 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.constants.EventChangeType;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.entities.BookingView;
+import com.eventbooking.booking_service.event.BookingChangeEvent;
+import com.eventbooking.booking_service.event.EventChangeEvent;
+import com.eventbooking.booking_service.repository.BookingViewRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Maintains the booking read model from the booking changes published by {@link BookingChangeOutbox}
+ * and the event changes published by the event service.
+ * <p>
+ * Each change upserts the row of its booking, with the name, date and location of the event looked up
+ * through {@link EventServiceClient} when the row does not have them yet. Changes are ordered by the
+ * revision of their booking rather than by the clocks of the instances that made them: a change at a
+ * revision the row already holds, as when a partition is consumed again, is skipped. A deleted booking
+ * keeps its row as a tombstone, hidden from the queries, so that its older changes are skipped too;
+ * tombstones are purged after {@code booking.read-model.tombstone-retention}, which should outlast the
+ * retention of the booking-changes topic. The time from a change being committed to being applied is
+ * published as {@code booking.read-model.lag}. </p>
+ */
+@Slf4j
+@Component
+public class BookingProjector {
+    private final BookingViewRepository bookingViewRepository;
+    private final EventServiceClient eventServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration tombstoneRetention;
+    private final Timer lag;
+
+    public BookingProjector(BookingViewRepository bookingViewRepository,
+                            EventServiceClient eventServiceClient,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${booking.read-model.tombstone-retention:7d}") Duration tombstoneRetention) {
+        this.bookingViewRepository = bookingViewRepository;
+        this.eventServiceClient = eventServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.tombstoneRetention = tombstoneRetention;
+        this.lag = Timer.builder("booking.read-model.lag")
+                .description("Time from a booking change being committed to being applied to the read model")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies a booking change to the read model.
+     *
+     * @param change The new state of the booking.
+     */
+    @KafkaListener(topics = BookingChangeOutbox.BOOKING_CHANGES_TOPIC,
+            groupId = "booking-read-model",
+            containerFactory = "bookingChangeListenerContainerFactory")
+    public void onBookingChange(BookingChangeEvent change) {
+        // Looked up outside the transaction; almost always a near cache hit
+        EventDto event = change.getChangeType() == BookingChangeType.DELETED
+                || bookingViewRepository.findById(change.getBookingId())
+                .filter(view -> view.getEventName() != null && Objects.equals(view.getEventId(), change.getEventId()))
+                .isPresent() ? null : fetchEvent(change.getEventId());
+        transactionTemplate.executeWithoutResult(status -> apply(change, event));
+        if (change.getChangedAt() != null) {
+            lag.record(Duration.between(change.getChangedAt(), LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Copies the new details of an event to its bookings in the read model.
+     *
+     * @param change The change of an event.
+     */
+    @KafkaListener(topics = "event-changes",
+            groupId = "booking-read-model-events",
+            containerFactory = "eventChangeListenerContainerFactory")
+    public void onEventChange(EventChangeEvent change) {
+        // The bookings of a deleted event keep the details they were made with
+        if (change.getChangeType() == EventChangeType.DELETED) {
+            return;
+        }
+        Integer updated = transactionTemplate.execute(status -> bookingViewRepository.updateEventDetails(
+                change.getEventId(), change.getName(), change.getDate(), change.getLocation()));
+        log.debug("Updated the details of event {} on {} bookings", change.getEventId(), updated);
+    }
+
+    /**
+     * Purges the tombstones of the bookings deleted longer than {@code booking.read-model.tombstone-retention} ago.
+     *
+     * @return the number of tombstones purged
+     */
+    @Scheduled(fixedDelayString = "${booking.read-model.tombstone-purge-ms:3600000}")
+    public int purgeTombstones() {
+        LocalDateTime before = LocalDateTime.now().minus(tombstoneRetention);
+        Integer purged = transactionTemplate.execute(status -> bookingViewRepository.deleteTombstonesBefore(before));
+        return purged == null ? 0 : purged;
+    }
+
+    private void apply(BookingChangeEvent change, EventDto event) {
+        Optional<BookingView> existing = bookingViewRepository.findById(change.getBookingId());
+        if (existing.isPresent() && change.getRevision() <= existing.get().getRevision()) {
+            log.debug("Skipping stale change of booking {}", change.getBookingId());
+            return;
+        }
+        BookingView view = existing.orElseGet(() -> BookingView.builder().bookingId(change.getBookingId()).build());
+        view.setEventId(change.getEventId());
+        view.setUserName(change.getUserName());
+        view.setNumberOfTickets(change.getNumberOfTickets());
+        view.setTotalAmount(change.getTotalAmount());
+        view.setTicketType(change.getTicketType());
+        view.setCancelled(change.isCancelled());
+        view.setStatus(change.getStatus());
+        view.setBookingTime(change.getBookingTime());
+        view.setHoldExpiresAt(change.getHoldExpiresAt());
+        view.setChangedAt(change.getChangedAt());
+        view.setRevision(change.getRevision());
+        view.setDeleted(change.getChangeType() == BookingChangeType.DELETED);
+        if (event != null) {
+            view.setEventName(event.getName());
+            view.setEventDate(event.getDate());
+            view.setEventLocation(event.getLocation());
+        }
+        bookingViewRepository.save(view);
+    }
+
+    private EventDto fetchEvent(Long eventId) {
+        return eventServiceClient.fetchEvent(eventId)
+                .onErrorResume(ex -> {
+                    log.warn("Could not look up event {} for the read model: {}", eventId, ex.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+}
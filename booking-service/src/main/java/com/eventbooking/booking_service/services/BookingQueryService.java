@@ -0,0 +1,78 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.dto.BookingViewDto;
+import com.eventbooking.booking_service.dto.PageDto;
+import com.eventbooking.booking_service.entities.BookingView;
+import com.eventbooking.booking_service.repository.BookingViewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lists bookings from the read model maintained by {@link BookingProjector}, never from the booking table.
+ * Listings are eventually consistent: a booking shows up once its change has been relayed and applied.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingQueryService {
+
+    private final BookingViewRepository bookingViewRepository;
+
+    /**
+     * Retrieves a page of the bookings of a user in ID order.
+     *
+     * @param userName The name of the user.
+     * @param afterId The ID of the last booking of the previous page, or 0 for the first page.
+     * @param size The maximum number of bookings to return, capped at {@value BookingService#MAX_PAGE_SIZE}.
+     * @return A PageDto with the bookings and the afterId of the next page.
+     */
+    public PageDto<BookingViewDto> getBookingsOfUser(String userName, Long afterId, int size) {
+        return page(size, limit -> bookingViewRepository.findByUserNameAndDeletedFalseAndBookingIdGreaterThanOrderByBookingIdAsc(userName, afterId, limit));
+    }
+
+    /**
+     * Retrieves a page of the bookings of an event in ID order.
+     *
+     * @param eventId The ID of the event.
+     * @param afterId The ID of the last booking of the previous page, or 0 for the first page.
+     * @param size The maximum number of bookings to return, capped at {@value BookingService#MAX_PAGE_SIZE}.
+     * @return A PageDto with the bookings and the afterId of the next page.
+     */
+    public PageDto<BookingViewDto> getBookingsOfEvent(Long eventId, Long afterId, int size) {
+        return page(size, limit -> bookingViewRepository.findByEventIdAndDeletedFalseAndBookingIdGreaterThanOrderByBookingIdAsc(eventId, afterId, limit));
+    }
+
+    private static PageDto<BookingViewDto> page(int size, Function<Limit, List<BookingView>> query) {
+        int limit = Math.max(1, Math.min(size, BookingService.MAX_PAGE_SIZE));
+        List<BookingViewDto> items = query.apply(Limit.of(limit)).stream()
+                .map(BookingQueryService::mapToDto)
+                .collect(Collectors.toList());
+        Long nextAfterId = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return PageDto.<BookingViewDto>builder()
+                .items(items)
+                .nextAfterId(nextAfterId)
+                .build();
+    }
+
+    private static BookingViewDto mapToDto(BookingView view) {
+        return BookingViewDto.builder()
+                .id(view.getBookingId())
+                .eventId(view.getEventId())
+                .eventName(view.getEventName())
+                .eventDate(view.getEventDate())
+                .eventLocation(view.getEventLocation())
+                .userName(view.getUserName())
+                .numberOfTickets(view.getNumberOfTickets())
+                .totalAmount(view.getTotalAmount())
+                .ticketType(view.getTicketType())
+                .isCancelled(view.isCancelled())
+                .bookingTime(view.getBookingTime())
+                .status(view.getStatus())
+                .holdExpiresAt(view.getHoldExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,282 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.SagaState;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.entities.BookingSaga;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.repository.BookingSagaRepository;
+import com.eventbooking.common.saga.PaymentCommand;
+import com.eventbooking.common.saga.SagaReply;
+import com.eventbooking.common.saga.SagaTopics;
+import com.eventbooking.common.saga.SeatCommand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Creates bookings through a saga driven by Kafka commands and replies, active for
+ * {@code POST /api/booking} when {@code booking.saga.enabled} is true.
+ * <p>
+ * Starting a saga is a single local transaction: the booking is saved as PENDING together with its
+ * saga row and the seat reservation command, which {@link OutboxRelay} then sends to event-service.
+ * Each reply moves the saga one step: reserved seats lead to a payment command for payment-service,
+ * a taken payment confirms the booking. A failed payment, or a step that gets no reply within
+ * {@code booking.saga.step-timeout}, is compensated by releasing the seats and refunding the payment
+ * if it was requested. Commands are keyed so that a compensation reaches its consumer after the
+ * command it undoes, and both services apply each command once, so commands can be sent again freely. </p>
+ */
+@Slf4j
+@Service
+public class BookingSagaOrchestrator {
+    private static final int TIMEOUT_BATCH_SIZE = 500;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final BookingSagaRepository bookingSagaRepository;
+    private final SagaCommandOutbox sagaCommandOutbox;
+    private final NotificationOutbox notificationOutbox;
+    private final BookingChangeOutbox bookingChangeOutbox;
+    private final EventServiceClient eventServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final Duration stepTimeout;
+    private final Counter completedSagas;
+    private final Counter failedSagas;
+    private final Counter compensatedSagas;
+    private final Counter timedOutSteps;
+
+    public BookingSagaOrchestrator(BookingService bookingService,
+                                   BookingRepository bookingRepository,
+                                   BookingSagaRepository bookingSagaRepository,
+                                   SagaCommandOutbox sagaCommandOutbox,
+                                   NotificationOutbox notificationOutbox,
+                                   BookingChangeOutbox bookingChangeOutbox,
+                                   EventServiceClient eventServiceClient,
+                                   TransactionTemplate transactionTemplate,
+                                   ShardRouter shardRouter,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${booking.saga.enabled:false}") boolean enabled,
+                                   @Value("${booking.saga.step-timeout:30s}") Duration stepTimeout) {
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+        this.bookingSagaRepository = bookingSagaRepository;
+        this.sagaCommandOutbox = sagaCommandOutbox;
+        this.notificationOutbox = notificationOutbox;
+        this.bookingChangeOutbox = bookingChangeOutbox;
+        this.eventServiceClient = eventServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.stepTimeout = stepTimeout;
+        this.completedSagas = outcomeCounter(meterRegistry, "completed");
+        this.failedSagas = outcomeCounter(meterRegistry, "failed");
+        this.compensatedSagas = outcomeCounter(meterRegistry, "compensated");
+        this.timedOutSteps = Counter.builder("booking.saga.timeouts")
+                .description("Saga steps that got no reply in time")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if bookings are created through the saga
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the saga of a new booking.
+     *
+     * @param bookingDto The booking details.
+     * @return The BookingDto of the booking, PENDING until the saga completes.
+     */
+    public BookingDto start(BookingDto bookingDto) {
+        Booking booking = shardRouter.onEvent(bookingDto.getEventId(), () -> transactionTemplate.execute(status -> {
+            Booking pending = bookingService.newBooking(bookingDto);
+            pending.setStatus(BookingStatus.PENDING);
+            pending.setHoldExpiresAt(null);
+            Booking saved = bookingRepository.save(pending);
+            bookingChangeOutbox.enqueue(saved, BookingChangeType.CREATED);
+            bookingSagaRepository.save(BookingSaga.builder()
+                    .id(saved.getId())
+                    .state(SagaState.RESERVING_SEATS)
+                    .deadline(LocalDateTime.now().plus(stepTimeout))
+                    .build());
+            sagaCommandOutbox.enqueue(SagaTopics.SEAT_COMMANDS, saved.getEventId(), seatCommand(saved, SeatCommand.Action.RESERVE));
+            return saved;
+        }));
+        return bookingService.mapToDto(booking);
+    }
+
+    /**
+     * Moves a saga to its next step on the reply of event-service or payment-service.
+     * Replies that do not match the current step, being duplicates or arriving after a timeout, are ignored.
+     *
+     * @param reply The reply.
+     */
+    @KafkaListener(topics = SagaTopics.REPLIES,
+            groupId = "booking-saga",
+            containerFactory = "sagaReplyListenerContainerFactory")
+    public void onReply(SagaReply reply) {
+        // Looked up outside the transaction; almost always a near cache hit
+        EventDto event = reply.getStep() == SagaReply.Step.PAYMENT_TAKEN && reply.isSuccess()
+                ? fetchEvent(reply.getSagaId()) : null;
+        shardRouter.onBooking(reply.getSagaId(), () -> transactionTemplate.execute(status -> {
+            BookingSaga saga = bookingSagaRepository.findAndLockById(reply.getSagaId()).orElse(null);
+            if (saga == null) {
+                log.warn("Ignoring {} reply of unknown saga {}", reply.getStep(), reply.getSagaId());
+                return null;
+            }
+            Booking booking = bookingRepository.findById(saga.getId()).orElseThrow();
+            switch (reply.getStep()) {
+                case SEATS_RESERVED -> onSeatsReserved(saga, booking, reply);
+                case PAYMENT_TAKEN -> onPaymentTaken(saga, booking, reply, event);
+                case SEATS_RELEASED -> onSeatsReleased(saga);
+                case PAYMENT_REFUNDED -> log.info("Payment of booking {} refunded", booking.getId());
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Compensates the sagas whose current step got no reply in time, on every shard.
+     *
+     * @return the number of sagas handled
+     */
+    @Scheduled(fixedDelayString = "${booking.saga.timeout-check-ms:1000}")
+    public int compensateTimedOutSagas() {
+        return shardRouter.onEachShard(shard -> compensateTimedOutSagasOfShard()).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private int compensateTimedOutSagasOfShard() {
+        Integer handled = transactionTemplate.execute(status -> {
+            List<BookingSaga> sagas = bookingSagaRepository.findAndLockTimedOut(LocalDateTime.now(), Limit.of(TIMEOUT_BATCH_SIZE));
+            for (BookingSaga saga : sagas) {
+                Booking booking = bookingRepository.findById(saga.getId()).orElseThrow();
+                log.warn("Saga {} timed out in state {}", saga.getId(), saga.getState());
+                timedOutSteps.increment();
+                switch (saga.getState()) {
+                    case RESERVING_SEATS -> compensate(saga, booking, false, "The seat reservation timed out");
+                    case TAKING_PAYMENT -> compensate(saga, booking, true, "The payment timed out");
+                    // The release was lost or is slow; releasing is idempotent, so ask again
+                    case COMPENSATING -> {
+                        sagaCommandOutbox.enqueue(SagaTopics.SEAT_COMMANDS, booking.getEventId(), seatCommand(booking, SeatCommand.Action.RELEASE));
+                        saga.setDeadline(LocalDateTime.now().plus(stepTimeout));
+                    }
+                    default -> saga.setDeadline(null);
+                }
+            }
+            return sagas.size();
+        });
+        return handled == null ? 0 : handled;
+    }
+
+    private void onSeatsReserved(BookingSaga saga, Booking booking, SagaReply reply) {
+        if (saga.getState() != SagaState.RESERVING_SEATS) {
+            return;
+        }
+        if (!reply.isSuccess()) {
+            booking.setStatus(BookingStatus.FAILED);
+            bookingChangeOutbox.enqueue(booking, BookingChangeType.UPDATED);
+            saga.setState(SagaState.FAILED);
+            saga.setFailureReason(reply.getMessage());
+            saga.setDeadline(null);
+            failedSagas.increment();
+            return;
+        }
+        saga.setState(SagaState.TAKING_PAYMENT);
+        saga.setDeadline(LocalDateTime.now().plus(stepTimeout));
+        sagaCommandOutbox.enqueue(SagaTopics.PAYMENT_COMMANDS, booking.getId(), PaymentCommand.builder()
+                .sagaId(saga.getId())
+                .action(PaymentCommand.Action.TAKE)
+                .bookingId(booking.getId())
+                .amount(booking.getTotalAmount())
+                .build());
+    }
+
+    private void onPaymentTaken(BookingSaga saga, Booking booking, SagaReply reply, EventDto event) {
+        if (saga.getState() != SagaState.TAKING_PAYMENT) {
+            return;
+        }
+        if (!reply.isSuccess()) {
+            compensate(saga, booking, false, reply.getMessage());
+            return;
+        }
+        booking.setStatus(BookingStatus.CONFIRMED);
+        bookingChangeOutbox.enqueue(booking, BookingChangeType.UPDATED);
+        saga.setState(SagaState.COMPLETED);
+        saga.setDeadline(null);
+        if (event != null) {
+            notificationOutbox.enqueue(booking.getId(), bookingService.getBookingEvent(booking, event));
+        }
+        completedSagas.increment();
+    }
+
+    private void onSeatsReleased(BookingSaga saga) {
+        if (saga.getState() != SagaState.COMPENSATING) {
+            return;
+        }
+        saga.setState(SagaState.COMPENSATED);
+        saga.setDeadline(null);
+        compensatedSagas.increment();
+    }
+
+    private void compensate(BookingSaga saga, Booking booking, boolean refund, String reason) {
+        booking.setStatus(BookingStatus.FAILED);
+        bookingChangeOutbox.enqueue(booking, BookingChangeType.UPDATED);
+        saga.setState(SagaState.COMPENSATING);
+        saga.setFailureReason(reason);
+        saga.setDeadline(LocalDateTime.now().plus(stepTimeout));
+        if (refund) {
+            sagaCommandOutbox.enqueue(SagaTopics.PAYMENT_COMMANDS, booking.getId(), PaymentCommand.builder()
+                    .sagaId(saga.getId())
+                    .action(PaymentCommand.Action.REFUND)
+                    .bookingId(booking.getId())
+                    .amount(booking.getTotalAmount())
+                    .build());
+        }
+        sagaCommandOutbox.enqueue(SagaTopics.SEAT_COMMANDS, booking.getEventId(), seatCommand(booking, SeatCommand.Action.RELEASE));
+    }
+
+    private EventDto fetchEvent(Long bookingId) {
+        return shardRouter.onBooking(bookingId, () -> bookingRepository.findById(bookingId))
+                .map(booking -> eventServiceClient.fetchEvent(booking.getEventId())
+                        .onErrorResume(ex -> Mono.empty())
+                        .block())
+                .orElse(null);
+    }
+
+    private static SeatCommand seatCommand(Booking booking, SeatCommand.Action action) {
+        return SeatCommand.builder()
+                .sagaId(booking.getId())
+                .action(action)
+                .eventId(booking.getEventId())
+                .quantity(booking.getNumberOfTickets())
+                .userName(booking.getUserName())
+                .build();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("booking.saga.finished")
+                .description("Booking sagas that reached a final state")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
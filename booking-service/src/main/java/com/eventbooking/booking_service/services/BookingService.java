@@ -1,47 +1,176 @@
 package com.eventbooking.booking_service.services;
 
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.constants.BookingStatus;
 import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BatchBookingItemDto;
+import com.eventbooking.booking_service.dto.BatchBookingResultDto;
 import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.dto.InventoryDto;
+import com.eventbooking.booking_service.dto.PageDto;
+import com.eventbooking.booking_service.exceptionshandller.BatchSizeExceededException;
 import com.eventbooking.booking_service.exceptionshandller.BookingAlreadyCancelledException;
-import com.eventbooking.booking_service.event.BookingEvent;
+import com.eventbooking.common.event.BookingEvent;
 import com.eventbooking.booking_service.exceptionshandller.BookingCancelledException;
+import com.eventbooking.booking_service.exceptionshandller.BookingHoldExpiredException;
+import com.eventbooking.booking_service.exceptionshandller.BookingNotCancellableException;
 import com.eventbooking.booking_service.exceptionshandller.NotFoundException;
+import com.eventbooking.booking_service.exceptionshandller.TicketsUnavailableException;
 import com.eventbooking.booking_service.repository.BookingRepository;
 import com.eventbooking.booking_service.dto.BookingDto;
 import com.eventbooking.booking_service.entities.Booking;
-import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class BookingService {
+    static final int MAX_PAGE_SIZE = 1000;
 
     private final BookingRepository bookingRepository;
-    private final WebClient.Builder webClientBuilder;
-    private final KafkaTemplate<String, BookingEvent> kafkaTemplate;
+    private final EventServiceClient eventServiceClient;
+    private final NotificationOutbox notificationOutbox;
+    private final BookingChangeOutbox bookingChangeOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final HoldExpiryScheduler holdExpiryScheduler;
+    private final ShardRouter shardRouter;
+    private final Optional<BookingIngestionLog> bookingIngestionLog;
+    private final int maxBatchSize;
+    private final Duration holdTtl;
+
+    public BookingService(BookingRepository bookingRepository,
+                          EventServiceClient eventServiceClient,
+                          NotificationOutbox notificationOutbox,
+                          BookingChangeOutbox bookingChangeOutbox,
+                          TransactionTemplate transactionTemplate,
+                          ObjectMapper objectMapper,
+                          EntityManager entityManager,
+                          HoldExpiryScheduler holdExpiryScheduler,
+                          ShardRouter shardRouter,
+                          Optional<BookingIngestionLog> bookingIngestionLog,
+                          @Value("${booking.batch.max-size:1000}") int maxBatchSize,
+                          @Value("${booking.hold.ttl:15m}") Duration holdTtl) {
+        this.bookingRepository = bookingRepository;
+        this.eventServiceClient = eventServiceClient;
+        this.notificationOutbox = notificationOutbox;
+        this.bookingChangeOutbox = bookingChangeOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.holdExpiryScheduler = holdExpiryScheduler;
+        this.shardRouter = shardRouter;
+        this.bookingIngestionLog = bookingIngestionLog;
+        this.maxBatchSize = maxBatchSize;
+        this.holdTtl = holdTtl;
+    }
 
 
     /**
-     * Retrieves all bookings from the repository.
+     * Retrieves all bookings from the repository, gathered from every shard when sharded.
      *
      * @return A list of BookingDto objects or null if no bookings are found.
      */
     public List<BookingDto> getAllBookings() {
-        List<Booking> bookings = bookingRepository.findAll();
+        List<Booking> bookings = shardRouter.scatter(bookingRepository::findAll, Booking::getId);
         if (bookings.isEmpty()) return null;
         return bookings.stream()
                 .map(this::mapToDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves a page of bookings in ID order, using keyset pagination so that deep pages
+     * cost the same as the first one. When sharded, the page of each shard is read in parallel
+     * and the pages merged.
+     *
+     * @param afterId The ID of the last booking of the previous page, or 0 for the first page.
+     * @param size The maximum number of bookings to return, capped at {@value #MAX_PAGE_SIZE}.
+     * @return A PageDto with the bookings and the afterId of the next page.
+     */
+    public PageDto<BookingDto> getBookingsPage(Long afterId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<BookingDto> items = shardRouter.scatter(() -> bookingRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)),
+                        Booking::getId).stream()
+                .sorted(Comparator.comparing(Booking::getId))
+                .limit(limit)
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+        Long nextAfterId = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return PageDto.<BookingDto>builder()
+                .items(items)
+                .nextAfterId(nextAfterId)
+                .build();
+    }
+
+    /**
+     * Writes all bookings as newline-delimited JSON, reading them through a database cursor.
+     * Each booking is detached once written, so memory use does not grow with the table.
+     * When sharded, the shards are read one after the other, each in ID order.
+     *
+     * @param out The stream to write to. It is flushed but not closed.
+     * @throws IOException if writing to the stream fails.
+     */
+    public void streamAllBookings(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(BookingDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Writer lines = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            shardRouter.onEachShard(shard -> readOnlyTransactionTemplate.execute(status -> {
+                try (Stream<Booking> bookings = bookingRepository.streamAll()) {
+                    Iterator<Booking> iterator = bookings.iterator();
+                    while (iterator.hasNext()) {
+                        Booking booking = iterator.next();
+                        if (shardRouter.owns(shard, booking.getId())) {
+                            writer.writeValue(lines, mapToDto(booking));
+                            lines.write('\n');
+                        }
+                        entityManager.detach(booking);
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return null;
+            }));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        lines.flush();
+    }
+
     /**
      * Retrieves a booking by its ID.
      *
@@ -49,7 +178,7 @@ public class BookingService {
      * @return An Optional containing the BookingDto if found, or an empty Optional if not.
      */
     public Optional<BookingDto> getBookingById(long bookingId) {
-        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        Optional<Booking> booking = shardRouter.onBooking(bookingId, () -> bookingRepository.findById(bookingId));
         if (booking.isEmpty()) return Optional.empty();
         return booking.map(value -> BookingDto.builder()
                 .id(value.getId())
@@ -60,51 +189,220 @@ public class BookingService {
                 .numberOfTickets(value.getNumberOfTickets())
                 .isCancelled(value.isCancelled())
                 .bookingTime(value.getBookingTime())
+                .status(value.getStatus())
+                .holdExpiresAt(value.getHoldExpiresAt())
                 .build());
     }
 
 
     /**
      * Creates a new booking.
-     * Calls the event service to verify the existence of the event before booking.
+     * Calls the event service to verify the existence of the event before booking. The seats are
+     * held until {@code booking.hold.ttl} elapses, and released unless a payment confirms the booking first.
+     * When {@code booking.wal.enabled} is true, the booking is acknowledged once durable in the
+     * {@link BookingIngestionLog}, and saved in the background.
      *
      * @param bookingDto The booking details.
-     * @return The created BookingDto.
+     * @return The created BookingDto, in the HELD status.
      * @throws IllegalArgumentException If the event does not exist.
+     * @throws TicketsUnavailableException If the event does not have enough tickets left.
      */
     public BookingDto createBooking(BookingDto bookingDto) {
         //Call event service, and book if the event exist
         Long eventId = bookingDto.getEventId();
 
-        EventDto eventResponse = webClientBuilder.build().get()
-                .uri("http://event-service/api/events/{eventId}", eventId)
-                .retrieve()
-                .bodyToMono(EventDto.class)
-                .block();
+        EventDto eventResponse = eventServiceClient.fetchEvent(eventId).block();
+
+        Booking booking = newBooking(bookingDto);
+        if (eventResponse == null) {
+            throw new NotFoundException("There no event with Id {}" + bookingDto.getEventId());
+        }
+
+        eventServiceClient.reserveTickets(eventId, bookingDto.getNumberOfTickets(), bookingDto.getUserName()).block();
+        Booking bookingEvent;
+        try {
+            BookingEvent notification = getBookingEvent(bookingDto, eventResponse);
+            bookingEvent = bookingIngestionLog.isPresent()
+                    ? bookingIngestionLog.get().append(booking, notification)
+                    : saveWithNotification(booking, notification);
+        } catch (RuntimeException ex) {
+            eventServiceClient.releaseTickets(eventId, bookingDto.getNumberOfTickets(), bookingDto.getUserName()).block();
+            throw ex;
+        }
+        return mapToDto(bookingEvent);
+    }
+
+    /**
+     * Saves a new booking and queues its confirmation in the outbox, in a single transaction on the shard of its event.
+     *
+     * @param booking The booking to save.
+     * @param bookingEvent The confirmation to send once the booking is committed.
+     * @return The saved Booking entity.
+     */
+    Booking saveWithNotification(Booking booking, BookingEvent bookingEvent) {
+        Booking savedBooking = shardRouter.onEvent(booking.getEventId(), () -> transactionTemplate.execute(status -> {
+            Booking saved = bookingRepository.save(booking);
+            notificationOutbox.enqueue(saved.getId(), bookingEvent);
+            bookingChangeOutbox.enqueue(saved, BookingChangeType.CREATED);
+            return saved;
+        }));
+        holdExpiryScheduler.schedule(savedBooking.getId(), savedBooking.getHoldExpiresAt());
+        return savedBooking;
+    }
 
-        Booking booking = Booking.builder()
+    /**
+     * Builds a new, not yet persisted, held Booking entity from the booking details.
+     *
+     * @param bookingDto The booking details.
+     * @return The Booking entity.
+     */
+    Booking newBooking(BookingDto bookingDto) {
+        LocalDateTime now = LocalDateTime.now();
+        return Booking.builder()
                 .eventId(bookingDto.getEventId())
                 .userName(bookingDto.getUserName())
                 .numberOfTickets(bookingDto.getNumberOfTickets())
                 .ticketType(bookingDto.getTicketType())
-                .bookingTime(LocalDateTime.now())
+                .bookingTime(now)
                 .totalAmount(getPriceForTicketType(
                         bookingDto.getTicketType(),
                         bookingDto.getNumberOfTickets()
                 )).isCancelled(false)
+                .status(BookingStatus.HELD)
+                .holdExpiresAt(now.plus(holdTtl))
                 .build();
-        if (eventResponse == null) {
-            throw new NotFoundException("There no event with Id {}" + bookingDto.getEventId());
+    }
+
+    /**
+     * Creates a batch of bookings.
+     * The events are looked up with a single call for all distinct event IDs, the tickets are reserved
+     * with a single call, and the bookings and their notifications are inserted in one transaction with
+     * JDBC batching, one per shard when sharded. A booking that cannot be created is reported without
+     * failing the others.
+     *
+     * @param bookingDtos The booking details.
+     * @return A BatchBookingResultDto with the outcome of each booking, in request order.
+     * @throws BatchSizeExceededException If the batch holds more than {@code booking.batch.max-size} bookings.
+     */
+    public BatchBookingResultDto createBookings(List<BookingDto> bookingDtos) {
+        if (bookingDtos.size() > maxBatchSize) {
+            throw new BatchSizeExceededException("A batch cannot hold more than " + maxBatchSize + " bookings, got " + bookingDtos.size());
+        }
+        BatchBookingItemDto[] items = new BatchBookingItemDto[bookingDtos.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            if (bookingDto.getEventId() == null || bookingDto.getUserName() == null
+                    || bookingDto.getTicketType() == null
+                    || bookingDto.getNumberOfTickets() == null || bookingDto.getNumberOfTickets() <= 0) {
+                items[i] = failedItem(i, "The event id, user name, ticket type and a positive number of tickets are required");
+            } else {
+                pending.add(i);
+            }
         }
 
-        Booking bookingEvent = bookingRepository.save(booking);
-        BookingEvent newBookingEvent = getBookingEvent(bookingDto, eventResponse);
+        Set<Long> eventIds = pending.stream()
+                .map(i -> bookingDtos.get(i).getEventId())
+                .collect(Collectors.toSet());
+        Map<Long, EventDto> events = eventServiceClient.fetchEvents(eventIds).block();
+        pending.removeIf(i -> {
+            Long eventId = bookingDtos.get(i).getEventId();
+            if (events == null || !events.containsKey(eventId)) {
+                items[i] = failedItem(i, "There no event with id: " + eventId);
+                return true;
+            }
+            return false;
+        });
 
-        sendNotificationBookingConfirmation(newBookingEvent);
-        return mapToDto(bookingEvent);
+        List<InventoryDto> reservations = eventServiceClient.reserveTickets(pending.stream()
+                .map(i -> toInventoryDto(bookingDtos.get(i)))
+                .collect(Collectors.toList())).block();
+        List<Integer> reserved = new ArrayList<>();
+        for (int k = 0; k < pending.size(); k++) {
+            InventoryDto reservation = reservations.get(k);
+            if (Boolean.TRUE.equals(reservation.getApplied())) {
+                reserved.add(pending.get(k));
+            } else {
+                items[pending.get(k)] = failedItem(pending.get(k), reservation.getMessage());
+            }
+        }
+
+        List<Integer> created = new ArrayList<>();
+        ToIntFunction<Integer> bucketOf = i -> ShardRouter.bucketOfEvent(bookingDtos.get(i).getEventId());
+        for (List<Integer> part : shardRouter.partition(reserved, bucketOf)) {
+            List<Booking> savedBookings;
+            try {
+                savedBookings = shardRouter.onPart(part, bucketOf, () -> saveAllWithNotifications(part, bookingDtos, events));
+            } catch (RuntimeException ex) {
+                eventServiceClient.releaseTickets(part.stream()
+                        .map(i -> toInventoryDto(bookingDtos.get(i)))
+                        .collect(Collectors.toList())).block();
+                if (shardRouter.shardCount() == 1) {
+                    throw ex;
+                }
+                // The bookings of the other shards may be created already
+                part.forEach(i -> items[i] = failedItem(i, "The booking could not be saved: " + ex.getMessage()));
+                continue;
+            }
+            savedBookings.forEach(booking -> holdExpiryScheduler.schedule(booking.getId(), booking.getHoldExpiresAt()));
+            for (int k = 0; k < part.size(); k++) {
+                int i = part.get(k);
+                items[i] = BatchBookingItemDto.builder()
+                        .index(i)
+                        .created(true)
+                        .booking(mapToDto(savedBookings.get(k)))
+                        .build();
+            }
+            created.addAll(part);
+        }
+
+        return BatchBookingResultDto.builder()
+                .created(created.size())
+                .failed(bookingDtos.size() - created.size())
+                .items(Arrays.asList(items))
+                .build();
+    }
+
+    /**
+     * Saves new bookings and queues their notifications in the outbox, in a single transaction.
+     *
+     * @param indexes The indexes of the bookings to save.
+     * @param bookingDtos The booking details of the batch.
+     * @param events The events of the batch, by ID.
+     * @return The saved Booking entities, in the order of indexes.
+     */
+    private List<Booking> saveAllWithNotifications(List<Integer> indexes, List<BookingDto> bookingDtos, Map<Long, EventDto> events) {
+        List<Booking> bookings = indexes.stream()
+                .map(i -> newBooking(bookingDtos.get(i)))
+                .collect(Collectors.toList());
+        return transactionTemplate.execute(status -> {
+            List<Booking> saved = bookingRepository.saveAll(bookings);
+            for (int k = 0; k < saved.size(); k++) {
+                BookingDto bookingDto = bookingDtos.get(indexes.get(k));
+                notificationOutbox.enqueue(saved.get(k).getId(), getBookingEvent(bookingDto, events.get(bookingDto.getEventId())));
+                bookingChangeOutbox.enqueue(saved.get(k), BookingChangeType.CREATED);
+            }
+            return saved;
+        });
+    }
+
+    private static BatchBookingItemDto failedItem(int index, String error) {
+        return BatchBookingItemDto.builder()
+                .index(index)
+                .created(false)
+                .error(error)
+                .build();
     }
 
-    private BookingEvent getBookingEvent(BookingDto bookingDto, EventDto eventResponse) {
+    private static InventoryDto toInventoryDto(BookingDto bookingDto) {
+        return InventoryDto.builder()
+                .eventId(bookingDto.getEventId())
+                .quantity(bookingDto.getNumberOfTickets())
+                .userName(bookingDto.getUserName())
+                .build();
+    }
+
+    BookingEvent getBookingEvent(BookingDto bookingDto, EventDto eventResponse) {
         return BookingEvent.builder()
                 .eventName(eventResponse.getName())
                 .eventDate(eventResponse.getDate())
@@ -118,6 +416,37 @@ public class BookingService {
                 )).build();
     }
 
+    /**
+     * Confirms a held booking once it is paid for, so that its hold no longer expires.
+     * Confirming a booking that is already confirmed has no effect.
+     *
+     * @param id The ID of the booking to confirm.
+     * @return The confirmed BookingDto.
+     * @throws NotFoundException If the booking does not exist.
+     * @throws BookingAlreadyCancelledException If the booking was cancelled.
+     * @throws BookingHoldExpiredException If the hold expired and its seats were released.
+     */
+    public BookingDto confirmBooking(Long id) {
+        Booking booking = shardRouter.onBooking(id, () -> transactionTemplate.execute(status -> {
+            Booking locked = bookingRepository.findAndLockById(id)
+                    .orElseThrow(() -> new NotFoundException("There no booking with Id {}" + id));
+            if (locked.isCancelled()) {
+                throw new BookingAlreadyCancelledException("The event booking with id: " + id + " was already cancelled");
+            }
+            if (locked.getStatus() == BookingStatus.EXPIRED) {
+                throw new BookingHoldExpiredException("The hold on booking with id: " + id + " expired");
+            }
+            if (locked.getStatus() == BookingStatus.HELD) {
+                locked.setStatus(BookingStatus.CONFIRMED);
+                locked.setHoldExpiresAt(null);
+                bookingChangeOutbox.enqueue(locked, BookingChangeType.UPDATED);
+            }
+            return locked;
+        }));
+        holdExpiryScheduler.cancel(id);
+        return mapToDto(booking);
+    }
+
     /**
      * Cancels a booking by its ID.
      *
@@ -127,44 +456,100 @@ public class BookingService {
      * @throws BookingAlreadyCancelledException If the booking is already cancelled.
      */
     public String cancelBooking(Long id) {
-        Booking bookingEvent = bookingRepository.findById(id).map(booking -> {
-            if (booking.isCancelled()) {
-                throw new BookingAlreadyCancelledException("The event booking with id: " + id + " was already cancelled");
-            }
-            booking.setCancelled(true);
-            return bookingRepository.save(booking);
-        }).orElseThrow(() -> new NotFoundException("There no booking with Id {}" + id));
+        Booking bookingEvent = findBookingToCancel(id);
 
-        EventDto eventResponse = webClientBuilder.build().get()
-                .uri("http://event-service/api/events/{eventId}", bookingEvent.getEventId())
-                .retrieve()
-                .bodyToMono(EventDto.class)
-                .block();
+        EventDto eventResponse = eventServiceClient.fetchEvent(bookingEvent.getEventId()).block();
+        cancelWithNotification(bookingEvent, eventResponse);
+
+        eventServiceClient.releaseTickets(bookingEvent.getEventId(), bookingEvent.getNumberOfTickets(), bookingEvent.getUserName()).block();
 
         if (eventResponse == null) {
             throw new NotFoundException("There no event with id: " + bookingEvent.getEventId());
         }
+        throw new BookingCancelledException("The booking with id : " + id + " was cancelled");
+    }
+
+    /**
+     * Finds a booking that is about to be cancelled.
+     *
+     * @param id The ID of the booking.
+     * @return The Booking entity.
+     * @throws NotFoundException If the booking does not exist.
+     * @throws BookingAlreadyCancelledException If the booking is already cancelled.
+     * @throws BookingHoldExpiredException If the hold expired, its seats being released already.
+     * @throws BookingNotCancellableException If the booking saga is still running or failed.
+     */
+    Booking findBookingToCancel(Long id) {
+        Booking booking = shardRouter.onBooking(id, () -> bookingRepository.findById(id))
+                .orElseThrow(() -> new NotFoundException("There no booking with Id {}" + id));
+        checkCancellable(booking);
+        return booking;
+    }
+
+    private static void checkCancellable(Booking booking) {
+        if (booking.isCancelled()) {
+            throw new BookingAlreadyCancelledException("The event booking with id: " + booking.getId() + " was already cancelled");
+        }
+        if (booking.getStatus() == BookingStatus.EXPIRED) {
+            throw new BookingHoldExpiredException("The hold on booking with id: " + booking.getId() + " expired");
+        }
+        if (booking.getStatus() == BookingStatus.PENDING || booking.getStatus() == BookingStatus.FAILED) {
+            throw new BookingNotCancellableException("The booking with id: " + booking.getId() + " is " + booking.getStatus()
+                    + ", its seats are handled by the booking saga");
+        }
+    }
 
-        BookingEvent newBookingEvent = BookingEvent.builder()
+    /**
+     * Marks a booking as cancelled and queues its cancellation notice in the outbox, in a single transaction.
+     * The booking row is locked and checked again, as its hold may have expired or another request
+     * cancelled it since it was read.
+     *
+     * @param booking The booking to cancel.
+     * @param eventResponse The event of the booking, or null if it no longer exists, in which case no notice is sent.
+     * @return The saved Booking entity.
+     */
+    Booking cancelWithNotification(Booking booking, EventDto eventResponse) {
+        Booking cancelledBooking = shardRouter.onBooking(booking.getId(), () -> transactionTemplate.execute(status -> {
+            Booking locked = bookingRepository.findAndLockById(booking.getId())
+                    .orElseThrow(() -> new NotFoundException("There no booking with Id {}" + booking.getId()));
+            checkCancellable(locked);
+            locked.setCancelled(true);
+            locked.setHoldExpiresAt(null);
+            bookingChangeOutbox.enqueue(locked, BookingChangeType.UPDATED);
+            if (eventResponse != null) {
+                notificationOutbox.enqueue(locked.getId(), getBookingEvent(locked, eventResponse));
+            }
+            return locked;
+        }));
+        holdExpiryScheduler.cancel(cancelledBooking.getId());
+        return cancelledBooking;
+    }
+
+    BookingEvent getBookingEvent(Booking booking, EventDto eventResponse) {
+        return BookingEvent.builder()
                 .eventName(eventResponse.getName())
                 .eventDate(eventResponse.getDate())
                 .eventLocation(eventResponse.getLocation())
-                .userName(bookingEvent.getUserName())
-                .ticketType(bookingEvent.getTicketType().toString())
-                .numberOfTicket(bookingEvent.getNumberOfTickets())
+                .userName(booking.getUserName())
+                .ticketType(booking.getTicketType().toString())
+                .numberOfTicket(booking.getNumberOfTickets())
                 .paymentAmount(getPriceForTicketType(
-                        bookingEvent.getTicketType(),
-                        bookingEvent.getNumberOfTickets()
+                        booking.getTicketType(),
+                        booking.getNumberOfTickets()
                 )).build();
-
-        sendNotificationBookingConfirmation(newBookingEvent);
-        throw new BookingCancelledException("The booking with id : " + id + " was cancelled");
     }
 
     public String deleteBooking(Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
-        if (booking != null) {
-            bookingRepository.deleteById(booking.getId());
+        Boolean deleted = shardRouter.onBooking(bookingId, () -> transactionTemplate.execute(status -> {
+            Booking booking = bookingRepository.findAndLockById(bookingId).orElse(null);
+            if (booking == null) {
+                return false;
+            }
+            bookingRepository.delete(booking);
+            bookingChangeOutbox.enqueueDeleted(booking);
+            return true;
+        }));
+        if (Boolean.TRUE.equals(deleted)) {
             return "Booking with id " + bookingId + " was deleted";
         }
         throw new NotFoundException( "Booking with id " + bookingId + " not found");
@@ -176,7 +561,7 @@ public class BookingService {
      * @param booking The booking entity to map.
      * @return The corresponding BookingDto.
      */
-    private BookingDto mapToDto(Booking booking) {
+    BookingDto mapToDto(Booking booking) {
         return BookingDto.builder()
                 .id(booking.getId())
                 .eventId(booking.getEventId())
@@ -186,6 +571,8 @@ public class BookingService {
                 .bookingTime(booking.getBookingTime())
                 .ticketType(booking.getTicketType())
                 .totalAmount(booking.getTotalAmount())
+                .status(booking.getStatus())
+                .holdExpiresAt(booking.getHoldExpiresAt())
                 .build();
     }
 
@@ -205,14 +592,5 @@ public class BookingService {
         };
     }
 
-    /**
-     * Sends a notification for booking confirmation or cancellation via Kafka.
-     *
-     * @param bookingEvent The booking event details.
-     */
-    private void sendNotificationBookingConfirmation(BookingEvent bookingEvent) {
-        kafkaTemplate.send("notification", bookingEvent);
-    }
-
 
 }
@@ -0,0 +1,57 @@
+package com.eventbooking.booking_service.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring mapping keys to named nodes.
+ * <p>
+ * Each node is placed on the ring at the hashes of its name and a virtual node number, and a key belongs
+ * to the first node at or after its own hash. Adding a node therefore only takes over the keys of
+ * the arcs it lands on, about one in N, and removing one only gives its keys away; the other keys
+ * keep their node. Hashes are taken from MD5, so that every instance builds the same ring. </p>
+ */
+public final class ConsistentHashRing {
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * @param nodes the names of the nodes, at least one
+     * @param virtualNodes the points of each node on the ring; more even out the share of each node
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one node and one virtual node per node");
+        }
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return the name of the node the key belongs to
+     */
+    public String nodeOf(long key) {
+        Map.Entry<Long, String> next = ring.ceilingEntry(hash(Long.toString(key)));
+        return next != null ? next.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is required of every Java platform", ex);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.EventChangeType;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.event.EventChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Near cache of the event details booking-service needs on its hot path.
+ * <p>
+ * Entries are bounded in number and expire after {@code booking.event-cache.ttl}, and are refreshed or
+ * dropped as soon as the event service publishes a change on the event-changes topic. The TTL is
+ * therefore the longest a deleted event can be served if its change message is lost. Every instance
+ * reads all the partitions of the topic from their end, without a consumer group nor committed offsets:
+ * the changes published before it started are not needed, as its cache was empty then. </p>
+ */
+@Slf4j
+@Component
+public class EventCache {
+    private final Cache<Long, EventDto> events;
+    private final Cache<Long, Boolean> deletedEvents;
+
+    public EventCache(MeterRegistry meterRegistry,
+                      @Value("${booking.event-cache.max-size:10000}") long maxSize,
+                      @Value("${booking.event-cache.ttl:5m}") Duration ttl) {
+        this.events = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Remembers deletions so that a lookup racing with the delete cannot cache the event again
+        this.deletedEvents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, events, "eventNearCache");
+    }
+
+    /**
+     * Returns the cached details of an event.
+     *
+     * @param eventId The ID of the event.
+     * @return The cached EventDto, or null if the event is not cached.
+     */
+    public EventDto get(Long eventId) {
+        return events.getIfPresent(eventId);
+    }
+
+    /**
+     * Caches the details of an event fetched from the event service.
+     *
+     * @param event The event details.
+     */
+    public void put(EventDto event) {
+        if (event.getId() != null && deletedEvents.getIfPresent(event.getId()) == null) {
+            events.put(event.getId(), event);
+        }
+    }
+
+    /**
+     * Applies a change published by the event service.
+     *
+     * @param change The change of an event.
+     */
+    @KafkaListener(id = "eventCache", idIsGroup = false, topicPartitions = @TopicPartition(topic = "event-changes",
+            partitions = "${booking.event-cache.partitions:0}",
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0", seekPosition = "END")),
+            containerFactory = "eventChangeListenerContainerFactory")
+    public void onEventChange(EventChangeEvent change) {
+        log.debug("Received {} change for event {}", change.getChangeType(), change.getEventId());
+        if (change.getChangeType() == EventChangeType.DELETED) {
+            deletedEvents.put(change.getEventId(), Boolean.TRUE);
+            events.invalidate(change.getEventId());
+            return;
+        }
+        deletedEvents.invalidate(change.getEventId());
+        events.put(change.getEventId(), EventDto.builder()
+                .id(change.getEventId())
+                .name(change.getName())
+                .location(change.getLocation())
+                .date(change.getDate())
+                .createdAt(change.getCreatedAt())
+                .build());
+    }
+}
@@ -0,0 +1,186 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.dto.InventoryDto;
+import com.eventbooking.booking_service.exceptionshandller.TicketsUnavailableException;
+import com.eventbooking.serviceclient.ServiceClients;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Client for the event service endpoints booking-service depends on.
+ * Event lookups are served from the {@link EventCache} when possible, and concurrent lookups of an
+ * event missing from it share a single call to the event service. Calls go through the event-service
+ * client of {@link ServiceClients}, which bounds how long and how many of them may be waiting.
+ */
+@Service
+public class EventServiceClient {
+    static final String EVENT_SERVICE = "event-service";
+
+    private final WebClient webClient;
+    private final EventCache eventCache;
+    private final Map<Long, Mono<EventDto>> inFlightLookups = new ConcurrentHashMap<>();
+    private final Counter coalescedLookups;
+
+    public EventServiceClient(ServiceClients serviceClients, EventCache eventCache, MeterRegistry meterRegistry) {
+        this.webClient = serviceClients.get(EVENT_SERVICE);
+        this.eventCache = eventCache;
+        this.coalescedLookups = Counter.builder("booking.event-lookups.coalesced")
+                .description("Event lookups that joined a call to the event service already in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fetches the details of an event, from the near cache or from the event service.
+     * A lookup arriving while another one for the same event is in flight gets its result,
+     * or its error, instead of calling the event service again.
+     *
+     * @param eventId The ID of the event.
+     * @return A Mono emitting the EventDto, or empty if the event service returned no body.
+     */
+    public Mono<EventDto> fetchEvent(Long eventId) {
+        EventDto cached = eventCache.get(eventId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.defer(() -> {
+            boolean[] started = {false};
+            Mono<EventDto> lookup = inFlightLookups.computeIfAbsent(eventId, id -> {
+                started[0] = true;
+                return lookupEvent(id);
+            });
+            if (!started[0]) {
+                coalescedLookups.increment();
+            }
+            return lookup;
+        });
+    }
+
+    private Mono<EventDto> lookupEvent(Long eventId) {
+        AtomicBoolean registered = new AtomicBoolean(true);
+        return webClient.get()
+                .uri("/api/events/{eventId}", eventId)
+                .retrieve()
+                .bodyToMono(EventDto.class)
+                .doOnNext(eventCache::put)
+                // Unregistered before its result reaches the waiting lookups, so that the next one starts afresh
+                .doOnEach(signal -> {
+                    if (registered.compareAndSet(true, false)) {
+                        inFlightLookups.remove(eventId);
+                    }
+                })
+                .cache();
+    }
+
+    /**
+     * Fetches the details of several events. Cached events are served from the near cache and
+     * the others are fetched with a single lookup call to the event service.
+     *
+     * @param eventIds The IDs of the events.
+     * @return A Mono emitting the EventDto of each event found, by event ID.
+     */
+    public Mono<Map<Long, EventDto>> fetchEvents(Collection<Long> eventIds) {
+        Map<Long, EventDto> events = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            EventDto cached = eventCache.get(eventId);
+            if (cached != null) {
+                events.put(eventId, cached);
+            } else {
+                missing.add(eventId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(events);
+        }
+        // In the body, as a batch of a thousand IDs would not fit in the request headers
+        return webClient.post()
+                .uri("/api/events/lookup")
+                .bodyValue(missing)
+                .retrieve()
+                .bodyToFlux(EventDto.class)
+                .doOnNext(eventCache::put)
+                .collect(() -> events, (found, event) -> found.put(event.getId(), event));
+    }
+
+    /**
+     * Reserves tickets of several events in a single call. Each reservation is applied independently.
+     *
+     * @param reservations The reservations, with eventId, quantity and userName set.
+     * @return A Mono emitting an InventoryDto per reservation, in the same order, telling whether it was applied.
+     */
+    public Mono<List<InventoryDto>> reserveTickets(List<InventoryDto> reservations) {
+        return changeInventory("/api/events/reserve", reservations);
+    }
+
+    /**
+     * Releases tickets of several events in a single call.
+     *
+     * @param releases The releases, with eventId, quantity and userName set.
+     * @return A Mono emitting an InventoryDto per release, in the same order, telling whether it was applied.
+     */
+    public Mono<List<InventoryDto>> releaseTickets(List<InventoryDto> releases) {
+        return changeInventory("/api/events/release", releases);
+    }
+
+    private Mono<List<InventoryDto>> changeInventory(String uri, List<InventoryDto> changes) {
+        if (changes.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return webClient.post()
+                .uri(uri)
+                .bodyValue(changes)
+                .retrieve()
+                .bodyToFlux(InventoryDto.class)
+                .collectList();
+    }
+
+    /**
+     * Reserves tickets in the event service inventory.
+     *
+     * @param eventId The ID of the event.
+     * @param numberOfTickets The number of tickets to reserve.
+     * @param userName The user booking the tickets.
+     * @return A Mono completing once the tickets are reserved, or failing with
+     * TicketsUnavailableException if the event does not have enough tickets left.
+     */
+    public Mono<Void> reserveTickets(Long eventId, Integer numberOfTickets, String userName) {
+        return webClient.post()
+                .uri("/api/events/{eventId}/reserve?quantity={quantity}&userName={userName}",
+                        eventId, numberOfTickets, userName)
+                .retrieve()
+                .onStatus(status -> status == HttpStatus.CONFLICT, response -> Mono.error(
+                        new TicketsUnavailableException("Not enough tickets left for event with id: " + eventId)))
+                .toBodilessEntity()
+                .then();
+    }
+
+    /**
+     * Releases tickets back to the event service inventory.
+     *
+     * @param eventId The ID of the event.
+     * @param numberOfTickets The number of tickets to release.
+     * @param userName The user releasing the tickets.
+     * @return A Mono completing once the tickets are released.
+     */
+    public Mono<Void> releaseTickets(Long eventId, Integer numberOfTickets, String userName) {
+        return webClient.post()
+                .uri("/api/events/{eventId}/release?quantity={quantity}&userName={userName}",
+                        eventId, numberOfTickets, userName)
+                .retrieve()
+                .toBodilessEntity()
+                .then();
+    }
+}
@@ -0,0 +1,115 @@
+package com.eventbooking.booking_service.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel tracking when keys expire.
+ * <p>
+ * Time is cut into ticks and a key is stored in the slot of its deadline tick modulo the wheel size,
+ * so scheduling and cancelling a key are O(1) whatever the number of keys tracked. Advancing the wheel
+ * only visits the slots of the ticks elapsed since the last advance; a slot may hold keys due in a
+ * later revolution, which are left in place. Deadlines are rounded up to the next tick. </p>
+ *
+ * @param <K> the type of the keys
+ */
+public final class HashedTimingWheel<K> {
+    private final long tickMillis;
+    private final int mask;
+    private final Set<K>[] slots;
+    private final Map<K, Long> deadlineTicks = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis the length of a tick, the precision of the deadlines
+     * @param wheelSize the number of slots, a power of two
+     * @param nowMillis the current time, in epoch milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("The tick must be positive, got " + tickMillis);
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("The wheel size must be a power of two, got " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.slots = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new HashSet<>();
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a key, replacing its previous deadline if it was already scheduled.
+     * A deadline in the past expires on the next advance.
+     *
+     * @param key the key
+     * @param deadlineMillis when the key expires, in epoch milliseconds
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        deadlineTicks.put(key, tick);
+        slots[slot(tick)].add(key);
+    }
+
+    /**
+     * Stops tracking a key.
+     *
+     * @param key the key
+     * @return true if the key was scheduled
+     */
+    public synchronized boolean cancel(K key) {
+        Long tick = deadlineTicks.remove(key);
+        if (tick == null) {
+            return false;
+        }
+        slots[slot(tick)].remove(key);
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the current time and removes the keys that expired.
+     *
+     * @param nowMillis the current time, in epoch milliseconds
+     * @return the expired keys
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        // After more than a revolution every slot holds due keys, so each is visited once
+        long lastTick = Math.min(nowTick, currentTick + slots.length);
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            Iterator<K> keys = slots[slot(tick)].iterator();
+            while (keys.hasNext()) {
+                K key = keys.next();
+                if (deadlineTicks.get(key) <= nowTick) {
+                    keys.remove();
+                    deadlineTicks.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return expired;
+    }
+
+    /**
+     * @return the number of keys scheduled
+     */
+    public synchronized int size() {
+        return deadlineTicks.size();
+    }
+
+    private int slot(long tick) {
+        return (int) (tick & mask);
+    }
+}
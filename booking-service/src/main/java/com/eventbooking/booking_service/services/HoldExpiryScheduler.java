@@ -0,0 +1,180 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.common.saga.SagaTopics;
+import com.eventbooking.common.saga.SeatCommand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Expires the holds that were not paid for in time and gives their seats back to the event service.
+ * <p>
+ * Pending holds are tracked in a {@link HashedTimingWheel} rather than by polling the booking table
+ * for expired rows. Every tick, the holds that fell due are expired in batches of
+ * {@code booking.hold.release-batch-size}: their rows are locked and marked EXPIRED unless a payment
+ * confirmed them first, and the release of their seats is queued in the outbox in the same transaction.
+ * Once committed, an expired hold can no longer be confirmed, and {@link OutboxRelay} sends the release
+ * to event-service, which applies it once per booking. A batch that fails is rolled back as a whole,
+ * and retried after {@code booking.hold.retry-delay}.
+ * When sharded, the holds of each shard are expired in batches of their own.
+ * The wheel is rebuilt from the held bookings of every shard when the application starts. </p>
+ */
+@Slf4j
+@Component
+public class HoldExpiryScheduler {
+    private static final int RECOVERY_PAGE_SIZE = 10_000;
+
+    private final BookingRepository bookingRepository;
+    private final SagaCommandOutbox sagaCommandOutbox;
+    private final BookingChangeOutbox bookingChangeOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final HashedTimingWheel<Long> wheel;
+    private final int releaseBatchSize;
+    private final Duration retryDelay;
+    private final Counter expiredHolds;
+
+    public HoldExpiryScheduler(BookingRepository bookingRepository,
+                               SagaCommandOutbox sagaCommandOutbox,
+                               BookingChangeOutbox bookingChangeOutbox,
+                               TransactionTemplate transactionTemplate,
+                               ShardRouter shardRouter,
+                               MeterRegistry meterRegistry,
+                               @Value("${booking.hold.tick-ms:1000}") long tickMillis,
+                               @Value("${booking.hold.wheel-size:1024}") int wheelSize,
+                               @Value("${booking.hold.release-batch-size:500}") int releaseBatchSize,
+                               @Value("${booking.hold.retry-delay:30s}") Duration retryDelay) {
+        this.bookingRepository = bookingRepository;
+        this.sagaCommandOutbox = sagaCommandOutbox;
+        this.bookingChangeOutbox = bookingChangeOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.wheel = new HashedTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        this.releaseBatchSize = releaseBatchSize;
+        this.retryDelay = retryDelay;
+        this.expiredHolds = Counter.builder("booking.holds.expired")
+                .description("Holds expired, their seats queued for release to the event inventory")
+                .register(meterRegistry);
+        Gauge.builder("booking.holds.pending", wheel, HashedTimingWheel::size)
+                .description("Holds waiting for their payment or their expiry")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tracks a new hold.
+     *
+     * @param bookingId The ID of the held booking.
+     * @param expiresAt When the hold expires.
+     */
+    public void schedule(Long bookingId, LocalDateTime expiresAt) {
+        wheel.schedule(bookingId, toEpochMillis(expiresAt));
+    }
+
+    /**
+     * Stops tracking a hold that was confirmed or cancelled.
+     *
+     * @param bookingId The ID of the booking.
+     */
+    public void cancel(Long bookingId) {
+        wheel.cancel(bookingId);
+    }
+
+    /**
+     * Schedules the holds persisted by a previous run. Those already due expire on the next tick.
+     *
+     * @return the number of holds scheduled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int recover() {
+        int recovered = shardRouter.onEachShard(shard -> {
+            int scheduled = 0;
+            long afterId = 0;
+            List<Booking> holds;
+            do {
+                holds = bookingRepository.findHolds(BookingStatus.HELD, afterId, Limit.of(RECOVERY_PAGE_SIZE));
+                for (Booking hold : holds) {
+                    schedule(hold.getId(), hold.getHoldExpiresAt());
+                    afterId = hold.getId();
+                }
+                scheduled += holds.size();
+            } while (holds.size() == RECOVERY_PAGE_SIZE);
+            return scheduled;
+        }).stream().mapToInt(Integer::intValue).sum();
+        if (recovered > 0) {
+            log.info("Recovered {} pending holds", recovered);
+        }
+        return recovered;
+    }
+
+    /**
+     * Expires the holds that fell due since the last tick.
+     *
+     * @return the number of holds expired
+     */
+    @Scheduled(fixedDelayString = "${booking.hold.tick-ms:1000}")
+    public int expireDueHolds() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        int expired = 0;
+        for (List<Long> shardDue : shardRouter.partition(due, ShardRouter::bucketOfBooking)) {
+            for (int from = 0; from < shardDue.size(); from += releaseBatchSize) {
+                List<Long> batch = shardDue.subList(from, Math.min(from + releaseBatchSize, shardDue.size()));
+                try {
+                    expired += shardRouter.onPart(batch, ShardRouter::bucketOfBooking, () -> expire(batch));
+                } catch (RuntimeException ex) {
+                    log.warn("Could not expire {} holds, retrying in {}", batch.size(), retryDelay, ex);
+                    long retryAt = System.currentTimeMillis() + retryDelay.toMillis();
+                    batch.forEach(bookingId -> wheel.schedule(bookingId, retryAt));
+                }
+            }
+        }
+        expiredHolds.increment(expired);
+        return expired;
+    }
+
+    private int expire(List<Long> bookingIds) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int expired = 0;
+            for (Booking hold : bookingRepository.findAndLockByIdInAndStatus(bookingIds, BookingStatus.HELD)) {
+                if (hold.getHoldExpiresAt() != null && hold.getHoldExpiresAt().isAfter(now)) {
+                    schedule(hold.getId(), hold.getHoldExpiresAt());
+                    continue;
+                }
+                hold.setStatus(BookingStatus.EXPIRED);
+                hold.setHoldExpiresAt(null);
+                bookingChangeOutbox.enqueue(hold, BookingChangeType.UPDATED);
+                // Sent only once the expiry is committed, so the seats are never released for a hold that stays HELD
+                sagaCommandOutbox.enqueue(SagaTopics.SEAT_COMMANDS, hold.getEventId(), SeatCommand.builder()
+                        .sagaId(hold.getId())
+                        .action(SeatCommand.Action.RELEASE_HOLD)
+                        .eventId(hold.getEventId())
+                        .quantity(hold.getNumberOfTickets())
+                        .userName(hold.getUserName())
+                        .build());
+                expired++;
+            }
+            return expired;
+        });
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,40 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.common.event.BookingEvent;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.eventbooking.common.serialization.BookingEventCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queues booking notifications in the outbox table, from where {@link OutboxRelay} sends them to Kafka.
+ * Notifications are stored already encoded in the binary format of {@link BookingEventCodec}.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationOutbox {
+    static final String NOTIFICATION_TOPIC = "notification";
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final BookingEventCodec bookingEventCodec;
+
+    /**
+     * Queues the notification of a booking change. Must be called in the transaction that
+     * saves the booking, so that the notification is sent if and only if the change is committed.
+     *
+     * @param bookingId The ID of the booking, used as the message key.
+     * @param bookingEvent The notification to send.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long bookingId, BookingEvent bookingEvent) {
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .topic(NOTIFICATION_TOPIC)
+                .messageKey(String.valueOf(bookingId))
+                .schemaId(bookingEventCodec.schemaId())
+                .payload(bookingEventCodec.encode(bookingEvent))
+                .build());
+    }
+}
@@ -0,0 +1,217 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.entities.OutboxLock;
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.booking_service.repository.OutboxLockRepository;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.eventbooking.common.serialization.SchemaHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox table to Kafka.
+ * <p>
+ * Messages are read in ID order in batches of {@code booking.outbox.batch-size}, sent together so that the
+ * producer can batch and compress them, and deleted once Kafka acknowledged them. When a send fails, only
+ * the messages before it are deleted and the rest are retried on the next poll, so messages keep their
+ * order and are delivered at least once. When sharded, the outbox of each shard, written in the
+ * transactions of its bookings, is drained in turn. </p>
+ * <p>
+ * Every instance runs a relay over the same outbox. Each batch is read, sent and deleted in a transaction
+ * holding the row of {@code booking_outbox_lock}, taken with {@code SKIP LOCKED}: while one relay sends a
+ * batch, the others skip their poll, so that a message is sent by one relay and messages keep their order
+ * across instances. The lock is held until Kafka acknowledged the batch. </p>
+ * <p>
+ * Publishes {@code booking.outbox.relayed} (messages sent), {@code booking.outbox.drain.rate} (messages per
+ * second during the last drain), {@code booking.outbox.lag} (messages pending) and
+ * {@code booking.outbox.lag.age} (seconds the oldest pending message has waited). </p>
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxLockRepository outboxLockRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Counter relayed;
+    private final AtomicLong lag = new AtomicLong();
+    private final AtomicLong lagAgeSeconds = new AtomicLong();
+    private volatile double drainRate;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       OutboxLockRepository outboxLockRepository,
+                       KafkaTemplate<String, byte[]> kafkaTemplate,
+                       ShardRouter shardRouter,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${booking.outbox.batch-size:500}") int batchSize) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxLockRepository = outboxLockRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.relayed = Counter.builder("booking.outbox.relayed")
+                .description("Outbox messages acknowledged by Kafka")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.drain.rate", this, relay -> relay.drainRate)
+                .description("Outbox messages relayed per second during the last drain")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.lag", lag, AtomicLong::get)
+                .description("Outbox messages waiting to be relayed")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.lag.age", lagAgeSeconds, AtomicLong::get)
+                .description("Seconds the oldest outbox message has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the relay lock of each shard, unless a migration or another instance created it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createLocks() {
+        shardRouter.onEachShard(shard -> {
+            if (!outboxLockRepository.existsById(OutboxLock.RELAY)) {
+                try {
+                    outboxLockRepository.save(new OutboxLock(OutboxLock.RELAY));
+                } catch (DataIntegrityViolationException ex) {
+                    log.debug("Outbox relay lock created by another instance");
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Relays pending outbox messages until the outbox is empty, a send fails or another relay holds the lock.
+     *
+     * @return the number of messages relayed
+     */
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:200}")
+    public synchronized int drain() {
+        long start = System.nanoTime();
+        int drained = shardRouter.onEachShard(shard -> drainShard()).stream().mapToInt(Integer::intValue).sum();
+        if (drained > 0) {
+            drainRate = drained / (Math.max(System.nanoTime() - start, 1) / 1e9);
+            log.debug("Relayed {} outbox messages", drained);
+        }
+        updateLag();
+        return drained;
+    }
+
+    /**
+     * Relays the outbox messages of the current shard until its outbox is empty, a send fails or another
+     * relay holds the lock.
+     */
+    private int drainShard() {
+        int drained = 0;
+        BatchOutcome outcome;
+        do {
+            outcome = transactionTemplate.execute(status -> relayBatch());
+            drained += outcome.relayed();
+        } while (outcome.full());
+        return drained;
+    }
+
+    /**
+     * Relays the next batch of the current shard while holding its relay lock, and deletes the messages
+     * Kafka acknowledged. Must be called in a transaction.
+     */
+    private BatchOutcome relayBatch() {
+        if (outboxLockRepository.tryLock(OutboxLock.RELAY).isEmpty()) {
+            log.debug("Another relay is draining the outbox");
+            return new BatchOutcome(0, false);
+        }
+        List<OutboxMessage> batch = outboxMessageRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+        int acknowledged = send(batch);
+        if (acknowledged > 0) {
+            outboxMessageRepository.deleteAllByIdInBatch(batch.subList(0, acknowledged).stream()
+                    .map(OutboxMessage::getId)
+                    .collect(Collectors.toList()));
+            relayed.increment(acknowledged);
+        }
+        return new BatchOutcome(acknowledged, acknowledged == batchSize);
+    }
+
+    /**
+     * Sends a batch of messages and waits for their acknowledgements.
+     *
+     * @return the number of leading messages acknowledged by Kafka
+     */
+    private int send(List<OutboxMessage> batch) {
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        try {
+            for (OutboxMessage message : batch) {
+                ProducerRecord<String, byte[]> record = new ProducerRecord<>(message.getTopic(), message.getMessageKey(), message.getPayload());
+                if (message.getSchemaId() != null) {
+                    record.headers().add(SchemaHeaders.SCHEMA_ID, SchemaHeaders.encode(message.getSchemaId()));
+                }
+                futures.add(kafkaTemplate.send(record));
+            }
+        } catch (KafkaException e) {
+            log.warn("Failed to send outbox messages, will retry: {}", e.getMessage());
+        }
+        int acknowledged = 0;
+        for (CompletableFuture<SendResult<String, byte[]>> future : futures) {
+            try {
+                // Completes within the producer delivery timeout
+                future.get();
+                acknowledged++;
+            } catch (ExecutionException e) {
+                log.warn("Kafka rejected outbox message {}, will retry: {}",
+                        batch.get(acknowledged).getId(), e.getCause().getMessage());
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return acknowledged;
+    }
+
+    private void updateLag() {
+        lag.set(shardRouter.onEachShard(shard -> outboxMessageRepository.count()).stream()
+                .mapToLong(Long::longValue)
+                .sum());
+        lagAgeSeconds.set(shardRouter.onEachShard(shard -> outboxMessageRepository.findFirstByOrderByIdAsc()
+                        .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toSeconds())
+                        .orElse(0L)).stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0L));
+    }
+
+    /**
+     * @param relayed the number of messages relayed
+     * @param full true if the whole batch was relayed, and more messages may be pending
+     */
+    private record BatchOutcome(int relayed, boolean full) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.exceptionshandller.BookingCancelledException;
+import com.eventbooking.booking_service.exceptionshandller.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking variant of {@link BookingService}, active when {@code booking.reactive.enabled} is true.
+ * <p>
+ * Calls to the event service are chained without blocking and JPA work, including queuing the
+ * notification in the outbox, is offloaded to a bounded scheduler sized to the connection pool,
+ * so a request thread is only held while the request is parsed and the response written. </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "true")
+public class ReactiveBookingService {
+
+    private final BookingService bookingService;
+    private final EventServiceClient eventServiceClient;
+    private final Scheduler jpaScheduler;
+
+    /**
+     * Creates a new booking without blocking the calling thread.
+     *
+     * @param bookingDto The booking details.
+     * @return A Mono emitting the created BookingDto.
+     */
+    public Mono<BookingDto> createBooking(BookingDto bookingDto) {
+        Long eventId = bookingDto.getEventId();
+        return eventServiceClient.fetchEvent(eventId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("There no event with Id {}" + eventId)))
+                .flatMap(event -> eventServiceClient.reserveTickets(eventId, bookingDto.getNumberOfTickets(), bookingDto.getUserName())
+                        .then(offload(() -> bookingService.saveWithNotification(bookingService.newBooking(bookingDto),
+                                        bookingService.getBookingEvent(bookingDto, event)))
+                                .onErrorResume(ex -> eventServiceClient.releaseTickets(eventId, bookingDto.getNumberOfTickets(), bookingDto.getUserName())
+                                        .then(Mono.error(ex))))
+                        .map(bookingService::mapToDto));
+    }
+
+    /**
+     * Cancels a booking without blocking the calling thread.
+     *
+     * @param id The ID of the booking to cancel.
+     * @return A Mono failing with BookingCancelledException once the booking is cancelled,
+     * mirroring {@link BookingService#cancelBooking(Long)}.
+     */
+    public Mono<String> cancelBooking(Long id) {
+        return offload(() -> bookingService.findBookingToCancel(id))
+                .flatMap(booking -> eventServiceClient.fetchEvent(booking.getEventId())
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(event -> offload(() -> bookingService.cancelWithNotification(booking, event.orElse(null)))
+                                .then(eventServiceClient.releaseTickets(booking.getEventId(), booking.getNumberOfTickets(), booking.getUserName()))
+                                .then(Mono.justOrEmpty(event))
+                                .switchIfEmpty(Mono.error(() -> new NotFoundException("There no event with id: " + booking.getEventId())))))
+                .then(Mono.error(() -> new BookingCancelledException("The booking with id : " + id + " was cancelled")));
+    }
+
+    /**
+     * Runs a blocking repository call on the JPA scheduler.
+     */
+    public <T> Mono<T> offload(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(jpaScheduler);
+    }
+}
@@ -0,0 +1,43 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queues the commands of the booking saga, and the seat releases of expired holds, in the outbox table,
+ * from where {@link OutboxRelay} sends them to Kafka. Commands are stored as JSON.
+ */
+@Service
+@RequiredArgsConstructor
+public class SagaCommandOutbox {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Queues a command. Must be called in the transaction that moves the saga to the step
+     * the command belongs to, so that the command is sent if and only if the step is committed.
+     *
+     * @param topic The topic of the command.
+     * @param key The message key, which decides the order commands are consumed in.
+     * @param command The command to send.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, Object key, Object command) {
+        try {
+            outboxMessageRepository.save(OutboxMessage.builder()
+                    .topic(topic)
+                    .messageKey(String.valueOf(key))
+                    .payload(objectMapper.writeValueAsBytes(command))
+                    .build());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Could not serialize saga command " + command, ex);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.entities.ShardedSequenceGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves buckets of bookings to the shard the hash ring puts them on, typically after shards were added
+ * to {@code booking.sharding.shards}, while the service keeps serving requests.
+ * <p>
+ * Buckets are moved one at a time, each held exclusively by {@link ShardRouter} meanwhile, so that
+ * only the requests on the bookings of that bucket wait, for about the time it takes to copy them.
+ * A move copies the bookings and sagas of the bucket to the new shard in one transaction, replacing
+ * what an interrupted move left there, assigns the bucket to the new shard, then deletes them from
+ * the old one. Outbox messages already queued on the old shard are relayed from there. </p>
+ * <p>
+ * Exposed as the {@code shards} actuator endpoint: reading it reports the buckets of each shard and
+ * those left to move, writing to it rebalances. The other instances keep serving requests meanwhile:
+ * they refuse those on the bucket being moved, and route them to its new shard once it moved. </p>
+ */
+@Slf4j
+@Service
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "booking.sharding.enabled", havingValue = "true")
+public class ShardRebalancer {
+    /**
+     * Sharded tables, all keyed by booking ID
+     */
+    private static final List<String> TABLES = List.of("booking", "booking_saga");
+
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, SimpleJdbcInsert> inserts = new LinkedHashMap<>();
+    private final Counter movedBuckets;
+
+    public ShardRebalancer(ShardRouter shardRouter,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        for (String table : TABLES) {
+            inserts.put(table, new SimpleJdbcInsert(jdbcTemplate).withTableName(table));
+        }
+        this.movedBuckets = Counter.builder("booking.sharding.moved")
+                .description("Buckets of bookings moved to another shard")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reports how the buckets are spread.
+     *
+     * @return the number of buckets of each shard, and the number of buckets to move
+     */
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Integer> buckets = new LinkedHashMap<>();
+        shardRouter.shards().forEach(shard -> buckets.put(shard, 0));
+        int misplaced = 0;
+        for (int bucket = 0; bucket < ShardedSequenceGenerator.BUCKETS; bucket++) {
+            buckets.merge(shardRouter.shards().get(shardRouter.shardOf(bucket)), 1, Integer::sum);
+            if (shardRouter.shardOf(bucket) != shardRouter.ringShardOf(bucket)) {
+                misplaced++;
+            }
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("buckets", buckets);
+        status.put("misplaced", misplaced);
+        return status;
+    }
+
+    /**
+     * Moves every bucket that is not on the shard the hash ring puts it on.
+     *
+     * @return the number of buckets moved
+     */
+    @WriteOperation
+    public synchronized int rebalance() {
+        int moved = 0;
+        for (int bucket = 0; bucket < ShardedSequenceGenerator.BUCKETS; bucket++) {
+            int target = shardRouter.ringShardOf(bucket);
+            if (shardRouter.shardOf(bucket) != target) {
+                move(bucket, target);
+                moved++;
+            }
+        }
+        if (moved > 0) {
+            log.info("Moved {} buckets of bookings to their shard", moved);
+        }
+        return moved;
+    }
+
+    /**
+     * Moves the bookings of a bucket to another shard.
+     *
+     * @param bucket the bucket
+     * @param target the index of the shard to move it to
+     */
+    public synchronized void move(int bucket, int target) {
+        int source = shardRouter.shardOf(bucket);
+        if (source == target) {
+            return;
+        }
+        shardRouter.move(bucket, target, () -> {
+            Map<String, List<Map<String, Object>>> rows = shardRouter.onShard(source, () -> {
+                Map<String, List<Map<String, Object>>> read = new LinkedHashMap<>();
+                for (String table : TABLES) {
+                    read.put(table, jdbcTemplate.queryForList("SELECT * FROM " + table + " WHERE MOD(id, ?) = ?",
+                            ShardedSequenceGenerator.BUCKETS, bucket));
+                }
+                return read;
+            });
+            shardRouter.onShard(target, () -> transactionTemplate.execute(status -> {
+                delete(bucket);
+                rows.forEach((table, tableRows) -> {
+                    if (!tableRows.isEmpty()) {
+                        inserts.get(table).executeBatch(tableRows.toArray(Map[]::new));
+                    }
+                });
+                return null;
+            }));
+        });
+        shardRouter.onShard(source, () -> transactionTemplate.execute(status -> {
+            delete(bucket);
+            return null;
+        }));
+        movedBuckets.increment();
+    }
+
+    private void delete(int bucket) {
+        for (String table : TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE MOD(id, ?) = ?", ShardedSequenceGenerator.BUCKETS, bucket);
+        }
+    }
+}
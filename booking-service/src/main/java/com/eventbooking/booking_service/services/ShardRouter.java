@@ -0,0 +1,538 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.config.ShardRoutingDataSource;
+import com.eventbooking.booking_service.config.ShardingProperties;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.booking_service.entities.ShardBucket;
+import com.eventbooking.booking_service.entities.ShardedSequenceGenerator;
+import com.eventbooking.booking_service.exceptionshandller.BucketMovingException;
+import com.eventbooking.booking_service.repository.ShardBucketRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.relational.SchemaManager;
+import org.hibernate.tool.schema.spi.SchemaManagementException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the work on bookings on the shard storing them, when {@code booking.sharding.enabled} is true.
+ * <p>
+ * A booking belongs to one of {@value ShardedSequenceGenerator#BUCKETS} buckets, picked by hashing its
+ * event, which its ID also tells. Buckets are spread over the shards of {@code booking.sharding.shards}
+ * by a {@link ConsistentHashRing} when the first shard is initialized, and the assignment is kept in
+ * its {@code shard_bucket} table: adding a shard moves no bucket until {@link ShardRebalancer} copies
+ * them over. Work on a bucket holds it shared, so that a move of the bucket waits for it and the work
+ * waits for the move. The tables that are not sharded stay on the first shard. </p>
+ * <p>
+ * Each shard also keeps the {@code shard_bucket} rows of the buckets it stores, and work on a bucket runs
+ * in a transaction that first locks them shared on its shard. A move locks the row of its bucket on the
+ * shard it leaves exclusively, so waits for the work of every instance, and marks it as moving: the
+ * other instances then refuse the work on the bucket with {@link BucketMovingException} until the move
+ * completes. Once moved, the row left on the old shard names the new one, so that an instance still
+ * routing the bucket there reads its shard again instead of working on rows that were moved away. The
+ * assignment is also read again every {@code booking.sharding.refresh-interval-ms}. </p>
+ * <p>
+ * On startup, the schema of the other shards is validated, or created when Hibernate manages the
+ * schema, and the sequences of each shard are moved to its own range of values. Hibernate hands out the
+ * values it allocated from one shard to the rows of any shard, so the ranges keep them unique. Unsharded, work
+ * runs as is on the single database. </p>
+ */
+@Slf4j
+@Service
+public class ShardRouter implements DisposableBean {
+    public static final int HOME_SHARD = 0;
+    /**
+     * Sequences of the sharded tables, all allocating by 50
+     */
+    private static final List<String> SEQUENCES = List.of(Booking.SEQUENCE, OutboxMessage.SEQUENCE);
+    private static final int SEQUENCE_INCREMENT = 50;
+    /**
+     * Times work is routed again after finding its buckets moved to another shard by another instance
+     */
+    private static final int MAX_ROUTING_ATTEMPTS = 3;
+
+    private final boolean enabled;
+    private final List<String> shards;
+    private final ConsistentHashRing ring;
+    private final ShardBucketRepository shardBucketRepository;
+    private final TransactionTemplate transactionTemplate;
+    /**
+     * Index of the shard of each bucket
+     */
+    private final AtomicIntegerArray assignment = new AtomicIntegerArray(ShardedSequenceGenerator.BUCKETS);
+    private final ReentrantReadWriteLock[] bucketLocks = new ReentrantReadWriteLock[ShardedSequenceGenerator.BUCKETS];
+    private final ExecutorService scatterExecutor;
+
+    public ShardRouter(Optional<ShardingProperties> properties,
+                       ShardBucketRepository shardBucketRepository,
+                       EntityManagerFactory entityManagerFactory,
+                       JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate) {
+        this.enabled = properties.isPresent();
+        this.shardBucketRepository = shardBucketRepository;
+        this.transactionTemplate = transactionTemplate;
+        if (!enabled) {
+            this.shards = List.of("default");
+            this.ring = null;
+            this.scatterExecutor = null;
+            return;
+        }
+        this.shards = properties.get().getShards().stream()
+                .map(ShardingProperties.Shard::getName)
+                .collect(Collectors.toList());
+        this.ring = new ConsistentHashRing(shards, properties.get().getVirtualNodes());
+        for (int bucket = 0; bucket < bucketLocks.length; bucket++) {
+            bucketLocks[bucket] = new ReentrantReadWriteLock();
+        }
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (int shard = HOME_SHARD + 1; shard < shards.size(); shard++) {
+            int prepared = shard;
+            ShardRoutingDataSource.callOn(shard, () -> {
+                prepare(prepared, sessionFactory, jdbcTemplate);
+                return null;
+            });
+        }
+        loadAssignment();
+        this.scatterExecutor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param eventId the event of a booking
+     * @return the bucket of the booking
+     */
+    public static int bucketOfEvent(long eventId) {
+        return ShardedSequenceGenerator.bucketOf(eventId);
+    }
+
+    /**
+     * @param bookingId the ID of a booking
+     * @return the bucket of the booking
+     */
+    public static int bucketOfBooking(long bookingId) {
+        return ShardedSequenceGenerator.bucketOfId(bookingId);
+    }
+
+    /**
+     * @return the number of shards, 1 unsharded
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Runs work on the bookings of an event, such as creating one.
+     */
+    public <T> T onEvent(long eventId, Supplier<T> work) {
+        return onBuckets(List.of(bucketOfEvent(eventId)), work);
+    }
+
+    /**
+     * Runs work on a booking.
+     */
+    public <T> T onBooking(long bookingId, Supplier<T> work) {
+        return onBuckets(List.of(bucketOfBooking(bookingId)), work);
+    }
+
+    /**
+     * Runs work on the items of a part returned by {@link #partition(Collection, ToIntFunction)}.
+     *
+     * @param part the items, all on the same shard
+     * @param bucketOf the bucket of an item
+     * @param work the work
+     * @return the result of the work
+     * @throws IllegalStateException if the items are on different shards, a bucket having moved meanwhile
+     * @throws BucketMovingException if another instance is moving one of the buckets
+     */
+    public <T, R> R onPart(Collection<T> part, ToIntFunction<T> bucketOf, Supplier<R> work) {
+        return onBuckets(part.stream().map(bucketOf::applyAsInt).collect(Collectors.toList()), work);
+    }
+
+    private <T> T onBuckets(Collection<Integer> buckets, Supplier<T> work) {
+        if (!enabled || buckets.isEmpty()) {
+            return work.get();
+        }
+        int[] sorted = buckets.stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
+        List<Lock> held = new ArrayList<>(sorted.length);
+        try {
+            for (int bucket : sorted) {
+                Lock lock = bucketLocks[bucket].readLock();
+                lock.lock();
+                held.add(lock);
+            }
+            // Routed again only from outside a transaction, which the failed attempt marked for rollback
+            int attempts = TransactionSynchronizationManager.isActualTransactionActive() ? 1 : MAX_ROUTING_ATTEMPTS;
+            for (int attempt = 1; ; attempt++) {
+                int shard = assignment.get(sorted[0]);
+                for (int bucket : sorted) {
+                    if (assignment.get(bucket) != shard) {
+                        throw new IllegalStateException("Buckets " + sorted[0] + " and " + bucket + " are on different shards");
+                    }
+                }
+                try {
+                    return onShard(shard, () -> transactionTemplate.execute(status -> {
+                        checkStoredOn(shard, sorted);
+                        return work.get();
+                    }));
+                } catch (BucketMovedException ex) {
+                    if (attempt >= attempts) {
+                        throw new IllegalStateException("Bucket " + ex.bucket + " is no longer stored on shard " + shards.get(shard), ex);
+                    }
+                    log.info("Bucket {} was moved from shard {} by another instance, reading its shard again", ex.bucket, shards.get(shard));
+                    for (int bucket : sorted) {
+                        refreshAssignment(bucket);
+                    }
+                }
+            }
+        } finally {
+            held.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Locks the rows of buckets shared on the shard of the current transaction, checking that the shard
+     * still stores them and that no other instance is moving them.
+     */
+    private void checkStoredOn(int shard, int[] buckets) {
+        Map<Integer, ShardBucket> rows = shardBucketRepository.findAndLockSharedByBucketIn(Arrays.stream(buckets).boxed().toList())
+                .stream()
+                .collect(Collectors.toMap(ShardBucket::getBucket, Function.identity()));
+        for (int bucket : buckets) {
+            ShardBucket row = rows.get(bucket);
+            if (row == null || !row.getShard().equals(shards.get(shard))) {
+                throw new BucketMovedException(bucket);
+            }
+            if (row.getMovingTo() != null) {
+                throw new BucketMovingException("Bookings of bucket " + bucket + " are being moved to shard " + row.getMovingTo() + ", retry later");
+            }
+        }
+    }
+
+    private void refreshAssignment(int bucket) {
+        onShard(HOME_SHARD, () -> shardBucketRepository.findById(bucket)).ifPresent(row -> {
+            int shard = shards.indexOf(row.getShard());
+            if (shard >= 0) {
+                assignment.set(bucket, shard);
+            }
+        });
+    }
+
+    /**
+     * Reads the shard of each bucket again from the first shard, for the buckets other instances moved.
+     */
+    @Scheduled(fixedDelayString = "${booking.sharding.refresh-interval-ms:10000}")
+    public void refreshAssignment() {
+        if (!enabled) {
+            return;
+        }
+        for (ShardBucket row : onShard(HOME_SHARD, shardBucketRepository::findAll)) {
+            int shard = shards.indexOf(row.getShard());
+            if (shard >= 0) {
+                assignment.set(row.getBucket(), shard);
+            }
+        }
+    }
+
+    /**
+     * Splits items by the shard of their bucket, keeping their order within each part.
+     *
+     * @param items the items
+     * @param bucketOf the bucket of an item
+     * @return the parts, one per shard holding items
+     */
+    public <T> List<List<T>> partition(Collection<T> items, ToIntFunction<T> bucketOf) {
+        if (!enabled) {
+            return items.isEmpty() ? List.of() : List.of(new ArrayList<>(items));
+        }
+        Map<Integer, List<T>> parts = new TreeMap<>();
+        for (T item : items) {
+            parts.computeIfAbsent(assignment.get(bucketOf.applyAsInt(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return new ArrayList<>(parts.values());
+    }
+
+    /**
+     * Runs work on a whole shard, such as scanning its tables. The work must not run in a transaction
+     * on another shard, whose connection it would use.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            int current = ShardRoutingDataSource.currentShard();
+            if (current != shard) {
+                throw new IllegalStateException("Work on shard " + shard + " cannot join a transaction on shard " + current);
+            }
+            return work.get();
+        }
+        return ShardRoutingDataSource.callOn(shard, work);
+    }
+
+    /**
+     * Runs work on each shard in turn.
+     *
+     * @param work the work, given the index of the shard
+     * @return the results, in shard order
+     */
+    public <T> List<T> onEachShard(IntFunction<T> work) {
+        List<T> results = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int current = shard;
+            results.add(onShard(shard, () -> work.apply(current)));
+        }
+        return results;
+    }
+
+    /**
+     * Reads bookings from all shards in parallel. Rows left on a shard that no longer owns their bucket,
+     * by a move that was interrupted, are dropped.
+     *
+     * @param query the query, run on each shard
+     * @param bookingId the booking ID of a row
+     * @return the rows of all shards, in shard order
+     */
+    public <T> List<T> scatter(Supplier<List<T>> query, ToLongFunction<T> bookingId) {
+        if (!enabled) {
+            return query.get();
+        }
+        List<CompletableFuture<List<T>>> parts = IntStream.range(0, shards.size())
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> onShard(shard, query).stream()
+                        .filter(row -> owns(shard, bookingId.applyAsLong(row)))
+                        .collect(Collectors.toList()), scatterExecutor))
+                .collect(Collectors.toList());
+        List<T> rows = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> part : parts) {
+                rows.addAll(part.join());
+            }
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+        return rows;
+    }
+
+    /**
+     * @return true if a booking read from a shard is stored there, always true unsharded
+     */
+    public boolean owns(int shard, long bookingId) {
+        return !enabled || assignment.get(bucketOfBooking(bookingId)) == shard;
+    }
+
+    /**
+     * @return the names of the shards, in index order
+     */
+    public List<String> shards() {
+        return shards;
+    }
+
+    /**
+     * @return the index of the shard storing a bucket
+     */
+    int shardOf(int bucket) {
+        return assignment.get(bucket);
+    }
+
+    /**
+     * @return the index of the shard the hash ring puts a bucket on
+     */
+    int ringShardOf(int bucket) {
+        return shards.indexOf(ring.nodeOf(bucket));
+    }
+
+    /**
+     * Moves a bucket while holding it exclusively, and assigns it to its new shard once the move completed.
+     * The bucket is marked as moving on its shard first, once the work other instances started on it is done,
+     * so that they refuse the work on it until it is assigned to its new shard.
+     *
+     * @param bucket the bucket
+     * @param target the index of its new shard
+     * @param copy copies the bookings of the bucket to the new shard
+     */
+    void move(int bucket, int target, Runnable copy) {
+        Lock lock = bucketLocks[bucket].writeLock();
+        lock.lock();
+        try {
+            int source = assignment.get(bucket);
+            markMoving(source, bucket, shards.get(target));
+            try {
+                copy.run();
+            } catch (RuntimeException ex) {
+                markMoving(source, bucket, null);
+                throw ex;
+            }
+            // The new shard first, so that it accepts the work on the bucket once the first shard routes it there
+            Set<Integer> assigned = new TreeSet<>(List.of(target, HOME_SHARD, source));
+            assigned.remove(target);
+            assign(target, bucket, target);
+            for (int shard : assigned) {
+                assign(shard, bucket, target);
+            }
+            assignment.set(bucket, target);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markMoving(int shard, int bucket, String movingTo) {
+        onShard(shard, () -> transactionTemplate.execute(status -> {
+            ShardBucket row = shardBucketRepository.findAndLockByBucket(bucket)
+                    .orElseThrow(() -> new IllegalStateException("Bucket " + bucket + " is not stored on shard " + shards.get(shard)));
+            row.setMovingTo(movingTo);
+            return shardBucketRepository.save(row);
+        }));
+    }
+
+    private void assign(int shard, int bucket, int target) {
+        onShard(shard, () -> shardBucketRepository.save(ShardBucket.builder()
+                .bucket(bucket)
+                .shard(shards.get(target))
+                .build()));
+    }
+
+    /**
+     * Creates or validates the schema of a shard, and moves its sequences to the range of the shard.
+     * Called with the shard selected.
+     */
+    private void prepare(int shard, SessionFactoryImplementor sessionFactory, JdbcTemplate jdbcTemplate) {
+        String schemaAction = String.valueOf(sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO));
+        SchemaManager schemaManager = sessionFactory.getSchemaManager();
+        if (schemaAction.startsWith("create") || schemaAction.equals("update")) {
+            try {
+                schemaManager.validateMappedObjects();
+            } catch (SchemaManagementException ex) {
+                log.info("Creating the schema of shard {}", shards.get(shard));
+                schemaManager.exportMappedObjects(true);
+            }
+        } else if (schemaAction.equals("validate")) {
+            schemaManager.validateMappedObjects();
+        }
+        long first = ShardedSequenceGenerator.firstSequenceValue(shard);
+        SequenceSupport sequenceSupport = sessionFactory.getJdbcServices().getDialect().getSequenceSupport();
+        for (String sequence : SEQUENCES) {
+            Long next = jdbcTemplate.queryForObject(sequenceSupport.getSequenceNextValString(sequence), Long.class);
+            if (next == null || next < first) {
+                // The value read starts the block of 50 Hibernate allocates with pooled-lo, and ends it with pooled:
+                // restarting 49 values in keeps the block within the range of the shard with either
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (first + SEQUENCE_INCREMENT - 1));
+            }
+        }
+    }
+
+    /**
+     * Reads the shard of each bucket from the first shard, spreading the buckets with the ring on the first start.
+     */
+    private void loadAssignment() {
+        Map<Integer, ShardBucket> stored = shardBucketRepository.findAll().stream()
+                .collect(Collectors.toMap(ShardBucket::getBucket, Function.identity()));
+        if (stored.isEmpty()) {
+            List<ShardBucket> initial = new ArrayList<>(ShardedSequenceGenerator.BUCKETS);
+            for (int bucket = 0; bucket < ShardedSequenceGenerator.BUCKETS; bucket++) {
+                assignment.set(bucket, ringShardOf(bucket));
+                initial.add(ShardBucket.builder().bucket(bucket).shard(ring.nodeOf(bucket)).build());
+            }
+            shardBucketRepository.saveAll(initial);
+            storeRowsOfEachShard();
+            log.info("Spread {} buckets of bookings over {} shards", initial.size(), shards.size());
+            return;
+        }
+        int misplaced = 0;
+        int moving = 0;
+        for (int bucket = 0; bucket < ShardedSequenceGenerator.BUCKETS; bucket++) {
+            ShardBucket entry = stored.get(bucket);
+            int shard = entry == null ? -1 : shards.indexOf(entry.getShard());
+            if (shard < 0) {
+                throw new IllegalStateException("Bucket " + bucket + " is stored on shard "
+                        + (entry == null ? null : entry.getShard()) + ", which is missing from booking.sharding.shards");
+            }
+            assignment.set(bucket, shard);
+            if (shard != ringShardOf(bucket)) {
+                misplaced++;
+            }
+            if (entry.getMovingTo() != null) {
+                moving++;
+            }
+        }
+        storeRowsOfEachShard();
+        if (misplaced > 0) {
+            log.info("{} buckets of bookings are waiting to be moved to their shard", misplaced);
+        }
+        if (moving > 0) {
+            log.warn("{} buckets of bookings were left moving by an interrupted move, and refuse work until rebalanced", moving);
+        }
+    }
+
+    /**
+     * Stores on each shard but the first the rows of the buckets it stores that it does not hold yet,
+     * such as on the first start.
+     */
+    private void storeRowsOfEachShard() {
+        for (int shard = HOME_SHARD + 1; shard < shards.size(); shard++) {
+            int current = shard;
+            onShard(shard, () -> {
+                Set<Integer> held = shardBucketRepository.findAll().stream()
+                        .map(ShardBucket::getBucket)
+                        .collect(Collectors.toSet());
+                List<ShardBucket> missing = IntStream.range(0, ShardedSequenceGenerator.BUCKETS)
+                        .filter(bucket -> assignment.get(bucket) == current && !held.contains(bucket))
+                        .mapToObj(bucket -> ShardBucket.builder().bucket(bucket).shard(shards.get(current)).build())
+                        .collect(Collectors.toList());
+                return shardBucketRepository.saveAll(missing);
+            });
+        }
+    }
+
+    /**
+     * Thrown when the shard work was routed to no longer stores one of its buckets.
+     */
+    private static class BucketMovedException extends RuntimeException {
+        private final int bucket;
+
+        BucketMovedException(int bucket) {
+            super("Bucket " + bucket + " was moved to another shard", null, false, false);
+            this.bucket = bucket;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+}
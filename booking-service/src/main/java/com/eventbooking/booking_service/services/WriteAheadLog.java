@@ -0,0 +1,558 @@
+package com.eventbooking.booking_service.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented write-ahead log of opaque records, memory-mapped and made durable with group commit.
+ * <p>
+ * Records are appended to the current segment, a file mapped in memory, each with its length, a CRC32C
+ * checksum and a sequence number increasing by one per record. A segment is named after the sequence of
+ * its first record, and a new one is started when the next record does not fit. {@link #append(byte[])}
+ * returns once its record is forced to disk: the first appender to wait forces every record written so
+ * far, and those appended meanwhile are forced together by the next one, so a single force
+ * acknowledges as many records as arrived while the previous one was running. </p>
+ * <p>
+ * Durable records are read back in sequence order with {@link #read(long, int)}. {@link #release(long)}
+ * records how far they were applied in a checkpoint file and deletes the segments holding only applied
+ * records. On opening, the records of the segments are checked and the log ends before the first torn
+ * or corrupt one, which was never acknowledged. </p>
+ * <p>
+ * A force that fails leaves unknown which of the records it covered reached the disk, and a later force
+ * succeeding would acknowledge them although their appends failed. The log then fails: it refuses new
+ * records until reopened, and the records that were never acknowledged are zeroed in memory, so that
+ * they are not found on reopening should their pages still be written back. </p>
+ * <p>
+ * Segments are written in full with zeros before being used, in the background while the previous one
+ * fills: writing through the mapping of a sparse file allocates its blocks on the way, which slows down
+ * appends and forces as the segment fills. </p>
+ */
+public final class WriteAheadLog implements Closeable {
+    static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String SPARE = "next.wal.tmp";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final AtomicLong forces = new AtomicLong();
+    private final Forcer forcer;
+
+    /**
+     * Segments filled since the last force, guarded by the append lock
+     */
+    private final List<Segment> filled = new ArrayList<>();
+    private Segment current;
+    /**
+     * The file of the next segment, being filled with zeros, guarded by the append lock
+     */
+    private CompletableFuture<Path> spare;
+    private long lastSequence;
+    private volatile long durableSequence;
+    private volatile long appliedSequence;
+    /**
+     * Why the log failed, null until a force fails
+     */
+    private volatile IOException failure;
+
+    /**
+     * Position of the last read, so that reading on from it does not scan its segment again
+     */
+    private Segment readSegment;
+    private int readPosition;
+    private long readSequence = -1;
+
+    /**
+     * A record of the log.
+     *
+     * @param sequence the sequence number of the record
+     * @param payload the bytes appended
+     */
+    public record Entry(long sequence, byte[] payload) {
+    }
+
+    /**
+     * Forces a range of a segment to disk.
+     */
+    @FunctionalInterface
+    interface Forcer {
+        void force(MappedByteBuffer buffer, int index, int length) throws IOException;
+    }
+
+    /**
+     * Opens the log of a directory, creating it if needed.
+     *
+     * @param directory the directory of the segments and the checkpoint
+     * @param segmentSize the size of new segments, in bytes
+     * @throws IOException if the directory or a segment cannot be read or written
+     */
+    public WriteAheadLog(Path directory, int segmentSize) throws IOException {
+        this(directory, segmentSize, MappedByteBuffer::force);
+    }
+
+    WriteAheadLog(Path directory, int segmentSize, Forcer forcer) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("The segment size must be above " + HEADER_SIZE + " bytes, got " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.forcer = forcer;
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        this.appliedSequence = Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+        // Possibly left half written
+        Files.deleteIfExists(directory.resolve(SPARE));
+        this.spare = preallocate();
+        recover();
+    }
+
+    /**
+     * Appends a record and waits until it is durable.
+     *
+     * @param payload the record, not empty
+     * @return the sequence number of the record
+     * @throws IOException if the record cannot be written or forced, or a force failed before
+     * @throws IllegalArgumentException if the record is empty or does not fit in a segment
+     */
+    public long append(byte[] payload) throws IOException {
+        if (payload.length == 0 || HEADER_SIZE + payload.length > segmentSize) {
+            throw new IllegalArgumentException("A record must hold 1 to " + (segmentSize - HEADER_SIZE) + " bytes, got " + payload.length);
+        }
+        long sequence;
+        appendLock.lock();
+        try {
+            checkNotFailed();
+            sequence = write(payload);
+        } finally {
+            appendLock.unlock();
+        }
+        force(sequence);
+        return sequence;
+    }
+
+    /**
+     * Reads the durable records following a sequence number. Those that were never acknowledged are not read,
+     * even after the log failed.
+     *
+     * @param afterSequence the sequence of the last record read, or 0 to read from the oldest record kept
+     * @param limit the maximum number of records to return
+     * @return the records after afterSequence, in sequence order
+     */
+    public synchronized List<Entry> read(long afterSequence, int limit) {
+        long durable = durableSequence;
+        if (afterSequence != readSequence) {
+            seek(afterSequence);
+        }
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 1024));
+        while (entries.size() < limit && readSequence < durable) {
+            MappedByteBuffer buffer = readSegment.buffer;
+            int length = readPosition + HEADER_SIZE <= buffer.capacity() ? buffer.getInt(readPosition) : 0;
+            if (length == 0) {
+                readSegment = segments.higherEntry(readSegment.firstSequence).getValue();
+                readPosition = 0;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(readPosition + HEADER_SIZE, payload);
+            readSequence = buffer.getLong(readPosition + 8);
+            readPosition += HEADER_SIZE + length;
+            entries.add(new Entry(readSequence, payload));
+        }
+        return entries;
+    }
+
+    /**
+     * Records that the records up to a sequence number were applied, and deletes the segments holding
+     * only applied records. The current segment is kept.
+     *
+     * @param sequence the sequence of the last record applied
+     * @throws IOException if the checkpoint cannot be written or a segment deleted
+     */
+    public void release(long sequence) throws IOException {
+        if (sequence > durableSequence) {
+            throw new IllegalArgumentException("Record " + sequence + " is not durable yet");
+        }
+        if (sequence <= appliedSequence) {
+            return;
+        }
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        Path next = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(next, Long.toString(sequence), StandardCharsets.US_ASCII);
+        Files.move(next, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        appliedSequence = sequence;
+
+        for (Map.Entry<Long, Segment> entry : segments.headMap(sequence + 1).entrySet()) {
+            Long following = segments.higherKey(entry.getKey());
+            if (following == null || following > sequence + 1) {
+                break;
+            }
+            segments.remove(entry.getKey());
+            entry.getValue().channel.close();
+            Files.delete(entry.getValue().path);
+        }
+    }
+
+    /**
+     * @return the sequence of the last durable record, 0 if none was ever appended
+     */
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * @return the sequence of the last record released as applied
+     */
+    public long appliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * @return the number of forces to disk since the log was opened
+     */
+    public long forces() {
+        return forces.get();
+    }
+
+    /**
+     * @return the number of segments on disk
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Forces the records appended and closes the segments.
+     */
+    @Override
+    public void close() throws IOException {
+        long last;
+        appendLock.lock();
+        try {
+            last = lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            if (failure == null) {
+                force(last);
+            }
+        } finally {
+            spare.handle((path, ex) -> path).join();
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        }
+    }
+
+    /**
+     * Writes a record after the last one, starting a new segment if it does not fit.
+     * Called with the append lock held.
+     */
+    private long write(byte[] payload) throws IOException {
+        int size = HEADER_SIZE + payload.length;
+        if (current.position + size > current.buffer.capacity()) {
+            filled.add(current);
+            current = newSegment(lastSequence + 1);
+        }
+        long sequence = lastSequence + 1;
+        MappedByteBuffer buffer = current.buffer;
+        int position = current.position;
+        buffer.putLong(position + 8, sequence);
+        buffer.put(position + HEADER_SIZE, payload);
+        buffer.putInt(position + 4, checksum(buffer, position, payload.length));
+        buffer.putInt(position, payload.length);
+        current.position = position + size;
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Waits until a record is durable, forcing the records written so far unless a concurrent force
+     * covers it. The filled segments stay queued until a force of their records succeeded.
+     */
+    private void force(long sequence) throws IOException {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            checkNotFailed();
+            List<Segment> dirty;
+            int currentPosition;
+            long target;
+            appendLock.lock();
+            try {
+                dirty = new ArrayList<>(filled);
+                dirty.add(current);
+                currentPosition = current.position;
+                target = lastSequence;
+            } finally {
+                appendLock.unlock();
+            }
+            int[] ends = new int[dirty.size()];
+            try {
+                for (int i = 0; i < dirty.size(); i++) {
+                    Segment segment = dirty.get(i);
+                    // A filled segment is no longer written to
+                    ends[i] = i == dirty.size() - 1 ? currentPosition : segment.position;
+                    if (ends[i] > segment.forcedPosition) {
+                        forcer.force(segment.buffer, segment.forcedPosition, ends[i] - segment.forcedPosition);
+                    }
+                }
+            } catch (IOException | UncheckedIOException ex) {
+                throw fail(ex instanceof UncheckedIOException unchecked ? unchecked.getCause() : (IOException) ex);
+            }
+            for (int i = 0; i < dirty.size(); i++) {
+                dirty.get(i).forcedPosition = Math.max(dirty.get(i).forcedPosition, ends[i]);
+            }
+            appendLock.lock();
+            try {
+                filled.subList(0, dirty.size() - 1).clear();
+            } finally {
+                appendLock.unlock();
+            }
+            forces.incrementAndGet();
+            durableSequence = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Fails the log after a force failed, zeroing the records that were never acknowledged.
+     * Called with the force lock held.
+     *
+     * @return the exception to throw
+     */
+    private IOException fail(IOException cause) {
+        appendLock.lock();
+        try {
+            failure = cause;
+            List<Segment> unforced = new ArrayList<>(filled);
+            unforced.add(current);
+            for (Segment segment : unforced) {
+                if (segment.position > segment.forcedPosition) {
+                    segment.buffer.put(segment.forcedPosition, new byte[segment.position - segment.forcedPosition]);
+                }
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        return new IOException("Could not force the log of " + directory + ", which refuses records until reopened", cause);
+    }
+
+    private void checkNotFailed() throws IOException {
+        if (failure != null) {
+            throw new IOException("The log of " + directory + " failed and refuses records until reopened", failure);
+        }
+    }
+
+    /**
+     * Positions the reader on the first record after a sequence number, scanning its segment.
+     */
+    private void seek(long afterSequence) {
+        Map.Entry<Long, Segment> floor = segments.floorEntry(afterSequence + 1);
+        readSegment = floor != null ? floor.getValue() : segments.firstEntry().getValue();
+        readPosition = 0;
+        readSequence = readSegment.firstSequence - 1;
+        MappedByteBuffer buffer = readSegment.buffer;
+        while (readSequence < afterSequence && readSequence < durableSequence
+                && readPosition + HEADER_SIZE <= buffer.capacity() && buffer.getInt(readPosition) != 0) {
+            readPosition += HEADER_SIZE + buffer.getInt(readPosition);
+            readSequence++;
+        }
+    }
+
+    /**
+     * Opens the segments of the directory and ends the log at its last valid record. The segments
+     * following a torn record only hold records that were never acknowledged, and are deleted.
+     */
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        long expected = -1;
+        boolean torn = false;
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            if (torn || (expected != -1 && firstSequence != expected)) {
+                torn = true;
+                Files.delete(path);
+                continue;
+            }
+            Segment segment = openSegment(firstSequence);
+            expected = scan(segment);
+            torn = segment.position + HEADER_SIZE <= segment.buffer.capacity()
+                    && segment.buffer.getInt(segment.position) != 0;
+            current = segment;
+        }
+        if (current == null) {
+            current = newSegment(appliedSequence + 1);
+            expected = appliedSequence + 1;
+        } else {
+            clearTail(current);
+        }
+        lastSequence = expected - 1;
+        if (lastSequence < appliedSequence) {
+            throw new IllegalStateException("The checkpoint of " + directory + " is at record " + appliedSequence
+                    + " but its segments end at record " + lastSequence);
+        }
+        durableSequence = lastSequence;
+    }
+
+    /**
+     * Positions a segment after its last valid record.
+     *
+     * @return the sequence of the record following it
+     */
+    private static long scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        long sequence = segment.firstSequence;
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - HEADER_SIZE
+                    || buffer.getLong(position + 8) != sequence
+                    || buffer.getInt(position + 4) != checksum(buffer, position, length)) {
+                break;
+            }
+            position += HEADER_SIZE + length;
+            sequence++;
+        }
+        segment.position = position;
+        segment.forcedPosition = position;
+        return sequence;
+    }
+
+    /**
+     * Zeroes what follows the last valid record of a segment, so that the remains of a torn write
+     * cannot be read as records once new ones are appended before them.
+     */
+    private static void clearTail(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int end = buffer.capacity();
+        while (end > segment.position && buffer.get(end - 1) == 0) {
+            end--;
+        }
+        if (end > segment.position) {
+            buffer.put(segment.position, new byte[end - segment.position]);
+            buffer.force(segment.position, end - segment.position);
+        }
+    }
+
+    /**
+     * Starts the segment of a sequence from the preallocated file, and starts preallocating the next one.
+     * Called with the append lock held.
+     */
+    private Segment newSegment(long firstSequence) throws IOException {
+        Path path = segmentPath(firstSequence);
+        try {
+            Files.move(spare.join(), path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (CompletionException ex) {
+            // The segment is then created sparse
+            FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+        }
+        spare = preallocate();
+        // Makes the new file itself durable, not only its content
+        try (FileChannel parent = FileChannel.open(directory, StandardOpenOption.READ)) {
+            parent.force(true);
+        } catch (IOException ex) {
+            // Directories cannot be opened on every platform, their entries are then durable already
+        }
+        return openSegment(firstSequence);
+    }
+
+    /**
+     * Fills the file of the next segment with zeros and forces it, in the background.
+     */
+    private CompletableFuture<Path> preallocate() {
+        Path path = directory.resolve(SPARE);
+        return CompletableFuture.supplyAsync(() -> {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer zeros = ByteBuffer.allocateDirect(Math.min(segmentSize, 1 << 20));
+                long written = 0;
+                while (written < segmentSize) {
+                    zeros.clear().limit((int) Math.min(zeros.capacity(), segmentSize - written));
+                    written += channel.write(zeros, written);
+                }
+                channel.force(true);
+                return path;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Opens a segment and maps it whole, at the size of a new segment if its file is still empty.
+     */
+    private Segment openSegment(long firstSequence) throws IOException {
+        Path path = segmentPath(firstSequence);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long capacity = channel.size() > 0 ? channel.size() : segmentSize;
+        Segment segment = new Segment(firstSequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        segments.put(firstSequence, segment);
+        return segment;
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + 8, 8 + length));
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long firstSequence;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        /**
+         * End of the records written, guarded by the append lock
+         */
+        private int position;
+        /**
+         * End of the records forced, guarded by the force lock
+         */
+        private int forcedPosition;
+
+        private Segment(long firstSequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.firstSequence = firstSequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
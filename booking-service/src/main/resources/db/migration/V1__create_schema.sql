@@ -0,0 +1,79 @@
+-- Schema of the booking service, as mapped by its entities. IDs are allocated by 50 from the sequences.
+
+create sequence sequence_generator start with 1 increment by 50;
+create sequence outbox_sequence_generator start with 1 increment by 50;
+
+create table booking (
+    id bigint not null,
+    event_id bigint not null,
+    username varchar(255) not null,
+    number_of_tickets integer not null,
+    price numeric(38,2),
+    booking_time timestamp(6) not null,
+    ticket_type varchar(255) check (ticket_type in ('VIP','REGULAR','STUDENT')),
+    is_cancelled boolean not null,
+    status varchar(255) check (status in ('PENDING','HELD','CONFIRMED','EXPIRED','FAILED')),
+    hold_expires_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_booking_event_id on booking (event_id);
+create index idx_booking_username on booking (username);
+-- Pages of holds scanned by the hold expiry
+create index idx_booking_status_id on booking (status, id);
+
+create table booking_view (
+    booking_id bigint not null,
+    event_id bigint not null,
+    username varchar(255) not null,
+    number_of_tickets integer not null,
+    price numeric(38,2),
+    ticket_type varchar(255) check (ticket_type in ('VIP','REGULAR','STUDENT')),
+    is_cancelled boolean not null,
+    status varchar(255) check (status in ('PENDING','HELD','CONFIRMED','EXPIRED','FAILED')),
+    booking_time timestamp(6),
+    hold_expires_at timestamp(6),
+    event_name varchar(255),
+    event_date date,
+    event_location varchar(255),
+    changed_at timestamp(6) not null,
+    primary key (booking_id)
+);
+
+create index idx_booking_view_user on booking_view (username, booking_id);
+create index idx_booking_view_event on booking_view (event_id, booking_id);
+
+create table booking_saga (
+    id bigint not null,
+    state varchar(255) not null
+        check (state in ('RESERVING_SEATS','TAKING_PAYMENT','COMPLETED','FAILED','COMPENSATING','COMPENSATED')),
+    deadline timestamp(6),
+    failure_reason varchar(255),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_booking_saga_deadline on booking_saga (deadline);
+
+create table booking_outbox (
+    id bigint not null,
+    topic varchar(255) not null,
+    message_key varchar(255),
+    schema_id integer,
+    payload bytea not null,
+    created_at timestamp(6) not null,
+    primary key (id)
+);
+
+create table idempotency_key (
+    idempotency_key varchar(255) not null,
+    request_hash varchar(64) not null,
+    status_code integer,
+    response_body varchar(1048576),
+    created_at timestamp(6) not null,
+    primary key (idempotency_key)
+);
+
+-- Purge of the expired keys
+create index idx_idempotency_key_created_at on idempotency_key (created_at);
@@ -0,0 +1,8 @@
+-- Shard of each bucket of bookings, read on the first shard when booking.sharding.enabled is true.
+
+create table shard_bucket (
+    bucket integer not null,
+    shard varchar(255) not null,
+    assigned_at timestamp(6) not null,
+    primary key (bucket)
+);
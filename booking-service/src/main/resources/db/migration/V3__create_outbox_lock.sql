@@ -0,0 +1,8 @@
+-- Row locked by the outbox relay for each batch, so that one instance at a time relays booking_outbox.
+
+create table booking_outbox_lock (
+    name varchar(255) not null,
+    primary key (name)
+);
+
+insert into booking_outbox_lock (name) values ('relay');
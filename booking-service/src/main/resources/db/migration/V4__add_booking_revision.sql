@@ -0,0 +1,6 @@
+-- Orders the changes of a booking for the read model, whatever the clocks of the instances that made them say.
+alter table booking add column revision bigint default 0 not null;
+alter table booking_view add column revision bigint default 0 not null;
+
+-- Deleted bookings stay in the read model as tombstones, so that a change replayed after the deletion is skipped.
+alter table booking_view add column deleted boolean default false not null;
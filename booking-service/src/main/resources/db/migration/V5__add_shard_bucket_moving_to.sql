@@ -0,0 +1,3 @@
+-- Shard a bucket is being moved to, set on the shard it is moved from so that the other instances refuse its work meanwhile.
+
+alter table shard_bucket add column moving_to varchar(255);
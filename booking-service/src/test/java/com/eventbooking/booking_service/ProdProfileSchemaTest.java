@@ -0,0 +1,72 @@
+package com.eventbooking.booking_service;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.services.EventServiceClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the prod profile on H2 in PostgreSQL mode, with the schema created by the migration instead
+ * of Hibernate, which then validates the entities against it.
+ */
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.url=jdbc:h2:mem:booking-prod-schema-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;IGNORE_UNKNOWN_SETTINGS=TRUE",
+		"spring.datasource.username=sa",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:db/migration/V1__create_schema.sql,classpath:db/migration/V2__create_shard_bucket.sql,classpath:db/migration/V3__create_outbox_lock.sql,classpath:db/migration/V4__add_booking_revision.sql,classpath:db/migration/V5__add_shard_bucket_moving_to.sql",
+		"booking.outbox.poll-interval-ms=3600000"
+})
+class ProdProfileSchemaTest {
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void migrationCreatesTheIndexesOfTheLookups() {
+		List<String> indexes = jdbcTemplate.queryForList(
+				"SELECT index_name FROM information_schema.indexes WHERE table_name = 'booking'", String.class);
+
+		assertThat(indexes).contains("idx_booking_event_id", "idx_booking_username", "idx_booking_status_id");
+	}
+
+	@Test
+	void idsAreAllocatedFromTheSequenceValueUp() {
+		List<Booking> bookings = bookingRepository.saveAll(IntStream.range(0, 3)
+				.mapToObj(i -> Booking.builder()
+						.eventId(1L)
+						.userName("user" + i)
+						.numberOfTickets(1)
+						.totalAmount(BigDecimal.TEN)
+						.ticketType(TicketType.REGULAR)
+						.status(BookingStatus.CONFIRMED)
+						.build())
+				.toList());
+		Long sequenceValue = jdbcTemplate.queryForObject("SELECT nextval('sequence_generator')", Long.class);
+
+		// pooled-lo: the first value read is the lowest ID of its block of 50
+		long first = bookings.get(0).getId();
+		assertThat(bookings).extracting(Booking::getId).containsExactly(first, first + 1, first + 2);
+		assertThat(sequenceValue).isEqualTo(first + 50);
+	}
+}
@@ -0,0 +1,26 @@
+package com.eventbooking.booking_service;
+
+import com.eventbooking.booking_service.controller.BookingController;
+import com.eventbooking.booking_service.controller.ReactiveBookingController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "booking.reactive.enabled=true")
+class ReactiveBookingServiceApplicationTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void reactiveControllerReplacesBlockingOne() {
+		assertThat(context.getBeansOfType(ReactiveBookingController.class)).hasSize(1);
+		assertThat(context.getBeansOfType(BookingController.class)).isEmpty();
+	}
+
+}
@@ -0,0 +1,244 @@
+package com.eventbooking.booking_service.benchmark;
+
+import com.eventbooking.booking_service.BookingServiceApplication;
+import com.eventbooking.booking_service.dto.BatchBookingResultDto;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.services.EventCache;
+import com.eventbooking.booking_service.services.EventServiceClient;
+import com.eventbooking.serviceclient.ServiceClientProperties;
+import com.eventbooking.serviceclient.ServiceClients;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Creates {@code bookings} bookings through booking-service, first with one {@code POST /api/booking}
+ * each, sent by {@value #CLIENTS} clients at once, then with a single {@code POST /api/booking/batch}.
+ * It prints how long each took and how many calls it made to event-service.
+ * <p>
+ * booking-service runs in this JVM with its application.yml, on an H2 in-memory database, so its JDBC
+ * batching saves statement executions but no network round trips. Event-service is stubbed to answer
+ * each call after {@code latencyMillis}, the round trip to it, without holding a thread: event lookups,
+ * single and bulk, and ticket reservations, single and bulk, all applied. The bookings spread over
+ * {@value #EVENTS} events, whose lookups the batch de-duplicates into one call and the singles share
+ * through the event cache; each run books events of its own, so that neither finds them cached.
+ * Run with {@code mvn -pl booking-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.booking_service.benchmark.BatchBookingScenario}, optionally
+ * with {@code -Dexec.args="<bookings> <latencyMillis>"}. </p>
+ */
+public class BatchBookingScenario {
+    private static final int CLIENTS = 10;
+    private static final int EVENTS = 10;
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private static final AtomicInteger eventServiceCalls = new AtomicInteger();
+    private static int bookings;
+    private static Duration latency;
+
+    public static void main(String[] args) throws Exception {
+        bookings = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        latency = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 5);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                BookingServiceApplication.class, StubbedEventService.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:batch-booking-scenario",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--eureka.client.enabled=false",
+                        "--booking.outbox.poll-interval-ms=3600000",
+                        "--load-shedding.enabled=false",
+                        "--logging.level.root=WARN")) {
+            String bookingService = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            BookingRepository bookingRepository = context.getBean(BookingRepository.class);
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            // Warms up both paths on events the measured runs do not book
+            sendSingles(httpClient, bookingService, EVENTS * 10, 2 * EVENTS + 1);
+            sendBatch(httpClient, bookingService, EVENTS * 10, 3 * EVENTS + 1);
+            bookingRepository.deleteAll();
+
+            eventServiceCalls.set(0);
+            long start = System.nanoTime();
+            int created = sendSingles(httpClient, bookingService, bookings, 1);
+            report("Singles", created, Duration.ofNanos(System.nanoTime() - start), bookingRepository.count());
+            bookingRepository.deleteAll();
+
+            eventServiceCalls.set(0);
+            start = System.nanoTime();
+            created = sendBatch(httpClient, bookingService, bookings, EVENTS + 1);
+            report("Batch", created, Duration.ofNanos(System.nanoTime() - start), bookingRepository.count());
+        }
+    }
+
+    /**
+     * Sends the bookings one request each from {@value #CLIENTS} clients, and returns how many were created.
+     */
+    private static int sendSingles(HttpClient httpClient, String bookingService, int count, int firstEvent) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                HttpRequest request = post(bookingService + "/api/booking", objectMapper.writeValueAsString(booking(i, firstEvent)));
+                statuses.add(clients.submit(() -> httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+            }
+            int created = 0;
+            for (Future<Integer> status : statuses) {
+                if (status.get(1, TimeUnit.MINUTES) < 300) {
+                    created++;
+                }
+            }
+            return created;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends the bookings in a single batch request, and returns how many were created.
+     */
+    private static int sendBatch(HttpClient httpClient, String bookingService, int count, int firstEvent) throws Exception {
+        String body = objectMapper.writeValueAsString(IntStream.range(0, count).mapToObj(i -> booking(i, firstEvent)).toList());
+        HttpResponse<String> response = httpClient.send(post(bookingService + "/api/booking/batch", body),
+                HttpResponse.BodyHandlers.ofString());
+        return response.statusCode() < 300
+                ? objectMapper.readValue(response.body(), BatchBookingResultDto.class).getCreated()
+                : 0;
+    }
+
+    private static void report(String mode, int created, Duration elapsed, long saved) {
+        System.out.printf("%n%s: %d of %d bookings created in %d ms, %.0f bookings/s%n", mode, created, bookings,
+                elapsed.toMillis(), created * 1000.0 / Math.max(1, elapsed.toMillis()));
+        System.out.printf("Event-service calls: %d, bookings saved: %d%n", eventServiceCalls.get(), saved);
+    }
+
+    private static Map<String, Object> booking(int i, int firstEvent) {
+        return Map.of(
+                "eventId", firstEvent + i % EVENTS,
+                "userName", "partner-user-" + i,
+                "numberOfTickets", 1,
+                "ticketType", "REGULAR");
+    }
+
+    private static HttpRequest post(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class StubbedEventService {
+
+        /**
+         * An event service answering every call after the latency, without holding a thread meanwhile.
+         */
+        @Bean
+        @Primary
+        EventServiceClient stubbedEventServiceClient(MeterRegistry meterRegistry) {
+            WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+                eventServiceCalls.incrementAndGet();
+                return bodyOf(request)
+                        .map(body -> answer(request.url().getPath(), body))
+                        .delayElement(latency)
+                        .map(answer -> ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body(answer)
+                                .build());
+            });
+            ServiceClientProperties properties = new ServiceClientProperties();
+            properties.getTargets().put("event-service", new ServiceClientProperties.Target());
+            return new EventServiceClient(new ServiceClients(webClientBuilder, properties, meterRegistry),
+                    new EventCache(meterRegistry, 100, Duration.ofMinutes(5)), meterRegistry);
+        }
+    }
+
+    /**
+     * Writes the body of a request the way the HTTP client would, and reads it back.
+     */
+    private static Mono<String> bodyOf(ClientRequest request) {
+        MockClientHttpRequest written = new MockClientHttpRequest(request.method(), request.url());
+        return request.body()
+                .insert(written, new BodyInserter.Context() {
+                    @Override
+                    public List<HttpMessageWriter<?>> messageWriters() {
+                        return ExchangeStrategies.withDefaults().messageWriters();
+                    }
+
+                    @Override
+                    public Optional<ServerHttpRequest> serverRequest() {
+                        return Optional.empty();
+                    }
+
+                    @Override
+                    public Map<String, Object> hints() {
+                        return Map.of();
+                    }
+                })
+                .then(Mono.defer(written::getBodyAsString))
+                .defaultIfEmpty("");
+    }
+
+    /**
+     * Answers a call as event-service would, every reservation and release being applied.
+     */
+    private static String answer(String path, String body) {
+        try {
+            if (path.equals("/api/events/lookup")) {
+                List<Long> ids = objectMapper.readValue(body, new TypeReference<>() {
+                });
+                return ids.stream().map(BatchBookingScenario::event).collect(Collectors.joining(",", "[", "]"));
+            }
+            if (path.equals("/api/events/reserve") || path.equals("/api/events/release")) {
+                List<Map<String, Object>> changes = objectMapper.readValue(body, new TypeReference<>() {
+                });
+                changes.forEach(change -> change.put("applied", true));
+                return objectMapper.writeValueAsString(changes);
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unexpected body for " + path + ": " + body, ex);
+        }
+        if (path.endsWith("/reserve") || path.endsWith("/release")) {
+            return "";
+        }
+        return event(Long.parseLong(path.substring(path.lastIndexOf('/') + 1)));
+    }
+
+    private static String event(long id) {
+        return "{\"id\":" + id + ",\"name\":\"concert " + id + "\",\"location\":\"Paris\",\"date\":\"2030-01-01\"}";
+    }
+}
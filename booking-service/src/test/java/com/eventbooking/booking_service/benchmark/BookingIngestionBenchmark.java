@@ -0,0 +1,338 @@
+package com.eventbooking.booking_service.benchmark;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.booking_service.services.WriteAheadLog;
+import com.eventbooking.common.event.BookingEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Compares acknowledging a new booking once it is saved, as {@code BookingService.saveWithNotification}
+ * does, with acknowledging it once it is durable in the {@link WriteAheadLog} of the booking ingestion log.
+ * <p>
+ * {@value #CLIENTS} clients create bookings at once. {@code SAVE} persists each booking and its two outbox
+ * messages through Hibernate with the settings of application-prod.yml, in a transaction of its own, on
+ * a pool of {@value #POOL_SIZE} connections. {@code WAL} serializes the booking and its notification,
+ * appends them to a log in a temporary directory and waits for the force to disk, with IDs from a counter
+ * where the ingestion log reads the sequence once per 50 bookings, while a background
+ * thread applies the log as the ingestion log does: batches of 1000 bookings inserted with a JDBC batch,
+ * and their outbox messages persisted through the same Hibernate setup. The database is H2 in memory in
+ * PostgreSQL mode; each statement execution and commit first waits {@code roundTripMicros}, the network
+ * round trip to PostgreSQL, but commits are not forced to disk, so {@code SAVE} does not pay the flush of
+ * the PostgreSQL WAL that {@code WAL} pays for its own log.
+ * Throughput is reported in bookings per millisecond and the sample mode gives the percentiles of the
+ * acknowledgement latency.
+ * Run with {@code mvn -pl booking-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.booking_service.benchmark.BookingIngestionBenchmark}. </p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(BookingIngestionBenchmark.CLIENTS)
+@State(Scope.Benchmark)
+public class BookingIngestionBenchmark {
+    static final int CLIENTS = 16;
+    private static final int POOL_SIZE = 10;
+    private static final int APPLY_BATCH_SIZE = 1000;
+    private static final String INSERT_BOOKING = "INSERT INTO booking (id, event_id, username, number_of_tickets, price, "
+            + "booking_time, ticket_type, is_cancelled, status, hold_expires_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final byte[] PAYLOAD = "{\"bookingId\":1,\"changeType\":\"CREATED\"}".getBytes(StandardCharsets.UTF_8);
+
+    public enum Ingestion {
+        SAVE, WAL
+    }
+
+    @Param({"SAVE", "WAL"})
+    public Ingestion ingestion;
+
+    @Param({"200"})
+    public int roundTripMicros;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicLong ids = new AtomicLong();
+    private SessionFactory sessionFactory;
+    private Path directory;
+    private WriteAheadLog wal;
+    private Thread applier;
+    private volatile boolean applying;
+
+    /**
+     * A booking as logged by the ingestion log.
+     */
+    record Entry(Booking booking, BookingEvent notification) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        StandardServiceRegistryBuilder registry = new StandardServiceRegistryBuilder()
+                .addService(ConnectionProvider.class, new RoundTripConnectionProvider(
+                        "jdbc:h2:mem:booking-ingestion-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        POOL_SIZE, TimeUnit.MICROSECONDS.toNanos(roundTripMicros)))
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .applySetting("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName())
+                .applySetting("hibernate.jdbc.batch_size", "50")
+                .applySetting("hibernate.order_inserts", "true")
+                .applySetting("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+        sessionFactory = new MetadataSources(registry.build())
+                .addAnnotatedClass(Booking.class)
+                .addAnnotatedClass(OutboxMessage.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        if (ingestion == Ingestion.WAL) {
+            directory = Files.createTempDirectory("booking-wal-benchmark");
+            wal = new WriteAheadLog(directory, 64 << 20);
+            applying = true;
+            applier = new Thread(this::applyLoop, "wal-applier");
+            applier.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException, IOException {
+        if (wal != null) {
+            applying = false;
+            applier.join();
+            System.out.printf("%n%d bookings logged, %d applied, %.1f bookings per force%n",
+                    wal.durableSequence(), wal.appliedSequence(), (double) wal.durableSequence() / wal.forces());
+            wal.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public long createBooking() throws IOException {
+        Booking booking = newBooking();
+        if (ingestion == Ingestion.SAVE) {
+            return sessionFactory.fromTransaction(session -> {
+                save(session, booking);
+                return booking.getId();
+            });
+        }
+        booking.setId(ids.incrementAndGet());
+        wal.append(objectMapper.writeValueAsBytes(new Entry(booking, notification(booking))));
+        return booking.getId();
+    }
+
+    private void applyLoop() {
+        while (applying || wal.appliedSequence() < wal.durableSequence()) {
+            List<WriteAheadLog.Entry> batch = wal.read(wal.appliedSequence(), APPLY_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                continue;
+            }
+            List<Booking> bookings = new ArrayList<>(batch.size());
+            for (WriteAheadLog.Entry logged : batch) {
+                try {
+                    bookings.add(objectMapper.readValue(logged.payload(), Entry.class).booking());
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            sessionFactory.inTransaction(session -> {
+                session.doWork(connection -> insert(connection, bookings));
+                bookings.forEach(booking -> enqueue(session, booking));
+            });
+            try {
+                wal.release(batch.get(batch.size() - 1).sequence());
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private static void save(Session session, Booking booking) {
+        session.persist(booking);
+        enqueue(session, booking);
+    }
+
+    private static void enqueue(Session session, Booking booking) {
+        for (String topic : List.of("notification", "booking-changes")) {
+            session.persist(OutboxMessage.builder()
+                    .topic(topic)
+                    .messageKey(String.valueOf(booking.getId()))
+                    .payload(PAYLOAD)
+                    .build());
+        }
+    }
+
+    /**
+     * Inserts logged bookings with a JDBC batch, as the ingestion log does.
+     */
+    private static void insert(Connection connection, List<Booking> bookings) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_BOOKING)) {
+            for (Booking booking : bookings) {
+                insert.setLong(1, booking.getId());
+                insert.setLong(2, booking.getEventId());
+                insert.setString(3, booking.getUserName());
+                insert.setInt(4, booking.getNumberOfTickets());
+                insert.setBigDecimal(5, booking.getTotalAmount());
+                insert.setTimestamp(6, Timestamp.valueOf(booking.getBookingTime()));
+                insert.setString(7, booking.getTicketType().name());
+                insert.setBoolean(8, booking.isCancelled());
+                insert.setString(9, booking.getStatus().name());
+                insert.setTimestamp(10, Timestamp.valueOf(booking.getHoldExpiresAt()));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static Booking newBooking() {
+        LocalDateTime now = LocalDateTime.now();
+        return Booking.builder()
+                .eventId((long) ThreadLocalRandom.current().nextInt(10))
+                .userName("user" + ThreadLocalRandom.current().nextInt(1000))
+                .numberOfTickets(2)
+                .totalAmount(BigDecimal.valueOf(200))
+                .ticketType(TicketType.REGULAR)
+                .status(BookingStatus.HELD)
+                .bookingTime(now)
+                .holdExpiresAt(now.plusMinutes(15))
+                .build();
+    }
+
+    private static BookingEvent notification(Booking booking) {
+        return BookingEvent.builder()
+                .eventName("concert")
+                .eventDate(LocalDate.now().plusDays(30))
+                .eventLocation("Paris")
+                .userName(booking.getUserName())
+                .ticketType(booking.getTicketType().name())
+                .numberOfTicket(booking.getNumberOfTickets())
+                .paymentAmount(booking.getTotalAmount())
+                .build();
+    }
+
+    /**
+     * Hands out H2 connections from a fixed pool, on which every statement execution and commit first
+     * waits for a network round trip.
+     */
+    private static final class RoundTripConnectionProvider implements ConnectionProvider {
+        private final BlockingQueue<Connection> pool;
+
+        RoundTripConnectionProvider(String url, int size, long roundTripNanos) throws SQLException {
+            this.pool = new ArrayBlockingQueue<>(size);
+            for (int i = 0; i < size; i++) {
+                pool.add(proxy(Connection.class, DriverManager.getConnection(url, "sa", ""), roundTripNanos));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, long roundTripNanos) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().startsWith("execute") || method.getName().equals("commit")) {
+                    LockSupport.parkNanos(roundTripNanos);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+                if (result instanceof PreparedStatement statement && method.getReturnType() == PreparedStatement.class) {
+                    return proxy(PreparedStatement.class, statement, roundTripNanos);
+                }
+                if (result instanceof Statement statement && method.getReturnType() == Statement.class) {
+                    return proxy(Statement.class, statement, roundTripNanos);
+                }
+                return result;
+            });
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try {
+                return pool.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", ex);
+            }
+        }
+
+        @Override
+        public void closeConnection(Connection connection) {
+            pool.add(connection);
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingIngestionBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,242 @@
+package com.eventbooking.booking_service.benchmark;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes bookings through Hibernate as a batch booking and its confirmation do, with the persistence
+ * settings of each profile, on an H2 in-memory database in PostgreSQL mode.
+ * <p>
+ * An invocation creates {@value #BOOKINGS} bookings with an outbox message each in one transaction,
+ * then confirms them with another outbox message each in a second one. {@code UNBATCHED} is the
+ * Hibernate default, as payment-service runs; {@code DEV} the batching of the booking-service
+ * application.yml; {@code PROD} the settings of application-prod.yml. H2 runs in the JVM, so each
+ * statement execution and commit waits {@code roundTripMicros} first, the network round trip to
+ * PostgreSQL that batching saves. The statements prepared per booking are printed after each
+ * iteration. 
+ * Run with {@code mvn -pl booking-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.booking_service.benchmark.BookingWriteBenchmark}. </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 15, time = 5)
+@Measurement(iterations = 5, time = 4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingWriteBenchmark {
+    private static final int BOOKINGS = 100;
+    private static final byte[] PAYLOAD = "{\"bookingId\":1,\"changeType\":\"CREATED\"}".getBytes(StandardCharsets.UTF_8);
+
+    public enum Settings {
+        UNBATCHED(Map.of()),
+        DEV(Map.of(
+                "hibernate.jdbc.batch_size", "50",
+                "hibernate.order_inserts", "true")),
+        PROD(Map.of(
+                "hibernate.jdbc.batch_size", "50",
+                "hibernate.jdbc.batch_versioned_data", "true",
+                "hibernate.order_inserts", "true",
+                "hibernate.order_updates", "true",
+                "hibernate.id.optimizer.pooled.preferred", "pooled-lo"));
+
+        private final Map<String, String> properties;
+
+        Settings(Map<String, String> properties) {
+            this.properties = properties;
+        }
+    }
+
+    @Param({"UNBATCHED", "DEV", "PROD"})
+    public Settings settings;
+
+    @Param({"0", "200"})
+    public int roundTripMicros;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        StandardServiceRegistryBuilder registry = new StandardServiceRegistryBuilder()
+                .addService(ConnectionProvider.class, new RoundTripConnectionProvider(
+                        "jdbc:h2:mem:booking-write-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                        TimeUnit.MICROSECONDS.toNanos(roundTripMicros)))
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .applySetting("hibernate.generate_statistics", "true")
+                .applySetting("hibernate.session.events.log", "false")
+                .applySetting("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName());
+        settings.properties.forEach(registry::applySetting);
+        sessionFactory = new MetadataSources(registry.build())
+                .addAnnotatedClass(Booking.class)
+                .addAnnotatedClass(OutboxMessage.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("DELETE FROM OutboxMessage").executeUpdate();
+            session.createMutationQuery("DELETE FROM Booking").executeUpdate();
+        });
+        sessionFactory.getStatistics().clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements() {
+        Statistics statistics = sessionFactory.getStatistics();
+        long bookings = statistics.getEntityInsertCount() / 3;
+        System.out.printf("%n%.2f statements prepared per booking%n", (double) statistics.getPrepareStatementCount() / bookings);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKINGS)
+    public int createAndConfirmBookings() {
+        List<Long> ids = sessionFactory.fromTransaction(session -> {
+            List<Long> created = new ArrayList<>(BOOKINGS);
+            for (int i = 0; i < BOOKINGS; i++) {
+                Booking booking = Booking.builder()
+                        .eventId((long) i % 10)
+                        .userName("user" + i)
+                        .numberOfTickets(2)
+                        .totalAmount(BigDecimal.TEN)
+                        .ticketType(TicketType.REGULAR)
+                        .status(BookingStatus.PENDING)
+                        .build();
+                session.persist(booking);
+                enqueue(session, booking);
+                created.add(booking.getId());
+            }
+            return created;
+        });
+        return sessionFactory.fromTransaction(session -> {
+            List<Booking> bookings = session.createSelectionQuery("FROM Booking b WHERE b.id IN :ids", Booking.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            for (Booking booking : bookings) {
+                booking.setStatus(BookingStatus.CONFIRMED);
+                enqueue(session, booking);
+            }
+            return bookings.size();
+        });
+    }
+
+    private static void enqueue(Session session, Booking booking) {
+        session.persist(OutboxMessage.builder()
+                .topic("booking-changes")
+                .messageKey(String.valueOf(booking.getId()))
+                .payload(PAYLOAD)
+                .build());
+    }
+
+    /**
+     * Hands out a single H2 connection on which every statement execution and commit first waits for
+     * a network round trip.
+     */
+    private static final class RoundTripConnectionProvider implements ConnectionProvider {
+        private final Connection connection;
+
+        RoundTripConnectionProvider(String url, long roundTripNanos) throws SQLException {
+            Connection target = DriverManager.getConnection(url, "sa", "");
+            this.connection = proxy(Connection.class, target, roundTripNanos);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, long roundTripNanos) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().startsWith("execute") || method.getName().equals("commit")) {
+                    LockSupport.parkNanos(roundTripNanos);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+                if (result instanceof PreparedStatement statement && method.getReturnType() == PreparedStatement.class) {
+                    return proxy(PreparedStatement.class, statement, roundTripNanos);
+                }
+                if (result instanceof Statement statement && method.getReturnType() == Statement.class) {
+                    return proxy(Statement.class, statement, roundTripNanos);
+                }
+                return result;
+            });
+        }
+
+        @Override
+        public Connection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public void closeConnection(Connection connection) {
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingWriteBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.eventbooking.booking_service.benchmark;
+
+import com.eventbooking.serviceclient.loadshedding.AdaptiveConcurrencyLimiter;
+import com.eventbooking.serviceclient.loadshedding.RequestPriority;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends booking-service five times the requests it can serve, with and without the adaptive
+ * concurrency limit, and prints the p99 latency of the served requests second after second.
+ * <p>
+ * The service is modelled as Tomcat, 200 request threads fed by an unbounded accept queue, in
+ * front of {@code connections} database connections each busy {@code serviceMillis} per request.
+ * Requests arrive at a fixed rate whatever the answers, like users hammering an on-sale, and mix
+ * 20% of LOW reads, 70% of NORMAL bookings and 10% of CRITICAL payments and cancellations. Without
+ * the limit the accept queue grows for as long as the overload lasts and so does the latency of
+ * every request; with it the excess is refused at once and the served requests keep their latency.
+ * Run with {@code mvn -pl booking-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.booking_service.benchmark.LoadSheddingScenario}, optionally
+ * with {@code -Dexec.args="<overload> <seconds>"}. </p>
+ */
+public class LoadSheddingScenario {
+    private static final int REQUEST_THREADS = 200;
+
+    private final int connections;
+    private final long serviceMillis;
+    private final int overload;
+    private final int seconds;
+
+    public LoadSheddingScenario(int connections, long serviceMillis, int overload, int seconds) {
+        this.connections = connections;
+        this.serviceMillis = serviceMillis;
+        this.overload = overload;
+        this.seconds = seconds;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int overload = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        LoadSheddingScenario scenario = new LoadSheddingScenario(10, 5, overload, seconds);
+        scenario.run(false);
+        scenario.run(true);
+    }
+
+    private void run(boolean limited) throws InterruptedException {
+        int capacity = (int) (connections * 1000 / serviceMillis);
+        int rate = capacity * overload;
+        System.out.printf("%n%s: capacity %d req/s, offered %d req/s for %d s%n",
+                limited ? "Adaptive limit" : "No limit", capacity, rate, seconds);
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 1.5, 0.9);
+        Semaphore database = new Semaphore(connections, true);
+        ThreadPoolExecutor tomcat = new ThreadPoolExecutor(REQUEST_THREADS, REQUEST_THREADS,
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<Timer> servedPerSecond = new ArrayList<>();
+        for (int second = 0; second < seconds; second++) {
+            servedPerSecond.add(Timer.builder("served")
+                    .tag("second", String.valueOf(second))
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry));
+        }
+        Map<RequestPriority, LongAdder> served = counters();
+        Map<RequestPriority, LongAdder> shed = counters();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long sent = 0;
+        while (System.nanoTime() < end) {
+            long due = (System.nanoTime() - start) * rate / TimeUnit.SECONDS.toNanos(1);
+            for (; sent < due; sent++) {
+                long arrivedAt = System.nanoTime();
+                RequestPriority priority = priority();
+                tomcat.execute(() -> {
+                    if (limited && !limiter.tryAcquire(priority)) {
+                        shed.get(priority).increment();
+                        return;
+                    }
+                    long admittedAt = System.nanoTime();
+                    database.acquireUninterruptibly();
+                    try {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(serviceMillis));
+                    } finally {
+                        database.release();
+                    }
+                    long now = System.nanoTime();
+                    if (limited) {
+                        limiter.onSuccess(now - admittedAt);
+                    }
+                    int second = (int) ((now - start) / TimeUnit.SECONDS.toNanos(1));
+                    if (second < seconds) {
+                        servedPerSecond.get(second).record(now - arrivedAt, TimeUnit.NANOSECONDS);
+                        served.get(priority).increment();
+                    }
+                });
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        int abandoned = tomcat.shutdownNow().size();
+        tomcat.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.println("second  served  p50 ms    p99 ms");
+        for (int second = 0; second < seconds; second++) {
+            Timer timer = servedPerSecond.get(second);
+            ValueAtPercentile[] percentiles = timer.takeSnapshot().percentileValues();
+            System.out.printf("%6d %7d %7.1f %9.1f%n", second, timer.count(),
+                    percentiles[0].value(TimeUnit.MILLISECONDS), percentiles[1].value(TimeUnit.MILLISECONDS));
+        }
+        for (RequestPriority priority : RequestPriority.values()) {
+            System.out.printf("%-8s served %7d, shed %7d%n", priority, served.get(priority).sum(), shed.get(priority).sum());
+        }
+        System.out.printf("Still queued at the end: %d, final limit: %s%n", abandoned, limited ? limiter.limit() : "-");
+    }
+
+    private static RequestPriority priority() {
+        int draw = ThreadLocalRandom.current().nextInt(10);
+        return draw < 2 ? RequestPriority.LOW : draw < 9 ? RequestPriority.NORMAL : RequestPriority.CRITICAL;
+    }
+
+    private static Map<RequestPriority, LongAdder> counters() {
+        Map<RequestPriority, LongAdder> counters = new EnumMap<>(RequestPriority.class);
+        for (RequestPriority priority : RequestPriority.values()) {
+            counters.put(priority, new LongAdder());
+        }
+        return counters;
+    }
+}
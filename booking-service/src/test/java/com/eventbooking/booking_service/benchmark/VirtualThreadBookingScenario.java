@@ -0,0 +1,149 @@
+package com.eventbooking.booking_service.benchmark;
+
+import com.eventbooking.booking_service.BookingServiceApplication;
+import com.eventbooking.booking_service.services.EventCache;
+import com.eventbooking.booking_service.services.EventServiceClient;
+import com.eventbooking.serviceclient.ServiceClientProperties;
+import com.eventbooking.serviceclient.ServiceClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends {@code clients} {@code POST /api/booking} requests at once to booking-service running on
+ * Tomcat platform threads, then on virtual threads, and prints how many of them the instance held
+ * open at once, waiting on event-service, and how long the last ones took.
+ * <p>
+ * The service runs in this JVM with its defaults, 200 Tomcat threads, on an H2 in-memory database,
+ * with the load shedding off and the event-service bulkhead raised to {@code clients}, so that the
+ * request threads are the only limit. Event-service is stubbed to answer each lookup and reservation
+ * after {@code latencyMillis} without holding a thread, as a slow event-service would during an
+ * on-sale. On platform threads the bookings beyond the Tomcat threads wait in the accept queue while
+ * the others are parked in {@code block()}; on virtual threads each request gets a thread of its own.
+ * Virtual threads need Java 21: on an older JVM only the platform run is made, and the {@code java21}
+ * Maven profile, active on a JDK 21, compiles the project for it.
+ * Run with {@code mvn -pl booking-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.booking_service.benchmark.VirtualThreadBookingScenario}, optionally
+ * with {@code -Dexec.args="<clients> <latencyMillis>"}. </p>
+ */
+public class VirtualThreadBookingScenario {
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static int clients;
+    private static Duration latency;
+
+    public static void main(String[] args) throws Exception {
+        clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        latency = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 500);
+        run(false);
+        if (Runtime.version().feature() >= 21) {
+            run(true);
+        } else {
+            System.out.printf("%nVirtual threads need Java 21, this is Java %d: platform threads only%n",
+                    Runtime.version().feature());
+        }
+    }
+
+    private static void run(boolean virtual) throws Exception {
+        inFlight.set(0);
+        maxInFlight.set(0);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                BookingServiceApplication.class, StubbedEventService.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.url=jdbc:h2:mem:virtual-thread-booking-scenario",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--eureka.client.enabled=false",
+                        "--booking.outbox.poll-interval-ms=3600000",
+                        "--load-shedding.enabled=false",
+                        "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            long start = System.nanoTime();
+            List<CompletableFuture<Duration>> latencies = new ArrayList<>();
+            AtomicInteger failed = new AtomicInteger();
+            for (int i = 0; i < clients; i++) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/booking"))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"eventId\":1,\"userName\":\"user-" + i
+                                + "\",\"numberOfTickets\":1,\"ticketType\":\"REGULAR\"}"))
+                        .build();
+                long sentAt = System.nanoTime();
+                latencies.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .thenApply(response -> {
+                            if (response.statusCode() >= 300) {
+                                failed.incrementAndGet();
+                            }
+                            return Duration.ofNanos(System.nanoTime() - sentAt);
+                        }));
+            }
+            CompletableFuture.allOf(latencies.toArray(CompletableFuture[]::new)).get(10, TimeUnit.MINUTES);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            List<Duration> sorted = latencies.stream().map(CompletableFuture::join).sorted().toList();
+            System.out.printf("%n%s threads: %d bookings, %d failed, in %d ms%n",
+                    virtual ? "Virtual" : "Platform", clients, failed.get(), elapsed.toMillis());
+            System.out.printf("Held open on event-service at once: %d%n", maxInFlight.get());
+            System.out.printf("Latency p50 %d ms, p99 %d ms, max %d ms%n", percentile(sorted, 0.5).toMillis(),
+                    percentile(sorted, 0.99).toMillis(), sorted.get(sorted.size() - 1).toMillis());
+        }
+    }
+
+    private static Duration percentile(List<Duration> sorted, double percentile) {
+        return sorted.get((int) Math.ceil(sorted.size() * percentile) - 1);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class StubbedEventService {
+
+        /**
+         * An event service answering every call after the latency, without holding a thread meanwhile.
+         */
+        @Bean
+        @Primary
+        EventServiceClient stubbedEventServiceClient(MeterRegistry meterRegistry) {
+            WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                String body = request.url().getPath().endsWith("/reserve")
+                        ? ""
+                        : "{\"id\":1,\"name\":\"concert\",\"location\":\"Paris\",\"date\":\"2030-01-01\"}";
+                return Mono.delay(latency)
+                        .doOnNext(tick -> inFlight.decrementAndGet())
+                        .map(tick -> ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body(body)
+                                .build());
+            });
+            ServiceClientProperties.Target target = new ServiceClientProperties.Target();
+            target.getBulkhead().setMaxConcurrentCalls(clients);
+            target.setResponseTimeout(latency.multipliedBy(2));
+            ServiceClientProperties properties = new ServiceClientProperties();
+            properties.getTargets().put("event-service", target);
+            return new EventServiceClient(new ServiceClients(webClientBuilder, properties, meterRegistry),
+                    new EventCache(meterRegistry, 100, Duration.ofMinutes(5)), meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BatchBookingItemDto;
+import com.eventbooking.booking_service.dto.BatchBookingResultDto;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.dto.InventoryDto;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:booking-batch-test",
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.batch.max-size=10"
+})
+@AutoConfigureMockMvc
+class BookingBatchTest {
+
+	private static final long SOLD_OUT_EVENT = 2L;
+	private static final long UNKNOWN_EVENT = 3L;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	@BeforeEach
+	void setUp() {
+		reset(eventServiceClient);
+		bookingRepository.deleteAll();
+		// Events 1 and 2 exist, and the tickets of event 2 are sold out
+		when(eventServiceClient.fetchEvents(anyCollection())).thenAnswer(invocation -> Mono.just(
+				invocation.<Collection<Long>>getArgument(0).stream()
+						.filter(eventId -> eventId != UNKNOWN_EVENT)
+						.collect(Collectors.toMap(Function.identity(), BookingBatchTest::event))));
+		when(eventServiceClient.reserveTickets(anyList())).thenAnswer(invocation -> Mono.just(
+				invocation.<List<InventoryDto>>getArgument(0).stream()
+						.map(reservation -> InventoryDto.builder()
+								.eventId(reservation.getEventId())
+								.quantity(reservation.getQuantity())
+								.applied(reservation.getEventId() != SOLD_OUT_EVENT)
+								.message(reservation.getEventId() == SOLD_OUT_EVENT ? "Only 0 tickets left" : null)
+								.build())
+						.collect(Collectors.toList())));
+	}
+
+	@Test
+	void batchCreatesTheBookingsItCanAndReportsTheOthers() {
+		BatchBookingResultDto result = bookingService.createBookings(List.of(
+				booking(1L, 2),
+				booking(SOLD_OUT_EVENT, 1),
+				booking(UNKNOWN_EVENT, 1),
+				booking(1L, 0),
+				booking(1L, 1)));
+
+		assertThat(result.getCreated()).isEqualTo(2);
+		assertThat(result.getFailed()).isEqualTo(3);
+		assertThat(result.getItems()).extracting(BatchBookingItemDto::getIndex).containsExactly(0, 1, 2, 3, 4);
+		assertThat(result.getItems()).extracting(BatchBookingItemDto::isCreated).containsExactly(true, false, false, false, true);
+		assertThat(result.getItems().get(1).getError()).isEqualTo("Only 0 tickets left");
+		assertThat(result.getItems().get(2).getError()).contains(String.valueOf(UNKNOWN_EVENT));
+		assertThat(result.getItems().get(3).getError()).contains("positive number of tickets");
+		assertThat(bookingRepository.count()).isEqualTo(2);
+		// Only the valid bookings of known events are reserved
+		verify(eventServiceClient).reserveTickets(List.of(inventory(1L, 2), inventory(SOLD_OUT_EVENT, 1), inventory(1L, 1)));
+	}
+
+	@Test
+	void batchEndpointAnswersWithTheOutcomeOfEachBooking() throws Exception {
+		mockMvc.perform(post("/api/booking/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(List.of(booking(1L, 2), booking(SOLD_OUT_EVENT, 1)))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.created").value(1))
+				.andExpect(jsonPath("$.failed").value(1))
+				.andExpect(jsonPath("$.items[0].created").value(true))
+				.andExpect(jsonPath("$.items[0].booking.eventId").value(1))
+				.andExpect(jsonPath("$.items[1].created").value(false))
+				.andExpect(jsonPath("$.items[1].error").value("Only 0 tickets left"));
+	}
+
+	@Test
+	void batchOverTheMaximumSizeIsRejected() throws Exception {
+		List<BookingDto> bookings = IntStream.range(0, 11).mapToObj(i -> booking(1L, 1)).collect(Collectors.toList());
+
+		mockMvc.perform(post("/api/booking/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(bookings)))
+				.andExpect(status().isBadRequest());
+		verify(eventServiceClient, never()).reserveTickets(anyList());
+		assertThat(bookingRepository.count()).isZero();
+	}
+
+	private static EventDto event(Long eventId) {
+		return EventDto.builder()
+				.id(eventId)
+				.name("concert " + eventId)
+				.location("Paris")
+				.date(LocalDate.now().plusDays(30))
+				.build();
+	}
+
+	private static BookingDto booking(Long eventId, int numberOfTickets) {
+		return BookingDto.builder()
+				.eventId(eventId)
+				.userName("alice")
+				.numberOfTickets(numberOfTickets)
+				.ticketType(TicketType.REGULAR)
+				.build();
+	}
+
+	private static InventoryDto inventory(Long eventId, int quantity) {
+		return InventoryDto.builder()
+				.eventId(eventId)
+				.quantity(quantity)
+				.userName("alice")
+				.build();
+	}
+}
@@ -0,0 +1,176 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:booking-ingestion-test",
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.wal.enabled=true",
+		"booking.wal.directory=${java.io.tmpdir}/booking-wal-test-${random.uuid}",
+		"booking.wal.apply-interval-ms=3600000",
+		"booking.wal.max-attempts=3"
+})
+class BookingIngestionLogTest {
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private BookingIngestionLog bookingIngestionLog;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	@SpyBean
+	private HoldExpiryScheduler holdExpiryScheduler;
+
+	@SpyBean
+	private ShardRouter shardRouter;
+
+	@BeforeEach
+	void setUp() {
+		reset(eventServiceClient);
+		bookingIngestionLog.apply();
+		bookingRepository.deleteAll();
+		outboxMessageRepository.deleteAll();
+		when(eventServiceClient.fetchEvent(anyLong())).thenReturn(Mono.just(EventDto.builder()
+				.id(1L)
+				.name("concert")
+				.location("Paris")
+				.date(LocalDate.now().plusDays(30))
+				.build()));
+		when(eventServiceClient.reserveTickets(anyLong(), anyInt(), anyString())).thenReturn(Mono.empty());
+	}
+
+	@Test
+	void bookingIsAcknowledgedOnceLoggedAndSavedWhenApplied() {
+		BookingDto created = bookingService.createBooking(booking("alice"));
+
+		assertThat(created.getId()).isNotNull();
+		assertThat(created.getStatus()).isEqualTo(BookingStatus.HELD);
+		assertThat(bookingRepository.existsById(created.getId())).isFalse();
+
+		assertThat(bookingIngestionLog.apply()).isEqualTo(1);
+
+		Booking saved = bookingRepository.findById(created.getId()).orElseThrow();
+		assertThat(saved.getUserName()).isEqualTo("alice");
+		assertThat(saved.getTotalAmount()).isEqualByComparingTo(created.getTotalAmount());
+		assertThat(saved.getHoldExpiresAt()).isCloseTo(created.getHoldExpiresAt(), within(1, ChronoUnit.MICROS));
+		// Its notification and its change
+		assertThat(outboxMessageRepository.count()).isEqualTo(2);
+		assertThat(bookingIngestionLog.apply()).isZero();
+	}
+
+	@Test
+	void loggedBookingsGetIdsThatJpaDoesNotHandOut() {
+		Long logged = bookingService.createBooking(booking("alice")).getId();
+		Long saved = bookingRepository.save(Booking.builder()
+				.eventId(1L)
+				.userName("bob")
+				.numberOfTickets(1)
+				.ticketType(TicketType.REGULAR)
+				.totalAmount(BigDecimal.valueOf(100))
+				.status(BookingStatus.CONFIRMED)
+				.build()).getId();
+		Long loggedAfter = bookingService.createBooking(booking("carol")).getId();
+
+		assertThat(List.of(logged, saved, loggedAfter)).doesNotHaveDuplicates();
+		assertThat(bookingIngestionLog.apply()).isEqualTo(2);
+		assertThat(bookingRepository.findAllById(List.of(logged, saved, loggedAfter))).hasSize(3);
+	}
+
+	@Test
+	void bookingThatCannotBeInsertedIsParkedWithoutHoldingBackTheOthers() {
+		double parkedBefore = parked();
+		Long alice = bookingService.createBooking(booking("alice")).getId();
+		// Longer than the username column
+		Long poison = bookingService.createBooking(booking("x".repeat(300))).getId();
+		Long bob = bookingService.createBooking(booking("bob")).getId();
+
+		// Bob is inserted at once, but the log is released only up to alice until the poison is parked
+		assertThat(bookingIngestionLog.apply()).isEqualTo(1);
+		assertThat(bookingRepository.existsById(bob)).isTrue();
+		assertThat(bookingIngestionLog.apply()).isZero();
+		assertThat(bookingIngestionLog.apply()).isEqualTo(2);
+
+		assertThat(parked() - parkedBefore).isEqualTo(1);
+		assertThat(bookingRepository.findAllById(List.of(alice, poison, bob)))
+				.extracting(Booking::getId)
+				.containsExactlyInAnyOrder(alice, bob);
+		// Bob's hold is scheduled again each time his row is found already committed
+		verify(holdExpiryScheduler, times(3)).schedule(eq(bob), any());
+		assertThat(bookingIngestionLog.apply()).isZero();
+	}
+
+	@Test
+	void bookingsFailingAllTogetherAreRetriedButNotParked() {
+		double parkedBefore = parked();
+		bookingService.createBooking(booking("alice"));
+		bookingService.createBooking(booking("bob"));
+		doThrow(new IllegalStateException("database down")).when(shardRouter).onPart(any(), any(), any());
+
+		for (int attempt = 0; attempt < 5; attempt++) {
+			assertThat(bookingIngestionLog.apply()).isZero();
+		}
+		assertThat(bookingRepository.count()).isZero();
+
+		reset(shardRouter);
+		assertThat(bookingIngestionLog.apply()).isEqualTo(2);
+		assertThat(bookingRepository.count()).isEqualTo(2);
+		assertThat(parked()).isEqualTo(parkedBefore);
+	}
+
+	private double parked() {
+		return meterRegistry.get("booking.wal.parked").counter().count();
+	}
+
+	private static BookingDto booking(String userName) {
+		return BookingDto.builder()
+				.eventId(1L)
+				.userName(userName)
+				.numberOfTickets(2)
+				.ticketType(TicketType.REGULAR)
+				.build();
+	}
+}
@@ -0,0 +1,250 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingChangeType;
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.EventChangeType;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.BookingViewDto;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.dto.PageDto;
+import com.eventbooking.booking_service.entities.BookingView;
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.booking_service.event.BookingChangeEvent;
+import com.eventbooking.booking_service.event.EventChangeEvent;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.repository.BookingViewRepository;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:booking-projector-test",
+		"booking.outbox.poll-interval-ms=3600000"
+})
+class BookingProjectorTest {
+
+	private static final LocalDate EVENT_DATE = LocalDate.now().plusDays(30);
+
+	@Autowired
+	private BookingProjector projector;
+
+	@Autowired
+	private BookingQueryService bookingQueryService;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private BookingViewRepository bookingViewRepository;
+
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	@BeforeEach
+	void setUp() {
+		reset(eventServiceClient);
+		outboxMessageRepository.deleteAll();
+		bookingViewRepository.deleteAll();
+		bookingRepository.deleteAll();
+		when(eventServiceClient.fetchEvent(anyLong())).thenAnswer(invocation -> Mono.just(EventDto.builder()
+				.id(invocation.getArgument(0))
+				.name("concert " + invocation.getArgument(0))
+				.location("Paris")
+				.date(EVENT_DATE)
+				.build()));
+		when(eventServiceClient.reserveTickets(anyLong(), anyInt(), anyString())).thenReturn(Mono.empty());
+		when(eventServiceClient.releaseTickets(anyLong(), anyInt(), anyString())).thenReturn(Mono.empty());
+	}
+
+	@Test
+	void bookingChangesAreProjectedWithTheDetailsOfTheirEvent() throws IOException {
+		BookingDto booking = bookingService.createBooking(booking("alice", 1L));
+		applyPublishedChanges();
+
+		List<BookingViewDto> bookings = bookingQueryService.getBookingsOfUser("alice", 0L, 10).getItems();
+		assertThat(bookings).singleElement().satisfies(view -> {
+			assertThat(view.getId()).isEqualTo(booking.getId());
+			assertThat(view.getStatus()).isEqualTo(BookingStatus.HELD);
+			assertThat(view.getEventName()).isEqualTo("concert 1");
+			assertThat(view.getEventDate()).isEqualTo(EVENT_DATE);
+			assertThat(view.getTotalAmount()).isEqualByComparingTo(booking.getTotalAmount());
+		});
+
+		bookingService.confirmBooking(booking.getId());
+		applyPublishedChanges();
+
+		assertThat(bookingQueryService.getBookingsOfEvent(1L, 0L, 10).getItems())
+				.singleElement()
+				.extracting(BookingViewDto::getStatus)
+				.isEqualTo(BookingStatus.CONFIRMED);
+		assertThat(meterRegistry.get("booking.read-model.lag").timer().count()).isGreaterThanOrEqualTo(2);
+
+		bookingService.deleteBooking(booking.getId());
+		applyPublishedChanges();
+
+		assertThat(bookingQueryService.getBookingsOfUser("alice", 0L, 10).getItems()).isEmpty();
+	}
+
+	@Test
+	void staleChangeIsSkipped() {
+		LocalDateTime now = LocalDateTime.now();
+		projector.onBookingChange(change(1L, 1, BookingStatus.CONFIRMED, now.minusSeconds(1)));
+		// Made later by an instance whose clock is ahead, but at an older revision of the booking
+		projector.onBookingChange(change(1L, 0, BookingStatus.HELD, now));
+		projector.onBookingChange(change(1L, 1, BookingStatus.HELD, now));
+
+		assertThat(bookingViewRepository.findById(1L).orElseThrow().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+	}
+
+	@Test
+	void replayedChangesDoNotBringADeletedBookingBack() throws IOException {
+		BookingDto booking = bookingService.createBooking(booking("alice", 1L));
+		List<BookingChangeEvent> changes = new ArrayList<>(applyPublishedChanges());
+		bookingService.confirmBooking(booking.getId());
+		changes.addAll(applyPublishedChanges());
+		bookingService.deleteBooking(booking.getId());
+		changes.addAll(applyPublishedChanges());
+
+		// As when the partition is consumed again from an older offset
+		changes.forEach(projector::onBookingChange);
+
+		assertThat(bookingQueryService.getBookingsOfUser("alice", 0L, 10).getItems()).isEmpty();
+		assertThat(bookingViewRepository.findById(booking.getId())).get().extracting(BookingView::isDeleted).isEqualTo(true);
+	}
+
+	@Test
+	void tombstonesArePurgedAfterTheirRetention() {
+		LocalDateTime now = LocalDateTime.now();
+		projector.onBookingChange(change(1L, 0, BookingStatus.HELD, now.minusDays(30)));
+		projector.onBookingChange(BookingChangeEvent.builder()
+				.bookingId(1L)
+				.revision(1)
+				.changeType(BookingChangeType.DELETED)
+				.eventId(1L)
+				.userName("alice")
+				.numberOfTickets(2)
+				.ticketType(TicketType.REGULAR)
+				.status(BookingStatus.HELD)
+				.bookingTime(now.minusDays(30))
+				.changedAt(now.minusDays(30))
+				.build());
+		projector.onBookingChange(change(2L, 0, BookingStatus.HELD, now.minusDays(30)));
+
+		assertThat(projector.purgeTombstones()).isEqualTo(1);
+		assertThat(bookingViewRepository.findById(1L)).isEmpty();
+		assertThat(bookingViewRepository.findById(2L)).isPresent();
+	}
+
+	@Test
+	void eventChangeUpdatesTheDetailsOfItsBookings() {
+		projector.onBookingChange(change(1L, BookingStatus.HELD, LocalDateTime.now()));
+		projector.onBookingChange(change(2L, BookingStatus.HELD, LocalDateTime.now()));
+
+		projector.onEventChange(EventChangeEvent.builder()
+				.eventId(1L)
+				.changeType(EventChangeType.UPDATED)
+				.name("concert moved")
+				.location("Lyon")
+				.date(EVENT_DATE.plusDays(1))
+				.build());
+
+		assertThat(bookingQueryService.getBookingsOfEvent(1L, 0L, 10).getItems()).hasSize(2).allSatisfy(view -> {
+			assertThat(view.getEventName()).isEqualTo("concert moved");
+			assertThat(view.getEventLocation()).isEqualTo("Lyon");
+		});
+	}
+
+	@Test
+	void bookingsOfAUserArePagedInIdOrder() {
+		for (long id = 1; id <= 5; id++) {
+			projector.onBookingChange(change(id, BookingStatus.HELD, LocalDateTime.now()));
+		}
+
+		PageDto<BookingViewDto> first = bookingQueryService.getBookingsOfUser("alice", 0L, 2);
+		PageDto<BookingViewDto> last = bookingQueryService.getBookingsOfUser("alice", 4L, 2);
+
+		assertThat(first.getItems()).extracting(BookingViewDto::getId).containsExactly(1L, 2L);
+		assertThat(first.getNextAfterId()).isEqualTo(2L);
+		assertThat(last.getItems()).extracting(BookingViewDto::getId).containsExactly(5L);
+		assertThat(last.getNextAfterId()).isNull();
+	}
+
+	/**
+	 * Feeds the booking changes queued in the outbox to the projector, as the relay and Kafka would.
+	 */
+	private List<BookingChangeEvent> applyPublishedChanges() throws IOException {
+		List<OutboxMessage> messages = outboxMessageRepository.findAll().stream()
+				.filter(message -> message.getTopic().equals(BookingChangeOutbox.BOOKING_CHANGES_TOPIC))
+				.sorted(Comparator.comparing(OutboxMessage::getId))
+				.toList();
+		List<BookingChangeEvent> changes = new ArrayList<>();
+		for (OutboxMessage message : messages) {
+			BookingChangeEvent change = objectMapper.readValue(message.getPayload(), BookingChangeEvent.class);
+			projector.onBookingChange(change);
+			changes.add(change);
+		}
+		outboxMessageRepository.deleteAll();
+		return changes;
+	}
+
+	private static BookingChangeEvent change(Long bookingId, BookingStatus status, LocalDateTime changedAt) {
+		return change(bookingId, 0, status, changedAt);
+	}
+
+	private static BookingChangeEvent change(Long bookingId, long revision, BookingStatus status, LocalDateTime changedAt) {
+		return BookingChangeEvent.builder()
+				.bookingId(bookingId)
+				.revision(revision)
+				.changeType(BookingChangeType.UPDATED)
+				.eventId(1L)
+				.userName("alice")
+				.numberOfTickets(2)
+				.ticketType(TicketType.REGULAR)
+				.status(status)
+				.bookingTime(changedAt)
+				.changedAt(changedAt)
+				.build();
+	}
+
+	private static BookingDto booking(String userName, Long eventId) {
+		return BookingDto.builder()
+				.eventId(eventId)
+				.userName(userName)
+				.numberOfTickets(2)
+				.ticketType(TicketType.REGULAR)
+				.build();
+	}
+}
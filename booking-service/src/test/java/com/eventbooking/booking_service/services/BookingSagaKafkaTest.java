@@ -0,0 +1,259 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.SagaState;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.repository.BookingSagaRepository;
+import com.eventbooking.common.saga.PaymentCommand;
+import com.eventbooking.common.saga.SagaReply;
+import com.eventbooking.common.saga.SagaTopics;
+import com.eventbooking.common.saga.SeatCommand;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs booking sagas over an embedded broker: the commands go through the outbox and Kafka, and the
+ * test plays event-service and payment-service by answering them on the reply topic.
+ */
+@SpringBootTest(properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.datasource.url=jdbc:h2:mem:booking-saga-kafka-test",
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.saga.enabled=true",
+		"booking.saga.timeout-check-ms=3600000",
+		"booking.saga.reply-concurrency=1"
+})
+@EmbeddedKafka(partitions = 1, topics = {SagaTopics.SEAT_COMMANDS, SagaTopics.PAYMENT_COMMANDS, SagaTopics.REPLIES,
+		BookingChangeOutbox.BOOKING_CHANGES_TOPIC})
+class BookingSagaKafkaTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+	@Autowired
+	private BookingSagaOrchestrator orchestrator;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private BookingSagaRepository bookingSagaRepository;
+
+	@Autowired
+	private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+	@BeforeEach
+	void setUp() {
+		when(eventServiceClient.fetchEvent(anyLong())).thenReturn(Mono.just(EventDto.builder()
+				.id(1L)
+				.name("concert")
+				.location("Paris")
+				.date(LocalDate.now().plusDays(30))
+				.build()));
+		Map<String, Object> props = KafkaTestUtils.producerProps(embeddedKafkaBroker);
+		kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props,
+				new StringSerializer(), new ByteArraySerializer()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		kafkaTemplate.destroy();
+	}
+
+	@Test
+	void confirmsTheBookingOnceSeatsAndPaymentAreTaken() {
+		BookingDto booking = orchestrator.start(booking());
+
+		SeatCommand reserve = nextCommand(SagaTopics.SEAT_COMMANDS, SeatCommand.class, booking.getId(), 1);
+		assertThat(reserve.getAction()).isEqualTo(SeatCommand.Action.RESERVE);
+		assertThat(reserve.getQuantity()).isEqualTo(2);
+		reply(booking.getId(), SagaReply.Step.SEATS_RESERVED, true, null);
+		awaitState(booking.getId(), SagaState.TAKING_PAYMENT);
+
+		PaymentCommand take = nextCommand(SagaTopics.PAYMENT_COMMANDS, PaymentCommand.class, booking.getId(), 1);
+		assertThat(take.getAction()).isEqualTo(PaymentCommand.Action.TAKE);
+		assertThat(take.getAmount()).isEqualByComparingTo(booking.getTotalAmount());
+		reply(booking.getId(), SagaReply.Step.PAYMENT_TAKEN, true, null);
+		awaitState(booking.getId(), SagaState.COMPLETED);
+
+		assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+	}
+
+	@Test
+	void releasesTheSeatsOfABookingWhosePaymentFails() {
+		BookingDto booking = orchestrator.start(booking());
+		nextCommand(SagaTopics.SEAT_COMMANDS, SeatCommand.class, booking.getId(), 1);
+		reply(booking.getId(), SagaReply.Step.SEATS_RESERVED, true, null);
+		awaitState(booking.getId(), SagaState.TAKING_PAYMENT);
+		nextCommand(SagaTopics.PAYMENT_COMMANDS, PaymentCommand.class, booking.getId(), 1);
+
+		reply(booking.getId(), SagaReply.Step.PAYMENT_TAKEN, false, "Card declined");
+		awaitState(booking.getId(), SagaState.COMPENSATING);
+
+		assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.FAILED);
+		SeatCommand release = nextCommand(SagaTopics.SEAT_COMMANDS, SeatCommand.class, booking.getId(), 2);
+		assertThat(release.getAction()).isEqualTo(SeatCommand.Action.RELEASE);
+		assertThat(release.getQuantity()).isEqualTo(2);
+		reply(booking.getId(), SagaReply.Step.SEATS_RELEASED, true, null);
+		awaitState(booking.getId(), SagaState.COMPENSATED);
+
+		assertThat(bookingSagaRepository.findById(booking.getId()).orElseThrow().getFailureReason()).isEqualTo("Card declined");
+		// Only a payment that was taken is refunded
+		assertThat(commands(SagaTopics.PAYMENT_COMMANDS, PaymentCommand.class, booking.getId()))
+				.extracting(PaymentCommand::getAction)
+				.containsExactly(PaymentCommand.Action.TAKE);
+	}
+
+	@Test
+	void redeliveredCommandDoesNotRepeatTheNextStep() {
+		BookingDto booking = orchestrator.start(booking());
+		nextCommand(SagaTopics.SEAT_COMMANDS, SeatCommand.class, booking.getId(), 1);
+		// The broker hands the reservation over again, and event-service answers both deliveries
+		List<ConsumerRecord<String, byte[]>> delivered = records(SagaTopics.SEAT_COMMANDS, booking.getId());
+		kafkaTemplate.send(new ProducerRecord<>(SagaTopics.SEAT_COMMANDS, delivered.get(0).key(), delivered.get(0).value())).join();
+		assertThat(commands(SagaTopics.SEAT_COMMANDS, SeatCommand.class, booking.getId())).hasSize(2);
+		reply(booking.getId(), SagaReply.Step.SEATS_RESERVED, true, null);
+		reply(booking.getId(), SagaReply.Step.SEATS_RESERVED, true, null);
+		reply(booking.getId(), SagaReply.Step.PAYMENT_TAKEN, true, null);
+
+		awaitState(booking.getId(), SagaState.COMPLETED);
+
+		assertThat(outboxRelay.drain()).isPositive();
+		assertThat(commands(SagaTopics.PAYMENT_COMMANDS, PaymentCommand.class, booking.getId())).hasSize(1);
+		assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+	}
+
+	private <T> T nextCommand(String topic, Class<T> type, Long sagaId, int count) {
+		outboxRelay.drain();
+		List<T> commands = commands(topic, type, sagaId);
+		assertThat(commands).hasSize(count);
+		return commands.get(count - 1);
+	}
+
+	private <T> List<T> commands(String topic, Class<T> type, Long sagaId) {
+		return records(topic, sagaId).stream().map(record -> read(record.value(), type)).toList();
+	}
+
+	/**
+	 * Reads the topic from the start up to its end, keeping the commands of one saga.
+	 */
+	private List<ConsumerRecord<String, byte[]>> records(String topic, Long sagaId) {
+		Map<String, Object> props = KafkaTestUtils.consumerProps("booking-saga-kafka-test", "false", embeddedKafkaBroker);
+		props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props,
+				new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+			List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+					.map(partition -> new TopicPartition(topic, partition.partition()))
+					.toList();
+			consumer.assign(partitions);
+			consumer.seekToBeginning(partitions);
+			Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+			List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+			long deadline = System.nanoTime() + TIMEOUT.toNanos();
+			while (partitions.stream().anyMatch(partition -> consumer.position(partition) < end.get(partition))) {
+				assertThat(System.nanoTime()).as("reading %s", topic).isLessThan(deadline);
+				for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(100))) {
+					if (read(record.value(), JsonNode.class).path("sagaId").asLong() == sagaId) {
+						records.add(record);
+					}
+				}
+			}
+			return records;
+		}
+	}
+
+	private void reply(Long sagaId, SagaReply.Step step, boolean success, String message) {
+		byte[] payload;
+		try {
+			payload = objectMapper.writeValueAsBytes(SagaReply.builder()
+					.sagaId(sagaId)
+					.step(step)
+					.success(success)
+					.message(message)
+					.build());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		kafkaTemplate.send(new ProducerRecord<>(SagaTopics.REPLIES, String.valueOf(sagaId), payload)).join();
+	}
+
+	private void awaitState(Long sagaId, SagaState state) {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (bookingSagaRepository.findById(sagaId).orElseThrow().getState() != state) {
+			if (System.nanoTime() > deadline) {
+				fail("Saga " + sagaId + " did not reach " + state);
+			}
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				fail("Interrupted waiting for saga " + sagaId);
+			}
+		}
+	}
+
+	private <T> T read(byte[] payload, Class<T> type) {
+		try {
+			return objectMapper.readValue(payload, type);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static BookingDto booking() {
+		return BookingDto.builder()
+				.eventId(1L)
+				.userName("alice")
+				.numberOfTickets(2)
+				.ticketType(TicketType.REGULAR)
+				.build();
+	}
+}
@@ -0,0 +1,220 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.SagaState;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.entities.BookingSaga;
+import com.eventbooking.booking_service.entities.OutboxMessage;
+import com.eventbooking.booking_service.exceptionshandller.BookingNotCancellableException;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.repository.BookingSagaRepository;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.eventbooking.common.saga.PaymentCommand;
+import com.eventbooking.common.saga.SagaReply;
+import com.eventbooking.common.saga.SagaTopics;
+import com.eventbooking.common.saga.SeatCommand;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:booking-saga-test",
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.saga.enabled=true",
+		"booking.saga.timeout-check-ms=3600000"
+})
+class BookingSagaOrchestratorTest {
+
+	@Autowired
+	private BookingSagaOrchestrator orchestrator;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private BookingSagaRepository bookingSagaRepository;
+
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	@BeforeEach
+	void setUp() {
+		reset(eventServiceClient);
+		outboxMessageRepository.deleteAll();
+		bookingSagaRepository.deleteAll();
+		bookingRepository.deleteAll();
+		when(eventServiceClient.fetchEvent(anyLong())).thenReturn(Mono.just(EventDto.builder()
+				.id(1L)
+				.name("concert")
+				.location("Paris")
+				.date(LocalDate.now().plusDays(30))
+				.build()));
+	}
+
+	@Test
+	void repliesDriveTheSagaToAConfirmedBooking() throws IOException {
+		BookingDto booking = orchestrator.start(booking());
+
+		assertThat(booking.getStatus()).isEqualTo(BookingStatus.PENDING);
+		SeatCommand reserve = lastCommand(SagaTopics.SEAT_COMMANDS, SeatCommand.class);
+		assertThat(reserve.getAction()).isEqualTo(SeatCommand.Action.RESERVE);
+		assertThat(reserve.getSagaId()).isEqualTo(booking.getId());
+		assertThat(reserve.getQuantity()).isEqualTo(2);
+		verify(eventServiceClient, never()).reserveTickets(anyLong(), anyInt(), anyString());
+
+		orchestrator.onReply(reply(booking.getId(), SagaReply.Step.SEATS_RESERVED, true));
+		assertThat(saga(booking.getId()).getState()).isEqualTo(SagaState.TAKING_PAYMENT);
+		PaymentCommand take = lastCommand(SagaTopics.PAYMENT_COMMANDS, PaymentCommand.class);
+		assertThat(take.getAction()).isEqualTo(PaymentCommand.Action.TAKE);
+		assertThat(take.getBookingId()).isEqualTo(booking.getId());
+		assertThat(take.getAmount()).isEqualByComparingTo(booking.getTotalAmount());
+
+		orchestrator.onReply(reply(booking.getId(), SagaReply.Step.PAYMENT_TAKEN, true));
+		assertThat(saga(booking.getId()).getState()).isEqualTo(SagaState.COMPLETED);
+		assertThat(saga(booking.getId()).getDeadline()).isNull();
+		assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+
+		// A duplicate reply is ignored
+		long messages = outboxMessageRepository.count();
+		orchestrator.onReply(reply(booking.getId(), SagaReply.Step.SEATS_RESERVED, true));
+		assertThat(saga(booking.getId()).getState()).isEqualTo(SagaState.COMPLETED);
+		assertThat(outboxMessageRepository.count()).isEqualTo(messages);
+	}
+
+	@Test
+	void rejectedSeatsFailTheBookingWithoutCompensation() {
+		BookingDto booking = orchestrator.start(booking());
+		long commands = commandCount();
+
+		orchestrator.onReply(SagaReply.builder()
+				.sagaId(booking.getId())
+				.step(SagaReply.Step.SEATS_RESERVED)
+				.success(false)
+				.message("Not enough tickets")
+				.build());
+
+		BookingSaga saga = saga(booking.getId());
+		assertThat(saga.getState()).isEqualTo(SagaState.FAILED);
+		assertThat(saga.getFailureReason()).isEqualTo("Not enough tickets");
+		assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.FAILED);
+		assertThat(commandCount()).isEqualTo(commands);
+	}
+
+	@Test
+	void timedOutPaymentIsRefundedAndItsSeatsReleased() throws IOException {
+		BookingDto booking = orchestrator.start(booking());
+		orchestrator.onReply(reply(booking.getId(), SagaReply.Step.SEATS_RESERVED, true));
+		expireDeadline(booking.getId());
+
+		assertThat(orchestrator.compensateTimedOutSagas()).isEqualTo(1);
+
+		assertThat(saga(booking.getId()).getState()).isEqualTo(SagaState.COMPENSATING);
+		assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.FAILED);
+		assertThat(lastCommand(SagaTopics.PAYMENT_COMMANDS, PaymentCommand.class).getAction()).isEqualTo(PaymentCommand.Action.REFUND);
+		assertThat(lastCommand(SagaTopics.SEAT_COMMANDS, SeatCommand.class).getAction()).isEqualTo(SeatCommand.Action.RELEASE);
+		// The payment succeeding after the timeout does not confirm the booking
+		orchestrator.onReply(reply(booking.getId(), SagaReply.Step.PAYMENT_TAKEN, true));
+		assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.FAILED);
+
+		orchestrator.onReply(reply(booking.getId(), SagaReply.Step.SEATS_RELEASED, true));
+		assertThat(saga(booking.getId()).getState()).isEqualTo(SagaState.COMPENSATED);
+		assertThat(orchestrator.compensateTimedOutSagas()).isZero();
+	}
+
+	@Test
+	void lostReleaseIsSentAgain() throws IOException {
+		BookingDto booking = orchestrator.start(booking());
+		expireDeadline(booking.getId());
+		orchestrator.compensateTimedOutSagas();
+		long releases = commands(SagaTopics.SEAT_COMMANDS).size();
+		expireDeadline(booking.getId());
+
+		assertThat(orchestrator.compensateTimedOutSagas()).isEqualTo(1);
+
+		assertThat(commands(SagaTopics.SEAT_COMMANDS)).hasSize((int) releases + 1);
+		assertThat(lastCommand(SagaTopics.SEAT_COMMANDS, SeatCommand.class).getAction()).isEqualTo(SeatCommand.Action.RELEASE);
+		assertThat(saga(booking.getId()).getState()).isEqualTo(SagaState.COMPENSATING);
+	}
+
+	@Test
+	void pendingBookingCannotBeCancelled() {
+		BookingDto booking = orchestrator.start(booking());
+
+		assertThatThrownBy(() -> bookingService.cancelBooking(booking.getId()))
+				.isInstanceOf(BookingNotCancellableException.class);
+	}
+
+	private BookingSaga saga(Long id) {
+		return bookingSagaRepository.findById(id).orElseThrow();
+	}
+
+	private void expireDeadline(Long id) {
+		BookingSaga saga = saga(id);
+		saga.setDeadline(LocalDateTime.now().minusSeconds(1));
+		bookingSagaRepository.save(saga);
+	}
+
+	private List<OutboxMessage> commands(String topic) {
+		return outboxMessageRepository.findAll().stream()
+				.filter(message -> message.getTopic().equals(topic))
+				.sorted(Comparator.comparing(OutboxMessage::getId))
+				.toList();
+	}
+
+	private long commandCount() {
+		return commands(SagaTopics.SEAT_COMMANDS).size() + commands(SagaTopics.PAYMENT_COMMANDS).size();
+	}
+
+	private <T> T lastCommand(String topic, Class<T> type) throws IOException {
+		List<OutboxMessage> messages = commands(topic);
+		return objectMapper.readValue(messages.get(messages.size() - 1).getPayload(), type);
+	}
+
+	private static SagaReply reply(Long sagaId, SagaReply.Step step, boolean success) {
+		return SagaReply.builder()
+				.sagaId(sagaId)
+				.step(step)
+				.success(success)
+				.build();
+	}
+
+	private static BookingDto booking() {
+		return BookingDto.builder()
+				.eventId(1L)
+				.userName("alice")
+				.numberOfTickets(2)
+				.ticketType(TicketType.REGULAR)
+				.build();
+	}
+}
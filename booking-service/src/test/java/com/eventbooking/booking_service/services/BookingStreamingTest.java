@@ -0,0 +1,79 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.PageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streams a million bookings with the heap capped by the surefire argLine, which would not
+ * fit if they were collected into a list.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:file:./target/booking-streaming-test")
+class BookingStreamingTest {
+
+	private static final int BOOKINGS = 1_000_000;
+	private static final int INSERT_CHUNK = 100_000;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void generateBookings() {
+		Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM booking", Integer.class);
+		if (existing != null && existing == BOOKINGS) {
+			return;
+		}
+		jdbcTemplate.update("DELETE FROM booking");
+		for (int from = 1; from <= BOOKINGS; from += INSERT_CHUNK) {
+			jdbcTemplate.update("INSERT INTO booking (id, event_id, username, number_of_tickets, price, booking_time, ticket_type, is_cancelled) "
+					+ "SELECT X, MOD(X, 100) + 1, 'user-' || X, 1, 100, CURRENT_TIMESTAMP, 'REGULAR', FALSE "
+					+ "FROM SYSTEM_RANGE(?, ?)", from, from + INSERT_CHUNK - 1);
+		}
+	}
+
+	@Test
+	void streamsAllBookingsWithBoundedMemory() throws IOException {
+		LineCountingOutputStream out = new LineCountingOutputStream();
+
+		bookingService.streamAllBookings(out);
+
+		assertThat(out.lines).isEqualTo(BOOKINGS);
+	}
+
+	@Test
+	void pagesSeekPastTheLastId() {
+		PageDto<BookingDto> first = bookingService.getBookingsPage(0L, 500);
+		assertThat(first.getItems()).hasSize(500);
+		assertThat(first.getItems().get(0).getId()).isEqualTo(1L);
+		assertThat(first.getNextAfterId()).isEqualTo(500L);
+
+		PageDto<BookingDto> last = bookingService.getBookingsPage(BOOKINGS - 10L, 500);
+		assertThat(last.getItems()).hasSize(10);
+		assertThat(last.getItems().get(0).getId()).isEqualTo(BOOKINGS - 9L);
+		assertThat(last.getNextAfterId()).isNull();
+	}
+
+	private static class LineCountingOutputStream extends OutputStream {
+		private long lines;
+
+		@Override
+		public void write(int b) {
+			if (b == '\n') {
+				lines++;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.eventbooking.booking_service.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+	private static final int KEYS = 10_000;
+
+	private final ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+
+	@Test
+	void spreadsKeysEvenlyOverTheNodes() {
+		Map<String, Integer> counts = new HashMap<>();
+		for (long key = 0; key < KEYS; key++) {
+			counts.merge(ring.nodeOf(key), 1, Integer::sum);
+		}
+
+		assertThat(counts).containsOnlyKeys("a", "b", "c");
+		assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 4, KEYS / 2));
+	}
+
+	@Test
+	void movesAboutOneKeyInNToAnAddedNode() {
+		ConsistentHashRing grown = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+		int moved = 0;
+		for (long key = 0; key < KEYS; key++) {
+			String before = ring.nodeOf(key);
+			String after = grown.nodeOf(key);
+			if (!before.equals(after)) {
+				assertThat(after).isEqualTo("d");
+				moved++;
+			}
+		}
+		assertThat(moved).isBetween(KEYS / 6, KEYS / 3);
+	}
+
+	@Test
+	void mapsKeysTheSameWayOnEveryRing() {
+		ConsistentHashRing other = new ConsistentHashRing(List.of("c", "a", "b"), 128);
+
+		for (long key = 0; key < 1000; key++) {
+			assertThat(other.nodeOf(key)).isEqualTo(ring.nodeOf(key));
+		}
+	}
+
+	@Test
+	void rejectsARingWithoutNodes() {
+		assertThatThrownBy(() -> new ConsistentHashRing(List.of(), 128))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
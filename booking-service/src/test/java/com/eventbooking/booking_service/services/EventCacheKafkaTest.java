@@ -0,0 +1,127 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.EventChangeType;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.event.EventChangeEvent;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Publishes event changes over an embedded broker, on both partitions of the topic, and checks that the
+ * near cache applies them without joining a consumer group.
+ */
+@SpringBootTest(properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.datasource.url=jdbc:h2:mem:event-cache-kafka-test",
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.event-cache.partitions=0-1"
+})
+@EmbeddedKafka(partitions = 2, topics = "event-changes")
+class EventCacheKafkaTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+	@Autowired
+	private EventCache eventCache;
+
+	@Autowired
+	private KafkaListenerEndpointRegistry registry;
+
+	@Autowired
+	private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+	private KafkaTemplate<String, EventChangeEvent> kafkaTemplate;
+
+	@BeforeEach
+	void setUp() {
+		ContainerTestUtils.waitForAssignment(registry.getListenerContainer("eventCache"), 2);
+		kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+				KafkaTestUtils.producerProps(embeddedKafkaBroker), new StringSerializer(), new JsonSerializer<>()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		kafkaTemplate.destroy();
+	}
+
+	@Test
+	void appliesTheChangesOfEveryPartition() {
+		eventCache.put(event(1L, "concert"));
+		eventCache.put(event(2L, "opera"));
+
+		send(0, EventChangeEvent.builder().eventId(1L).changeType(EventChangeType.DELETED).build());
+		send(1, EventChangeEvent.builder()
+				.eventId(2L)
+				.changeType(EventChangeType.UPDATED)
+				.name("ballet")
+				.location("Lyon")
+				.date(LocalDate.now().plusDays(30))
+				.build());
+
+		awaitCondition(() -> eventCache.get(1L) == null && eventCache.get(2L) != null
+				&& "ballet".equals(eventCache.get(2L).getName()));
+		assertThat(eventCache.get(2L).getLocation()).isEqualTo("Lyon");
+	}
+
+	@Test
+	void readsTheChangesWithoutAConsumerGroup() throws Exception {
+		try (AdminClient admin = AdminClient.create(Map.of("bootstrap.servers", embeddedKafkaBroker.getBrokersAsString()))) {
+			assertThat(admin.listConsumerGroups().all().get(10, TimeUnit.SECONDS))
+					.extracting(ConsumerGroupListing::groupId)
+					.noneMatch(groupId -> groupId.startsWith("booking-event-cache"))
+					.doesNotContain("eventCache");
+		}
+	}
+
+	private void send(int partition, EventChangeEvent change) {
+		kafkaTemplate.send(new ProducerRecord<>("event-changes", partition, String.valueOf(change.getEventId()), change)).join();
+	}
+
+	private static EventDto event(Long id, String name) {
+		return EventDto.builder()
+				.id(id)
+				.name(name)
+				.location("Paris")
+				.date(LocalDate.now().plusDays(30))
+				.build();
+	}
+
+	private static void awaitCondition(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				fail("The changes were not applied within " + TIMEOUT);
+			}
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				fail("Interrupted waiting for the changes");
+			}
+		}
+	}
+}
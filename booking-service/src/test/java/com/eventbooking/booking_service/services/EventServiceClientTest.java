@@ -0,0 +1,82 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.serviceclient.ServiceClientProperties;
+import com.eventbooking.serviceclient.ServiceClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventServiceClientTest {
+
+	private static final int LOOKUPS = 500;
+
+	private MeterRegistry meterRegistry;
+	private EventCache eventCache;
+	private AtomicInteger calls;
+	private HttpStatus status;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		eventCache = new EventCache(meterRegistry, 100, Duration.ofMinutes(5));
+		calls = new AtomicInteger();
+		status = HttpStatus.OK;
+	}
+
+	@Test
+	void concurrentLookupsOfAnEventShareOneCall() {
+		EventServiceClient client = client();
+
+		List<EventDto> events = Flux.range(0, LOOKUPS)
+				.flatMap(i -> client.fetchEvent(1L).subscribeOn(Schedulers.parallel()), LOOKUPS)
+				.collectList()
+				.block(Duration.ofSeconds(10));
+
+		assertThat(events).hasSize(LOOKUPS).allSatisfy(event -> assertThat(event.getName()).isEqualTo("concert"));
+		assertThat(calls).hasValue(1);
+		assertThat(meterRegistry.get("booking.event-lookups.coalesced").counter().count()).isEqualTo(LOOKUPS - 1);
+	}
+
+	@Test
+	void failedLookupIsNotKept() {
+		EventServiceClient client = client();
+		status = HttpStatus.SERVICE_UNAVAILABLE;
+		assertThatThrownBy(() -> client.fetchEvent(1L).block())
+				.isInstanceOf(WebClientResponseException.class);
+
+		status = HttpStatus.OK;
+		assertThat(client.fetchEvent(1L).block().getName()).isEqualTo("concert");
+		assertThat(calls).hasValue(2);
+	}
+
+	private EventServiceClient client() {
+		WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+			calls.incrementAndGet();
+			// Slow enough for every lookup to arrive while the first one is in flight
+			return Mono.delay(Duration.ofMillis(200)).map(tick -> ClientResponse.create(status)
+					.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.body("{\"id\":1,\"name\":\"concert\",\"location\":\"Paris\"}")
+					.build());
+		});
+		return new EventServiceClient(new ServiceClients(webClientBuilder, new ServiceClientProperties(), meterRegistry),
+				eventCache, meterRegistry);
+	}
+}
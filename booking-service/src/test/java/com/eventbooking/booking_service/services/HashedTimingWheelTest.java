@@ -0,0 +1,80 @@
+package com.eventbooking.booking_service.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashedTimingWheelTest {
+
+	private static final long TICK = 100;
+	private static final long START = 1_000_000;
+
+	private final HashedTimingWheel<Long> wheel = new HashedTimingWheel<>(TICK, 8, START);
+
+	@Test
+	void expiresKeysOnceTheirDeadlinePassed() {
+		wheel.schedule(1L, START + 250);
+		wheel.schedule(2L, START + 500);
+
+		assertThat(wheel.advance(START + 200)).isEmpty();
+		assertThat(wheel.advance(START + 300)).containsExactly(1L);
+		assertThat(wheel.advance(START + 500)).containsExactly(2L);
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void keepsKeysDueInALaterRevolution() {
+		// 8 slots of 100 ms: both keys share a slot, a revolution apart
+		wheel.schedule(1L, START + 300);
+		wheel.schedule(2L, START + 1100);
+
+		assertThat(wheel.advance(START + 300)).containsExactly(1L);
+		assertThat(wheel.advance(START + 1000)).isEmpty();
+		assertThat(wheel.advance(START + 1100)).containsExactly(2L);
+	}
+
+	@Test
+	void expiresEverythingDueAfterAPauseLongerThanARevolution() {
+		for (long key = 1; key <= 20; key++) {
+			wheel.schedule(key, START + key * 100);
+		}
+
+		assertThat(wheel.advance(START + 5000)).hasSize(20);
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void cancelledKeysNeverExpire() {
+		wheel.schedule(1L, START + 100);
+		wheel.schedule(2L, START + 100);
+
+		assertThat(wheel.cancel(1L)).isTrue();
+		assertThat(wheel.cancel(3L)).isFalse();
+
+		assertThat(wheel.advance(START + 100)).containsExactly(2L);
+	}
+
+	@Test
+	void reschedulingReplacesTheDeadline() {
+		wheel.schedule(1L, START + 100);
+		wheel.schedule(1L, START + 400);
+
+		assertThat(wheel.advance(START + 300)).isEmpty();
+		assertThat(wheel.advance(START + 400)).containsExactly(1L);
+	}
+
+	@Test
+	void pastDeadlinesExpireOnTheNextTick() {
+		wheel.advance(START + 1000);
+		wheel.schedule(1L, START);
+
+		assertThat(wheel.advance(START + 1100)).containsExactly(1L);
+	}
+
+	@Test
+	void rejectsAWheelSizeThatIsNotAPowerOfTwo() {
+		assertThatThrownBy(() -> new HashedTimingWheel<Long>(TICK, 100, START))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,178 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.BookingStatus;
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.entities.Booking;
+import com.eventbooking.booking_service.exceptionshandller.BookingHoldExpiredException;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.eventbooking.common.saga.SagaTopics;
+import com.eventbooking.common.saga.SeatCommand;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:hold-expiry-test",
+		"booking.outbox.poll-interval-ms=3600000"
+})
+class HoldExpirySchedulerTest {
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private BookingChangeOutbox bookingChangeOutbox;
+
+	@Autowired
+	private SagaCommandOutbox sagaCommandOutbox;
+
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	private HoldExpiryScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		bookingRepository.deleteAll();
+		outboxMessageRepository.deleteAll();
+		scheduler = scheduler(sagaCommandOutbox);
+	}
+
+	@Test
+	void recoveredHoldsExpireInBatchesAndQueueTheReleaseOfTheirSeats() {
+		List<Long> due = IntStream.range(0, 5)
+				.mapToObj(i -> save(BookingStatus.HELD, LocalDateTime.now().minusMinutes(1)).getId())
+				.collect(Collectors.toList());
+		Long pending = save(BookingStatus.HELD, LocalDateTime.now().plusMinutes(15)).getId();
+		Long confirmed = save(BookingStatus.CONFIRMED, null).getId();
+
+		assertThat(scheduler.recover()).isEqualTo(6);
+		assertThat(scheduler.expireDueHolds()).isEqualTo(5);
+
+		assertThat(releases()).allSatisfy(release -> {
+			assertThat(release.getAction()).isEqualTo(SeatCommand.Action.RELEASE_HOLD);
+			assertThat(release.getEventId()).isEqualTo(1L);
+			assertThat(release.getQuantity()).isEqualTo(2);
+		}).extracting(SeatCommand::getSagaId).containsExactlyInAnyOrderElementsOf(due);
+		assertThat(bookingRepository.findAllById(due)).allSatisfy(booking -> {
+			assertThat(booking.getStatus()).isEqualTo(BookingStatus.EXPIRED);
+			assertThat(booking.getHoldExpiresAt()).isNull();
+		});
+		assertThat(bookingRepository.findById(pending).get().getStatus()).isEqualTo(BookingStatus.HELD);
+		assertThat(bookingRepository.findById(confirmed).get().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+	}
+
+	@Test
+	void confirmedHoldDoesNotExpire() {
+		Long bookingId = save(BookingStatus.HELD, LocalDateTime.now().minusMinutes(1)).getId();
+		scheduler.recover();
+
+		assertThat(bookingService.confirmBooking(bookingId).getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+		assertThat(scheduler.expireDueHolds()).isZero();
+
+		assertThat(releases()).isEmpty();
+		assertThat(bookingService.confirmBooking(bookingId).getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+	}
+
+	@Test
+	void expiredHoldCannotBeConfirmed() {
+		Long bookingId = save(BookingStatus.HELD, LocalDateTime.now().minusMinutes(1)).getId();
+		scheduler.recover();
+		scheduler.expireDueHolds();
+
+		assertThatThrownBy(() -> bookingService.confirmBooking(bookingId))
+				.isInstanceOf(BookingHoldExpiredException.class);
+	}
+
+	@Test
+	void failedExpiryKeepsTheHoldWithoutReleasingItsSeatsAndIsRetried() throws InterruptedException {
+		Long bookingId = save(BookingStatus.HELD, LocalDateTime.now().minusMinutes(1)).getId();
+		SagaCommandOutbox failingOnce = mock(SagaCommandOutbox.class);
+		doAnswer(invocation -> {
+			throw new IllegalStateException("outbox unavailable");
+		}).doAnswer(invocation -> {
+			sagaCommandOutbox.enqueue(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+			return null;
+		}).when(failingOnce).enqueue(any(), any(), any());
+		scheduler = scheduler(failingOnce);
+		scheduler.recover();
+
+		assertThat(scheduler.expireDueHolds()).isZero();
+		assertThat(bookingRepository.findById(bookingId).get().getStatus()).isEqualTo(BookingStatus.HELD);
+		assertThat(releases()).isEmpty();
+
+		Thread.sleep(30);
+		assertThat(scheduler.expireDueHolds()).isEqualTo(1);
+		assertThat(bookingRepository.findById(bookingId).get().getStatus()).isEqualTo(BookingStatus.EXPIRED);
+		assertThat(releases()).extracting(SeatCommand::getSagaId).containsExactly(bookingId);
+	}
+
+	/**
+	 * A scheduler of our own, so that the one of the context does not race with the test.
+	 */
+	private HoldExpiryScheduler scheduler(SagaCommandOutbox outbox) {
+		return new HoldExpiryScheduler(bookingRepository, outbox, bookingChangeOutbox, transactionTemplate,
+				shardRouter, new SimpleMeterRegistry(), 10, 64, 2, Duration.ZERO);
+	}
+
+	private List<SeatCommand> releases() {
+		return outboxMessageRepository.findAll().stream()
+				.filter(message -> SagaTopics.SEAT_COMMANDS.equals(message.getTopic()))
+				.map(message -> {
+					try {
+						return objectMapper.readValue(message.getPayload(), SeatCommand.class);
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				})
+				.collect(Collectors.toList());
+	}
+
+	private Booking save(BookingStatus status, LocalDateTime holdExpiresAt) {
+		return bookingRepository.save(Booking.builder()
+				.eventId(1L)
+				.userName("alice")
+				.numberOfTickets(2)
+				.ticketType(TicketType.REGULAR)
+				.totalAmount(BigDecimal.valueOf(200))
+				.status(status)
+				.holdExpiresAt(holdExpiresAt)
+				.build());
+	}
+}
@@ -0,0 +1,153 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.eventbooking.booking_service.repository.OutboxLockRepository;
+import com.eventbooking.booking_service.repository.OutboxMessageRepository;
+import com.eventbooking.common.serialization.BookingEventDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.datasource.url=jdbc:h2:mem:outbox-relay-test",
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.outbox.batch-size=100"
+})
+@EmbeddedKafka(partitions = 1, topics = "notification")
+class OutboxRelayTest {
+
+	private static final int MESSAGES = 250;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	@Autowired
+	private NotificationOutbox notificationOutbox;
+
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	@Autowired
+	private OutboxLockRepository outboxLockRepository;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void relaysQueuedNotificationsInOrderAndEmptiesTheOutbox() {
+		transactionTemplate.executeWithoutResult(status -> LongStream.rangeClosed(1, MESSAGES)
+				.forEach(bookingId -> notificationOutbox.enqueue(bookingId, BookingEvent.builder()
+						.userName("user-" + bookingId)
+						.numberOfTicket(1)
+						.build())));
+
+		assertThat(outboxRelay.drain()).isEqualTo(MESSAGES);
+
+		assertThat(outboxMessageRepository.count()).isZero();
+		List<ConsumerRecord<String, BookingEvent>> received = receiveNotifications();
+		assertThat(received).extracting(ConsumerRecord::key).containsExactlyElementsOf(LongStream.rangeClosed(1, MESSAGES)
+				.mapToObj(String::valueOf)
+				.collect(Collectors.toList()));
+		assertThat(received).extracting(record -> record.value().getUserName()).containsExactlyElementsOf(LongStream.rangeClosed(1, MESSAGES)
+				.mapToObj(bookingId -> "user-" + bookingId)
+				.collect(Collectors.toList()));
+		assertThat(meterRegistry.get("booking.outbox.relayed").counter().count()).isEqualTo(MESSAGES);
+		assertThat(meterRegistry.get("booking.outbox.lag").gauge().value()).isZero();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void relaysOfTwoInstancesTakeTurnsAndSendEachMessageOnce() throws Exception {
+		transactionTemplate.executeWithoutResult(status -> LongStream.rangeClosed(1, 10)
+				.forEach(bookingId -> notificationOutbox.enqueue(bookingId, BookingEvent.builder()
+						.userName("user-" + bookingId)
+						.numberOfTicket(1)
+						.build())));
+		// The relay of another instance, whose sends wait until the test lets them through
+		List<String> sent = new CopyOnWriteArrayList<>();
+		CountDownLatch sending = new CountDownLatch(1);
+		CountDownLatch acknowledge = new CountDownLatch(1);
+		KafkaTemplate<String, byte[]> otherKafkaTemplate = mock(KafkaTemplate.class);
+		when(otherKafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+			sent.add(invocation.<ProducerRecord<String, byte[]>>getArgument(0).key());
+			sending.countDown();
+			acknowledge.await();
+			return CompletableFuture.completedFuture(null);
+		});
+		OutboxRelay otherRelay = new OutboxRelay(outboxMessageRepository, outboxLockRepository, otherKafkaTemplate,
+				shardRouter, transactionTemplate, new SimpleMeterRegistry(), 100);
+
+		CompletableFuture<Integer> otherDrain = CompletableFuture.supplyAsync(otherRelay::drain);
+		assertThat(sending.await(10, TimeUnit.SECONDS)).isTrue();
+		// Skips the messages the other relay is sending instead of sending them too
+		assertThat(outboxRelay.drain()).isZero();
+		acknowledge.countDown();
+
+		assertThat(otherDrain.get(10, TimeUnit.SECONDS)).isEqualTo(10);
+		assertThat(sent).containsExactlyElementsOf(LongStream.rangeClosed(1, 10)
+				.mapToObj(String::valueOf)
+				.collect(Collectors.toList()));
+		assertThat(outboxMessageRepository.count()).isZero();
+		assertThat(outboxRelay.drain()).isZero();
+	}
+
+	@Test
+	void enqueueRequiresTheBookingTransaction() {
+		assertThatThrownBy(() -> notificationOutbox.enqueue(1L, BookingEvent.builder().build()))
+				.isInstanceOf(IllegalTransactionStateException.class);
+	}
+
+	private List<ConsumerRecord<String, BookingEvent>> receiveNotifications() {
+		Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-relay-test", "false", embeddedKafkaBroker);
+		props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		try (Consumer<String, BookingEvent> consumer = new DefaultKafkaConsumerFactory<>(props,
+				new StringDeserializer(), new BookingEventDeserializer()).createConsumer()) {
+			embeddedKafkaBroker.consumeFromAnEmbeddedTopic(consumer, "notification");
+			List<ConsumerRecord<String, BookingEvent>> records = new ArrayList<>();
+			KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), MESSAGES).forEach(records::add);
+			return records;
+		}
+	}
+
+}
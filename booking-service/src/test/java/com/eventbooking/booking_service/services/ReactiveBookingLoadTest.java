@@ -0,0 +1,156 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.repository.BookingRepository;
+import com.eventbooking.serviceclient.ServiceClientProperties;
+import com.eventbooking.serviceclient.ServiceClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends the same burst of bookings through {@link BookingService} and {@link ReactiveBookingService}
+ * against an event service stubbed to answer after {@link #EVENT_SERVICE_LATENCY}, with the request
+ * threads of the servlet container modelled as a pool of {@link #REQUEST_THREADS}.
+ * A blocking booking holds its request thread while event-service answers, so no more bookings than
+ * request threads are ever waiting on it and the others queue; a reactive one gives its thread back.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:reactive-booking-load-test",
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.reactive.enabled=true"
+})
+class ReactiveBookingLoadTest {
+
+	private static final int REQUEST_THREADS = 10;
+	private static final int BOOKINGS = 100;
+	private static final Duration EVENT_SERVICE_LATENCY = Duration.ofMillis(300);
+
+	private static final AtomicInteger inFlight = new AtomicInteger();
+	private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private ReactiveBookingService reactiveBookingService;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@BeforeEach
+	void setUp() {
+		bookingRepository.deleteAll();
+		inFlight.set(0);
+		maxInFlight.set(0);
+	}
+
+	@Test
+	void reactiveBookingsWaitOnTheEventServiceTogetherInsteadOfQueuingForARequestThread() throws Exception {
+		LoadResult blocking = run(bookingDto -> CompletableFuture.completedFuture(bookingService.createBooking(bookingDto)));
+		int blockingConcurrency = maxInFlight.getAndSet(0);
+		LoadResult reactive = run(bookingDto -> reactiveBookingService.createBooking(bookingDto).toFuture());
+		int reactiveConcurrency = maxInFlight.get();
+
+		assertThat(bookingRepository.count()).isEqualTo(2L * BOOKINGS);
+		assertThat(blockingConcurrency).isLessThanOrEqualTo(REQUEST_THREADS);
+		assertThat(reactiveConcurrency).isGreaterThan(REQUEST_THREADS);
+		// Blocking, the last bookings wait for BOOKINGS / REQUEST_THREADS round trips before theirs starts
+		assertThat(blocking.p99()).isGreaterThanOrEqualTo(EVENT_SERVICE_LATENCY.multipliedBy(BOOKINGS / REQUEST_THREADS - 1));
+		assertThat(reactive.p99()).isLessThan(blocking.p99().dividedBy(2));
+	}
+
+	/**
+	 * Submits every booking at once to the request threads, and waits until all of them are answered.
+	 *
+	 * @param handler Books on a request thread, returning once the thread is free again.
+	 */
+	private LoadResult run(Function<BookingDto, CompletableFuture<BookingDto>> handler) throws Exception {
+		ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+		try {
+			List<CompletableFuture<Duration>> latencies = new ArrayList<>();
+			for (int i = 0; i < BOOKINGS; i++) {
+				BookingDto bookingDto = booking(i);
+				long submittedAt = System.nanoTime();
+				latencies.add(CompletableFuture.supplyAsync(() -> handler.apply(bookingDto), requestThreads)
+						.thenCompose(Function.identity())
+						.thenApply(booked -> Duration.ofNanos(System.nanoTime() - submittedAt)));
+			}
+			CompletableFuture.allOf(latencies.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+			return new LoadResult(latencies.stream().map(CompletableFuture::join).sorted().toList());
+		} finally {
+			requestThreads.shutdownNow();
+		}
+	}
+
+	private static BookingDto booking(int i) {
+		return BookingDto.builder()
+				.eventId(1L)
+				.userName("user-" + i)
+				.numberOfTickets(1)
+				.ticketType(TicketType.REGULAR)
+				.build();
+	}
+
+	private record LoadResult(List<Duration> latencies) {
+
+		Duration p99() {
+			return latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+		}
+	}
+
+	@TestConfiguration
+	static class StubbedEventService {
+
+		/**
+		 * An event service answering every call after {@link #EVENT_SERVICE_LATENCY}, without holding a thread meanwhile.
+		 */
+		@Bean
+		@Primary
+		EventServiceClient stubbedEventServiceClient(MeterRegistry meterRegistry) {
+			WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				String body = request.url().getPath().endsWith("/reserve")
+						? ""
+						: "{\"id\":1,\"name\":\"concert\",\"location\":\"Paris\",\"date\":\"2030-01-01\"}";
+				// Counted out before answering, as the caller may send its next call as soon as it has the answer
+				return Mono.delay(EVENT_SERVICE_LATENCY)
+						.doOnNext(tick -> inFlight.decrementAndGet())
+						.map(tick -> ClientResponse.create(HttpStatus.OK)
+								.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+								.body(body)
+								.build());
+			});
+			ServiceClientProperties.Target target = new ServiceClientProperties.Target();
+			target.getBulkhead().setMaxConcurrentCalls(BOOKINGS);
+			ServiceClientProperties properties = new ServiceClientProperties();
+			properties.getTargets().put(EventServiceClient.EVENT_SERVICE, target);
+			return new EventServiceClient(new ServiceClients(webClientBuilder, properties, meterRegistry),
+					new EventCache(meterRegistry, 100, Duration.ofMinutes(5)), meterRegistry);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package com.eventbooking.booking_service.services;
+
+import com.eventbooking.booking_service.constants.TicketType;
+import com.eventbooking.booking_service.dto.BookingDto;
+import com.eventbooking.booking_service.dto.EventDto;
+import com.eventbooking.booking_service.dto.PageDto;
+import com.eventbooking.booking_service.exceptionshandller.BucketMovingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * Spreads bookings over three in-memory H2 shards.
+ */
+@SpringBootTest(properties = {
+		"booking.outbox.poll-interval-ms=3600000",
+		"booking.sharding.enabled=true",
+		"booking.sharding.shards[0].name=shard-0",
+		"booking.sharding.shards[0].url=jdbc:h2:mem:shard-router-test-0",
+		"booking.sharding.shards[0].username=sa",
+		"booking.sharding.shards[1].name=shard-1",
+		"booking.sharding.shards[1].url=jdbc:h2:mem:shard-router-test-1",
+		"booking.sharding.shards[1].username=sa",
+		"booking.sharding.shards[2].name=shard-2",
+		"booking.sharding.shards[2].url=jdbc:h2:mem:shard-router-test-2",
+		"booking.sharding.shards[2].username=sa"
+})
+class ShardRouterTest {
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private EventServiceClient eventServiceClient;
+
+	@BeforeEach
+	void setUp() {
+		reset(eventServiceClient);
+		when(eventServiceClient.fetchEvent(anyLong())).thenAnswer(invocation -> Mono.just(EventDto.builder()
+				.id(invocation.getArgument(0))
+				.name("concert")
+				.location("Paris")
+				.date(LocalDate.now().plusDays(30))
+				.build()));
+		when(eventServiceClient.reserveTickets(anyLong(), anyInt(), anyString())).thenReturn(Mono.empty());
+		when(eventServiceClient.releaseTickets(anyLong(), anyInt(), anyString())).thenReturn(Mono.empty());
+		shardRouter.onEachShard(shard -> jdbcTemplate.update("DELETE FROM booking"));
+	}
+
+	@Test
+	void storesBookingsOnTheShardOfTheirEvent() {
+		List<BookingDto> created = createBookings(30);
+
+		assertThat(created).extracting(BookingDto::getId).doesNotHaveDuplicates();
+		for (BookingDto booking : created) {
+			int bucket = ShardRouter.bucketOfEvent(booking.getEventId());
+			assertThat(ShardRouter.bucketOfBooking(booking.getId())).isEqualTo(bucket);
+			assertThat(countOn(shardRouter.shardOf(bucket), booking.getId())).isEqualTo(1);
+			assertThat(bookingService.getBookingById(booking.getId())).isPresent();
+		}
+		assertThat(shardRouter.onEachShard(shard -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM booking", Integer.class)))
+				.allSatisfy(count -> assertThat(count).isPositive());
+	}
+
+	@Test
+	void gathersBookingsFromEveryShard() {
+		List<Long> ids = createBookings(30).stream().map(BookingDto::getId).sorted().collect(Collectors.toList());
+
+		assertThat(bookingService.getAllBookings()).extracting(BookingDto::getId).containsExactlyInAnyOrderElementsOf(ids);
+
+		List<Long> paged = new ArrayList<>();
+		Long afterId = 0L;
+		do {
+			PageDto<BookingDto> page = bookingService.getBookingsPage(afterId, 7);
+			page.getItems().forEach(booking -> paged.add(booking.getId()));
+			afterId = page.getNextAfterId();
+		} while (afterId != null);
+		assertThat(paged).isEqualTo(ids);
+	}
+
+	@Test
+	void movesABucketToAnotherShardAndBack() {
+		BookingDto booking = createBookings(1).get(0);
+		int bucket = ShardRouter.bucketOfBooking(booking.getId());
+		int home = shardRouter.shardOf(bucket);
+		int other = (home + 1) % shardRouter.shardCount();
+
+		shardRebalancer.move(bucket, other);
+
+		assertThat(shardRouter.shardOf(bucket)).isEqualTo(other);
+		assertThat(countOn(home, booking.getId())).isZero();
+		assertThat(countOn(other, booking.getId())).isEqualTo(1);
+		assertThat(bookingService.getBookingById(booking.getId())).isPresent();
+		assertThat(bookingService.getAllBookings()).hasSize(1);
+
+		assertThat(shardRebalancer.rebalance()).isEqualTo(1);
+
+		assertThat(shardRouter.shardOf(bucket)).isEqualTo(home);
+		assertThat(countOn(home, booking.getId())).isEqualTo(1);
+		assertThat(countOn(other, booking.getId())).isZero();
+		assertThat(shardRebalancer.status()).containsEntry("misplaced", 0);
+	}
+
+	@Test
+	void refusesWorkOnABucketAnotherInstanceIsMoving() {
+		BookingDto booking = createBookings(1).get(0);
+		int bucket = ShardRouter.bucketOfBooking(booking.getId());
+		int home = shardRouter.shardOf(bucket);
+		int other = (home + 1) % shardRouter.shardCount();
+
+		setBucketOn(home, bucket, "moving_to", shardRouter.shards().get(other));
+		try {
+			assertThatThrownBy(() -> bookingService.getBookingById(booking.getId())).isInstanceOf(BucketMovingException.class);
+			assertThatThrownBy(() -> createBookings(1)).isInstanceOf(BucketMovingException.class);
+		} finally {
+			setBucketOn(home, bucket, "moving_to", null);
+		}
+
+		assertThat(bookingService.getBookingById(booking.getId())).isPresent();
+	}
+
+	@Test
+	void followsABucketAnotherInstanceMoved() {
+		BookingDto booking = createBookings(1).get(0);
+		int bucket = ShardRouter.bucketOfBooking(booking.getId());
+		int home = shardRouter.shardOf(bucket);
+		int other = (home + 1) % shardRouter.shardCount();
+		shardRebalancer.move(bucket, other);
+		// As if another instance had moved it: this one still routes the bucket to its old shard
+		shardRouter.move(bucket, home, () -> { });
+		for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+			setBucketOn(shard, bucket, "shard", shardRouter.shards().get(other));
+		}
+
+		assertThat(bookingService.getBookingById(booking.getId())).isPresent();
+		assertThat(shardRouter.shardOf(bucket)).isEqualTo(other);
+
+		shardRebalancer.rebalance();
+		assertThat(shardRouter.shardOf(bucket)).isEqualTo(home);
+	}
+
+	private List<BookingDto> createBookings(int events) {
+		return LongStream.rangeClosed(1, events)
+				.mapToObj(eventId -> bookingService.createBooking(BookingDto.builder()
+						.eventId(eventId)
+						.userName("user-" + eventId)
+						.numberOfTickets(1)
+						.ticketType(TicketType.REGULAR)
+						.build()))
+				.collect(Collectors.toList());
+	}
+
+	private void setBucketOn(int shard, int bucket, String column, String value) {
+		shardRouter.onShard(shard, () ->
+				jdbcTemplate.update("UPDATE shard_bucket SET " + column + " = ? WHERE bucket = ?", value, bucket));
+	}
+
+	private int countOn(int shard, long bookingId) {
+		return shardRouter.onShard(shard, () ->
+				jdbcTemplate.queryForObject("SELECT COUNT(*) FROM booking WHERE id = ?", Integer.class, bookingId));
+	}
+}
@@ -0,0 +1,166 @@
+package com.eventbooking.booking_service.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+
+	private static final int SEGMENT_SIZE = 256;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void readsRecordsBackInSequenceOrderAcrossSegments() throws IOException {
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE)) {
+			for (int i = 1; i <= 20; i++) {
+				assertThat(wal.append(record(i))).isEqualTo(i);
+			}
+
+			assertThat(wal.segmentCount()).isGreaterThan(1);
+			List<WriteAheadLog.Entry> first = wal.read(0, 15);
+			List<WriteAheadLog.Entry> rest = wal.read(15, 15);
+			assertThat(first).extracting(WriteAheadLog.Entry::sequence).containsExactlyElementsOf(sequences(1, 15));
+			assertThat(rest).extracting(WriteAheadLog.Entry::sequence).containsExactlyElementsOf(sequences(16, 20));
+			assertThat(new String(rest.get(4).payload(), StandardCharsets.UTF_8)).isEqualTo("booking 20");
+			// Seeking rather than reading on
+			assertThat(wal.read(7, 2)).extracting(WriteAheadLog.Entry::sequence).containsExactly(8L, 9L);
+		}
+	}
+
+	@Test
+	void releaseDeletesAppliedSegmentsAndIsKeptOnReopening() throws IOException {
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE)) {
+			for (int i = 1; i <= 20; i++) {
+				wal.append(record(i));
+			}
+			int segments = wal.segmentCount();
+
+			wal.release(20);
+
+			assertThat(wal.segmentCount()).isEqualTo(1).isLessThan(segments);
+			assertThat(wal.read(20, 10)).isEmpty();
+		}
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE)) {
+			assertThat(wal.appliedSequence()).isEqualTo(20);
+			assertThat(wal.append(record(21))).isEqualTo(21);
+			assertThat(wal.read(wal.appliedSequence(), 10)).extracting(WriteAheadLog.Entry::sequence).containsExactly(21L);
+		}
+	}
+
+	@Test
+	void reopeningEndsTheLogBeforeATornRecord() throws IOException {
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE)) {
+			for (int i = 1; i <= 3; i++) {
+				wal.append(record(i));
+			}
+		}
+		// Corrupts the payload of the last record, as a write interrupted by a crash leaves it
+		Path segment = segments().get(0);
+		int lastRecord = 2 * (WriteAheadLog.HEADER_SIZE + record(1).length);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[]{'X'}), lastRecord + WriteAheadLog.HEADER_SIZE);
+		}
+
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE)) {
+			assertThat(wal.durableSequence()).isEqualTo(2);
+			assertThat(wal.append("booking 3 again".getBytes(StandardCharsets.UTF_8))).isEqualTo(3);
+			assertThat(wal.read(0, 10)).extracting(entry -> new String(entry.payload(), StandardCharsets.UTF_8))
+					.containsExactly("booking 1", "booking 2", "booking 3 again");
+		}
+	}
+
+	@Test
+	void concurrentAppendsShareForces() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try (WriteAheadLog wal = new WriteAheadLog(directory, 1 << 20)) {
+			List<Future<Long>> appends = new ArrayList<>();
+			for (int i = 1; i <= 400; i++) {
+				byte[] payload = record(i);
+				appends.add(executor.submit(() -> wal.append(payload)));
+			}
+			for (Future<Long> append : appends) {
+				append.get();
+			}
+
+			assertThat(wal.durableSequence()).isEqualTo(400);
+			assertThat(wal.read(0, 1000)).hasSize(400);
+			assertThat(wal.forces()).isLessThanOrEqualTo(400);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void failedForceFailsTheLogWithoutAcknowledgingItsRecord() throws IOException {
+		AtomicBoolean diskFailing = new AtomicBoolean();
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE, (buffer, index, length) -> {
+			if (diskFailing.get()) {
+				throw new IOException("Disk failing");
+			}
+			buffer.force(index, length);
+		})) {
+			wal.append(record(1));
+			wal.append(record(2));
+			diskFailing.set(true);
+			assertThatThrownBy(() -> wal.append(record(3))).isInstanceOf(IOException.class);
+			diskFailing.set(false);
+
+			// A force succeeding now would acknowledge record 3 along with this one
+			assertThatThrownBy(() -> wal.append(record(4))).isInstanceOf(IOException.class);
+			assertThat(wal.durableSequence()).isEqualTo(2);
+			assertThat(wal.read(0, 10)).extracting(WriteAheadLog.Entry::sequence).containsExactly(1L, 2L);
+		}
+
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE)) {
+			assertThat(wal.durableSequence()).isEqualTo(2);
+			assertThat(wal.append(record(3))).isEqualTo(3);
+		}
+	}
+
+	@Test
+	void refusesRecordsThatDoNotFitInASegment() throws IOException {
+		try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE)) {
+			assertThatThrownBy(() -> wal.append(new byte[SEGMENT_SIZE]))
+					.isInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> wal.append(new byte[0]))
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.toString().endsWith(".wal")).sorted().toList();
+		}
+	}
+
+	private static byte[] record(int i) {
+		return String.format("booking %d", i).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<Long> sequences(long from, long to) {
+		List<Long> sequences = new ArrayList<>();
+		for (long sequence = from; sequence <= to; sequence++) {
+			sequences.add(sequence);
+		}
+		return sequences;
+	}
+}
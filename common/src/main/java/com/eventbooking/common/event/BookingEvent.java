@@ -1,4 +1,4 @@
-package com.eventbooking;
+package com.eventbooking.common.event;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,7 +13,9 @@ import java.time.LocalDate;
  * <p>
  * This class is used to transfer booking details such as event name, date, location, and
  * user details like the type and number of tickets booked, as well as the total payment amount. </p>
- *
+ * <p>
+ * It is published by booking-service on the notification topic and consumed by notification-service, in the
+ * binary format of {@link com.eventbooking.common.serialization.BookingEventSerializer}. </p>
  */
 @Builder
 @AllArgsConstructor
@@ -0,0 +1,30 @@
+package com.eventbooking.common.saga;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Asks payment-service to take or refund the payment of a booking saga.
+ * <p>
+ * Sent by booking-service on {@link SagaTopics#PAYMENT_COMMANDS}; payment-service answers with a
+ * {@link SagaReply}. Commands may be delivered more than once and are applied once per booking. </p>
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PaymentCommand {
+    public enum Action {
+        TAKE,
+        REFUND,
+    }
+
+    private Long sagaId;
+    private Action action;
+    private Long bookingId;
+    private BigDecimal amount;
+}
@@ -0,0 +1,31 @@
+package com.eventbooking.common.saga;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a saga command, sent back to booking-service on {@link SagaTopics#REPLIES}.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SagaReply {
+    public enum Step {
+        SEATS_RESERVED,
+        SEATS_RELEASED,
+        PAYMENT_TAKEN,
+        PAYMENT_REFUNDED,
+    }
+
+    private Long sagaId;
+    private Step step;
+    private boolean success;
+
+    /**
+     * Why the command failed
+     */
+    private String message;
+}
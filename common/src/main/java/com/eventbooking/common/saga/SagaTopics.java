@@ -0,0 +1,15 @@
+package com.eventbooking.common.saga;
+
+/**
+ * Kafka topics of the booking saga. Commands are keyed so that the commands of a saga reach their
+ * consumer in the order they were sent: seat commands by event ID, payment commands by booking ID.
+ * Replies are keyed by saga ID.
+ */
+public final class SagaTopics {
+    public static final String SEAT_COMMANDS = "booking-saga-seat-commands";
+    public static final String PAYMENT_COMMANDS = "booking-saga-payment-commands";
+    public static final String REPLIES = "booking-saga-replies";
+
+    private SagaTopics() {
+    }
+}
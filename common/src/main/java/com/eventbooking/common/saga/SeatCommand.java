@@ -0,0 +1,36 @@
+package com.eventbooking.common.saga;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Asks event-service to reserve or release the seats of a booking saga, or to release the seats of an
+ * expired hold.
+ * <p>
+ * Sent by booking-service on {@link SagaTopics#SEAT_COMMANDS}; event-service answers the commands of a
+ * saga with a {@link SagaReply}. Commands may be delivered more than once and are applied once per saga,
+ * or per booking for the release of a hold. </p>
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SeatCommand {
+    public enum Action {
+        RESERVE,
+        RELEASE,
+        /**
+         * Releases the seats held by a booking that was not paid for in time, {@code sagaId} being the
+         * booking ID. Not answered, as no saga waits for it.
+         */
+        RELEASE_HOLD,
+    }
+
+    private Long sagaId;
+    private Action action;
+    private Long eventId;
+    private Integer quantity;
+    private String userName;
+}
@@ -0,0 +1,89 @@
+package com.eventbooking.common.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Reads the primitive encodings of {@link FieldType} written by {@link BinaryWriter}.
+ */
+public class BinaryReader {
+    private final byte[] buffer;
+    private int position;
+
+    public BinaryReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    public byte[] readBytes(int length) {
+        if (length < 0 || position + length > buffer.length) {
+            throw new SerializationException("Truncated message: cannot read " + length + " bytes at " + position);
+        }
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public long readLong() {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new SerializationException("Malformed variable-length integer at " + position);
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public String readString() {
+        int length = Math.toIntExact(readLong());
+        if (length < 0 || position + length > buffer.length) {
+            throw new SerializationException("Truncated message: cannot read " + length + " bytes at " + position);
+        }
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public LocalDate readDate() {
+        return LocalDate.ofEpochDay(readLong());
+    }
+
+    public BigDecimal readDecimal() {
+        int scale = Math.toIntExact(readLong());
+        return new BigDecimal(new BigInteger(readBytes(Math.toIntExact(readLong()))), scale);
+    }
+
+    /**
+     * Reads a value of the given type.
+     *
+     * @param type the field type
+     * @return the value, of the Java type matching the field type
+     */
+    public Object read(FieldType type) {
+        return switch (type) {
+            case STRING -> readString();
+            case INT -> Math.toIntExact(readLong());
+            case LONG -> readLong();
+            case BOOLEAN -> readBoolean();
+            case DATE -> readDate();
+            case DECIMAL -> readDecimal();
+        };
+    }
+
+    private byte readByte() {
+        if (position >= buffer.length) {
+            throw new SerializationException("Truncated message at " + position);
+        }
+        return buffer[position++];
+    }
+}
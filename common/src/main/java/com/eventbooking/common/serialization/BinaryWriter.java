@@ -0,0 +1,83 @@
+package com.eventbooking.common.serialization;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer writing the primitive encodings of {@link FieldType}.
+ */
+public class BinaryWriter {
+    private byte[] buffer;
+    private int position;
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    public void writeLong(long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        ensureCapacity(10);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[position++] = (byte) zigZag;
+    }
+
+    public void writeBoolean(boolean value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) (value ? 1 : 0);
+    }
+
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLong(bytes.length);
+        writeBytes(bytes);
+    }
+
+    public void writeDate(LocalDate value) {
+        writeLong(value.toEpochDay());
+    }
+
+    public void writeDecimal(BigDecimal value) {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeLong(value.scale());
+        writeLong(unscaled.length);
+        writeBytes(unscaled);
+    }
+
+    /**
+     * Writes a value of the given type.
+     *
+     * @param type the field type
+     * @param value the value, of the Java type matching the field type
+     */
+    public void write(FieldType type, Object value) {
+        switch (type) {
+            case STRING -> writeString((String) value);
+            case INT -> writeLong((Integer) value);
+            case LONG -> writeLong((Long) value);
+            case BOOLEAN -> writeBoolean((Boolean) value);
+            case DATE -> writeDate((LocalDate) value);
+            case DECIMAL -> writeDecimal((BigDecimal) value);
+        }
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.eventbooking.common.serialization;
+
+import com.eventbooking.common.event.BookingEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * {@link SchemaCodec} of the {@code BookingEvent} subject.
+ */
+public class BookingEventCodec extends SchemaCodec<BookingEvent> {
+    public static final String SUBJECT = "BookingEvent";
+
+    private static final Map<String, Accessor<BookingEvent>> ACCESSORS = Map.of(
+            "eventName", new Accessor<>(FieldType.STRING, BookingEvent::getEventName,
+                    (event, value) -> event.setEventName((String) value)),
+            "eventDate", new Accessor<>(FieldType.DATE, BookingEvent::getEventDate,
+                    (event, value) -> event.setEventDate((LocalDate) value)),
+            "eventLocation", new Accessor<>(FieldType.STRING, BookingEvent::getEventLocation,
+                    (event, value) -> event.setEventLocation((String) value)),
+            "userName", new Accessor<>(FieldType.STRING, BookingEvent::getUserName,
+                    (event, value) -> event.setUserName((String) value)),
+            "ticketType", new Accessor<>(FieldType.STRING, BookingEvent::getTicketType,
+                    (event, value) -> event.setTicketType((String) value)),
+            "numberOfTicket", new Accessor<>(FieldType.INT, BookingEvent::getNumberOfTicket,
+                    (event, value) -> event.setNumberOfTicket((Integer) value)),
+            "paymentAmount", new Accessor<>(FieldType.DECIMAL, BookingEvent::getPaymentAmount,
+                    (event, value) -> event.setPaymentAmount((BigDecimal) value)));
+
+    public BookingEventCodec(FileSchemaRegistry registry) {
+        super(registry, SUBJECT, BookingEvent::new, ACCESSORS);
+    }
+}
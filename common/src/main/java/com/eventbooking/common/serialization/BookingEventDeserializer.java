@@ -0,0 +1,55 @@
+package com.eventbooking.common.serialization;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka deserializer of BookingEvent messages.
+ * <p>
+ * Messages with a {@value SchemaHeaders#SCHEMA_ID} header are decoded with that schema. Messages without
+ * it were published as JSON before the binary format was introduced, and are read as JSON. </p>
+ */
+public class BookingEventDeserializer implements Deserializer<BookingEvent> {
+    private final BookingEventCodec codec;
+    private final ObjectMapper objectMapper;
+
+    public BookingEventDeserializer() {
+        this(new BookingEventCodec(FileSchemaRegistry.defaultRegistry()), new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+    }
+
+    public BookingEventDeserializer(BookingEventCodec codec, ObjectMapper objectMapper) {
+        this.codec = codec;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public BookingEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Integer schemaId = SchemaHeaders.schemaId(headers);
+        return schemaId != null ? codec.decode(schemaId, data) : readJson(data);
+    }
+
+    @Override
+    public BookingEvent deserialize(String topic, byte[] data) {
+        return data == null ? null : readJson(data);
+    }
+
+    private BookingEvent readJson(byte[] data) {
+        try {
+            return objectMapper.readValue(data, BookingEvent.class);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot read JSON BookingEvent", e);
+        }
+    }
+}
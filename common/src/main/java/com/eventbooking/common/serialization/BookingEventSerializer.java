@@ -0,0 +1,58 @@
+package com.eventbooking.common.serialization;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer writing BookingEvent messages in the binary format of {@link BookingEventCodec},
+ * with their schema id in the {@value SchemaHeaders#SCHEMA_ID} header. Without headers to carry the
+ * schema id, messages are written as JSON, which {@link BookingEventDeserializer} reads when the header
+ * is missing.
+ */
+public class BookingEventSerializer implements Serializer<BookingEvent> {
+    private final BookingEventCodec codec;
+    private final byte[] schemaIdHeader;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public BookingEventSerializer() {
+        this(new BookingEventCodec(FileSchemaRegistry.defaultRegistry()));
+    }
+
+    public BookingEventSerializer(BookingEventCodec codec) {
+        this.codec = codec;
+        this.schemaIdHeader = SchemaHeaders.encode(codec.schemaId());
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, BookingEvent data) {
+        if (data == null) {
+            return null;
+        }
+        headers.remove(SchemaHeaders.SCHEMA_ID);
+        headers.add(SchemaHeaders.SCHEMA_ID, schemaIdHeader);
+        return codec.encode(data);
+    }
+
+    /**
+     * Writes the message as JSON, the format of the messages published before the binary one.
+     */
+    @Override
+    public byte[] serialize(String topic, BookingEvent data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Cannot write JSON BookingEvent", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.eventbooking.common.serialization;
+
+/**
+ * Types a schema field can take, and how each is written by {@link BinaryWriter}.
+ */
+public enum FieldType {
+    /** UTF-8 bytes prefixed with their length. */
+    STRING,
+    /** Zig-zag variable-length integer. */
+    INT,
+    /** Zig-zag variable-length integer. */
+    LONG,
+    /** A single byte, 0 or 1. */
+    BOOLEAN,
+    /** Days since the epoch, as a zig-zag variable-length integer. */
+    DATE,
+    /** Scale as a variable-length integer, then the two's-complement unscaled value prefixed with its length. */
+    DECIMAL
+}
@@ -0,0 +1,116 @@
+package com.eventbooking.common.serialization;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schema registry backed by a JSON file listing every schema version, standing in for a registry server.
+ * <p>
+ * Producers and consumers load the same file, {@value #DEFAULT_LOCATION} on the classpath of the common
+ * module by default, so new versions are rolled out by releasing the common module before the producer
+ * starts using them. </p>
+ */
+public class FileSchemaRegistry {
+    public static final String DEFAULT_LOCATION = "schemas/registry.json";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<Integer, Schema> schemasById = new HashMap<>();
+    private final Map<String, Schema> latestBySubject = new HashMap<>();
+
+    FileSchemaRegistry(List<Schema> schemas) {
+        for (Schema schema : schemas) {
+            if (schemasById.putIfAbsent(schema.getId(), schema) != null) {
+                throw new IllegalArgumentException("Duplicate schema id " + schema.getId());
+            }
+        }
+        schemas.stream()
+                .sorted(Comparator.comparingInt(Schema::getVersion))
+                .forEach(schema -> latestBySubject.put(schema.getSubject(), schema));
+    }
+
+    /**
+     * Returns the registry of {@value #DEFAULT_LOCATION}, loaded once.
+     *
+     * @return the default registry
+     */
+    public static FileSchemaRegistry defaultRegistry() {
+        return DefaultRegistryHolder.INSTANCE;
+    }
+
+    /**
+     * Loads a registry from a classpath resource.
+     *
+     * @param resource the resource path
+     * @return the registry
+     */
+    public static FileSchemaRegistry fromClasspath(String resource) {
+        try (InputStream in = FileSchemaRegistry.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Schema registry " + resource + " not found on the classpath");
+            }
+            return new FileSchemaRegistry(OBJECT_MAPPER.readValue(in, new TypeReference<List<Schema>>() { }));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read schema registry " + resource, e);
+        }
+    }
+
+    /**
+     * Loads a registry from a file.
+     *
+     * @param path the registry file
+     * @return the registry
+     */
+    public static FileSchemaRegistry fromFile(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return new FileSchemaRegistry(OBJECT_MAPPER.readValue(in, new TypeReference<List<Schema>>() { }));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read schema registry " + path, e);
+        }
+    }
+
+    /**
+     * Finds a schema version by id.
+     *
+     * @param id the schema id
+     * @return the schema
+     * @throws SerializationException if no schema has this id
+     */
+    public Schema byId(int id) {
+        Schema schema = schemasById.get(id);
+        if (schema == null) {
+            throw new SerializationException("Unknown schema id " + id);
+        }
+        return schema;
+    }
+
+    /**
+     * Finds the latest version of a message type, the one producers write.
+     *
+     * @param subject the message type
+     * @return the schema with the highest version
+     * @throws IllegalArgumentException if the subject has no schema
+     */
+    public Schema latest(String subject) {
+        Schema schema = latestBySubject.get(subject);
+        if (schema == null) {
+            throw new IllegalArgumentException("No schema registered for " + subject);
+        }
+        return schema;
+    }
+
+    private static final class DefaultRegistryHolder {
+        private static final FileSchemaRegistry INSTANCE = fromClasspath(DEFAULT_LOCATION);
+    }
+}
@@ -0,0 +1,44 @@
+package com.eventbooking.common.serialization;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A version of a message schema, as stored in the schema registry.
+ * <p>
+ * The id is written in the header of every message so that consumers read it with the schema it was
+ * written with. Fields are encoded in declaration order, so a new version must keep the name and type
+ * of the fields it shares with earlier versions; it may add or remove fields. </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Schema {
+    /**
+     * Registry-wide unique id of this schema version
+     */
+    private int id;
+    /**
+     * Name of the message type, shared by all versions
+     */
+    private String subject;
+    /**
+     * Version of the message type
+     */
+    private int version;
+    /**
+     * Fields in encoding order
+     */
+    private List<Field> fields;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Field {
+        private String name;
+        private FieldType type;
+    }
+}
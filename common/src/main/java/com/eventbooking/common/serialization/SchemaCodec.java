@@ -0,0 +1,112 @@
+package com.eventbooking.common.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Encodes objects with the latest schema of their subject and decodes them with the schema they were written with.
+ * <p>
+ * A message is a bitmap of the fields present, followed by the value of each present field in schema order.
+ * Nothing else is written: field names and types come from the schema, whose id travels in the
+ * {@value SchemaHeaders#SCHEMA_ID} header. When decoding, fields unknown to this codec, or whose type
+ * changed, are skipped and fields missing from the writer schema are left null. </p>
+ *
+ * @param <T> the type of the messages
+ */
+public class SchemaCodec<T> {
+    private final FileSchemaRegistry registry;
+    private final Schema writerSchema;
+    private final Supplier<T> factory;
+    private final Map<String, Accessor<T>> accessors;
+    private final Accessor<T>[] writePlan;
+    private final Map<Integer, Accessor<T>[]> readPlans = new ConcurrentHashMap<>();
+
+    protected SchemaCodec(FileSchemaRegistry registry, String subject, Supplier<T> factory,
+                          Map<String, Accessor<T>> accessors) {
+        this.registry = registry;
+        this.writerSchema = registry.latest(subject);
+        this.factory = factory;
+        this.accessors = accessors;
+        this.writePlan = plan(writerSchema);
+        for (int i = 0; i < writePlan.length; i++) {
+            if (writePlan[i] == null) {
+                throw new IllegalStateException("Field " + writerSchema.getFields().get(i).getName()
+                        + " of schema " + writerSchema.getId() + " cannot be written");
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the schema messages are written with.
+     *
+     * @return the schema id to send in the {@value SchemaHeaders#SCHEMA_ID} header
+     */
+    public int schemaId() {
+        return writerSchema.getId();
+    }
+
+    public byte[] encode(T value) {
+        int fieldCount = writePlan.length;
+        byte[] present = new byte[(fieldCount + 7) / 8];
+        Object[] values = new Object[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = writePlan[i].getter().apply(value);
+            if (values[i] != null) {
+                present[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        BinaryWriter writer = new BinaryWriter(16 + 16 * fieldCount);
+        writer.writeBytes(present);
+        for (int i = 0; i < fieldCount; i++) {
+            if (values[i] != null) {
+                writer.write(writePlan[i].type(), values[i]);
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    public T decode(int schemaId, byte[] data) {
+        Schema schema = registry.byId(schemaId);
+        if (!schema.getSubject().equals(writerSchema.getSubject())) {
+            throw new SerializationException("Schema " + schemaId + " describes " + schema.getSubject()
+                    + ", not " + writerSchema.getSubject());
+        }
+        Accessor<T>[] readPlan = readPlans.computeIfAbsent(schemaId, id -> plan(schema));
+        List<Schema.Field> fields = schema.getFields();
+        BinaryReader reader = new BinaryReader(data);
+        byte[] present = reader.readBytes((fields.size() + 7) / 8);
+        T value = factory.get();
+        for (int i = 0; i < fields.size(); i++) {
+            if ((present[i >> 3] & (1 << (i & 7))) != 0) {
+                Object fieldValue = reader.read(fields.get(i).getType());
+                if (readPlan[i] != null) {
+                    readPlan[i].setter().accept(value, fieldValue);
+                }
+            }
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Accessor<T>[] plan(Schema schema) {
+        List<Schema.Field> fields = schema.getFields();
+        Accessor<T>[] plan = new Accessor[fields.size()];
+        for (int i = 0; i < plan.length; i++) {
+            Accessor<T> accessor = accessors.get(fields.get(i).getName());
+            plan[i] = accessor != null && accessor.type() == fields.get(i).getType() ? accessor : null;
+        }
+        return plan;
+    }
+
+    /**
+     * Reads and writes one field of a message.
+     */
+    public record Accessor<T>(FieldType type, Function<T, Object> getter, BiConsumer<T, Object> setter) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.eventbooking.common.serialization;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Kafka header carrying the schema id of a binary message.
+ */
+public final class SchemaHeaders {
+    public static final String SCHEMA_ID = "schema-id";
+
+    private SchemaHeaders() {
+    }
+
+    public static byte[] encode(int schemaId) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(schemaId).array();
+    }
+
+    /**
+     * Reads the schema id of a message.
+     *
+     * @param headers the message headers
+     * @return the schema id, or null if the message has none, as JSON messages
+     */
+    public static Integer schemaId(Headers headers) {
+        Header header = headers == null ? null : headers.lastHeader(SCHEMA_ID);
+        return header == null ? null : ByteBuffer.wrap(header.value()).getInt();
+    }
+}
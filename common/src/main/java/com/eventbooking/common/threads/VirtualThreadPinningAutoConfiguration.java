@@ -0,0 +1,29 @@
+package com.eventbooking.common.threads;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Creates the {@link VirtualThreadPinningMonitor} of the services that set {@code spring.threads.virtual.enabled},
+ * when the runtime has virtual threads and so the {@code jdk.VirtualThreadPinned} event, that is on Java 21+.
+ */
+@AutoConfiguration
+@ConditionalOnJava(JavaVersion.TWENTY_ONE)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(@Value("${virtual-threads.pinning.threshold:20ms}") Duration threshold,
+                                                                   @Value("${virtual-threads.pinning.report-every:100}") long reportEvery) {
+        return new VirtualThreadPinningMonitor(threshold, reportEvery);
+    }
+}
@@ -0,0 +1,87 @@
+package com.eventbooking.common.threads;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads pinned to their carrier thread.
+ * <p>
+ * Created by {@link VirtualThreadPinningAutoConfiguration} in the services running on virtual threads.
+ * It listens to the JFR {@code jdk.VirtualThreadPinned} event, which fires when a virtual thread blocks
+ * inside a {@code synchronized} section or a native frame, and logs the first frame of our code or of
+ * the H2 driver responsible for it, once per frame and then every {@code reportEvery} occurrences. </p>
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+    private static final List<String> REPORTED_PACKAGES = List.of("com.eventbooking.", "org.h2.");
+
+    private final Duration threshold;
+    private final long reportEvery;
+    private final Map<String, LongAdder> pinnedFrames = new ConcurrentHashMap<>();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, long reportEvery) {
+        this.threshold = threshold;
+        this.reportEvery = reportEvery;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::report);
+        recordingStream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {}", threshold);
+    }
+
+    /**
+     * Returns how many times each frame was seen pinning a virtual thread.
+     *
+     * @return the pin count per frame
+     */
+    public Map<String, Long> pinnedFrames() {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        pinnedFrames.forEach((frame, count) -> counts.put(frame, count.sum()));
+        return counts;
+    }
+
+    private void report(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return;
+        }
+        String culprit = event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .filter(frame -> REPORTED_PACKAGES.stream().anyMatch(frame::startsWith))
+                .findFirst()
+                .orElse(null);
+        if (culprit == null) {
+            return;
+        }
+        LongAdder count = pinnedFrames.computeIfAbsent(culprit, frame -> new LongAdder());
+        count.increment();
+        long seen = count.sum();
+        if (seen == 1 || seen % reportEvery == 0) {
+            log.warn("Virtual thread pinned for {} ms at {} ({} times so far)",
+                    event.getDuration().toMillis(), culprit, seen);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.eventbooking.common.benchmark;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.eventbooking.common.serialization.BookingEventDeserializer;
+import com.eventbooking.common.serialization.BookingEventSerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding a BookingEvent with the binary serializers of the common module and with the
+ * spring-kafka {@code JsonSerializer}/{@code JsonDeserializer} the notification topic used before.
+ * <p>
+ * Run with {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.common.benchmark.BookingEventCodecBenchmark}, which also prints the
+ * bytes per message of both formats. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BookingEventCodecBenchmark {
+    private static final String TOPIC = "notification";
+
+    private BookingEvent bookingEvent;
+    private BookingEventSerializer binarySerializer;
+    private BookingEventDeserializer binaryDeserializer;
+    private JsonSerializer<BookingEvent> jsonSerializer;
+    private JsonDeserializer<BookingEvent> jsonDeserializer;
+    private RecordHeaders binaryHeaders;
+    private RecordHeaders jsonHeaders;
+    private byte[] binaryMessage;
+    private byte[] jsonMessage;
+
+    @Setup
+    public void setUp() {
+        bookingEvent = BookingEvent.builder()
+                .eventName("Spring Concert")
+                .eventDate(LocalDate.of(2025, 5, 17))
+                .eventLocation("Main Hall")
+                .userName("alice")
+                .ticketType("VIP")
+                .numberOfTicket(2)
+                .paymentAmount(new BigDecimal("300.00"))
+                .build();
+        binarySerializer = new BookingEventSerializer();
+        binaryDeserializer = new BookingEventDeserializer();
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.configure(Map.of(JsonSerializer.TYPE_MAPPINGS, "event:" + BookingEvent.class.getName()), false);
+        jsonDeserializer = new JsonDeserializer<>(BookingEvent.class);
+        jsonDeserializer.configure(Map.of(JsonDeserializer.TYPE_MAPPINGS, "event:" + BookingEvent.class.getName()), false);
+
+        binaryHeaders = new RecordHeaders();
+        binaryMessage = binarySerializer.serialize(TOPIC, binaryHeaders, bookingEvent);
+        jsonHeaders = new RecordHeaders();
+        jsonMessage = jsonSerializer.serialize(TOPIC, jsonHeaders, bookingEvent);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binarySerializer.serialize(TOPIC, new RecordHeaders(), bookingEvent);
+    }
+
+    @Benchmark
+    public BookingEvent binaryDecode() {
+        return binaryDeserializer.deserialize(TOPIC, binaryHeaders, binaryMessage);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), bookingEvent);
+    }
+
+    @Benchmark
+    public BookingEvent jsonDecode() {
+        return jsonDeserializer.deserialize(TOPIC, jsonHeaders, jsonMessage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        BookingEventCodecBenchmark sizes = new BookingEventCodecBenchmark();
+        sizes.setUp();
+        System.out.printf("Bytes per message: binary %d (+%d header), JSON %d (+%d header)%n",
+                sizes.binaryMessage.length, headerBytes(sizes.binaryHeaders),
+                sizes.jsonMessage.length, headerBytes(sizes.jsonHeaders));
+        new Runner(new OptionsBuilder()
+                .include(BookingEventCodecBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private static int headerBytes(RecordHeaders headers) {
+        int bytes = 0;
+        for (var header : headers) {
+            bytes += header.key().length() + header.value().length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,108 @@
+package com.eventbooking.common.serialization;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingEventSerializerTest {
+
+	private static final String TOPIC = "notification";
+
+	private final BookingEventSerializer serializer = new BookingEventSerializer();
+	private final BookingEventDeserializer deserializer = new BookingEventDeserializer();
+
+	private final BookingEvent bookingEvent = BookingEvent.builder()
+			.eventName("Spring Concert")
+			.eventDate(LocalDate.of(2025, 5, 17))
+			.eventLocation("Main Hall")
+			.userName("alice")
+			.ticketType("VIP")
+			.numberOfTicket(2)
+			.paymentAmount(new BigDecimal("300.00"))
+			.build();
+
+	@Test
+	void roundTripsWithSchemaIdHeader() {
+		RecordHeaders headers = new RecordHeaders();
+
+		byte[] data = serializer.serialize(TOPIC, headers, bookingEvent);
+
+		assertThat(SchemaHeaders.schemaId(headers)).isEqualTo(1);
+		assertThat(deserializer.deserialize(TOPIC, headers, data)).isEqualTo(bookingEvent);
+	}
+
+	@Test
+	void keepsNullFields() {
+		BookingEvent partial = BookingEvent.builder().userName("bob").numberOfTicket(-1).build();
+		RecordHeaders headers = new RecordHeaders();
+
+		assertThat(deserializer.deserialize(TOPIC, headers, serializer.serialize(TOPIC, headers, partial)))
+				.isEqualTo(partial);
+	}
+
+	@Test
+	void isSmallerThanJson() throws IOException {
+		byte[] json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsBytes(bookingEvent);
+
+		assertThat(serializer.serialize(TOPIC, new RecordHeaders(), bookingEvent)).hasSizeLessThan(json.length / 3);
+	}
+
+	@Test
+	void readsJsonMessagesWithoutSchemaIdHeader() {
+		String json = """
+				{"eventName":"Spring Concert","eventDate":"2025-05-17","eventLocation":"Main Hall","userName":"alice",\
+				"ticketType":"VIP","numberOfTicket":2,"paymentAmount":300.00}""";
+		RecordHeaders headers = new RecordHeaders();
+		headers.add("__TypeId__", "event".getBytes());
+
+		assertThat(deserializer.deserialize(TOPIC, headers, json.getBytes())).isEqualTo(bookingEvent);
+	}
+
+	@Test
+	void writesJsonWithoutHeaders() {
+		byte[] data = serializer.serialize(TOPIC, bookingEvent);
+
+		assertThat(new String(data)).contains("\"eventDate\":\"2025-05-17\"");
+		assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), data)).isEqualTo(bookingEvent);
+		assertThat(deserializer.deserialize(TOPIC, data)).isEqualTo(bookingEvent);
+	}
+
+	@Test
+	void readsOlderSchemaVersions(@TempDir Path dir) throws IOException {
+		Path registryFile = dir.resolve("registry.json");
+		Files.writeString(registryFile, """
+				[
+				  {"id": 1, "subject": "BookingEvent", "version": 1, "fields": [
+				    {"name": "eventName", "type": "STRING"}, {"name": "eventDate", "type": "DATE"},
+				    {"name": "eventLocation", "type": "STRING"}, {"name": "userName", "type": "STRING"},
+				    {"name": "ticketType", "type": "STRING"}, {"name": "numberOfTicket", "type": "INT"},
+				    {"name": "paymentAmount", "type": "DECIMAL"}]},
+				  {"id": 7, "subject": "BookingEvent", "version": 0, "fields": [
+				    {"name": "userName", "type": "STRING"}, {"name": "seat", "type": "STRING"},
+				    {"name": "numberOfTicket", "type": "LONG"}]}
+				]""");
+		BookingEventCodec codec = new BookingEventCodec(FileSchemaRegistry.fromFile(registryFile));
+		BinaryWriter version0 = new BinaryWriter(32);
+		version0.writeBytes(new byte[]{0b111});
+		version0.writeString("alice");
+		version0.writeString("A12");
+		version0.writeLong(2);
+
+		BookingEvent decoded = codec.decode(7, version0.toByteArray());
+
+		assertThat(codec.schemaId()).isEqualTo(1);
+		assertThat(decoded).isEqualTo(BookingEvent.builder().userName("alice").build());
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.eventbooking.common.threads;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			// As a Spring Boot application does, to read durations such as 20ms
+			.withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+			.withConfiguration(AutoConfigurations.of(VirtualThreadPinningAutoConfiguration.class));
+
+	@Test
+	void monitorIsNotCreatedWithoutVirtualThreads() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadPinningMonitor.class));
+	}
+
+	@Test
+	@EnabledForJreRange(max = JRE.JAVA_20)
+	void monitorIsNotCreatedOnARuntimeWithoutVirtualThreads() {
+		contextRunner.withPropertyValues("spring.threads.virtual.enabled=true")
+				.run(context -> assertThat(context).hasNotFailed().doesNotHaveBean(VirtualThreadPinningMonitor.class));
+	}
+
+	@Test
+	@EnabledForJreRange(min = JRE.JAVA_21)
+	void monitorIsCreatedWhenRunningOnVirtualThreads() {
+		contextRunner.withPropertyValues("spring.threads.virtual.enabled=true")
+				.run(context -> assertThat(context).hasSingleBean(VirtualThreadPinningMonitor.class));
+	}
+}
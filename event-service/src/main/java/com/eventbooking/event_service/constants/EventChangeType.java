@@ -0,0 +1,7 @@
+package com.eventbooking.event_service.constants;
+
+public enum EventChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+}
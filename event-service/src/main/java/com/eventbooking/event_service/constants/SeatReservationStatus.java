@@ -0,0 +1,10 @@
+package com.eventbooking.event_service.constants;
+
+public enum SeatReservationStatus {
+    RESERVED,
+    /**
+     * The seats could not be reserved
+     */
+    REJECTED,
+    RELEASED,
+}
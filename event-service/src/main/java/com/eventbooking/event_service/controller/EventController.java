@@ -1,15 +1,27 @@
 package com.eventbooking.event_service.controller;
 
+import com.eventbooking.event_service.dto.CalendarPageDto;
 import com.eventbooking.event_service.dto.EventDto;
+import com.eventbooking.event_service.dto.InventoryDto;
+import com.eventbooking.event_service.dto.PageDto;
+import com.eventbooking.event_service.dto.SearchPageDto;
 import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.service.EventCalendarService;
+import com.eventbooking.event_service.service.EventSearchService;
 import com.eventbooking.event_service.service.EventService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,19 +32,31 @@ public class EventController {
     private final Logger log = LoggerFactory.getLogger(EventController.class);
 
     private final EventService eventService;
+    private final EventSearchService eventSearchService;
+    private final EventCalendarService eventCalendarService;
 
     /**
-     * Retrieve an event by its ID.
+     * Retrieve an event by its ID. The response carries an ETag; a request whose If-None-Match
+     * header holds the current one gets a 304 NOT MODIFIED status, without a database read
+     * when the version of the event is already known.
      *
      * @param eventId the ID of the event to retrieve
+     * @param request the request, checked for an If-None-Match header
      * @return a ResponseEntity containing the EventDto if found, or a 404 NOT FOUND status if not found
      */
     @GetMapping("/{eventId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<EventDto> getEventById(@PathVariable Long eventId) {
+    public ResponseEntity<EventDto> getEventById(@PathVariable Long eventId, WebRequest request) {
         log.debug("Request to get an event with id: {}", eventId);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag = eventService.getEventETag(eventId);
+            // Not null, or the 200 of @ResponseStatus would replace the 304 set by checkNotModified
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
         var result = eventService.getEventById(eventId);
-        return result.map(ResponseEntity::ok)
+        return result.map(event -> ResponseEntity.ok().eTag(EventService.eTag(event)).body(event))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
@@ -51,6 +75,52 @@ public class EventController {
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
+    /**
+     * Search events whose name or location match the words of a query, as the user types them.
+     *
+     * @param q the words to search for, the last one possibly unfinished
+     * @param from the earliest date of the events, optional
+     * @param to the latest date of the events, optional
+     * @param page the number of the page, from 0
+     * @param size the number of events per page
+     * @return a ResponseEntity containing the SearchPageDto of events, best match first
+     */
+    @GetMapping(value = "/search", params = "q")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<SearchPageDto<EventDto>> searchEvents(@RequestParam String q,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(defaultValue = "0") int page,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        log.debug("Request to search events matching: {}", q);
+        var result = eventSearchService.search(q, from, to, page, size);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Retrieves a page of the events between two dates, optionally of one location, in date then ID order.
+     *
+     * @param location the location of the events, optional
+     * @param from the first date of the range, today if omitted
+     * @param to the last date of the range, optional
+     * @param afterDate the nextAfterDate of the previous page, omitted for the first page
+     * @param afterId the nextAfterId of the previous page, omitted for the first page
+     * @param size the maximum number of events to return
+     * @return a ResponseEntity containing the CalendarPageDto of events, or a 400 BAD REQUEST status if the range ends before it starts
+     */
+    @GetMapping("/calendar")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CalendarPageDto<EventDto>> getEventsInRange(@RequestParam(required = false) String location,
+                                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+                                                                      @RequestParam(required = false) Long afterId,
+                                                                      @RequestParam(defaultValue = "20") int size) {
+        log.debug("Request to get events in {} from {} to {}", location, from, to);
+        var result = eventCalendarService.getEventsInRange(location, from, to, afterDate, afterId, size);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Retrieve a list of all events.
      *
@@ -64,6 +134,63 @@ public class EventController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Retrieves a page of events in ID order.
+     *
+     * @param afterId The ID of the last event of the previous page, 0 for the first page.
+     * @param size The maximum number of events to return.
+     * @return A ResponseEntity containing the PageDto of events and an HTTP status of OK (200).
+     */
+    @GetMapping(params = "size")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<PageDto<EventDto>> getEventsPage(@RequestParam(defaultValue = "0") Long afterId,
+                                                           @RequestParam int size) {
+        var result = eventService.getEventsPage(afterId, size);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Streams all events as newline-delimited JSON, one event per line, without loading them all in memory.
+     *
+     * @return A ResponseEntity whose body writes the events as they are read from the database.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllEvents() {
+        StreamingResponseBody body = eventService::streamAllEvents;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+
+    /**
+     * Retrieve a few events by their IDs in one call. The IDs count against the size limit of the
+     * request headers, so more than a few hundred are better looked up with {@code POST /lookup}.
+     *
+     * @param ids the IDs of the events to retrieve
+     * @return a ResponseEntity containing a list of EventDto for the events found, or a 400 BAD REQUEST status if too many IDs are given
+     */
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<EventDto>> getEventsByIds(@RequestParam List<Long> ids) {
+        log.debug("Request to get events with ids: {}", ids);
+        var result = eventService.getEventsByIds(ids);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Retrieve several events by their IDs in one call, the IDs being sent in the request body.
+     *
+     * @param ids the IDs of the events to retrieve, at most 1000
+     * @return a ResponseEntity containing a list of EventDto for the events found, or a 400 BAD REQUEST status if too many IDs are given
+     */
+    @PostMapping("/lookup")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<EventDto>> lookupEvents(@RequestBody List<Long> ids) {
+        log.debug("Request to look up {} events", ids.size());
+        var result = eventService.getEventsByIds(ids);
+        return ResponseEntity.ok(result);
+    }
 
     /**
      * Create a new event.
@@ -108,5 +235,80 @@ public class EventController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Reserve tickets of an event.
+     *
+     * @param eventId  the ID of the event
+     * @param quantity the number of tickets to reserve
+     * @param userName the user booking the tickets, used to spread hot events over their stripes
+     * @return a ResponseEntity containing the InventoryDto, or a 409 CONFLICT status if not enough tickets are left
+     */
+    @PostMapping("/{eventId}/reserve")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<InventoryDto> reserveTickets(@PathVariable Long eventId, @RequestParam int quantity,
+                                                       @RequestParam(required = false) String userName) {
+        log.debug("Request to reserve {} tickets for event with id: {}", quantity, eventId);
+        var result = eventService.reserveTickets(eventId, quantity, userName);
+        return ResponseEntity.ok(result);
+    }
 
+    /**
+     * Release previously reserved tickets of an event.
+     *
+     * @param eventId  the ID of the event
+     * @param quantity the number of tickets to release
+     * @param userName the user releasing the tickets, used to spread hot events over their stripes
+     * @return a ResponseEntity containing the InventoryDto
+     */
+    @PostMapping("/{eventId}/release")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<InventoryDto> releaseTickets(@PathVariable Long eventId, @RequestParam int quantity,
+                                                       @RequestParam(required = false) String userName) {
+        log.debug("Request to release {} tickets for event with id: {}", quantity, eventId);
+        var result = eventService.releaseTickets(eventId, quantity, userName);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Reserve tickets of several events in one call.
+     *
+     * @param reservations the reservations to apply
+     * @return a ResponseEntity containing an InventoryDto per reservation, telling whether it was applied
+     */
+    @PostMapping("/reserve")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<InventoryDto>> reserveTickets(@RequestBody List<InventoryDto> reservations) {
+        log.debug("Request to apply {} reservations", reservations.size());
+        var result = eventService.reserveTickets(reservations);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Release tickets of several events in one call.
+     *
+     * @param releases the releases to apply
+     * @return a ResponseEntity containing an InventoryDto per release, telling whether it was applied
+     */
+    @PostMapping("/release")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<InventoryDto>> releaseTickets(@RequestBody List<InventoryDto> releases) {
+        log.debug("Request to apply {} releases", releases.size());
+        var result = eventService.releaseTickets(releases);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Split the ticket counter of a hot event into several stripes before it goes on sale.
+     *
+     * @param eventId the ID of the event
+     * @param count   the number of stripes
+     * @return a ResponseEntity containing the InventoryDto
+     */
+    @PutMapping("/{eventId}/stripes")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<InventoryDto> restripeTickets(@PathVariable Long eventId, @RequestParam int count) {
+        log.debug("Request to split the tickets of event with id: {} into {} stripes", eventId, count);
+        var result = eventService.restripeTickets(eventId, count);
+        return ResponseEntity.ok(result);
+    }
 }
@@ -0,0 +1,33 @@
+package com.eventbooking.event_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A page of events in a date range, ordered by date then ID.
+ *
+ * @param <T> the type of the items
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class CalendarPageDto<T> {
+    /**
+     * Items of the page
+     */
+    private List<T> items;
+    /**
+     * Date to pass as afterDate to fetch the next page, or null on the last page
+     */
+    private LocalDate nextAfterDate;
+    /**
+     * ID to pass as afterId to fetch the next page, or null on the last page
+     */
+    private Long nextAfterId;
+}
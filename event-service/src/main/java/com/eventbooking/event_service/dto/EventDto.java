@@ -38,4 +38,9 @@ public class EventDto {
      * The date when the event is created
      */
     private LocalDateTime createdAt;
+
+    /**
+     * The version of the event details, part of its ETag
+     */
+    private Long version;
 }
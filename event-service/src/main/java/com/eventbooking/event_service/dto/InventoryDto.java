@@ -0,0 +1,44 @@
+package com.eventbooking.event_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryDto {
+    private Long eventId;
+
+    /**
+     * The number of tickets reserved or released by the operation
+     */
+    private Integer quantity;
+
+    /**
+     * The user reserving or releasing the tickets
+     */
+    private String userName;
+
+    /**
+     * Whether the operation was applied, set on bulk operations
+     */
+    private Boolean applied;
+
+    /**
+     * Why the operation was not applied, set on bulk operations
+     */
+    private String message;
+
+    /**
+     * The tickets still available once the operation was applied
+     */
+    private Integer ticketsAvailable;
+
+    /**
+     * The number of stripes the ticket counter is split into
+     */
+    private Integer stripes;
+}
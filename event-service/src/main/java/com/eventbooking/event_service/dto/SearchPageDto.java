@@ -0,0 +1,32 @@
+package com.eventbooking.event_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of ranked search results.
+ *
+ * @param <T> the type of the items
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class SearchPageDto<T> {
+    /**
+     * Items of the page, best match first
+     */
+    private List<T> items;
+    /**
+     * Number of the page, from 0
+     */
+    private int page;
+    /**
+     * Number of items matching the search over all pages
+     */
+    private int total;
+}
@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -17,7 +19,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Data
 @Entity
-@Table(name = "event")
+@Table(name = "event", indexes = {
+        @Index(name = "idx_event_date_id", columnList = "date, id"),
+        @Index(name = "idx_event_location_date_id", columnList = "location, date, id")
+})
 public class Event {
     /**
      * The id of each Event
@@ -53,6 +58,7 @@ public class Event {
      * The available tickets for each event
      */
     @NotNull
+    @OptimisticLock(excluded = true)
     @Column(name = "tickets_available", nullable = false)
     private Integer ticketsAvailable;
 
@@ -62,6 +68,15 @@ public class Event {
     @Column(name = "createdAt")
     private LocalDateTime createdAt;
 
+    /**
+     * Incremented on every change of the event details. The tickets available are left out,
+     * as they change on every reservation and are served from the in-memory inventory.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
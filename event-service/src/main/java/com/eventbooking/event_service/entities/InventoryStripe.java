@@ -0,0 +1,39 @@
+package com.eventbooking.event_service.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "event_inventory_stripe",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"event_id", "stripe_index"}))
+public class InventoryStripe {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stripeSequenceGenerator")
+    @SequenceGenerator(name = "stripeSequenceGenerator")
+    private Long id;
+
+    /**
+     * The event the stripe belongs to
+     */
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    /**
+     * The position of the stripe within the event counter
+     */
+    @Column(name = "stripe_index", nullable = false)
+    private Integer stripeIndex;
+
+    /**
+     * The tickets available in this stripe
+     */
+    @Column(name = "tickets_available", nullable = false)
+    private Integer ticketsAvailable;
+}
@@ -0,0 +1,42 @@
+package com.eventbooking.event_service.entities;
+
+import com.eventbooking.event_service.constants.SeatReservationStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Seats reserved for a booking saga, keyed by the saga ID so that a command delivered twice is applied once.
+ * The seats of an expired hold are recorded as released under its booking ID.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "saga_seat_reservation")
+public class SeatReservation {
+    @Id
+    private Long sagaId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "username")
+    private String userName;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SeatReservationStatus status;
+
+    /**
+     * Why the seats could not be reserved
+     */
+    @Column(name = "message")
+    private String message;
+}
@@ -0,0 +1,27 @@
+package com.eventbooking.event_service.event;
+
+import com.eventbooking.event_service.constants.EventChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * EventChangeEvent is published on the event-changes topic whenever an event is created, updated or deleted,
+ * so that services caching event details can refresh or drop them.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventChangeEvent {
+    private Long eventId;
+    private EventChangeType changeType;
+    private String name;
+    private String location;
+    private LocalDate date;
+    private LocalDateTime createdAt;
+}
@@ -15,6 +15,27 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(InsufficientTicketsException.class)
+    public ResponseEntity<Object> handleInsufficientTickets(InsufficientTicketsException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(InvalidTicketQuantityException.class)
+    public ResponseEntity<Object> handleInvalidTicketQuantity(InvalidTicketQuantityException ex){
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Object> handleIllegalArgument(IllegalArgumentException ex){
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage())
+        );
+    }
+
     // Define an error response class if necessary
     public static class ErrorResponse {
         private int status;
@@ -0,0 +1,7 @@
+package com.eventbooking.event_service.exceptionshandler;
+
+public class InsufficientTicketsException extends RuntimeException {
+    public InsufficientTicketsException(String message) {
+        super(message);
+    }
+}
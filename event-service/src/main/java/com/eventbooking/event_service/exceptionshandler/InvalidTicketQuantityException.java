@@ -0,0 +1,7 @@
+package com.eventbooking.event_service.exceptionshandler;
+
+public class InvalidTicketQuantityException extends RuntimeException {
+    public InvalidTicketQuantityException(String message) {
+        super(message);
+    }
+}
@@ -1,22 +1,86 @@
 package com.eventbooking.event_service.repository;
 
 import com.eventbooking.event_service.entities.Event;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
 
     /**
-     * Finds an event by its name, ignoring case.
+     * Finds the next page of events after a given ID, seeking on the primary key index.
      *
-     * @param name the name of the event to search for, case insensitive
-     * @return an Optional containing the found Event if exists, or an empty Optional if no event is found with the given name
+     * @param afterId the ID of the last event of the previous page
+     * @param limit the maximum number of events to return
+     * @return the events with an ID greater than afterId, in ID order
      */
-    @Query("SELECT e FROM Event e WHERE LOWER(e.name) = LOWER(:name)")
-    Optional<Event> findByNameIgnoreCase(@Param("name") String name);
-}
\ No newline at end of file
+    List<Event> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Streams all events in ID order through a database cursor. Must be consumed
+     * inside a transaction and closed afterwards.
+     *
+     * @return a Stream of all events
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Event e ORDER BY e.id")
+    Stream<Event> streamAll();
+
+    /**
+     * Finds the next page of events up to a date, in date then ID order, seeking on the (date, id) index.
+     * The bound on afterDate is redundant with the keyset condition but lets the index be range-scanned.
+     *
+     * @param afterDate the date of the last event of the previous page, or the first date of the range
+     * @param afterId the ID of the last event of the previous page, or 0 for the first page
+     * @param to the last date of the range
+     * @param limit the maximum number of events to return
+     * @return the events after (afterDate, afterId) and up to the date to
+     */
+    @Query("SELECT e FROM Event e WHERE e.date >= :afterDate AND e.date <= :to AND (e.date > :afterDate OR (e.date = :afterDate AND e.id > :afterId)) "
+            + "ORDER BY e.date, e.id")
+    List<Event> findInDateRange(@Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+                                @Param("to") LocalDate to, Limit limit);
+
+    /**
+     * Finds the next page of events of a location up to a date, in date then ID order, seeking on the
+     * (location, date, id) index.
+     *
+     * @param location the location of the events, as stored
+     * @param afterDate the date of the last event of the previous page, or the first date of the range
+     * @param afterId the ID of the last event of the previous page, or 0 for the first page
+     * @param to the last date of the range
+     * @param limit the maximum number of events to return
+     * @return the events of the location after (afterDate, afterId) and up to the date to
+     */
+    @Query("SELECT e FROM Event e WHERE e.location = :location AND e.date >= :afterDate AND e.date <= :to "
+            + "AND (e.date > :afterDate OR (e.date = :afterDate AND e.id > :afterId)) ORDER BY e.date, e.id")
+    List<Event> findInLocationDateRange(@Param("location") String location, @Param("afterDate") LocalDate afterDate,
+                                        @Param("afterId") Long afterId, @Param("to") LocalDate to, Limit limit);
+
+    /**
+     * Streams the events from a date on, in date then ID order, through a database cursor. Must be
+     * consumed inside a transaction and closed afterwards.
+     *
+     * @param from the first date of the events
+     * @return a Stream of the events from that date
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Event e WHERE e.date >= :from ORDER BY e.date, e.id")
+    Stream<Event> streamFrom(@Param("from") LocalDate from);
+}
@@ -0,0 +1,42 @@
+package com.eventbooking.event_service.repository;
+
+import com.eventbooking.event_service.entities.InventoryStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryStripeRepository extends JpaRepository<InventoryStripe, Long> {
+
+    /**
+     * Finds the stripes of an event, ordered by their position.
+     *
+     * @param eventId the ID of the event
+     * @return the stripes of the event, or an empty list if the event is not striped
+     */
+    List<InventoryStripe> findByEventIdOrderByStripeIndex(Long eventId);
+
+    /**
+     * Finds the stripes of several events at once.
+     *
+     * @param eventIds the IDs of the events
+     * @return the stripes of the given events
+     */
+    List<InventoryStripe> findByEventIdIn(Collection<Long> eventIds);
+
+    /**
+     * Deletes all the stripes of an event.
+     *
+     * @param eventId the ID of the event
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InventoryStripe s WHERE s.eventId = :eventId")
+    void deleteByEventId(@Param("eventId") Long eventId);
+}
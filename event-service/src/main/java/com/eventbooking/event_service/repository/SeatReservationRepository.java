@@ -0,0 +1,9 @@
+package com.eventbooking.event_service.repository;
+
+import com.eventbooking.event_service.entities.SeatReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SeatReservationRepository extends JpaRepository<SeatReservation, Long> {
+}
@@ -0,0 +1,213 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.event_service.service.EventSearchIndex.Document;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory calendar of the upcoming events, for date-range queries by location.
+ * <p>
+ * Events are bucketed by day in a map sorted by date, each bucket holding the events of the day sorted
+ * by ID, and the same calendar is kept per location. A range is a walk over the buckets between two
+ * dates, and a page carries on from the date and ID of the last event of the previous one, as the
+ * database query on the (date, id) index does. </p>
+ * <p>
+ * Only the events from the {@link #horizon() horizon} on are held; {@link #advance(LocalDate)} drops
+ * the days that have passed. Reads run without locking, writes are serialized and copy the buckets
+ * they change. </p>
+ */
+public final class EventCalendar {
+    private final ConcurrentSkipListMap<LocalDate, Document[]> days = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<LocalDate, Document[]>> locations = new ConcurrentHashMap<>();
+    private final Map<Long, Document> events = new ConcurrentHashMap<>();
+    private volatile LocalDate horizon;
+
+    /**
+     * @param horizon the first date of the events held
+     */
+    public EventCalendar(LocalDate horizon) {
+        this.horizon = horizon;
+    }
+
+    /**
+     * @return the first date of the events held
+     */
+    public LocalDate horizon() {
+        return horizon;
+    }
+
+    /**
+     * @return the number of events held
+     */
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Adds an event to the calendar, or moves the one with the same ID. Events before the horizon
+     * are not held.
+     *
+     * @param document the event
+     */
+    public synchronized void put(Document document) {
+        boolean held = !document.date().isBefore(horizon);
+        Document previous = held ? events.put(document.id(), document) : events.remove(document.id());
+        if (held) {
+            add(days, document);
+            add(locations.computeIfAbsent(document.location(), location -> new ConcurrentSkipListMap<>()), document);
+        }
+        if (previous == null) {
+            return;
+        }
+        boolean sameDay = held && previous.date().equals(document.date());
+        if (!sameDay) {
+            remove(days, previous);
+        }
+        if (!sameDay || !previous.location().equals(document.location())) {
+            removeFromLocation(previous);
+        }
+    }
+
+    /**
+     * Removes an event from the calendar.
+     *
+     * @param id the ID of the event
+     */
+    public synchronized void remove(long id) {
+        Document previous = events.remove(id);
+        if (previous != null) {
+            remove(days, previous);
+            removeFromLocation(previous);
+        }
+    }
+
+    /**
+     * Moves the horizon forward, dropping the events before it.
+     *
+     * @param day the new first date of the events held
+     * @return the number of events dropped
+     */
+    public synchronized int advance(LocalDate day) {
+        if (!day.isAfter(horizon)) {
+            return 0;
+        }
+        horizon = day;
+        int dropped = 0;
+        NavigableMap<LocalDate, Document[]> past = days.headMap(day, false);
+        for (Document[] dayEvents : past.values()) {
+            for (Document document : dayEvents) {
+                events.remove(document.id());
+                locations.computeIfPresent(document.location(), (location, calendar) -> {
+                    calendar.remove(document.date());
+                    return calendar.isEmpty() ? null : calendar;
+                });
+            }
+            dropped += dayEvents.length;
+        }
+        past.clear();
+        return dropped;
+    }
+
+    /**
+     * Lists the events up to a date, in date then ID order, after the last event of the previous page.
+     *
+     * @param location the location of the events, as stored, or null for all locations
+     * @param afterDate the date of the last event of the previous page, or the first date of the range
+     * @param afterId the ID of the last event of the previous page, or 0 for the first page
+     * @param to the last date of the range
+     * @param limit the maximum number of events to return
+     * @return the events after (afterDate, afterId) and up to the date to
+     */
+    public List<Document> range(String location, LocalDate afterDate, long afterId, LocalDate to, int limit) {
+        NavigableMap<LocalDate, Document[]> calendar = location == null ? days : locations.get(location);
+        if (calendar == null || to.isBefore(afterDate)) {
+            return List.of();
+        }
+        List<Document> page = new ArrayList<>(Math.min(limit, 128));
+        for (Map.Entry<LocalDate, Document[]> day : calendar.subMap(afterDate, true, to, true).entrySet()) {
+            Document[] dayEvents = day.getValue();
+            int start = day.getKey().equals(afterDate) ? indexAfter(dayEvents, afterId) : 0;
+            for (int i = start; i < dayEvents.length && page.size() < limit; i++) {
+                page.add(dayEvents[i]);
+            }
+            if (page.size() == limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    private void removeFromLocation(Document document) {
+        locations.computeIfPresent(document.location(), (location, calendar) -> {
+            remove(calendar, document);
+            return calendar.isEmpty() ? null : calendar;
+        });
+    }
+
+    private static void add(ConcurrentSkipListMap<LocalDate, Document[]> calendar, Document document) {
+        calendar.compute(document.date(), (day, dayEvents) -> {
+            if (dayEvents == null) {
+                return new Document[]{document};
+            }
+            int index = indexOf(dayEvents, document.id());
+            if (index >= 0) {
+                Document[] replaced = dayEvents.clone();
+                replaced[index] = document;
+                return replaced;
+            }
+            int at = -index - 1;
+            Document[] added = new Document[dayEvents.length + 1];
+            System.arraycopy(dayEvents, 0, added, 0, at);
+            added[at] = document;
+            System.arraycopy(dayEvents, at, added, at + 1, dayEvents.length - at);
+            return added;
+        });
+    }
+
+    private static void remove(ConcurrentSkipListMap<LocalDate, Document[]> calendar, Document document) {
+        calendar.computeIfPresent(document.date(), (day, dayEvents) -> {
+            int index = indexOf(dayEvents, document.id());
+            if (index < 0) {
+                return dayEvents;
+            }
+            if (dayEvents.length == 1) {
+                return null;
+            }
+            Document[] removed = Arrays.copyOf(dayEvents, dayEvents.length - 1);
+            System.arraycopy(dayEvents, index + 1, removed, index, dayEvents.length - index - 1);
+            return removed;
+        });
+    }
+
+    /**
+     * @return the index of the event with the ID, or (-(insertion point) - 1) if the day has none
+     */
+    private static int indexOf(Document[] dayEvents, long id) {
+        int low = 0;
+        int high = dayEvents.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = dayEvents[middle].id();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int indexAfter(Document[] dayEvents, long id) {
+        int index = indexOf(dayEvents, id);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
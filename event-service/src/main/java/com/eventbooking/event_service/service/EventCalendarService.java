@@ -0,0 +1,176 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.event_service.dto.CalendarPageDto;
+import com.eventbooking.event_service.dto.EventDto;
+import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.repository.EventRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lists events by date range and location, the upcoming ones from an {@link EventCalendar} held in memory.
+ * <p>
+ * The calendar is loaded with the events from today on when the application starts, kept up to date by
+ * {@link EventService} as events are created, updated and deleted, and moved forward every night. Ranges
+ * starting before its horizon are read from the database, through the (date, id) and
+ * (location, date, id) indexes of the event table. </p>
+ */
+@Slf4j
+@Service
+public class EventCalendarService {
+    static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Upper bound of open ranges, a date every database supports
+     */
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+
+    private final EventRepository eventRepository;
+    private final InventoryService inventoryService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EventCalendar calendar = new EventCalendar(LocalDate.now());
+
+    public EventCalendarService(EventRepository eventRepository,
+                                InventoryService inventoryService,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.inventoryService = inventoryService;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Loads the events from the horizon of the calendar on, reading them through a database cursor.
+     *
+     * @return the number of events held
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int load() {
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Event> events = eventRepository.streamFrom(calendar.horizon())) {
+                events.forEach(event -> {
+                    calendar.put(toDocument(event));
+                    entityManager.detach(event);
+                });
+            }
+        });
+        log.info("Loaded {} upcoming events in the calendar in {} ms", calendar.size(), (System.nanoTime() - start) / 1_000_000);
+        return calendar.size();
+    }
+
+    /**
+     * Drops the events of the days that have passed.
+     */
+    @Scheduled(cron = "${calendar.advance-cron:0 0 0 * * *}")
+    public void advance() {
+        int dropped = calendar.advance(LocalDate.now());
+        log.debug("Dropped {} past events from the calendar", dropped);
+    }
+
+    /**
+     * Adds a created or updated event to the calendar.
+     *
+     * @param event the event, as saved
+     */
+    public void index(Event event) {
+        calendar.put(toDocument(event));
+    }
+
+    /**
+     * Removes a deleted event from the calendar.
+     *
+     * @param eventId the ID of the event
+     */
+    public void remove(Long eventId) {
+        calendar.remove(eventId);
+    }
+
+    /**
+     * Retrieves a page of the events between two dates, in date then ID order, using keyset pagination.
+     * Ranges from today on are served from memory.
+     *
+     * @param location the location of the events, as stored, or null for all locations
+     * @param from the first date of the range, or null for today
+     * @param to the last date of the range, or null for no limit
+     * @param afterDate the nextAfterDate of the previous page, or null for the first page
+     * @param afterId the nextAfterId of the previous page, or null for the first page
+     * @param size the maximum number of events to return, capped at {@value #MAX_PAGE_SIZE}
+     * @return a CalendarPageDto with the events and the cursor of the next page
+     * @throws IllegalArgumentException if the range ends before it starts
+     */
+    public CalendarPageDto<EventDto> getEventsInRange(String location, LocalDate from, LocalDate to,
+                                                      LocalDate afterDate, Long afterId, int size) {
+        LocalDate first = from == null ? LocalDate.now() : from;
+        LocalDate last = to == null ? LAST_DATE : to;
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("The range ends on " + last + ", before it starts on " + first);
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean resumed = afterDate != null && afterId != null && !afterDate.isBefore(first);
+        LocalDate seekDate = resumed ? afterDate : first;
+        long seekId = resumed ? afterId : 0L;
+
+        List<EventDto> items;
+        if (!first.isBefore(calendar.horizon())) {
+            items = calendar.range(location, seekDate, seekId, last, limit).stream()
+                    .map(this::mapToDto)
+                    .collect(Collectors.toList());
+        } else {
+            List<Event> events = location == null
+                    ? eventRepository.findInDateRange(seekDate, seekId, last, Limit.of(limit))
+                    : eventRepository.findInLocationDateRange(location, seekDate, seekId, last, Limit.of(limit));
+            items = events.stream()
+                    .map(this::mapToDto)
+                    .collect(Collectors.toList());
+        }
+        EventDto lastItem = items.size() < limit ? null : items.get(items.size() - 1);
+        return CalendarPageDto.<EventDto>builder()
+                .items(items)
+                .nextAfterDate(lastItem == null ? null : lastItem.getDate())
+                .nextAfterId(lastItem == null ? null : lastItem.getId())
+                .build();
+    }
+
+    private EventDto mapToDto(EventSearchIndex.Document document) {
+        return EventDto.builder()
+                .id(document.id())
+                .name(document.name())
+                .location(document.location())
+                .date(document.date())
+                .createdAt(document.createdAt())
+                .ticketsAvailable(inventoryService.trackedAvailable(document.id()))
+                .build();
+    }
+
+    private EventDto mapToDto(Event event) {
+        return EventDto.builder()
+                .id(event.getId())
+                .name(event.getName())
+                .createdAt(event.getCreatedAt())
+                .location(event.getLocation())
+                .date(event.getDate())
+                .ticketsAvailable(inventoryService.available(event))
+                .version(event.getVersion())
+                .build();
+    }
+
+    private static EventSearchIndex.Document toDocument(Event event) {
+        return new EventSearchIndex.Document(event.getId(), event.getName(), event.getLocation(), event.getDate(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,448 @@
+package com.eventbooking.event_service.service;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index of the name and location of events, for ranked prefix search.
+ * <p>
+ * Names and locations are split into tokens, lower-cased and stripped of accents. Each token maps to
+ * the sorted IDs of the events holding it, and the tokens are kept sorted, so that the events matching
+ * a prefix are found by walking the tokens starting with it. Every token of a query must be a token of
+ * the name or location, or the start of one, so that search works as the user types. </p>
+ * <p>
+ * A search intersects the posting lists of its tokens, from the most selective one, and only looks up
+ * the few events left, so its cost follows the rarest token rather than the size of the index.
+ * Matches are ranked by how well they match, name before location and whole tokens before
+ * prefixes, then by date. </p>
+ * <p>
+ * Searches run without locking, writes are serialized. The posting lists are copied on write:
+ * events change far less often than they are searched. </p>
+ */
+public final class EventSearchIndex {
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final String[] NO_TOKENS = new String[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private static final int NAME_TOKEN = 4;
+    private static final int NAME_PREFIX = 3;
+    private static final int LOCATION_TOKEN = 2;
+    private static final int LOCATION_PREFIX = 1;
+
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final int CHECKED_CANDIDATES = 64;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::score).reversed()
+            .thenComparingLong(match -> match.entry().epochDay())
+            .thenComparingLong(match -> match.entry().document().id());
+
+    private volatile Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private volatile ConcurrentSkipListMap<String, long[]> postings = new ConcurrentSkipListMap<>();
+    private volatile Map<String, Long> names = new ConcurrentHashMap<>();
+
+    /**
+     * The searchable fields of an event.
+     */
+    public record Document(long id, String name, String location, LocalDate date, LocalDateTime createdAt) {
+    }
+
+    /**
+     * A page of ranked matches.
+     *
+     * @param documents the matches of the page, best first
+     * @param total the number of events matching the query
+     */
+    public record Result(List<Document> documents, int total) {
+    }
+
+    /**
+     * Adds an event to the index, or replaces the one with the same ID.
+     *
+     * @param document the event
+     */
+    public synchronized void put(Document document) {
+        Entry entry = new Entry(document);
+        Entry previous = entries.get(document.id());
+        // New postings first and stale ones last: a search seeing a posting checks it against the entry
+        for (String term : entry.terms()) {
+            if (previous == null || Arrays.binarySearch(previous.terms(), term) < 0) {
+                postings.compute(term, (key, ids) -> insert(ids, document.id()));
+            }
+        }
+        entries.put(document.id(), entry);
+        if (previous != null) {
+            for (String term : previous.terms()) {
+                if (Arrays.binarySearch(entry.terms(), term) < 0) {
+                    postings.computeIfPresent(term, (key, ids) -> delete(ids, document.id()));
+                }
+            }
+            if (previous.document().name() != null) {
+                names.remove(nameKey(previous.document().name()), document.id());
+            }
+        }
+        if (document.name() != null) {
+            names.put(nameKey(document.name()), document.id());
+        }
+    }
+
+    /**
+     * Removes an event from the index.
+     *
+     * @param id the ID of the event
+     */
+    public synchronized void remove(long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms()) {
+            postings.computeIfPresent(term, (key, ids) -> delete(ids, id));
+        }
+        if (previous.document().name() != null) {
+            names.remove(nameKey(previous.document().name()), id);
+        }
+    }
+
+    /**
+     * Replaces the content of the index. Writes wait until the index is rebuilt, searches see the
+     * previous content meanwhile.
+     *
+     * @param documents all the events
+     */
+    public synchronized void rebuild(Stream<Document> documents) {
+        Map<Long, Entry> newEntries = new ConcurrentHashMap<>();
+        Map<String, Long> newNames = new ConcurrentHashMap<>();
+        Map<String, PostingBuilder> builders = new HashMap<>();
+        documents.forEach(document -> {
+            Entry entry = new Entry(document);
+            newEntries.put(document.id(), entry);
+            if (document.name() != null) {
+                newNames.put(nameKey(document.name()), document.id());
+            }
+            for (String term : entry.terms()) {
+                builders.computeIfAbsent(term, key -> new PostingBuilder()).add(document.id());
+            }
+        });
+        ConcurrentSkipListMap<String, long[]> newPostings = new ConcurrentSkipListMap<>();
+        builders.forEach((term, builder) -> newPostings.put(term, builder.build()));
+        entries = newEntries;
+        postings = newPostings;
+        names = newNames;
+    }
+
+    /**
+     * Finds an event by its whole name, ignoring case.
+     *
+     * @param name the name of the event
+     * @return the ID of the event, or null if no event has this name
+     */
+    public Long findByName(String name) {
+        return name == null ? null : names.get(nameKey(name));
+    }
+
+    /**
+     * Searches the events matching all the tokens of a query, each token as a prefix.
+     *
+     * @param query the text typed by the user
+     * @param from the earliest date of the events, or null
+     * @param to the latest date of the events, or null
+     * @param offset the number of best matches to skip
+     * @param limit the maximum number of matches to return, 0 to only count them
+     * @return the matches from offset, best first, and the number of matches
+     */
+    public Result search(String query, LocalDate from, LocalDate to, int offset, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            return new Result(List.of(), 0);
+        }
+        Map<Long, Entry> entries = this.entries;
+        ConcurrentSkipListMap<String, long[]> postings = this.postings;
+
+        // Posting lists intersected from the most selective token; the candidates left are checked
+        // against all the tokens. A token starting too many words is only checked.
+        List<TokenPostings> selective = new ArrayList<>();
+        NavigableMap<String, long[]> broad = null;
+        for (String token : tokens) {
+            NavigableMap<String, long[]> terms = withPrefix(postings, token);
+            if (terms.isEmpty()) {
+                return new Result(List.of(), 0);
+            }
+            TokenPostings tokenPostings = TokenPostings.of(terms);
+            if (tokenPostings != null) {
+                selective.add(tokenPostings);
+            } else if (broad == null) {
+                broad = terms;
+            }
+        }
+        long[] candidates;
+        if (selective.isEmpty()) {
+            candidates = union(broad.values());
+        } else {
+            selective.sort(Comparator.comparingLong(TokenPostings::size));
+            candidates = union(selective.get(0).lists());
+            for (int i = 1; i < selective.size() && candidates.length > CHECKED_CANDIDATES; i++) {
+                candidates = retainAny(candidates, selective.get(i).lists());
+            }
+        }
+
+        long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        int keep = offset + limit;
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.max(1, Math.min(keep, 1024)), RANKING.reversed());
+        int total = 0;
+        for (long id : candidates) {
+            Entry entry = entries.get(id);
+            if (entry == null || entry.epochDay() < fromDay || entry.epochDay() > toDay) {
+                continue;
+            }
+            // Also drops the postings of an event being updated
+            int score = score(entry, tokens);
+            if (score == 0) {
+                continue;
+            }
+            total++;
+            Match match = new Match(entry, score);
+            if (best.size() < keep) {
+                best.add(match);
+            } else if (keep > 0 && RANKING.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<Document> page = ranked.subList(Math.min(offset, ranked.size()), ranked.size()).stream()
+                .map(Match::entry)
+                .map(Entry::document)
+                .toList();
+        return new Result(page, total);
+    }
+
+    /**
+     * @return the number of events indexed
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Splits a text into lower-cased tokens without accents, in order and without duplicates.
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_TOKENS;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return SEPARATORS.splitAsStream(folded)
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Scores an event against all the tokens of a query.
+     *
+     * @return the sum of the best match of each token, or 0 if a token does not match
+     */
+    private static int score(Entry entry, String[] tokens) {
+        int score = 0;
+        for (String token : tokens) {
+            int tokenScore = Math.max(
+                    matchScore(entry.nameTokens(), token, NAME_TOKEN, NAME_PREFIX),
+                    matchScore(entry.locationTokens(), token, LOCATION_TOKEN, LOCATION_PREFIX));
+            if (tokenScore == 0) {
+                return 0;
+            }
+            score += tokenScore;
+        }
+        return score;
+    }
+
+    private static int matchScore(String[] fieldTokens, String token, int whole, int prefix) {
+        int score = 0;
+        for (String fieldToken : fieldTokens) {
+            if (fieldToken.equals(token)) {
+                return whole;
+            }
+            if (fieldToken.startsWith(token)) {
+                score = prefix;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return the sorted IDs held by any of the posting lists
+     */
+    private static long[] union(Collection<long[]> lists) {
+        if (lists.size() == 1) {
+            return lists.iterator().next();
+        }
+        long[] ids = new long[lists.stream().mapToInt(list -> list.length).sum()];
+        int size = 0;
+        for (long[] list : lists) {
+            System.arraycopy(list, 0, ids, size, list.length);
+            size += list.length;
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    }
+
+    /**
+     * @return the sorted candidates held by any of the posting lists, each searched from the smaller side
+     */
+    private static long[] retainAny(long[] candidates, List<long[]> lists) {
+        boolean[] found = new boolean[candidates.length];
+        for (long[] list : lists) {
+            if (list.length < candidates.length) {
+                for (long id : list) {
+                    int index = Arrays.binarySearch(candidates, id);
+                    if (index >= 0) {
+                        found[index] = true;
+                    }
+                }
+            } else {
+                for (int i = 0; i < candidates.length; i++) {
+                    if (!found[i] && Arrays.binarySearch(list, candidates[i]) >= 0) {
+                        found[i] = true;
+                    }
+                }
+            }
+        }
+        long[] retained = new long[candidates.length];
+        int size = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (found[i]) {
+                retained[size++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(retained, size);
+    }
+
+    private static NavigableMap<String, long[]> withPrefix(ConcurrentSkipListMap<String, long[]> postings, String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] insert(long[] ids, long id) {
+        if (ids == null) {
+            return new long[]{id};
+        }
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        index = -index - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, index);
+        copy[index] = id;
+        System.arraycopy(ids, index, copy, index + 1, ids.length - index);
+        return copy;
+    }
+
+    /**
+     * @return the IDs without id, or null to drop the token once no event holds it
+     */
+    private static long[] delete(long[] ids, long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, index);
+        System.arraycopy(ids, index + 1, copy, index, ids.length - index - 1);
+        return copy;
+    }
+
+    /**
+     * An indexed event with its tokens; terms holds the tokens of both fields, sorted.
+     */
+    private record Entry(Document document, String[] nameTokens, String[] locationTokens, String[] terms, long epochDay) {
+
+        Entry(Document document) {
+            this(document, tokenize(document.name()), tokenize(document.location()));
+        }
+
+        private Entry(Document document, String[] nameTokens, String[] locationTokens) {
+            this(document, nameTokens, locationTokens,
+                    Stream.concat(Arrays.stream(nameTokens), Arrays.stream(locationTokens)).distinct().sorted().toArray(String[]::new),
+                    document.date() == null ? Long.MIN_VALUE : document.date().toEpochDay());
+        }
+    }
+
+    private record Match(Entry entry, int score) {
+    }
+
+    /**
+     * The posting lists of the words starting with a query token.
+     */
+    private record TokenPostings(List<long[]> lists, long size) {
+
+        /**
+         * @return the posting lists, or null if more than {@value #MAX_PREFIX_TERMS} words start with the token
+         */
+        static TokenPostings of(NavigableMap<String, long[]> terms) {
+            List<long[]> lists = new ArrayList<>();
+            long size = 0;
+            for (long[] ids : terms.values()) {
+                if (lists.size() == MAX_PREFIX_TERMS) {
+                    return null;
+                }
+                lists.add(ids);
+                size += ids.length;
+            }
+            return new TokenPostings(lists, size);
+        }
+    }
+
+    /**
+     * Collects the IDs of a token while the index is rebuilt.
+     */
+    private static final class PostingBuilder {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        long[] build() {
+            long[] built = size == 0 ? NO_IDS : Arrays.copyOf(ids, size);
+            Arrays.sort(built);
+            return built;
+        }
+    }
+}
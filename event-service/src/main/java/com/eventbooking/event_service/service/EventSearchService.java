@@ -0,0 +1,136 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.event_service.dto.EventDto;
+import com.eventbooking.event_service.dto.SearchPageDto;
+import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.repository.EventRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Searches events by name and location through an {@link EventSearchIndex} held in memory.
+ * <p>
+ * The index is built from the event table when the application starts, and then kept up to date by
+ * {@link EventService} as events are created, updated and deleted, so searches never query the database.
+ * Results carry the tickets available of the events tracked by the inventory only. </p>
+ */
+@Slf4j
+@Service
+public class EventSearchService {
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_RESULTS = 1000;
+
+    private final EventRepository eventRepository;
+    private final InventoryService inventoryService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EventSearchIndex index = new EventSearchIndex();
+
+    public EventSearchService(EventRepository eventRepository,
+                              InventoryService inventoryService,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.inventoryService = inventoryService;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Builds the index from the event table, reading it through a database cursor.
+     *
+     * @return the number of events indexed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int rebuild() {
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Event> events = eventRepository.streamAll()) {
+                index.rebuild(events.map(event -> {
+                    EventSearchIndex.Document document = toDocument(event);
+                    entityManager.detach(event);
+                    return document;
+                }));
+            }
+        });
+        log.info("Indexed {} events for search in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+        return index.size();
+    }
+
+    /**
+     * Indexes a created or updated event.
+     *
+     * @param event the event, as saved
+     */
+    public void index(Event event) {
+        index.put(toDocument(event));
+    }
+
+    /**
+     * Removes a deleted event from the index.
+     *
+     * @param eventId the ID of the event
+     */
+    public void remove(Long eventId) {
+        index.remove(eventId);
+    }
+
+    /**
+     * Finds an event by its whole name, ignoring case.
+     *
+     * @param name the name of the event
+     * @return the ID of the event, or null if no event has this name
+     */
+    public Long findIdByName(String name) {
+        return index.findByName(name);
+    }
+
+    /**
+     * Searches the events whose name or location match the words of a query, the last one possibly
+     * unfinished, best matches first.
+     *
+     * @param query the words to search for
+     * @param from the earliest date of the events, or null
+     * @param to the latest date of the events, or null
+     * @param page the number of the page, from 0
+     * @param size the number of events per page, capped at {@value #MAX_PAGE_SIZE}
+     * @return the page of events; pages beyond the first {@value #MAX_RESULTS} results are empty
+     */
+    public SearchPageDto<EventDto> search(String query, LocalDate from, LocalDate to, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int offset = (int) Math.min((long) Math.max(0, page) * limit, MAX_RESULTS);
+        EventSearchIndex.Result result = index.search(query, from, to, offset, Math.min(limit, MAX_RESULTS - offset));
+        return SearchPageDto.<EventDto>builder()
+                .items(result.documents().stream()
+                        .map(this::mapToDto)
+                        .collect(Collectors.toList()))
+                .page(Math.max(0, page))
+                .total(result.total())
+                .build();
+    }
+
+    private EventDto mapToDto(EventSearchIndex.Document document) {
+        return EventDto.builder()
+                .id(document.id())
+                .name(document.name())
+                .location(document.location())
+                .date(document.date())
+                .createdAt(document.createdAt())
+                .ticketsAvailable(inventoryService.trackedAvailable(document.id()))
+                .build();
+    }
+
+    private static EventSearchIndex.Document toDocument(Event event) {
+        return new EventSearchIndex.Document(event.getId(), event.getName(), event.getLocation(), event.getDate(), event.getCreatedAt());
+    }
+}
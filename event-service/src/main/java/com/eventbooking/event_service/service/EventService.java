@@ -1,23 +1,87 @@
 package com.eventbooking.event_service.service;
 
+import com.eventbooking.event_service.constants.EventChangeType;
 import com.eventbooking.event_service.dto.EventDto;
+import com.eventbooking.event_service.dto.InventoryDto;
+import com.eventbooking.event_service.dto.PageDto;
 import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.event.EventChangeEvent;
+import com.eventbooking.event_service.exceptionshandler.InsufficientTicketsException;
+import com.eventbooking.event_service.exceptionshandler.InvalidTicketQuantityException;
 import com.eventbooking.event_service.exceptionshandler.NotFoundException;
 import com.eventbooking.event_service.repository.EventRepository;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class EventService {
+    private static final String EVENT_CHANGES_TOPIC = "event-changes";
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final EventRepository eventRepository;
+    private final InventoryService inventoryService;
+    private final EventSearchService eventSearchService;
+    private final EventCalendarService eventCalendarService;
+    private final KafkaTemplate<String, EventChangeEvent> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    /**
+     * The version last seen of the events read recently, so that conditional reads of them are answered
+     * without a query. The others are answered from the database.
+     */
+    private final Cache<Long, EventVersion> eventVersions;
+
+    /**
+     * Concurrent reads of the same event, typical of an on-sale, share a single query
+     */
+    private final SingleFlight<Long, EventDto> eventLookups = new SingleFlight<>();
+
+    public EventService(EventRepository eventRepository,
+                        InventoryService inventoryService,
+                        EventSearchService eventSearchService,
+                        EventCalendarService eventCalendarService,
+                        KafkaTemplate<String, EventChangeEvent> kafkaTemplate,
+                        ObjectMapper objectMapper,
+                        EntityManager entityManager,
+                        @Value("${event-versions.max-size:100000}") long maxTrackedVersions) {
+        this.eventRepository = eventRepository;
+        this.inventoryService = inventoryService;
+        this.eventSearchService = eventSearchService;
+        this.eventCalendarService = eventCalendarService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.eventVersions = Caffeine.newBuilder()
+                .maximumSize(maxTrackedVersions)
+                .build();
+    }
 
     /**
      * Creates a new event from the provided EventDto.
@@ -35,6 +99,10 @@ public class EventService {
 
         log.info("Creating event with id : {}", event.getId());
         Event newEvent = eventRepository.save(event);
+        rememberVersion(newEvent);
+        eventSearchService.index(newEvent);
+        eventCalendarService.index(newEvent);
+        publishChange(EventChangeType.CREATED, newEvent);
         return mapToDto(newEvent);
     }
 
@@ -51,17 +119,111 @@ public class EventService {
     }
 
     /**
-     * Retrieves an event by its ID.
+     * Retrieves a page of events in ID order, using keyset pagination so that deep pages
+     * cost the same as the first one.
+     *
+     * @param afterId The ID of the last event of the previous page, or 0 for the first page.
+     * @param size The maximum number of events to return, capped at {@value #MAX_PAGE_SIZE}.
+     * @return A PageDto with the events and the afterId of the next page.
+     */
+    public PageDto<EventDto> getEventsPage(Long afterId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<EventDto> items = eventRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+        Long nextAfterId = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return PageDto.<EventDto>builder()
+                .items(items)
+                .nextAfterId(nextAfterId)
+                .build();
+    }
+
+    /**
+     * Writes all events as newline-delimited JSON, reading them through a database cursor.
+     * Each event is detached once written, so memory use does not grow with the table.
+     *
+     * @param out The stream to write to. It is flushed but not closed.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllEvents(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(EventDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Writer lines = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<Event> events = eventRepository.streamAll()) {
+            Iterator<Event> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                Event event = iterator.next();
+                writer.writeValue(lines, mapToDto(event));
+                lines.write('\n');
+                entityManager.detach(event);
+            }
+        }
+        lines.flush();
+    }
+
+    /**
+     * Retrieves several events by their IDs in a single query.
+     * IDs without a matching event are skipped.
+     *
+     * @param ids the IDs of the events to retrieve, at most {@value #MAX_PAGE_SIZE}
+     * @return a list of EventDto for the events found
+     * @throws IllegalArgumentException if more than {@value #MAX_PAGE_SIZE} IDs are given
+     */
+    public List<EventDto> getEventsByIds(List<Long> ids) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Cannot look up more than " + MAX_PAGE_SIZE + " events at once, got : " + ids.size());
+        }
+        List<Event> events = eventRepository.findAllById(ids);
+        return events.stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves an event by its ID. Concurrent calls for the same event are served by a single
+     * query, whose result is shared by all of them.
      *
      * @param id the ID of the event to retrieve
      * @return an Optional containing the EventDto if found, or an empty Optional if not found
      */
     public Optional<EventDto> getEventById(Long id) {
-        Event event = eventRepository.findById(id).orElse(null);
-        if (event == null) {
-            throw new NotFoundException("There no event with id : " + id);
+        return Optional.of(eventLookups.execute(id, () -> {
+            Event event = eventRepository.findById(id).orElse(null);
+            if (event == null) {
+                throw new NotFoundException("There no event with id : " + id);
+            }
+            rememberVersion(event);
+            return mapToDto(event);
+        }));
+    }
+
+    /**
+     * Returns the entity tag of the current state of an event without reading the database,
+     * for answering conditional reads. The tag changes with the version of the event details and
+     * with the tickets available.
+     *
+     * @param id the ID of the event
+     * @return the ETag of the event, or null if its version is not known yet
+     */
+    public String getEventETag(Long id) {
+        EventVersion known = eventVersions.getIfPresent(id);
+        if (known == null) {
+            return null;
         }
-        return Optional.of(mapToDto(event));
+        Integer ticketsAvailable = inventoryService.trackedAvailable(id);
+        return eTag(id, known.version(), ticketsAvailable != null ? ticketsAvailable : known.ticketsAvailable());
+    }
+
+    /**
+     * Returns the entity tag of an event read from the database.
+     *
+     * @param event the event
+     * @return the ETag of the event
+     */
+    public static String eTag(EventDto event) {
+        return eTag(event.getId(), event.getVersion(), event.getTicketsAvailable());
     }
 
     /**
@@ -74,6 +236,11 @@ public class EventService {
         Event event = eventRepository.findById(eventId).orElse(null);
         if (event != null) {
             eventRepository.deleteById(event.getId());
+            inventoryService.evict(event.getId());
+            eventVersions.invalidate(event.getId());
+            eventSearchService.remove(event.getId());
+            eventCalendarService.remove(event.getId());
+            publishChange(EventChangeType.DELETED, event);
             return "Event with id " + eventId + " was deleted";
         }
         throw new NotFoundException( "Event with id " + eventId + " not found");
@@ -104,6 +271,13 @@ public class EventService {
             }
 
             Event updatedEvent = eventRepository.save(event);
+            if (eventDto.getTicketsAvailable() != null) {
+                inventoryService.reset(eventId, updatedEvent.getTicketsAvailable());
+            }
+            rememberVersion(updatedEvent);
+            eventSearchService.index(updatedEvent);
+            eventCalendarService.index(updatedEvent);
+            publishChange(EventChangeType.UPDATED, updatedEvent);
             return Optional.of(mapToDto(updatedEvent));
         }
 
@@ -111,19 +285,145 @@ public class EventService {
     }
 
     /**
-     * Searches for an event by its name in a case-insensitive manner.
+     * Searches for an event by its name in a case-insensitive manner. The name is looked up in the
+     * search index, and the event then read by its ID.
      *
      * @param eventName the name of the event to search for
      * @return an Optional containing the EventDto if found, or an empty Optional if not found
      */
     public Optional<EventDto> searchEvent(String eventName) {
-        String trimmedName = eventName.trim();
-        Optional<Event> event = eventRepository.findByNameIgnoreCase(trimmedName);
-        Optional<EventDto> newEvent = event.map(this::mapToDto);
-        if(newEvent.isEmpty()){
+        Long eventId = eventSearchService.findIdByName(eventName);
+        if (eventId == null) {
             throw new NotFoundException("Event with name " + eventName + " not found ");
         }
-        return newEvent;
+        return getEventById(eventId);
+    }
+
+    /**
+     * Reserves tickets for an event against the in-memory inventory.
+     *
+     * @param eventId  the ID of the event
+     * @param quantity the number of tickets to reserve
+     * @param userName the user booking the tickets, may be null
+     * @return an InventoryDto with the tickets left after the reservation
+     */
+    public InventoryDto reserveTickets(Long eventId, int quantity, String userName) {
+        int ticketsAvailable = inventoryService.reserve(eventId, quantity, userName);
+        return InventoryDto.builder()
+                .eventId(eventId)
+                .quantity(quantity)
+                .ticketsAvailable(ticketsAvailable)
+                .build();
+    }
+
+    /**
+     * Releases previously reserved tickets of an event back to the in-memory inventory.
+     *
+     * @param eventId  the ID of the event
+     * @param quantity the number of tickets to release
+     * @param userName the user releasing the tickets, may be null
+     * @return an InventoryDto with the tickets available after the release
+     */
+    public InventoryDto releaseTickets(Long eventId, int quantity, String userName) {
+        int ticketsAvailable = inventoryService.release(eventId, quantity, userName);
+        return InventoryDto.builder()
+                .eventId(eventId)
+                .quantity(quantity)
+                .ticketsAvailable(ticketsAvailable)
+                .build();
+    }
+
+    /**
+     * Reserves tickets for several events at once. Each reservation is applied independently,
+     * and the ones that cannot be applied are reported instead of failing the whole request.
+     *
+     * @param reservations the reservations to apply, with eventId, quantity and userName set
+     * @return an InventoryDto per reservation, in the same order, telling whether it was applied
+     */
+    public List<InventoryDto> reserveTickets(List<InventoryDto> reservations) {
+        return reservations.stream()
+                .map(reservation -> applyInventoryChange(reservation, () -> inventoryService.reserve(
+                        reservation.getEventId(), reservation.getQuantity(), reservation.getUserName())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Releases tickets of several events at once, reporting the releases that cannot be applied.
+     *
+     * @param releases the releases to apply, with eventId, quantity and userName set
+     * @return an InventoryDto per release, in the same order, telling whether it was applied
+     */
+    public List<InventoryDto> releaseTickets(List<InventoryDto> releases) {
+        return releases.stream()
+                .map(release -> applyInventoryChange(release, () -> inventoryService.release(
+                        release.getEventId(), release.getQuantity(), release.getUserName())))
+                .collect(Collectors.toList());
+    }
+
+    private InventoryDto applyInventoryChange(InventoryDto change, IntSupplier operation) {
+        InventoryDto result = InventoryDto.builder()
+                .eventId(change.getEventId())
+                .quantity(change.getQuantity())
+                .userName(change.getUserName())
+                .build();
+        if (change.getEventId() == null || change.getQuantity() == null) {
+            result.setApplied(false);
+            result.setMessage("The event id and the quantity of tickets are required");
+            return result;
+        }
+        try {
+            result.setTicketsAvailable(operation.getAsInt());
+            result.setApplied(true);
+        } catch (InsufficientTicketsException | InvalidTicketQuantityException | NotFoundException ex) {
+            result.setApplied(false);
+            result.setMessage(ex.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Splits the ticket counter of a hot event into several stripes.
+     *
+     * @param eventId the ID of the event
+     * @param stripes the number of stripes
+     * @return an InventoryDto with the tickets available and the number of stripes
+     */
+    public InventoryDto restripeTickets(Long eventId, int stripes) {
+        int ticketsAvailable = inventoryService.restripe(eventId, stripes);
+        return InventoryDto.builder()
+                .eventId(eventId)
+                .ticketsAvailable(ticketsAvailable)
+                .stripes(stripes)
+                .build();
+    }
+
+    /**
+     * Publishes a change of an event on the event-changes topic, keyed by event ID
+     * so that the changes of one event stay ordered.
+     *
+     * @param changeType the kind of change
+     * @param event      the event after the change
+     */
+    private void publishChange(EventChangeType changeType, Event event) {
+        EventChangeEvent change = EventChangeEvent.builder()
+                .eventId(event.getId())
+                .changeType(changeType)
+                .name(event.getName())
+                .location(event.getLocation())
+                .date(event.getDate())
+                .createdAt(event.getCreatedAt())
+                .build();
+        kafkaTemplate.send(EVENT_CHANGES_TOPIC, String.valueOf(event.getId()), change);
+    }
+
+    private void rememberVersion(Event event) {
+        // Concurrent reads may finish after an update, the highest version wins
+        eventVersions.asMap().merge(event.getId(), new EventVersion(event.getVersion(), event.getTicketsAvailable()),
+                (known, seen) -> seen.version() >= known.version() ? seen : known);
+    }
+
+    private static String eTag(Long id, Long version, Integer ticketsAvailable) {
+        return "\"" + id + "-" + version + "-" + ticketsAvailable + "\"";
     }
 
     private EventDto mapToDto(Event event) {
@@ -133,7 +433,15 @@ public class EventService {
                 .createdAt(event.getCreatedAt())
                 .location(event.getLocation())
                 .date(event.getDate())
-                .ticketsAvailable(event.getTicketsAvailable())
+                .ticketsAvailable(inventoryService.available(event))
+                .version(event.getVersion())
                 .build();
     }
+
+    /**
+     * @param version the version of the event details
+     * @param ticketsAvailable the tickets available when the version was seen, used while the event is not in the inventory
+     */
+    private record EventVersion(long version, Integer ticketsAvailable) {
+    }
 }
@@ -0,0 +1,299 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.entities.InventoryStripe;
+import com.eventbooking.event_service.exceptionshandler.InsufficientTicketsException;
+import com.eventbooking.event_service.exceptionshandler.InvalidTicketQuantityException;
+import com.eventbooking.event_service.exceptionshandler.NotFoundException;
+import com.eventbooking.event_service.repository.EventRepository;
+import com.eventbooking.event_service.repository.InventoryStripeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory seat inventory for events.
+ * <p>
+ * Remaining tickets are held per event in a {@link StripedCounter} and changed with
+ * compare-and-set loops, so concurrent reservations on the same event never take a row lock.
+ * Regular events use a single stripe; hot events can be split into several stripes so that
+ * reservations from different users update different counters. </p>
+ * <p>
+ * Changed counters are marked dirty and written back asynchronously, in batches, by
+ * {@link #flush()}: the folded total goes to the event table and the stripes of hot events
+ * go to the event_inventory_stripe table. </p>
+ */
+@Service
+@Slf4j
+public class InventoryService {
+    private final EventRepository eventRepository;
+    private final InventoryStripeRepository inventoryStripeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+    private final int maxStripes;
+
+    private final Map<Long, StripedCounter> remainingTickets = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyEvents = ConcurrentHashMap.newKeySet();
+
+    public InventoryService(EventRepository eventRepository,
+                            InventoryStripeRepository inventoryStripeRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${inventory.flush-batch-size:500}") int flushBatchSize,
+                            @Value("${inventory.max-stripes:64}") int maxStripes) {
+        this.eventRepository = eventRepository;
+        this.inventoryStripeRepository = inventoryStripeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushBatchSize = flushBatchSize;
+        this.maxStripes = maxStripes;
+    }
+
+    /**
+     * Reserves tickets for an event.
+     *
+     * @param eventId  the ID of the event
+     * @param quantity the number of tickets to reserve
+     * @param userName the user booking the tickets, used to pick the stripe of a hot event
+     * @return the number of tickets still available after the reservation
+     * @throws InsufficientTicketsException if fewer than {@code quantity} tickets are left
+     */
+    public int reserve(Long eventId, int quantity, String userName) {
+        requirePositive(quantity);
+        StripedCounter remaining = counterFor(eventId);
+        if (!remaining.tryTake(stripeHint(userName), quantity)) {
+            throw new InsufficientTicketsException("Only " + remaining.sum() + " tickets left for event with id : " + eventId);
+        }
+        dirtyEvents.add(eventId);
+        return remaining.sum();
+    }
+
+    /**
+     * Releases previously reserved tickets back to an event.
+     *
+     * @param eventId  the ID of the event
+     * @param quantity the number of tickets to release
+     * @param userName the user releasing the tickets, used to pick the stripe of a hot event
+     * @return the number of tickets available after the release
+     */
+    public int release(Long eventId, int quantity, String userName) {
+        requirePositive(quantity);
+        StripedCounter remaining = counterFor(eventId);
+        remaining.add(stripeHint(userName), quantity);
+        dirtyEvents.add(eventId);
+        return remaining.sum();
+    }
+
+    /**
+     * Splits the counter of an event into {@code stripes} stripes, keeping the tickets left.
+     * Meant to be called when an event is about to go on sale.
+     *
+     * @param eventId the ID of the event
+     * @param stripes the number of stripes, between 1 and {@code inventory.max-stripes}
+     * @return the number of tickets available
+     * @throws NotFoundException if the event does not exist, or is deleted meanwhile
+     */
+    public int restripe(Long eventId, int stripes) {
+        if (stripes < 1 || stripes > maxStripes) {
+            throw new IllegalArgumentException("The number of stripes must be between 1 and " + maxStripes + ", got : " + stripes);
+        }
+        counterFor(eventId);
+        StripedCounter next = remainingTickets.compute(eventId, (id, remaining) -> {
+            // Evicted since it was loaded: the event was deleted, and must not be tracked again
+            if (remaining == null) {
+                return null;
+            }
+            StripedCounter restriped = StripedCounter.of(0, stripes);
+            remaining.retireInto(restriped, true);
+            return restriped;
+        });
+        if (next == null) {
+            throw new NotFoundException("There no event with id : " + eventId);
+        }
+        if (stripes == 1) {
+            inventoryStripeRepository.deleteByEventId(eventId);
+        }
+        dirtyEvents.add(eventId);
+        return next.sum();
+    }
+
+    /**
+     * Returns the number of stripes of an event counter.
+     *
+     * @param eventId the ID of the event
+     * @return the number of stripes
+     */
+    public int stripes(Long eventId) {
+        return counterFor(eventId).stripes();
+    }
+
+    /**
+     * Returns the tickets available for an event, preferring the in-memory counter
+     * over the persisted value when the event is already tracked.
+     *
+     * @param event the persisted event
+     * @return the current number of available tickets
+     */
+    public Integer available(Event event) {
+        StripedCounter remaining = remainingTickets.get(event.getId());
+        return remaining != null ? remaining.sum() : event.getTicketsAvailable();
+    }
+
+    /**
+     * Returns the tickets available for an event if its counter is in memory.
+     *
+     * @param eventId the ID of the event
+     * @return the current number of available tickets, or null if the event is not tracked yet
+     */
+    public Integer trackedAvailable(Long eventId) {
+        StripedCounter remaining = remainingTickets.get(eventId);
+        return remaining != null ? remaining.sum() : null;
+    }
+
+    /**
+     * Overrides the counter of an event, used when the ticket count is explicitly updated.
+     * The number of stripes of the event is kept.
+     *
+     * @param eventId          the ID of the event
+     * @param ticketsAvailable the new number of available tickets
+     */
+    public void reset(Long eventId, int ticketsAvailable) {
+        remainingTickets.compute(eventId, (id, remaining) -> {
+            StripedCounter next = StripedCounter.of(ticketsAvailable, remaining == null ? 1 : remaining.stripes());
+            if (remaining != null) {
+                remaining.retireInto(next, false);
+            }
+            return next;
+        });
+        dirtyEvents.add(eventId);
+    }
+
+    /**
+     * Stops tracking an event, used when the event is deleted.
+     *
+     * @param eventId the ID of the event
+     */
+    public void evict(Long eventId) {
+        remainingTickets.remove(eventId);
+        dirtyEvents.remove(eventId);
+        inventoryStripeRepository.deleteByEventId(eventId);
+    }
+
+    /**
+     * Writes the dirty counters back to the database in batches.
+     */
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:200}")
+    public void flush() {
+        List<Long> batch = new ArrayList<>(flushBatchSize);
+        Iterator<Long> iterator = dirtyEvents.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+            if (batch.size() == flushBatchSize) {
+                persist(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            persist(batch);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void persist(List<Long> eventIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> stripedEventIds = eventIds.stream()
+                        .filter(id -> remainingTickets.containsKey(id) && remainingTickets.get(id).stripes() > 1)
+                        .toList();
+                Map<Long, List<InventoryStripe>> stripesByEvent = stripedEventIds.isEmpty() ? Map.of()
+                        : inventoryStripeRepository.findByEventIdIn(stripedEventIds).stream()
+                        .collect(Collectors.groupingBy(InventoryStripe::getEventId));
+
+                for (Event event : eventRepository.findAllById(eventIds)) {
+                    StripedCounter remaining = remainingTickets.get(event.getId());
+                    if (remaining == null) {
+                        continue;
+                    }
+                    int[] snapshot = remaining.snapshot();
+                    event.setTicketsAvailable(Arrays.stream(snapshot).sum());
+                    if (snapshot.length > 1) {
+                        persistStripes(event.getId(), snapshot, stripesByEvent.getOrDefault(event.getId(), List.of()));
+                    }
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.error("Failed to persist inventory for events {}, retrying on next flush", eventIds, ex);
+            dirtyEvents.addAll(eventIds);
+        }
+    }
+
+    private void persistStripes(Long eventId, int[] snapshot, List<InventoryStripe> stripes) {
+        InventoryStripe[] byIndex = new InventoryStripe[snapshot.length];
+        List<InventoryStripe> changed = new ArrayList<>();
+        for (InventoryStripe stripe : stripes) {
+            if (stripe.getStripeIndex() < snapshot.length) {
+                byIndex[stripe.getStripeIndex()] = stripe;
+            } else {
+                inventoryStripeRepository.delete(stripe);
+            }
+        }
+        for (int i = 0; i < snapshot.length; i++) {
+            if (byIndex[i] == null) {
+                changed.add(InventoryStripe.builder()
+                        .eventId(eventId)
+                        .stripeIndex(i)
+                        .ticketsAvailable(snapshot[i])
+                        .build());
+            } else {
+                byIndex[i].setTicketsAvailable(snapshot[i]);
+            }
+        }
+        inventoryStripeRepository.saveAll(changed);
+    }
+
+    private StripedCounter counterFor(Long eventId) {
+        return remainingTickets.computeIfAbsent(eventId, this::load);
+    }
+
+    private StripedCounter load(Long eventId) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new NotFoundException("There no event with id : " + eventId));
+        int[] stripes = inventoryStripeRepository.findByEventIdOrderByStripeIndex(eventId).stream()
+                .mapToInt(InventoryStripe::getTicketsAvailable)
+                .toArray();
+        if (stripes.length == 0) {
+            return StripedCounter.of(event.getTicketsAvailable(), 1);
+        }
+        // The event row wins when it was updated directly after the stripes were last flushed
+        if (Arrays.stream(stripes).sum() != event.getTicketsAvailable()) {
+            return StripedCounter.of(event.getTicketsAvailable(), stripes.length);
+        }
+        return StripedCounter.fromStripes(stripes);
+    }
+
+    private static int stripeHint(String userName) {
+        return userName != null ? userName.hashCode() : ThreadLocalRandom.current().nextInt();
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidTicketQuantityException("The quantity of tickets must be positive, got : " + quantity);
+        }
+    }
+}
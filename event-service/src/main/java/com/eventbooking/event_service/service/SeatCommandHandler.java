@@ -0,0 +1,117 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.common.saga.SagaReply;
+import com.eventbooking.common.saga.SagaTopics;
+import com.eventbooking.common.saga.SeatCommand;
+import com.eventbooking.event_service.constants.SeatReservationStatus;
+import com.eventbooking.event_service.entities.SeatReservation;
+import com.eventbooking.event_service.exceptionshandler.InsufficientTicketsException;
+import com.eventbooking.event_service.exceptionshandler.InvalidTicketQuantityException;
+import com.eventbooking.event_service.exceptionshandler.NotFoundException;
+import com.eventbooking.event_service.repository.SeatReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies the seat commands of the booking saga to the inventory and replies to booking-service.
+ * <p>
+ * The outcome of each saga is recorded in the saga_seat_reservation table, so that a command
+ * delivered again gets the same reply without changing the inventory twice. A release for a saga
+ * whose seats were never reserved is recorded too, and a reservation arriving after it is rejected.
+ * The reply is sent before the offset is committed, so booking-service gets at least one. </p>
+ * <p>
+ * The release of an expired hold is recorded under its booking ID before the seats are given back, so
+ * that a release delivered again leaves the inventory alone. </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeatCommandHandler {
+    private final InventoryService inventoryService;
+    private final SeatReservationRepository seatReservationRepository;
+    private final KafkaTemplate<String, SagaReply> sagaReplyKafkaTemplate;
+
+    @KafkaListener(topics = SagaTopics.SEAT_COMMANDS,
+            groupId = "event-service-saga",
+            containerFactory = "seatCommandListenerContainerFactory")
+    public void onCommand(SeatCommand command) {
+        switch (command.getAction()) {
+            case RESERVE -> sendReply(reserve(command));
+            case RELEASE -> sendReply(release(command));
+            case RELEASE_HOLD -> releaseHold(command);
+        }
+    }
+
+    SagaReply reserve(SeatCommand command) {
+        SeatReservation existing = seatReservationRepository.findById(command.getSagaId()).orElse(null);
+        if (existing != null) {
+            return reply(command, SagaReply.Step.SEATS_RESERVED, existing.getStatus() == SeatReservationStatus.RESERVED,
+                    existing.getStatus() == SeatReservationStatus.RELEASED ? "The seats were already released" : existing.getMessage());
+        }
+        try {
+            inventoryService.reserve(command.getEventId(), command.getQuantity(), command.getUserName());
+        } catch (InsufficientTicketsException | InvalidTicketQuantityException | NotFoundException ex) {
+            seatReservationRepository.save(reservation(command, SeatReservationStatus.REJECTED, ex.getMessage()));
+            return reply(command, SagaReply.Step.SEATS_RESERVED, false, ex.getMessage());
+        }
+        try {
+            seatReservationRepository.save(reservation(command, SeatReservationStatus.RESERVED, null));
+        } catch (RuntimeException ex) {
+            inventoryService.release(command.getEventId(), command.getQuantity(), command.getUserName());
+            throw ex;
+        }
+        return reply(command, SagaReply.Step.SEATS_RESERVED, true, null);
+    }
+
+    SagaReply release(SeatCommand command) {
+        SeatReservation existing = seatReservationRepository.findById(command.getSagaId()).orElse(null);
+        if (existing == null) {
+            seatReservationRepository.save(reservation(command, SeatReservationStatus.RELEASED, null));
+        } else if (existing.getStatus() == SeatReservationStatus.RESERVED) {
+            inventoryService.release(existing.getEventId(), existing.getQuantity(), existing.getUserName());
+            existing.setStatus(SeatReservationStatus.RELEASED);
+            seatReservationRepository.save(existing);
+        }
+        return reply(command, SagaReply.Step.SEATS_RELEASED, true, null);
+    }
+
+    void releaseHold(SeatCommand command) {
+        if (seatReservationRepository.existsById(command.getSagaId())) {
+            return;
+        }
+        // Recorded first: a crash before the release loses the seats rather than releasing them twice
+        seatReservationRepository.save(reservation(command, SeatReservationStatus.RELEASED, null));
+        try {
+            inventoryService.release(command.getEventId(), command.getQuantity(), command.getUserName());
+        } catch (NotFoundException ex) {
+            log.info("Event {} of expired hold {} no longer exists", command.getEventId(), command.getSagaId());
+        }
+    }
+
+    private void sendReply(SagaReply reply) {
+        sagaReplyKafkaTemplate.send(SagaTopics.REPLIES, String.valueOf(reply.getSagaId()), reply).join();
+    }
+
+    private static SeatReservation reservation(SeatCommand command, SeatReservationStatus status, String message) {
+        return SeatReservation.builder()
+                .sagaId(command.getSagaId())
+                .eventId(command.getEventId())
+                .quantity(command.getQuantity())
+                .userName(command.getUserName())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private static SagaReply reply(SeatCommand command, SagaReply.Step step, boolean success, String message) {
+        return SagaReply.builder()
+                .sagaId(command.getSagaId())
+                .step(step)
+                .success(success)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.eventbooking.event_service.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one.
+ * <p>
+ * The first caller for a key runs the call; callers arriving while it runs wait for it and get its
+ * result, or its exception. Nothing is kept once the call completes, so the next caller runs the
+ * call again: this only removes duplicate work, it is not a cache. </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ */
+public final class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs a call, or waits for the one already running for the same key.
+     *
+     * @param key the key identifying identical calls
+     * @param call the call
+     * @return the result of the call
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            return await(running);
+        }
+        V result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error ex) {
+            inFlight.remove(key, pending);
+            pending.completeExceptionally(ex);
+            throw ex;
+        }
+        // Unregistered first, so that callers arriving from now on run a fresh call
+        // rather than spinning on a completed one until this thread gets to remove it
+        inFlight.remove(key, pending);
+        pending.complete(result);
+        return result;
+    }
+
+    /**
+     * @return the number of calls running
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.eventbooking.event_service.service;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A ticket counter split into N stripes, each updated with compare-and-set.
+ * <p>
+ * Callers are routed to a home stripe by a hint (the hash of the booking user), so concurrent
+ * reservations on a hot event mostly touch different cache lines. When the home stripe runs dry,
+ * the reservation borrows from sibling stripes. </p>
+ * <p>
+ * A counter is never resized in place: {@link #retireInto(StripedCounter, boolean)} hands its
+ * tickets over to a successor, and any update that lands on the retired counter afterwards is
+ * forwarded, so no ticket is lost while the owner swaps counters. </p>
+ */
+public final class StripedCounter {
+    /**
+     * 16 ints = 64 bytes, so two stripes never share a cache line.
+     */
+    private static final int PADDING = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+    private final int padding;
+    private volatile StripedCounter successor;
+
+    private StripedCounter(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("A counter needs at least one stripe, got : " + stripes);
+        }
+        this.stripes = stripes;
+        this.padding = stripes == 1 ? 1 : PADDING;
+        this.cells = new AtomicIntegerArray(stripes * padding);
+    }
+
+    /**
+     * Creates a counter spreading {@code total} as evenly as possible over {@code stripes} stripes.
+     */
+    public static StripedCounter of(int total, int stripes) {
+        StripedCounter counter = new StripedCounter(stripes);
+        for (int i = 0; i < stripes; i++) {
+            counter.cells.set(i * counter.padding, total / stripes + (i < total % stripes ? 1 : 0));
+        }
+        return counter;
+    }
+
+    /**
+     * Creates a counter from the persisted value of each stripe.
+     */
+    public static StripedCounter fromStripes(int[] values) {
+        StripedCounter counter = new StripedCounter(values.length);
+        for (int i = 0; i < values.length; i++) {
+            counter.cells.set(i * counter.padding, values[i]);
+        }
+        return counter;
+    }
+
+    public int stripes() {
+        return stripes;
+    }
+
+    /**
+     * Takes {@code quantity} tickets, starting from the home stripe of {@code hint} and borrowing
+     * from siblings when it runs dry.
+     *
+     * @return {@code true} if the tickets were taken, {@code false} if fewer were left
+     */
+    public boolean tryTake(int hint, int quantity) {
+        int home = Math.floorMod(hint, stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (takeExactly((home + i) % stripes, quantity)) {
+                return true;
+            }
+        }
+        if (stripes > 1 && takeAcrossStripes(home, quantity)) {
+            return true;
+        }
+        StripedCounter next = successor;
+        return next != null && next.tryTake(hint, quantity);
+    }
+
+    /**
+     * Adds {@code quantity} tickets to the home stripe of {@code hint}.
+     */
+    public void add(int hint, int quantity) {
+        int stripe = Math.floorMod(hint, stripes);
+        cells.addAndGet(stripe * padding, quantity);
+        forwardIfRetired(stripe);
+    }
+
+    /**
+     * Folds the stripes into the total number of tickets left.
+     */
+    public int sum() {
+        int sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * padding);
+        }
+        StripedCounter next = successor;
+        return next != null ? sum + next.sum() : sum;
+    }
+
+    /**
+     * Returns the current value of each stripe.
+     */
+    public int[] snapshot() {
+        int[] values = new int[stripes];
+        for (int i = 0; i < stripes; i++) {
+            values[i] = cells.get(i * padding);
+        }
+        return values;
+    }
+
+    /**
+     * Retires this counter in favour of {@code next}. Later updates on this counter are forwarded.
+     *
+     * @param next      the counter replacing this one
+     * @param carryOver whether the tickets left in this counter are moved to {@code next} or dropped
+     */
+    public void retireInto(StripedCounter next, boolean carryOver) {
+        successor = next;
+        for (int i = 0; i < stripes; i++) {
+            int moved = cells.getAndSet(i * padding, 0);
+            if (carryOver && moved > 0) {
+                next.add(i, moved);
+            }
+        }
+    }
+
+    private boolean takeExactly(int stripe, int quantity) {
+        int index = stripe * padding;
+        int current;
+        do {
+            current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!cells.compareAndSet(index, current, current - quantity));
+        return true;
+    }
+
+    private boolean takeAcrossStripes(int home, int quantity) {
+        int[] taken = new int[stripes];
+        int remaining = quantity;
+        for (int i = 0; i < stripes && remaining > 0; i++) {
+            int stripe = (home + i) % stripes;
+            int index = stripe * padding;
+            int current;
+            int share;
+            do {
+                current = cells.get(index);
+                share = Math.min(current, remaining);
+            } while (share > 0 && !cells.compareAndSet(index, current, current - share));
+            if (share > 0) {
+                taken[stripe] = share;
+                remaining -= share;
+            }
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            if (taken[stripe] > 0) {
+                cells.addAndGet(stripe * padding, taken[stripe]);
+                forwardIfRetired(stripe);
+            }
+        }
+        return false;
+    }
+
+    private void forwardIfRetired(int stripe) {
+        StripedCounter next = successor;
+        if (next != null) {
+            int moved = cells.getAndSet(stripe * padding, 0);
+            if (moved > 0) {
+                next.add(stripe, moved);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+-- Schema of the event service, as mapped by its entities. IDs are allocated by 50 from the sequences.
+
+create sequence sequence_generator start with 1 increment by 50;
+create sequence stripe_sequence_generator start with 1 increment by 50;
+
+create table event (
+    id bigint not null,
+    name varchar(100) not null,
+    location varchar(255) not null,
+    date date not null,
+    tickets_available integer not null,
+    created_at timestamp(6),
+    version bigint default 0 not null,
+    primary key (id),
+    constraint uk_event_name unique (name)
+);
+
+-- Date-range queries, over all locations and by location
+create index idx_event_date_id on event (date, id);
+create index idx_event_location_date_id on event (location, date, id);
+
+create table event_inventory_stripe (
+    id bigint not null,
+    event_id bigint not null,
+    stripe_index integer not null,
+    tickets_available integer not null,
+    primary key (id),
+    constraint uk_event_inventory_stripe unique (event_id, stripe_index)
+);
+
+create table saga_seat_reservation (
+    saga_id bigint not null,
+    event_id bigint not null,
+    quantity integer not null,
+    username varchar(255),
+    status varchar(255) not null check (status in ('RESERVED','REJECTED','RELEASED')),
+    message varchar(255),
+    primary key (saga_id)
+);
@@ -0,0 +1,39 @@
+package com.eventbooking.event_service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the prod profile on H2 in PostgreSQL mode, with the schema created by the migration instead
+ * of Hibernate, which then validates the entities against it.
+ */
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.url=jdbc:h2:mem:event-prod-schema-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;IGNORE_UNKNOWN_SETTINGS=TRUE",
+		"spring.datasource.username=sa",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:db/migration/V1__create_schema.sql",
+		"spring.kafka.listener.auto-startup=false",
+		"eureka.client.enabled=false"
+})
+class ProdProfileSchemaTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void migrationCreatesTheIndexesOfTheDateRanges() {
+		List<String> indexes = jdbcTemplate.queryForList(
+				"SELECT index_name FROM information_schema.indexes WHERE table_name = 'event'", String.class);
+
+		assertThat(indexes).contains("idx_event_date_id", "idx_event_location_date_id");
+	}
+}
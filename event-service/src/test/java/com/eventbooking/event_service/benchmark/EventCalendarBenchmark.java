@@ -0,0 +1,195 @@
+package com.eventbooking.event_service.benchmark;
+
+import com.eventbooking.event_service.service.EventCalendar;
+import com.eventbooking.event_service.service.EventSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the first page of 20 events of a date range through the calendar with the same keyset
+ * query on an H2 event table, with the (date, id) and (location, date, id) indexes and without them.
+ * <p>
+ * The events are spread over 365 days and 50 locations, so a location holds about 55 events a day.
+ * A range query is a random week over all locations; a location query a random month of one location.
+ * Run with {@code mvn -pl event-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.event_service.benchmark.EventCalendarBenchmark}. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EventCalendarBenchmark {
+    private static final int DAYS = 365;
+    private static final int LOCATIONS = 50;
+    private static final int PAGE_SIZE = 20;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+    private static final String RANGE = "SELECT id, name, location, date FROM %s WHERE date >= ? AND date <= ? "
+            + "AND (date > ? OR (date = ? AND id > ?)) ORDER BY date, id LIMIT " + PAGE_SIZE;
+    private static final String LOCATION_RANGE = "SELECT id, name, location, date FROM %s WHERE location = ? AND date >= ? AND date <= ? "
+            + "AND (date > ? OR (date = ? AND id > ?)) ORDER BY date, id LIMIT " + PAGE_SIZE;
+
+    @Param({"1000000"})
+    public int events;
+
+    private EventCalendar calendar;
+    private Connection connection;
+    private PreparedStatement indexedRange;
+    private PreparedStatement indexedLocationRange;
+    private PreparedStatement scannedRange;
+    private PreparedStatement scannedLocationRange;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        calendar = new EventCalendar(FIRST_DAY);
+        for (int id = 1; id <= events; id++) {
+            calendar.put(new EventSearchIndex.Document(id, "event " + id, location(id), date(id), null));
+        }
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:event-calendar-benchmark;DB_CLOSE_DELAY=-1");
+        createTable("event_indexed");
+        createTable("event_scanned");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX idx_event_date_id ON event_indexed (date, id)");
+            statement.execute("CREATE INDEX idx_event_location_date_id ON event_indexed (location, date, id)");
+        }
+        indexedRange = connection.prepareStatement(RANGE.formatted("event_indexed"));
+        indexedLocationRange = connection.prepareStatement(LOCATION_RANGE.formatted("event_indexed"));
+        scannedRange = connection.prepareStatement(RANGE.formatted("event_scanned"));
+        scannedLocationRange = connection.prepareStatement(LOCATION_RANGE.formatted("event_scanned"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE event_indexed");
+            statement.execute("DROP TABLE event_scanned");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<EventSearchIndex.Document> calendarWeek() {
+        LocalDate from = randomDay();
+        return calendar.range(null, from, 0, from.plusDays(6), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public long indexedSqlWeek() throws SQLException {
+        return range(indexedRange, 1, randomDay(), 6);
+    }
+
+    @Benchmark
+    public long scannedSqlWeek() throws SQLException {
+        return range(scannedRange, 1, randomDay(), 6);
+    }
+
+    @Benchmark
+    public List<EventSearchIndex.Document> calendarLocationMonth() {
+        LocalDate from = randomDay();
+        return calendar.range(randomLocation(), from, 0, from.plusDays(29), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public long indexedSqlLocationMonth() throws SQLException {
+        indexedLocationRange.setString(1, randomLocation());
+        return range(indexedLocationRange, 2, randomDay(), 29);
+    }
+
+    @Benchmark
+    public long scannedSqlLocationMonth() throws SQLException {
+        scannedLocationRange.setString(1, randomLocation());
+        return range(scannedLocationRange, 2, randomDay(), 29);
+    }
+
+    private void createTable(String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+                    + "location VARCHAR(255) NOT NULL, date DATE NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " VALUES (?, ?, ?, ?)")) {
+            for (int id = 1; id <= events; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "event " + id);
+                insert.setString(3, location(id));
+                insert.setObject(4, date(id));
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Binds the range parameters from the given index and counts the rows of the first page.
+     */
+    private static long range(PreparedStatement query, int first, LocalDate from, int days) throws SQLException {
+        query.setObject(first, from);
+        query.setObject(first + 1, from.plusDays(days));
+        query.setObject(first + 2, from);
+        query.setObject(first + 3, from);
+        query.setLong(first + 4, 0);
+        long rows = 0;
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static LocalDate randomDay() {
+        return FIRST_DAY.plusDays(ThreadLocalRandom.current().nextInt(DAYS));
+    }
+
+    private static String randomLocation() {
+        return "city " + ThreadLocalRandom.current().nextInt(LOCATIONS);
+    }
+
+    private static String location(int id) {
+        return "city " + (id / DAYS % LOCATIONS);
+    }
+
+    private static LocalDate date(int id) {
+        return FIRST_DAY.plusDays(id % DAYS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventCalendarBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
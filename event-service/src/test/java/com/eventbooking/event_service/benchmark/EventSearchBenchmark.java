@@ -0,0 +1,169 @@
+package com.eventbooking.event_service.benchmark;
+
+import com.eventbooking.event_service.service.EventSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares looking events up through the search index with the query it replaces,
+ * {@code LOWER(name) = LOWER(?)} on an H2 event table, which scans the table whatever its indexes.
+ * <p>
+ * Event names are two words out of 200 each and a number, so a word is shared by about 0.5% of the
+ * events. A typeahead query is a first word and the start of a second one, as typed; the SQL
+ * equivalent is a {@code LIKE} on the lower-cased name. Run with {@code mvn -pl event-service
+ * test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.event_service.benchmark.EventSearchBenchmark}. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EventSearchBenchmark {
+    private static final int WORDS = 200;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+    @Param({"100000", "1000000"})
+    public int events;
+
+    private final String[] words = IntStream.range(0, WORDS).mapToObj(EventSearchBenchmark::word).toArray(String[]::new);
+    private EventSearchIndex index;
+    private List<String> names;
+    private Connection connection;
+    private PreparedStatement byName;
+    private PreparedStatement byPrefix;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        names = new ArrayList<>(events);
+        for (int id = 0; id < events; id++) {
+            names.add(words[id % WORDS] + " " + words[(id / WORDS) % WORDS] + " " + id);
+        }
+        index = new EventSearchIndex();
+        index.rebuild(IntStream.range(0, events).mapToObj(id -> new EventSearchIndex.Document(
+                id, names.get(id), "city " + words[id % 50], FIRST_DAY.plusDays(id % 365), null)));
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:event-search-benchmark;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS event");
+            statement.execute("CREATE TABLE event (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL UNIQUE, "
+                    + "location VARCHAR(255) NOT NULL, date DATE NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO event VALUES (?, ?, ?, ?)")) {
+            for (int id = 0; id < events; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, names.get(id));
+                insert.setString(3, "city " + words[id % 50]);
+                insert.setObject(4, FIRST_DAY.plusDays(id % 365));
+                insert.addBatch();
+                if (id % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        byName = connection.prepareStatement("SELECT id, name, location, date FROM event WHERE LOWER(name) = LOWER(?)");
+        byPrefix = connection.prepareStatement("SELECT id, name, location, date FROM event WHERE LOWER(name) LIKE LOWER(?) LIMIT 20");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE event");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public Long indexExactName() {
+        return index.findByName(randomName().toUpperCase());
+    }
+
+    @Benchmark
+    public long sqlExactName() throws SQLException {
+        byName.setString(1, randomName().toUpperCase());
+        return count(byName);
+    }
+
+    @Benchmark
+    public EventSearchIndex.Result indexTypeahead() {
+        return index.search(randomTypeahead(), null, null, 0, 20);
+    }
+
+    @Benchmark
+    public long sqlTypeahead() throws SQLException {
+        byPrefix.setString(1, randomTypeahead() + "%");
+        return count(byPrefix);
+    }
+
+    private String randomName() {
+        return names.get(ThreadLocalRandom.current().nextInt(events));
+    }
+
+    private String randomTypeahead() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)].substring(0, 3);
+    }
+
+    private static long count(PreparedStatement query) throws SQLException {
+        long rows = 0;
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * A pronounceable word of 3 syllables, distinct for each i below 343000.
+     */
+    private static String word(int i) {
+        String consonants = "bdfgklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder word = new StringBuilder();
+        for (int syllable = 0; syllable < 3; syllable++) {
+            word.append(consonants.charAt(i % consonants.length())).append(vowels.charAt((i / consonants.length()) % vowels.length()));
+            i /= consonants.length() * vowels.length();
+        }
+        return word.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventSearchBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.eventbooking.event_service.benchmark;
+
+import com.eventbooking.event_service.service.SingleFlight;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Looks up one event from 500 concurrent bookings, as during an on-sale, with and without
+ * coalescing the lookups.
+ * <p>
+ * The lookup stands for the event query: it takes {@code queryMicros} and at most
+ * {@code connections} run at once, like a connection pool. The sampled latency gives the p99 of
+ * a lookup, and the {@code downstreamCalls} counter the number of queries actually run.
+ * Run with {@code mvn -pl event-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.event_service.benchmark.SingleFlightBenchmark}. </p>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(500)
+@State(Scope.Benchmark)
+public class SingleFlightBenchmark {
+    private static final Long EVENT_ID = 1L;
+
+    @Param({"false", "true"})
+    public boolean coalesce;
+
+    @Param({"2000"})
+    public int queryMicros;
+
+    @Param({"10"})
+    public int connections;
+
+    private SingleFlight<Long, String> singleFlight;
+    private Semaphore pool;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        singleFlight = new SingleFlight<>();
+        pool = new Semaphore(connections, true);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Downstream {
+        public long downstreamCalls;
+    }
+
+    @Benchmark
+    public String lookUpEvent(Downstream downstream) {
+        if (coalesce) {
+            return singleFlight.execute(EVENT_ID, () -> query(downstream));
+        }
+        return query(downstream);
+    }
+
+    private String query(Downstream downstream) {
+        pool.acquireUninterruptibly();
+        try {
+            downstream.downstreamCalls++;
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(queryMicros));
+            return "event " + EVENT_ID;
+        } finally {
+            pool.release();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SingleFlightBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
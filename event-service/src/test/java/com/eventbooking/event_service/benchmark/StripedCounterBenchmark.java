@@ -0,0 +1,72 @@
+package com.eventbooking.event_service.benchmark;
+
+import com.eventbooking.event_service.service.StripedCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reservations on a single hot event counter split into 1, 16 and 64 stripes.
+ * <p>
+ * Run with {@code mvn -pl event-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.event_service.benchmark.StripedCounterBenchmark}, which
+ * repeats the benchmark with 8, 16, 32 and 64 threads. </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StripedCounterBenchmark {
+
+    @Param({"1", "16", "64"})
+    public int stripes;
+
+    private StripedCounter counter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        counter = StripedCounter.of(Integer.MAX_VALUE, stripes);
+    }
+
+    @State(Scope.Thread)
+    public static class User {
+        int hint;
+
+        @Setup
+        public void setUp() {
+            hint = ("user-" + ThreadLocalRandom.current().nextInt()).hashCode();
+        }
+    }
+
+    @Benchmark
+    public boolean reserve(User user) {
+        return counter.tryTake(user.hint, 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{8, 16, 32, 64}) {
+            new Runner(new OptionsBuilder()
+                    .include(StripedCounterBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+}
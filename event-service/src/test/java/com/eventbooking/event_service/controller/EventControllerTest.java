@@ -0,0 +1,187 @@
+package com.eventbooking.event_service.controller;
+
+import com.eventbooking.event_service.dto.EventDto;
+import com.eventbooking.event_service.dto.InventoryDto;
+import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.repository.EventRepository;
+import com.eventbooking.event_service.service.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:event-controller-test",
+		"spring.kafka.listener.auto-startup=false",
+		"eureka.client.enabled=false"
+})
+@AutoConfigureMockMvc
+class EventControllerTest {
+
+	private static final long UNKNOWN_EVENT = 999_999L;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EventRepository eventRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private Long plenty;
+	private Long scarce;
+
+	@BeforeEach
+	void setUp() {
+		plenty = event(10).getId();
+		scarce = event(1).getId();
+	}
+
+	@Test
+	void reservationsOfABatchAreAppliedOneByOne() throws Exception {
+		List<InventoryDto> reservations = List.of(
+				change(plenty, 3),
+				change(scarce, 2),
+				change(UNKNOWN_EVENT, 1),
+				change(plenty, null),
+				change(plenty, 0),
+				change(scarce, 1));
+
+		mockMvc.perform(post("/api/events/reserve")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(reservations)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(6)))
+				.andExpect(jsonPath("$[0].applied").value(true))
+				.andExpect(jsonPath("$[0].ticketsAvailable").value(7))
+				.andExpect(jsonPath("$[1].applied").value(false))
+				.andExpect(jsonPath("$[1].message").value(containsString("Only 1 tickets left")))
+				.andExpect(jsonPath("$[2].applied").value(false))
+				.andExpect(jsonPath("$[2].message").value(containsString(String.valueOf(UNKNOWN_EVENT))))
+				.andExpect(jsonPath("$[3].applied").value(false))
+				.andExpect(jsonPath("$[4].applied").value(false))
+				.andExpect(jsonPath("$[4].message").value(containsString("must be positive")))
+				// The failures before it took nothing from the event
+				.andExpect(jsonPath("$[5].applied").value(true))
+				.andExpect(jsonPath("$[5].ticketsAvailable").value(0));
+	}
+
+	@Test
+	void releasesOfABatchAreAppliedOneByOne() throws Exception {
+		mockMvc.perform(post("/api/events/{eventId}/reserve", plenty).param("quantity", "4"))
+				.andExpect(status().isOk());
+		List<InventoryDto> releases = List.of(
+				change(plenty, 4),
+				change(UNKNOWN_EVENT, 1),
+				change(plenty, -1));
+
+		mockMvc.perform(post("/api/events/release")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(releases)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].applied").value(true))
+				.andExpect(jsonPath("$[0].ticketsAvailable").value(10))
+				.andExpect(jsonPath("$[1].applied").value(false))
+				.andExpect(jsonPath("$[2].applied").value(false));
+	}
+
+	@Test
+	void lookupReturnsTheEventsFound() throws Exception {
+		mockMvc.perform(post("/api/events/lookup")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(List.of(plenty, UNKNOWN_EVENT, scarce))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].id", containsInAnyOrder(plenty.intValue(), scarce.intValue())));
+
+		mockMvc.perform(get("/api/events").param("ids", plenty + "," + scarce))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)));
+	}
+
+	@Test
+	void lookupOfMoreThanAThousandEventsIsRejected() throws Exception {
+		List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+
+		mockMvc.perform(post("/api/events/lookup")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(ids)))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void conditionalReadOfAnUnchangedEventIsNotModified() throws Exception {
+		String eTag = mockMvc.perform(get("/api/events/{eventId}", plenty))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/api/events/{eventId}", plenty).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	void conditionalReadAfterAReservationGetsTheNewState() throws Exception {
+		String eTag = mockMvc.perform(get("/api/events/{eventId}", plenty))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(post("/api/events/{eventId}/reserve", plenty).param("quantity", "2"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/events/{eventId}", plenty).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+				.andExpect(jsonPath("$.ticketsAvailable").value(8));
+	}
+
+	@Test
+	void conditionalReadOfAnEventWhoseVersionIsNotKnownIsAnsweredFromTheDatabase() throws Exception {
+		Event event = event(10);
+		String eTag = EventService.eTag(EventDto.builder()
+				.id(event.getId())
+				.version(event.getVersion())
+				.ticketsAvailable(10)
+				.build());
+
+		mockMvc.perform(get("/api/events/{eventId}", event.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified());
+	}
+
+	private Event event(int tickets) {
+		return eventRepository.save(Event.builder()
+				.name("concert " + UUID.randomUUID())
+				.location("Paris")
+				.date(LocalDate.now().plusDays(30))
+				.ticketsAvailable(tickets)
+				.build());
+	}
+
+	private static InventoryDto change(Long eventId, Integer quantity) {
+		return InventoryDto.builder()
+				.eventId(eventId)
+				.quantity(quantity)
+				.userName("alice")
+				.build();
+	}
+}
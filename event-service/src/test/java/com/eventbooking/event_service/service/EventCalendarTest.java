@@ -0,0 +1,78 @@
+package com.eventbooking.event_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventCalendarTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 6, 1);
+
+	private EventCalendar calendar;
+
+	@BeforeEach
+	void setUp() {
+		calendar = new EventCalendar(DAY);
+		calendar.put(document(4, "Lyon", DAY.plusDays(1)));
+		calendar.put(document(2, "Paris", DAY.plusDays(1)));
+		calendar.put(document(3, "Paris", DAY));
+		calendar.put(document(1, "Paris", DAY.plusDays(30)));
+	}
+
+	@Test
+	void rangeIsInDateThenIdOrder() {
+		assertThat(ids(calendar.range(null, DAY, 0, DAY.plusDays(1), 10))).containsExactly(3L, 2L, 4L);
+		assertThat(ids(calendar.range("Paris", DAY, 0, DAY.plusDays(30), 10))).containsExactly(3L, 2L, 1L);
+		assertThat(calendar.range("Nantes", DAY, 0, DAY.plusDays(30), 10)).isEmpty();
+	}
+
+	@Test
+	void nextPageCarriesOnAfterTheLastEvent() {
+		List<EventSearchIndex.Document> first = calendar.range(null, DAY, 0, DAY.plusDays(30), 2);
+		EventSearchIndex.Document last = first.get(first.size() - 1);
+
+		assertThat(ids(first)).containsExactly(3L, 2L);
+		assertThat(ids(calendar.range(null, last.date(), last.id(), DAY.plusDays(30), 2))).containsExactly(4L, 1L);
+	}
+
+	@Test
+	void movedEventLeavesItsPreviousDayAndLocation() {
+		calendar.put(document(2, "Lyon", DAY.plusDays(2)));
+
+		assertThat(ids(calendar.range("Paris", DAY, 0, DAY.plusDays(30), 10))).containsExactly(3L, 1L);
+		assertThat(ids(calendar.range("Lyon", DAY, 0, DAY.plusDays(30), 10))).containsExactly(4L, 2L);
+		assertThat(calendar.size()).isEqualTo(4);
+	}
+
+	@Test
+	void eventsBeforeTheHorizonAreNotHeld() {
+		calendar.put(document(5, "Paris", DAY.minusDays(1)));
+		calendar.put(document(1, "Paris", DAY.minusDays(1)));
+
+		assertThat(ids(calendar.range(null, DAY.minusDays(1), 0, DAY.plusDays(30), 10))).containsExactly(3L, 2L, 4L);
+		assertThat(calendar.size()).isEqualTo(3);
+	}
+
+	@Test
+	void advanceDropsThePastDays() {
+		calendar.remove(4);
+
+		assertThat(calendar.advance(DAY.plusDays(2))).isEqualTo(2);
+		assertThat(calendar.horizon()).isEqualTo(DAY.plusDays(2));
+		assertThat(ids(calendar.range(null, DAY, 0, DAY.plusDays(30), 10))).containsExactly(1L);
+		assertThat(ids(calendar.range("Lyon", DAY, 0, DAY.plusDays(30), 10))).isEmpty();
+		assertThat(calendar.size()).isEqualTo(1);
+	}
+
+	private static EventSearchIndex.Document document(long id, String location, LocalDate date) {
+		return new EventSearchIndex.Document(id, "Event " + id, location, date, null);
+	}
+
+	private static List<Long> ids(List<EventSearchIndex.Document> documents) {
+		return documents.stream().map(EventSearchIndex.Document::id).toList();
+	}
+}
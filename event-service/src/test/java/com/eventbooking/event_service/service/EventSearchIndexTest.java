@@ -0,0 +1,94 @@
+package com.eventbooking.event_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSearchIndexTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 6, 1);
+
+	private EventSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new EventSearchIndex();
+		index.rebuild(Stream.of(
+				document(1, "Jazz Night", "Montréal", DAY.plusDays(10)),
+				document(2, "Jazzy Brunch", "Paris", DAY),
+				document(3, "Rock Festival", "Jazz Club, Lyon", DAY.plusDays(5)),
+				document(4, "Paris Symphony", "Philharmonie de Paris", DAY.plusDays(20))));
+	}
+
+	@Test
+	void unfinishedWordMatchesByPrefixIgnoringCaseAndAccents() {
+		assertThat(ids(index.search("MONTRE", null, null, 0, 10))).containsExactly(1L);
+		assertThat(ids(index.search("sym", null, null, 0, 10))).containsExactly(4L);
+	}
+
+	@Test
+	void wholeWordsInTheNameRankFirst() {
+		// Whole word in the name, then prefix of a word in the name, then word in the location
+		assertThat(ids(index.search("jazz", null, null, 0, 10))).containsExactly(1L, 2L, 3L);
+		assertThat(ids(index.search("paris", null, null, 0, 10))).containsExactly(4L, 2L);
+	}
+
+	@Test
+	void everyWordMustMatch() {
+		assertThat(ids(index.search("jazz par", null, null, 0, 10))).containsExactly(2L);
+		assertThat(ids(index.search("jazz opera", null, null, 0, 10))).isEmpty();
+	}
+
+	@Test
+	void datesOutsideTheRangeAreFilteredOut() {
+		EventSearchIndex.Result result = index.search("jazz", DAY.plusDays(1), DAY.plusDays(10), 0, 10);
+
+		assertThat(ids(result)).containsExactly(1L, 3L);
+		assertThat(result.total()).isEqualTo(2);
+	}
+
+	@Test
+	void pagesFollowTheRanking() {
+		EventSearchIndex.Result second = index.search("jazz", null, null, 1, 1);
+
+		assertThat(ids(second)).containsExactly(2L);
+		assertThat(second.total()).isEqualTo(3);
+		assertThat(index.search("jazz", null, null, 3, 1).documents()).isEmpty();
+	}
+
+	@Test
+	void updatesAndDeletesAreVisibleToTheNextSearch() {
+		index.put(document(1, "Blues Night", "Montréal", DAY));
+		index.remove(2);
+		index.put(document(5, "Jazz Marathon", "Berlin", DAY));
+
+		assertThat(ids(index.search("jazz", null, null, 0, 10))).containsExactly(5L, 3L);
+		assertThat(ids(index.search("blues", null, null, 0, 10))).containsExactly(1L);
+		assertThat(index.findByName(" jazz NIGHT ")).isNull();
+		assertThat(index.findByName("blues night")).isEqualTo(1L);
+		assertThat(index.size()).isEqualTo(4);
+	}
+
+	@Test
+	void tokenSharedByManyEventsIsCheckedOnTheCandidatesOfTheRarestOne() {
+		index.rebuild(LongStream.rangeClosed(1, 10_000)
+				.mapToObj(id -> document(id, "Concert " + id, id == 42 ? "Oslo" : "Berlin", DAY)));
+
+		assertThat(ids(index.search("concert osl", null, null, 0, 10))).containsExactly(42L);
+		assertThat(index.search("concert", null, null, 0, 10).total()).isEqualTo(10_000);
+	}
+
+	private static List<Long> ids(EventSearchIndex.Result result) {
+		return result.documents().stream().map(EventSearchIndex.Document::id).toList();
+	}
+
+	private static EventSearchIndex.Document document(long id, String name, String location, LocalDate date) {
+		return new EventSearchIndex.Document(id, name, location, date, null);
+	}
+}
@@ -0,0 +1,153 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.exceptionshandler.InsufficientTicketsException;
+import com.eventbooking.event_service.exceptionshandler.NotFoundException;
+import com.eventbooking.event_service.repository.EventRepository;
+import com.eventbooking.event_service.repository.InventoryStripeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTest {
+
+	private Event event;
+	private EventRepository eventRepository;
+	private InventoryService inventoryService;
+
+	@BeforeEach
+	void setUp() {
+		event = Event.builder()
+				.id(1L)
+				.name("On sale")
+				.location("Paris")
+				.date(LocalDate.now())
+				.ticketsAvailable(1_000)
+				.build();
+		eventRepository = mock(EventRepository.class);
+		when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+		when(eventRepository.findAllById(anyIterable())).thenReturn(List.of(event));
+		inventoryService = new InventoryService(eventRepository, mock(InventoryStripeRepository.class),
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), 500, 64);
+	}
+
+	@Test
+	void concurrentReservationsNeverOversell() throws InterruptedException {
+		reserveConcurrently();
+	}
+
+	@Test
+	void concurrentReservationsOnStripedEventNeverOversell() throws InterruptedException {
+		inventoryService.restripe(1L, 16);
+
+		reserveConcurrently();
+	}
+
+	@Test
+	void reservationBorrowsFromSiblingStripes() {
+		inventoryService.restripe(1L, 64);
+
+		inventoryService.reserve(1L, 990, "alice");
+
+		assertThat(inventoryService.available(event)).isEqualTo(10);
+		assertThatThrownBy(() -> inventoryService.reserve(1L, 11, "bob"))
+				.isInstanceOf(InsufficientTicketsException.class);
+		assertThat(inventoryService.available(event)).isEqualTo(10);
+	}
+
+	private void reserveConcurrently() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger reserved = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		for (int i = 0; i < 1_500; i++) {
+			executor.submit(() -> {
+				start.await();
+				try {
+					inventoryService.reserve(1L, 1, "user-" + ThreadLocalRandom.current().nextInt(100));
+					reserved.incrementAndGet();
+				} catch (InsufficientTicketsException ex) {
+					rejected.incrementAndGet();
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(reserved.get()).isEqualTo(1_000);
+		assertThat(rejected.get()).isEqualTo(500);
+		assertThat(inventoryService.available(event)).isZero();
+	}
+
+	@Test
+	void flushWritesCountersBackToTheEvent() {
+		inventoryService.reserve(1L, 3, "alice");
+		inventoryService.release(1L, 1, "alice");
+
+		inventoryService.flush();
+
+		assertThat(event.getTicketsAvailable()).isEqualTo(998);
+	}
+
+	@Test
+	void restripeRacingTheDeletionOfItsEventNeitherFailsNorBringsItBack() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AtomicBoolean deleted = new AtomicBoolean();
+		AtomicReference<Future<?>> deletion = new AtomicReference<>();
+		// The event is deleted while restripe loads its counter, so that the eviction runs as soon as it is loaded
+		when(eventRepository.findById(1L)).thenAnswer(invocation -> {
+			if (deleted.get()) {
+				return Optional.empty();
+			}
+			deletion.set(executor.submit(() -> {
+				deleted.set(true);
+				inventoryService.evict(1L);
+			}));
+			return Optional.of(event);
+		});
+		try {
+			for (int i = 0; i < 1_000; i++) {
+				deleted.set(false);
+				try {
+					inventoryService.restripe(1L, 8);
+				} catch (NotFoundException ex) {
+					// Evicted before the counter was split
+				}
+				deletion.get().get(10, TimeUnit.SECONDS);
+
+				assertThat(inventoryService.trackedAvailable(1L)).isNull();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void reserveMoreThanAvailableIsRejected() {
+		assertThatThrownBy(() -> inventoryService.reserve(1L, 1_001, "alice"))
+				.isInstanceOf(InsufficientTicketsException.class);
+		assertThat(inventoryService.available(event)).isEqualTo(1_000);
+	}
+}
@@ -0,0 +1,158 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.common.saga.SagaReply;
+import com.eventbooking.common.saga.SeatCommand;
+import com.eventbooking.event_service.constants.SeatReservationStatus;
+import com.eventbooking.event_service.entities.Event;
+import com.eventbooking.event_service.entities.SeatReservation;
+import com.eventbooking.event_service.repository.EventRepository;
+import com.eventbooking.event_service.repository.InventoryStripeRepository;
+import com.eventbooking.event_service.repository.SeatReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SeatCommandHandlerTest {
+
+	private static final long EVENT_ID = 1L;
+
+	private final Map<Long, SeatReservation> reservations = new HashMap<>();
+	private final List<SagaReply> replies = new CopyOnWriteArrayList<>();
+	private InventoryService inventoryService;
+	private SeatCommandHandler handler;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		Event event = Event.builder()
+				.id(EVENT_ID)
+				.name("On sale")
+				.location("Paris")
+				.date(LocalDate.now())
+				.ticketsAvailable(10)
+				.build();
+		EventRepository eventRepository = mock(EventRepository.class);
+		when(eventRepository.findById(EVENT_ID)).thenReturn(Optional.of(event));
+		when(eventRepository.findAllById(anyIterable())).thenReturn(List.of(event));
+		inventoryService = new InventoryService(eventRepository, mock(InventoryStripeRepository.class),
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), 500, 64);
+
+		// Backed by a map, so that the outcome of a saga survives between commands
+		SeatReservationRepository seatReservationRepository = mock(SeatReservationRepository.class);
+		when(seatReservationRepository.findById(anyLong()))
+				.thenAnswer(invocation -> Optional.ofNullable(reservations.get(invocation.<Long>getArgument(0))));
+		when(seatReservationRepository.existsById(anyLong()))
+				.thenAnswer(invocation -> reservations.containsKey(invocation.<Long>getArgument(0)));
+		when(seatReservationRepository.save(any(SeatReservation.class))).thenAnswer(invocation -> {
+			SeatReservation reservation = invocation.getArgument(0);
+			reservations.put(reservation.getSagaId(), reservation);
+			return reservation;
+		});
+
+		KafkaTemplate<String, SagaReply> sagaReplyKafkaTemplate = mock(KafkaTemplate.class);
+		when(sagaReplyKafkaTemplate.send(anyString(), anyString(), any(SagaReply.class))).thenAnswer(invocation -> {
+			replies.add(invocation.getArgument(2));
+			return CompletableFuture.completedFuture(null);
+		});
+		handler = new SeatCommandHandler(inventoryService, seatReservationRepository, sagaReplyKafkaTemplate);
+	}
+
+	@Test
+	void redeliveredReservationTakesTheSeatsOnce() {
+		handler.onCommand(command(7L, SeatCommand.Action.RESERVE, 3));
+		handler.onCommand(command(7L, SeatCommand.Action.RESERVE, 3));
+
+		assertThat(inventoryService.trackedAvailable(EVENT_ID)).isEqualTo(7);
+		assertThat(replies).hasSize(2).allSatisfy(reply -> {
+			assertThat(reply.getStep()).isEqualTo(SagaReply.Step.SEATS_RESERVED);
+			assertThat(reply.isSuccess()).isTrue();
+		});
+	}
+
+	@Test
+	void redeliveredRejectionGetsTheSameReply() {
+		handler.onCommand(command(7L, SeatCommand.Action.RESERVE, 11));
+		handler.onCommand(command(7L, SeatCommand.Action.RESERVE, 11));
+
+		assertThat(inventoryService.trackedAvailable(EVENT_ID)).isEqualTo(10);
+		assertThat(replies).hasSize(2).allSatisfy(reply -> assertThat(reply.isSuccess()).isFalse());
+		assertThat(replies.get(1).getMessage()).isEqualTo(replies.get(0).getMessage());
+	}
+
+	@Test
+	void releaseGivesTheReservedSeatsBackOnce() {
+		handler.onCommand(command(7L, SeatCommand.Action.RESERVE, 3));
+		handler.onCommand(command(7L, SeatCommand.Action.RELEASE, 3));
+		handler.onCommand(command(7L, SeatCommand.Action.RELEASE, 3));
+
+		assertThat(inventoryService.trackedAvailable(EVENT_ID)).isEqualTo(10);
+		assertThat(replies).extracting(SagaReply::getStep)
+				.containsExactly(SagaReply.Step.SEATS_RESERVED, SagaReply.Step.SEATS_RELEASED, SagaReply.Step.SEATS_RELEASED);
+		assertThat(replies).allMatch(SagaReply::isSuccess);
+	}
+
+	@Test
+	void reservationArrivingAfterItsReleaseIsRejected() {
+		handler.onCommand(command(7L, SeatCommand.Action.RELEASE, 3));
+		handler.onCommand(command(7L, SeatCommand.Action.RESERVE, 3));
+
+		assertThat(inventoryService.trackedAvailable(EVENT_ID)).isNull();
+		assertThat(reservations.get(7L).getStatus()).isEqualTo(SeatReservationStatus.RELEASED);
+		assertThat(replies.get(0).getStep()).isEqualTo(SagaReply.Step.SEATS_RELEASED);
+		assertThat(replies.get(1).getStep()).isEqualTo(SagaReply.Step.SEATS_RESERVED);
+		assertThat(replies.get(1).isSuccess()).isFalse();
+	}
+
+	@Test
+	void releasesTheSeatsOfAnExpiredHoldOnce() {
+		inventoryService.reserve(EVENT_ID, 3, "alice");
+
+		handler.onCommand(command(42L, SeatCommand.Action.RELEASE_HOLD, 3));
+		handler.onCommand(command(42L, SeatCommand.Action.RELEASE_HOLD, 3));
+
+		assertThat(inventoryService.trackedAvailable(EVENT_ID)).isEqualTo(10);
+		assertThat(reservations.get(42L).getStatus()).isEqualTo(SeatReservationStatus.RELEASED);
+		assertThat(replies).isEmpty();
+	}
+
+	@Test
+	void releaseOfAHoldForADeletedEventIsRecorded() {
+		handler.onCommand(SeatCommand.builder()
+				.sagaId(42L)
+				.action(SeatCommand.Action.RELEASE_HOLD)
+				.eventId(99L)
+				.quantity(3)
+				.userName("alice")
+				.build());
+
+		assertThat(reservations.get(42L).getStatus()).isEqualTo(SeatReservationStatus.RELEASED);
+	}
+
+	private static SeatCommand command(long sagaId, SeatCommand.Action action, int quantity) {
+		return SeatCommand.builder()
+				.sagaId(sagaId)
+				.action(action)
+				.eventId(EVENT_ID)
+				.quantity(quantity)
+				.userName("alice")
+				.build();
+	}
+}
@@ -0,0 +1,82 @@
+package com.eventbooking.event_service.service;
+
+import com.eventbooking.event_service.exceptionshandler.NotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+	private static final int CALLERS = 32;
+
+	private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+	@Test
+	void concurrentCallsForTheSameKeyShareOneCall() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < CALLERS; i++) {
+				results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+					calls.incrementAndGet();
+					await(release);
+					return "concert";
+				})));
+			}
+			// Holds the call until every other caller has joined it
+			while (singleFlight.inFlight() == 0) {
+				Thread.onSpinWait();
+			}
+			Thread.sleep(100);
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("concert");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(calls).hasValue(1);
+		assertThat(singleFlight.inFlight()).isZero();
+	}
+
+	@Test
+	void failureIsSharedAndNotKept() {
+		assertThatThrownBy(() -> singleFlight.execute(1L, () -> {
+			throw new NotFoundException("There no event with id : 1");
+		})).isInstanceOf(NotFoundException.class);
+
+		assertThat(singleFlight.execute(1L, () -> "concert")).isEqualTo("concert");
+	}
+
+	@Test
+	void sequentialCallsRunEachTime() {
+		AtomicInteger calls = new AtomicInteger();
+
+		singleFlight.execute(1L, () -> "call " + calls.incrementAndGet());
+		String second = singleFlight.execute(1L, () -> "call " + calls.incrementAndGet());
+
+		assertThat(second).isEqualTo("call 2");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -1,36 +1,130 @@
 package com.eventbooking.config;
 
-import com.eventbooking.BookingEvent;
+import com.eventbooking.common.event.BookingEvent;
+import com.eventbooking.common.serialization.BookingEventCodec;
+import com.eventbooking.common.serialization.BookingEventDeserializer;
+import com.eventbooking.common.serialization.BookingEventSerializer;
+import com.eventbooking.common.serialization.FileSchemaRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaConsumerConfig {
+    /**
+     * Topic of the notifications the sink could not deliver
+     */
+    public static final String DEAD_LETTER_TOPIC = "notification-dlt";
 
     /**
      * Creates a Kafka ConsumerFactory for consuming BookingEvent messages.
+     * Messages are deserialized once, by the consumer: binary messages with the schema named in their
+     * header, and JSON messages published before the binary format with the shared ObjectMapper. A message
+     * that cannot be read reaches the listener with a null value instead of failing the whole poll.
      *
+     * @param bootstrapServers The Kafka brokers.
+     * @param maxPollRecords The maximum number of messages handed to the listener in one batch.
+     * @param objectMapper The ObjectMapper used to read JSON messages.
      * @return A ConsumerFactory configured with Kafka properties and deserializers.
      */
     @Bean
-    public ConsumerFactory<String, BookingEvent> consumerFactory() {
+    public ConsumerFactory<String, BookingEvent> consumerFactory(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+            @Value("${notification.consumer.max-poll-records:500}") int maxPollRecords,
+            ObjectMapper objectMapper) {
         Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "notificationId");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        BookingEventDeserializer deserializer = new BookingEventDeserializer(
+                new BookingEventCodec(FileSchemaRegistry.defaultRegistry()), objectMapper);
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ErrorHandlingDeserializer<>(deserializer));
+    }
 
+    /**
+     * Creates the KafkaTemplate publishing the notifications that could not be delivered to the dead letter
+     * topic, in the binary format they were consumed in.
+     *
+     * @param bootstrapServers The Kafka brokers.
+     * @return A KafkaTemplate of BookingEvent messages.
+     */
+    @Bean
+    public KafkaTemplate<String, BookingEvent> deadLetterKafkaTemplate(@Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new BookingEventSerializer()));
+    }
 
-        JsonDeserializer<BookingEvent> deserializer = new JsonDeserializer<>(BookingEvent.class);
-        deserializer.addTrustedPackages("*");
+    /**
+     * Creates the error handler of the notification listener. A batch the sink failed to deliver is delivered
+     * again after an exponential backoff, so that the sink rides out a short outage, and is published to the
+     * {@value #DEAD_LETTER_TOPIC} topic once {@code notification.consumer.retry.max-elapsed-time} has passed,
+     * before its offsets are committed.
+     *
+     * @param deadLetterKafkaTemplate The KafkaTemplate of the dead letter topic.
+     * @param initialInterval The delay before the first retry.
+     * @param maxInterval The longest delay between two retries.
+     * @param maxElapsedTime The time after which a batch is given up on.
+     * @return A DefaultErrorHandler with backoff and dead letter publishing.
+     */
+    @Bean
+    public DefaultErrorHandler notificationErrorHandler(KafkaTemplate<String, BookingEvent> deadLetterKafkaTemplate,
+                                                        @Value("${notification.consumer.retry.initial-interval:1s}") Duration initialInterval,
+                                                        @Value("${notification.consumer.retry.max-interval:30s}") Duration maxInterval,
+                                                        @Value("${notification.consumer.retry.max-elapsed-time:5m}") Duration maxElapsedTime) {
+        ExponentialBackOff backOff = new ExponentialBackOff(initialInterval.toMillis(), 2);
+        backOff.setMaxInterval(maxInterval.toMillis());
+        backOff.setMaxElapsedTime(maxElapsedTime.toMillis());
+        // Any partition of the dead letter topic, which may have fewer than the notification topic
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterKafkaTemplate,
+                (record, ex) -> new TopicPartition(DEAD_LETTER_TOPIC, -1));
+        return new DefaultErrorHandler(recoverer, backOff);
+    }
 
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    /**
+     * Creates the container factory of the notification listener: each poll is delivered as one batch and
+     * its offsets are committed when the listener acknowledges it.
+     *
+     * @param consumerFactory The ConsumerFactory of BookingEvent messages.
+     * @param notificationErrorHandler Retries and then dead-letters the batches the listener failed on.
+     * @param concurrency The number of consumers, each owning a share of the topic partitions.
+     * @return A batch ConcurrentKafkaListenerContainerFactory with manual acknowledgment.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BookingEvent> notificationListenerContainerFactory(
+            ConsumerFactory<String, BookingEvent> consumerFactory,
+            DefaultErrorHandler notificationErrorHandler,
+            @Value("${notification.consumer.concurrency:3}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, BookingEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.setCommonErrorHandler(notificationErrorHandler);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
     }
 }
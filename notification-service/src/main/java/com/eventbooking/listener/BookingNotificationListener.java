@@ -0,0 +1,49 @@
+package com.eventbooking.listener;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.eventbooking.sink.NotificationSink;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes the booking notifications published by booking-service, a whole poll at a time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingNotificationListener {
+    private final NotificationSink notificationSink;
+
+    /**
+     * Hands a batch of notifications, already deserialized by the consumer, to the sink and then
+     * commits the batch offsets. Messages that could not be deserialized are logged and skipped.
+     *
+     * @param records the records of the batch
+     * @param acknowledgment commits the offsets of the batch
+     */
+    @KafkaListener(topics = "notification", groupId = "notificationId",
+            containerFactory = "notificationListenerContainerFactory")
+    public void handleNotifications(List<ConsumerRecord<String, BookingEvent>> records, Acknowledgment acknowledgment) {
+        List<BookingEvent> notifications = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, BookingEvent> record : records) {
+            if (record.value() == null) {
+                log.error("Skipping unreadable notification at {}-{} offset {}",
+                        record.topic(), record.partition(), record.offset());
+            } else {
+                notifications.add(record.value());
+            }
+        }
+        log.debug("Received {} notifications", notifications.size());
+        if (!notifications.isEmpty()) {
+            notificationSink.deliver(notifications);
+        }
+        acknowledgment.acknowledge();
+    }
+}
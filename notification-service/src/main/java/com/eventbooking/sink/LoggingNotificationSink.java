@@ -0,0 +1,28 @@
+package com.eventbooking.sink;
+
+import com.eventbooking.common.event.BookingEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Sink writing notifications to the application log, used until a mail or push sink is plugged in
+ * with another {@code notification.sink} value.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingNotificationSink implements NotificationSink {
+
+    @Override
+    public void deliver(List<BookingEvent> notifications) {
+        for (BookingEvent notification : notifications) {
+            log.info("Notifying {}: {} {} ticket(s) for {} at {} on {}, amount {}",
+                    notification.getUserName(), notification.getNumberOfTicket(), notification.getTicketType(),
+                    notification.getEventName(), notification.getEventLocation(), notification.getEventDate(),
+                    notification.getPaymentAmount());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.eventbooking.sink;
+
+import com.eventbooking.common.event.BookingEvent;
+
+import java.util.List;
+
+/**
+ * Delivers booking notifications to users.
+ * <p>
+ * Implementations receive every batch consumed from the notification topic at once, so they can
+ * deliver it in bulk. The batch offsets are committed once {@link #deliver(List)} returns; if it
+ * throws, the batch is consumed again. </p>
+ */
+public interface NotificationSink {
+
+    /**
+     * Delivers a batch of notifications.
+     *
+     * @param notifications the notifications of the batch, in offset order within each partition
+     */
+    void deliver(List<BookingEvent> notifications);
+}
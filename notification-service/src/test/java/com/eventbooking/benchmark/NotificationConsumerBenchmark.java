@@ -0,0 +1,132 @@
+package com.eventbooking.benchmark;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.eventbooking.common.serialization.BookingEventSerializer;
+import com.eventbooking.config.JacksonConfig;
+import com.eventbooking.config.KafkaConsumerConfig;
+import com.eventbooking.listener.BookingNotificationListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures notifications consumed per second with batches of 1, 100 and 1,000 messages.
+ * <p>
+ * Each invocation re-reads {@value #MESSAGES} notifications from an embedded Kafka broker with the consumer
+ * of {@link KafkaConsumerConfig}, hands every poll to {@link BookingNotificationListener} and commits
+ * the offsets once per batch, as the listener container does. Run with {@code mvn -pl notification-service
+ * test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.benchmark.NotificationConsumerBenchmark}. </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(NotificationConsumerBenchmark.MESSAGES)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationConsumerBenchmark {
+    static final int MESSAGES = 5_000;
+    private static final String TOPIC = "notification";
+
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+
+    private EmbeddedKafkaBroker broker;
+    private Consumer<String, BookingEvent> consumer;
+    private List<TopicPartition> partitions;
+    private BookingNotificationListener listener;
+    private final LongAdder delivered = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, TOPIC);
+        broker.afterPropertiesSet();
+
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        try (KafkaProducer<String, BookingEvent> producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()),
+                new StringSerializer(), new BookingEventSerializer())) {
+            for (int i = 0; i < MESSAGES; i++) {
+                BookingEvent notification = BookingEvent.builder()
+                        .eventName("Concert " + i % 50)
+                        .eventDate(LocalDate.now().plusDays(i % 30))
+                        .eventLocation("Hall " + i % 10)
+                        .userName("user-" + i)
+                        .ticketType("REGULAR")
+                        .numberOfTicket(1 + i % 4)
+                        .paymentAmount(BigDecimal.valueOf(100L * (1 + i % 4)))
+                        .build();
+                producer.send(new ProducerRecord<>(TOPIC, String.valueOf(i), notification));
+            }
+        }
+
+        consumer = new KafkaConsumerConfig()
+                .consumerFactory(broker.getBrokersAsString(), batchSize, objectMapper)
+                .createConsumer();
+        partitions = List.of(new TopicPartition(TOPIC, 0));
+        consumer.assign(partitions);
+        listener = new BookingNotificationListener(notifications -> delivered.add(notifications.size()));
+    }
+
+    @Benchmark
+    public int consume() {
+        consumer.seekToBeginning(partitions);
+        int consumed = 0;
+        while (consumed < MESSAGES) {
+            ConsumerRecords<String, BookingEvent> records = consumer.poll(Duration.ofSeconds(1));
+            List<ConsumerRecord<String, BookingEvent>> batch = new ArrayList<>(records.count());
+            records.forEach(batch::add);
+            listener.handleNotifications(batch, () -> consumer.commitSync());
+            consumed += batch.size();
+        }
+        return consumed;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        consumer.close();
+        broker.destroy();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NotificationConsumerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.eventbooking.listener;
+
+import com.eventbooking.common.event.BookingEvent;
+import com.eventbooking.common.serialization.BookingEventCodec;
+import com.eventbooking.common.serialization.BookingEventDeserializer;
+import com.eventbooking.common.serialization.FileSchemaRegistry;
+import com.eventbooking.config.KafkaConsumerConfig;
+import com.eventbooking.sink.NotificationSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Consumes notifications from an embedded broker into a sink failing on demand.
+ */
+@SpringBootTest(properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"notification.sink=flaky",
+		"notification.consumer.concurrency=1",
+		"notification.consumer.retry.initial-interval=50ms",
+		"notification.consumer.retry.max-interval=100ms",
+		"notification.consumer.retry.max-elapsed-time=1s"
+})
+@EmbeddedKafka(partitions = 1, topics = {"notification", KafkaConsumerConfig.DEAD_LETTER_TOPIC})
+class BookingNotificationKafkaTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+	private static final AtomicInteger failuresLeft = new AtomicInteger();
+	private static final List<BookingEvent> delivered = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	private KafkaTemplate<String, BookingEvent> kafkaTemplate;
+
+	@Autowired
+	private EmbeddedKafkaBroker broker;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp() {
+		delivered.clear();
+	}
+
+	@Test
+	void batchIsDeliveredOnceTheSinkRecovers() throws Exception {
+		failuresLeft.set(3);
+
+		kafkaTemplate.send("notification", "1", BookingNotificationListenerTest.notification("alice")).get();
+
+		awaitDelivered("alice");
+		assertThat(failuresLeft.get()).isZero();
+	}
+
+	@Test
+	void batchTheSinkKeepsFailingOnIsDeadLettered() throws Exception {
+		failuresLeft.set(Integer.MAX_VALUE);
+		try (Consumer<String, BookingEvent> deadLetters = new DefaultKafkaConsumerFactory<>(
+				KafkaTestUtils.consumerProps("dead-letters", "false", broker),
+				new StringDeserializer(),
+				new BookingEventDeserializer(new BookingEventCodec(FileSchemaRegistry.defaultRegistry()), objectMapper))
+				.createConsumer()) {
+			broker.consumeFromAnEmbeddedTopic(deadLetters, KafkaConsumerConfig.DEAD_LETTER_TOPIC);
+
+			kafkaTemplate.send("notification", "2", BookingNotificationListenerTest.notification("bob")).get();
+
+			ConsumerRecord<String, BookingEvent> deadLetter = KafkaTestUtils.getSingleRecord(deadLetters,
+					KafkaConsumerConfig.DEAD_LETTER_TOPIC, TIMEOUT);
+			assertThat(deadLetter.value().getUserName()).isEqualTo("bob");
+		} finally {
+			failuresLeft.set(0);
+		}
+
+		// Committed once dead-lettered, so that the next notification is delivered alone
+		kafkaTemplate.send("notification", "3", BookingNotificationListenerTest.notification("carol")).get();
+		awaitDelivered("carol");
+		assertThat(delivered).extracting(BookingEvent::getUserName).doesNotContain("bob");
+	}
+
+	private static void awaitDelivered(String userName) throws InterruptedException {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (delivered.stream().noneMatch(notification -> notification.getUserName().equals(userName))) {
+			assertThat(System.nanoTime()).as("delivery of the notification of " + userName).isLessThan(deadline);
+			Thread.sleep(50);
+		}
+	}
+
+	@TestConfiguration
+	static class FlakySink {
+
+		@Bean
+		NotificationSink flakyNotificationSink() {
+			return notifications -> {
+				if (failuresLeft.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+					throw new IllegalStateException("Sink down");
+				}
+				delivered.addAll(notifications);
+			};
+		}
+	}
+}
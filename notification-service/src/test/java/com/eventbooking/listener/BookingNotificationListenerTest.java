@@ -0,0 +1,88 @@
+package com.eventbooking.listener;
+
+import com.eventbooking.common.event.BookingEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class BookingNotificationListenerTest {
+
+	private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+	private final List<List<BookingEvent>> delivered = new ArrayList<>();
+
+	@Test
+	void unreadableNotificationsAreSkipped() {
+		BookingNotificationListener listener = new BookingNotificationListener(delivered::add);
+
+		// The error handling deserializer hands over a null value for a message it could not read
+		listener.handleNotifications(List.of(record(0, notification("alice")), record(1, null), record(2, notification("bob"))),
+				acknowledgment);
+
+		assertThat(delivered).hasSize(1);
+		assertThat(delivered.get(0)).extracting(BookingEvent::getUserName).containsExactly("alice", "bob");
+		verify(acknowledgment).acknowledge();
+	}
+
+	@Test
+	void batchIsAcknowledgedOnlyOnceDelivered() {
+		BookingNotificationListener listener = new BookingNotificationListener(notifications -> {
+			verifyNoInteractions(acknowledgment);
+			delivered.add(notifications);
+		});
+
+		listener.handleNotifications(List.of(record(0, notification("alice"))), acknowledgment);
+
+		assertThat(delivered).hasSize(1);
+		verify(acknowledgment).acknowledge();
+	}
+
+	@Test
+	void batchIsNotAcknowledgedWhenTheSinkFails() {
+		BookingNotificationListener listener = new BookingNotificationListener(notifications -> {
+			throw new IllegalStateException("Mail server down");
+		});
+
+		assertThatThrownBy(() -> listener.handleNotifications(List.of(record(0, notification("alice"))), acknowledgment))
+				.isInstanceOf(IllegalStateException.class);
+
+		verify(acknowledgment, never()).acknowledge();
+	}
+
+	@Test
+	void batchOfUnreadableNotificationsIsAcknowledgedWithoutDelivery() {
+		BookingNotificationListener listener = new BookingNotificationListener(delivered::add);
+
+		listener.handleNotifications(List.of(record(0, null)), acknowledgment);
+
+		assertThat(delivered).isEmpty();
+		verify(acknowledgment).acknowledge();
+	}
+
+	private static ConsumerRecord<String, BookingEvent> record(long offset, BookingEvent notification) {
+		return new ConsumerRecord<>("notification", 0, offset, String.valueOf(offset), notification);
+	}
+
+	static BookingEvent notification(String userName) {
+		return BookingEvent.builder()
+				.eventName("Concert")
+				.eventDate(LocalDate.now().plusDays(30))
+				.eventLocation("Paris")
+				.userName(userName)
+				.ticketType("REGULAR")
+				.numberOfTicket(2)
+				.paymentAmount(BigDecimal.valueOf(200))
+				.build();
+	}
+}
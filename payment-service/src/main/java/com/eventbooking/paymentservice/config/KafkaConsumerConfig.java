@@ -0,0 +1,53 @@
+package com.eventbooking.paymentservice.config;
+
+import com.eventbooking.common.saga.PaymentCommand;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * Creates a Kafka ConsumerFactory for consuming the PaymentCommand messages of the booking saga.
+     * Commands must all be applied, hence the earliest offset reset.
+     *
+     * @return A ConsumerFactory configured with Kafka properties and deserializers.
+     */
+    @Bean
+    public ConsumerFactory<String, PaymentCommand> paymentCommandConsumerFactory(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        JsonDeserializer<PaymentCommand> deserializer = new JsonDeserializer<>(PaymentCommand.class);
+        deserializer.ignoreTypeHeaders();
+        deserializer.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
+
+    /**
+     * Payment commands are keyed by booking, so throughput grows with the partitions of the command
+     * topic up to {@code saga.command-concurrency} consumers per instance.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, PaymentCommand> paymentCommandListenerContainerFactory(
+            ConsumerFactory<String, PaymentCommand> paymentCommandConsumerFactory,
+            @Value("${saga.command-concurrency:3}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, PaymentCommand> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(paymentCommandConsumerFactory);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+}
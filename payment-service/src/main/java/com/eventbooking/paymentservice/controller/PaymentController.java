@@ -1,11 +1,17 @@
 package com.eventbooking.paymentservice.controller;
 
+import com.eventbooking.paymentservice.dto.PageDto;
 import com.eventbooking.paymentservice.dto.PaymentDto;
 import com.eventbooking.paymentservice.service.PaymentService;
+import com.eventbooking.serviceclient.idempotency.IdempotencyService;
+import com.eventbooking.serviceclient.loadshedding.LoadPriority;
+import com.eventbooking.serviceclient.loadshedding.RequestPriority;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -14,6 +20,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PaymentController {
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Retrieve a list of all payments.
@@ -25,12 +32,43 @@ public class PaymentController {
      * @return a ResponseEntity containing a list of PaymentDto and an HTTP 200 OK status
      */
     @GetMapping
+    @LoadPriority(RequestPriority.LOW)
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<List<PaymentDto>> getAllPayments(){
         var result = paymentService.getAllPayments();
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Retrieves a page of payments in ID order.
+     *
+     * @param afterId The ID of the last payment of the previous page, 0 for the first page.
+     * @param size The maximum number of payments to return.
+     * @return A ResponseEntity containing the PageDto of payments and an HTTP status of OK (200).
+     */
+    @GetMapping(params = "size")
+    @LoadPriority(RequestPriority.LOW)
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<PageDto<PaymentDto>> getPaymentsPage(@RequestParam(defaultValue = "0") Long afterId,
+                                                               @RequestParam int size) {
+        var result = paymentService.getPaymentsPage(afterId, size);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Streams all payments as newline-delimited JSON, one payment per line, without loading them all in memory.
+     *
+     * @return A ResponseEntity whose body writes the payments as they are read from the database.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @LoadPriority(value = RequestPriority.LOW, sampled = false)
+    public ResponseEntity<StreamingResponseBody> streamAllPayments() {
+        StreamingResponseBody body = paymentService::streamAllPayments;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Retrieves payment information for a specific booking.
      *
@@ -39,6 +77,7 @@ public class PaymentController {
      *         wrapped in an OK response status.
      */
     @GetMapping("/booking")
+    @LoadPriority(RequestPriority.LOW)
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<List<PaymentDto>> getPaymentBooking(@RequestParam() Long bookingId) {
         var result = paymentService.getPaymentByBookingId(bookingId);
@@ -48,14 +87,21 @@ public class PaymentController {
     /**
      * Processes a payment based on the provided PaymentDto.
      *
+     * <p>
+     * A retry sent with the same Idempotency-Key header gets the response of the first attempt
+     * instead of creating a second payment. </p>
+     *
+     * @param idempotencyKey Optional key of the request, generated by the client once per payment.
      * @param paymentDto The PaymentDto containing payment details to be processed.
      * @return A ResponseEntity containing the processed PaymentDto,
      *         wrapped in a CREATED response status.
      */
     @PostMapping
+    @LoadPriority(RequestPriority.CRITICAL)
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<PaymentDto> processPayment(@RequestBody PaymentDto paymentDto) {
-        var result = paymentService.processPayment(paymentDto);
-        return  ResponseEntity.ok(result);
+    public ResponseEntity<PaymentDto> processPayment(@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                     @RequestBody PaymentDto paymentDto) {
+        return idempotencyService.execute(idempotencyKey, paymentDto, PaymentDto.class,
+                () -> ResponseEntity.ok(paymentService.processPayment(paymentDto)));
     }
 }
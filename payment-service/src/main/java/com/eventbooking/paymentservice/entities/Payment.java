@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment")
+@Table(name = "payment", indexes = @Index(name = "idx_payment_booking_id", columnList = "booking_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,7 @@
+package com.eventbooking.paymentservice.exceptionhandler;
+
+public class BookingHoldExpiredException extends RuntimeException {
+    public BookingHoldExpiredException(String message) {
+        super(message);
+    }
+}
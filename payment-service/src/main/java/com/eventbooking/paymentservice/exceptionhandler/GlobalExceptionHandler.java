@@ -1,5 +1,10 @@
 package com.eventbooking.paymentservice.exceptionhandler;
 
+import com.eventbooking.serviceclient.ServiceClientException;
+import com.eventbooking.serviceclient.idempotency.IdempotencyKeyInProgressException;
+import com.eventbooking.serviceclient.idempotency.IdempotencyKeyReusedException;
+import com.eventbooking.serviceclient.loadshedding.ServiceOverloadedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -20,6 +25,39 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(BookingHoldExpiredException.class)
+    public ResponseEntity<Object> handleBookingHoldExpired(BookingHoldExpiredException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage())
+        );
+    }
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage())
+        );
+    }
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex){
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(
+                new ErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(ServiceClientException.class)
+    public ResponseEntity<Object> handleServiceClient(ServiceClientException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage())
+        );
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleServiceOverloaded(ServiceOverloadedException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage()));
+    }
+
     public static class ErrorResponse {
         private int status;
         private String message;
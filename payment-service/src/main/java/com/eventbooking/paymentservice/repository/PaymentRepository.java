@@ -1,14 +1,41 @@
 package com.eventbooking.paymentservice.repository;
 
 import com.eventbooking.paymentservice.entities.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p WHERE p.bookingId = :bookingId")
     List<Payment> findByBookingId(Long bookingId);
+
+    /**
+     * Finds the next page of payments after a given ID, seeking on the primary key index.
+     *
+     * @param afterId the ID of the last payment of the previous page
+     * @param limit the maximum number of payments to return
+     * @return the payments with an ID greater than afterId, in ID order
+     */
+    List<Payment> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Streams all payments in ID order through a database cursor. Must be consumed
+     * inside a transaction and closed afterwards.
+     *
+     * @return a Stream of all payments
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p ORDER BY p.id")
+    Stream<Payment> streamAll();
 }
@@ -0,0 +1,86 @@
+package com.eventbooking.paymentservice.service;
+
+import com.eventbooking.common.saga.PaymentCommand;
+import com.eventbooking.common.saga.SagaReply;
+import com.eventbooking.common.saga.SagaTopics;
+import com.eventbooking.paymentservice.constants.PaymentStatus;
+import com.eventbooking.paymentservice.entities.Payment;
+import com.eventbooking.paymentservice.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Takes and refunds the payments of the booking saga and replies to booking-service.
+ * <p>
+ * A booking is paid for at most once: a payment command delivered again finds the payment of its
+ * booking and gets the same reply. A refund arriving before the payment it undoes leaves a canceled
+ * payment behind, so that the late payment is refused. The reply is sent before the offset is
+ * committed, so booking-service gets at least one. </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentCommandHandler {
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, SagaReply> sagaReplyKafkaTemplate;
+
+    @KafkaListener(topics = SagaTopics.PAYMENT_COMMANDS,
+            groupId = "payment-service-saga",
+            containerFactory = "paymentCommandListenerContainerFactory")
+    public void onCommand(PaymentCommand command) {
+        SagaReply reply = transactionTemplate.execute(status -> switch (command.getAction()) {
+            case TAKE -> take(command);
+            case REFUND -> refund(command);
+        });
+        sagaReplyKafkaTemplate.send(SagaTopics.REPLIES, String.valueOf(command.getSagaId()), reply).join();
+    }
+
+    SagaReply take(PaymentCommand command) {
+        List<Payment> payments = paymentRepository.findByBookingId(command.getBookingId());
+        if (payments.stream().anyMatch(payment -> payment.getPaymentStatus() == PaymentStatus.PAYMENT_APPROVED)) {
+            return reply(command, SagaReply.Step.PAYMENT_TAKEN, true, null);
+        }
+        if (payments.stream().anyMatch(payment -> payment.getPaymentStatus() == PaymentStatus.PAYMENT_CANCELED)) {
+            return reply(command, SagaReply.Step.PAYMENT_TAKEN, false, "The payment of booking " + command.getBookingId() + " was refunded");
+        }
+        paymentRepository.save(payment(command, PaymentStatus.PAYMENT_APPROVED));
+        return reply(command, SagaReply.Step.PAYMENT_TAKEN, true, null);
+    }
+
+    SagaReply refund(PaymentCommand command) {
+        List<Payment> payments = paymentRepository.findByBookingId(command.getBookingId());
+        if (payments.isEmpty()) {
+            paymentRepository.save(payment(command, PaymentStatus.PAYMENT_CANCELED));
+        }
+        for (Payment payment : payments) {
+            if (payment.getPaymentStatus() == PaymentStatus.PAYMENT_APPROVED) {
+                payment.setPaymentStatus(PaymentStatus.PAYMENT_CANCELED);
+            }
+        }
+        return reply(command, SagaReply.Step.PAYMENT_REFUNDED, true, null);
+    }
+
+    private static Payment payment(PaymentCommand command, PaymentStatus status) {
+        return Payment.builder()
+                .bookingId(command.getBookingId())
+                .amount(command.getAmount().doubleValue())
+                .paymentDate(LocalDateTime.now())
+                .paymentStatus(status)
+                .build();
+    }
+
+    private static SagaReply reply(PaymentCommand command, SagaReply.Step step, boolean success, String message) {
+        return SagaReply.builder()
+                .sagaId(command.getSagaId())
+                .step(step)
+                .success(success)
+                .message(message)
+                .build();
+    }
+}
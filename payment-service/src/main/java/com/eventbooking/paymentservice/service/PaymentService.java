@@ -2,24 +2,57 @@ package com.eventbooking.paymentservice.service;
 
 import com.eventbooking.paymentservice.constants.PaymentStatus;
 import com.eventbooking.paymentservice.dto.BookingDto;
+import com.eventbooking.paymentservice.dto.PageDto;
 import com.eventbooking.paymentservice.dto.PaymentDto;
 import com.eventbooking.paymentservice.entities.Payment;
+import com.eventbooking.paymentservice.exceptionhandler.BookingHoldExpiredException;
 import com.eventbooking.paymentservice.exceptionhandler.BookingIsCancelledException;
 import com.eventbooking.paymentservice.exceptionhandler.NotFoundException;
 import com.eventbooking.paymentservice.repository.PaymentRepository;
-import lombok.RequiredArgsConstructor;
+import com.eventbooking.serviceclient.ServiceClients;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class PaymentService {
+    static final int MAX_PAGE_SIZE = 1000;
+    static final String BOOKING_SERVICE = "booking-service";
+
     private final PaymentRepository paymentRepository;
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient bookingServiceClient;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public PaymentService(PaymentRepository paymentRepository,
+                          ServiceClients serviceClients,
+                          ObjectMapper objectMapper,
+                          EntityManager entityManager) {
+        this.paymentRepository = paymentRepository;
+        this.bookingServiceClient = serviceClients.get(BOOKING_SERVICE);
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
 
     /**
      * Retrieve a list of all payments.
@@ -36,6 +69,51 @@ public class PaymentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves a page of payments in ID order, using keyset pagination so that deep pages
+     * cost the same as the first one.
+     *
+     * @param afterId The ID of the last payment of the previous page, or 0 for the first page.
+     * @param size The maximum number of payments to return, capped at {@value #MAX_PAGE_SIZE}.
+     * @return A PageDto with the payments and the afterId of the next page.
+     */
+    public PageDto<PaymentDto> getPaymentsPage(Long afterId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<PaymentDto> items = paymentRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+        Long nextAfterId = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return PageDto.<PaymentDto>builder()
+                .items(items)
+                .nextAfterId(nextAfterId)
+                .build();
+    }
+
+    /**
+     * Writes all payments as newline-delimited JSON, reading them through a database cursor.
+     * Each payment is detached once written, so memory use does not grow with the table.
+     *
+     * @param out The stream to write to. It is flushed but not closed.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllPayments(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(PaymentDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Writer lines = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<Payment> payments = paymentRepository.streamAll()) {
+            Iterator<Payment> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                Payment payment = iterator.next();
+                writer.writeValue(lines, mapToDto(payment));
+                lines.write('\n');
+                entityManager.detach(payment);
+            }
+        }
+        lines.flush();
+    }
+
     /**
      * Retrieves payment details associated with a given booking ID.
      *
@@ -55,17 +133,18 @@ public class PaymentService {
     }
 
     /**
-     * Processes the payment for a given booking. It retrieves booking details from the booking service
-     * and creates a Payment entity, marking it as pending.
+     * Processes the payment for a given booking. It retrieves booking details from the booking service,
+     * confirms the hold the booking service placed on its seats, and creates a Payment entity, marking it as approved.
      *
      * @param paymentDto The payment data transfer object containing payment details.
      * @return The PaymentDto representing the processed payment.
      * @throws RuntimeException if the associated booking is not found.
+     * @throws BookingHoldExpiredException if the booking was not paid for before its hold expired.
      */
     public PaymentDto processPayment(PaymentDto paymentDto) {
         Long bookingId = paymentDto.getBookingId();
-        BookingDto bookingResponse = webClientBuilder.build().get()
-                .uri("http://booking-service/api/booking/{bookingId}", bookingId)
+        BookingDto bookingResponse = bookingServiceClient.get()
+                .uri("/api/booking/{bookingId}", bookingId)
                 .retrieve()
                 .bodyToMono(BookingDto.class)
                 .block();
@@ -77,12 +156,22 @@ public class PaymentService {
             throw new BookingIsCancelledException("Booking with id " + bookingId + " is cancelled. Cannot process payment.");
         }
 
+        bookingServiceClient.put()
+                .uri("/api/booking/confirm/{bookingId}", bookingId)
+                .retrieve()
+                .onStatus(status -> status == HttpStatus.CONFLICT, response -> Mono.error(
+                        new BookingHoldExpiredException("The hold on booking with id " + bookingId + " expired. Cannot process payment.")))
+                .onStatus(status -> status == HttpStatus.BAD_REQUEST, response -> Mono.error(
+                        new BookingIsCancelledException("Booking with id " + bookingId + " is cancelled. Cannot process payment.")))
+                .toBodilessEntity()
+                .block();
+
         Payment payment = Payment.builder()
                 .id(paymentDto.getId())
                 .bookingId(paymentDto.getBookingId())
                 .amount(bookingResponse.getTotalAmount().doubleValue())
                 .paymentDate(LocalDateTime.now())
-                .paymentStatus(PaymentStatus.PAYMENT_PENDING)
+                .paymentStatus(PaymentStatus.PAYMENT_APPROVED)
                 .build();
         Payment savedPayment = paymentRepository.save(payment);
         return mapToDto(savedPayment);
@@ -0,0 +1,27 @@
+-- Schema of the payment service, as mapped by its entities. IDs are allocated by 50 from the sequence.
+
+create sequence payment_seq start with 1 increment by 50;
+
+create table payment (
+    id bigint not null,
+    booking_id bigint not null,
+    amount float(53) not null,
+    payment_date timestamp(6) not null,
+    payment_status varchar(255) check (payment_status in
+        ('PAYMENT_APPROVED','PAYMENT_REJECTED','PAYMENT_CANCELED','PAYMENT_FAILED','PAYMENT_COMPLETED','PAYMENT_PENDING')),
+    primary key (id)
+);
+
+create index idx_payment_booking_id on payment (booking_id);
+
+create table idempotency_key (
+    idempotency_key varchar(255) not null,
+    request_hash varchar(64) not null,
+    status_code integer,
+    response_body varchar(1048576),
+    created_at timestamp(6) not null,
+    primary key (idempotency_key)
+);
+
+-- Purge of the expired keys
+create index idx_idempotency_key_created_at on idempotency_key (created_at);
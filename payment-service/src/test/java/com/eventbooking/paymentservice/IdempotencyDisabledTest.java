@@ -0,0 +1,45 @@
+package com.eventbooking.paymentservice;
+
+import com.eventbooking.paymentservice.controller.PaymentController;
+import com.eventbooking.paymentservice.dto.PaymentDto;
+import com.eventbooking.paymentservice.service.PaymentService;
+import com.eventbooking.serviceclient.idempotency.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Boots the service with idempotency turned off, its controller then running every request.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:payment-idempotency-disabled-test",
+		"idempotency.enabled=false"
+})
+class IdempotencyDisabledTest {
+
+	@Autowired
+	private PaymentController paymentController;
+
+	@MockBean
+	private PaymentService paymentService;
+
+	@Test
+	void retriesWithTheSameKeyAreProcessedAgain() {
+		PaymentDto payment = PaymentDto.builder().bookingId(42L).build();
+		when(paymentService.processPayment(any(PaymentDto.class))).thenReturn(payment);
+
+		paymentController.processPayment("retry-key", payment);
+		ResponseEntity<PaymentDto> retry = paymentController.processPayment("retry-key", payment);
+
+		assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+		verify(paymentService, times(2)).processPayment(any(PaymentDto.class));
+	}
+}
@@ -0,0 +1,56 @@
+package com.eventbooking.paymentservice;
+
+import com.eventbooking.paymentservice.constants.PaymentStatus;
+import com.eventbooking.paymentservice.entities.Payment;
+import com.eventbooking.paymentservice.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the prod profile on H2 in PostgreSQL mode, with the schema created by the migration instead
+ * of Hibernate, which then validates the entities against it.
+ */
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.url=jdbc:h2:mem:payment-prod-schema-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;IGNORE_UNKNOWN_SETTINGS=TRUE",
+		"spring.datasource.username=sa",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:db/migration/V1__create_schema.sql"
+})
+class ProdProfileSchemaTest {
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void migrationCreatesTheIndexOfTheBookingLookup() {
+		List<String> indexes = jdbcTemplate.queryForList(
+				"SELECT index_name FROM information_schema.indexes WHERE table_name = 'payment'", String.class);
+
+		assertThat(indexes).contains("idx_payment_booking_id");
+	}
+
+	@Test
+	void paymentsAreWrittenAndFoundByBooking() {
+		paymentRepository.save(Payment.builder()
+				.bookingId(7L)
+				.amount(25.0)
+				.paymentDate(LocalDateTime.now())
+				.paymentStatus(PaymentStatus.PAYMENT_COMPLETED)
+				.build());
+
+		assertThat(paymentRepository.findByBookingId(7L)).extracting(Payment::getAmount).containsExactly(25.0);
+	}
+}
@@ -0,0 +1,98 @@
+package com.eventbooking.paymentservice.service;
+
+import com.eventbooking.common.saga.PaymentCommand;
+import com.eventbooking.common.saga.SagaReply;
+import com.eventbooking.paymentservice.constants.PaymentStatus;
+import com.eventbooking.paymentservice.entities.Payment;
+import com.eventbooking.paymentservice.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:payment-command-test")
+class PaymentCommandHandlerTest {
+
+	private static final long BOOKING_ID = 42L;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private final List<SagaReply> replies = new CopyOnWriteArrayList<>();
+	private PaymentCommandHandler handler;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		paymentRepository.deleteAll();
+		replies.clear();
+		KafkaTemplate<String, SagaReply> sagaReplyKafkaTemplate = mock(KafkaTemplate.class);
+		when(sagaReplyKafkaTemplate.send(anyString(), anyString(), any(SagaReply.class))).thenAnswer(invocation -> {
+			replies.add(invocation.getArgument(2));
+			return CompletableFuture.completedFuture(null);
+		});
+		handler = new PaymentCommandHandler(paymentRepository, transactionTemplate, sagaReplyKafkaTemplate);
+	}
+
+	@Test
+	void redeliveredPaymentIsTakenOnce() {
+		handler.onCommand(command(PaymentCommand.Action.TAKE));
+		handler.onCommand(command(PaymentCommand.Action.TAKE));
+
+		assertThat(payments()).containsExactly(PaymentStatus.PAYMENT_APPROVED);
+		assertThat(replies).extracting(SagaReply::getStep).containsExactly(SagaReply.Step.PAYMENT_TAKEN, SagaReply.Step.PAYMENT_TAKEN);
+		assertThat(replies).allMatch(SagaReply::isSuccess);
+	}
+
+	@Test
+	void refundCancelsATakenPaymentOnce() {
+		handler.onCommand(command(PaymentCommand.Action.TAKE));
+		handler.onCommand(command(PaymentCommand.Action.REFUND));
+		handler.onCommand(command(PaymentCommand.Action.REFUND));
+
+		assertThat(payments()).containsExactly(PaymentStatus.PAYMENT_CANCELED);
+		assertThat(replies).extracting(SagaReply::getStep)
+				.containsExactly(SagaReply.Step.PAYMENT_TAKEN, SagaReply.Step.PAYMENT_REFUNDED, SagaReply.Step.PAYMENT_REFUNDED);
+	}
+
+	@Test
+	void paymentArrivingAfterItsRefundIsRefused() {
+		handler.onCommand(command(PaymentCommand.Action.REFUND));
+		handler.onCommand(command(PaymentCommand.Action.TAKE));
+
+		assertThat(payments()).containsExactly(PaymentStatus.PAYMENT_CANCELED);
+		SagaReply take = replies.get(1);
+		assertThat(take.getStep()).isEqualTo(SagaReply.Step.PAYMENT_TAKEN);
+		assertThat(take.isSuccess()).isFalse();
+		assertThat(take.getSagaId()).isEqualTo(BOOKING_ID);
+	}
+
+	private List<PaymentStatus> payments() {
+		return paymentRepository.findByBookingId(BOOKING_ID).stream().map(Payment::getPaymentStatus).toList();
+	}
+
+	private static PaymentCommand command(PaymentCommand.Action action) {
+		return PaymentCommand.builder()
+				.sagaId(BOOKING_ID)
+				.action(action)
+				.bookingId(BOOKING_ID)
+				.amount(new BigDecimal("120.00"))
+				.build();
+	}
+}
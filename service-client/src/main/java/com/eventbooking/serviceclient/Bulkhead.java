@@ -0,0 +1,38 @@
+package com.eventbooking.serviceclient;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the calls in flight to a downstream service. A call over the limit is rejected instead of
+ * waiting, so that a slow service holds at most that many caller threads.
+ */
+public final class Bulkhead {
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+
+    public Bulkhead(int maxConcurrentCalls) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("The concurrent calls must be positive, got " + maxConcurrentCalls);
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * @return true if the call may proceed, in which case {@link #release()} must be called once it completes
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public int inFlight() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+}
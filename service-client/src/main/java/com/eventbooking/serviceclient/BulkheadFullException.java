@@ -0,0 +1,10 @@
+package com.eventbooking.serviceclient;
+
+/**
+ * Thrown when the calls in flight to a downstream service reached its bulkhead limit.
+ */
+public class BulkheadFullException extends ServiceClientException {
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
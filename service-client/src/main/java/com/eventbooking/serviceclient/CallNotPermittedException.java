@@ -0,0 +1,10 @@
+package com.eventbooking.serviceclient;
+
+/**
+ * Thrown when the circuit breaker of a downstream service is open.
+ */
+public class CallNotPermittedException extends ServiceClientException {
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
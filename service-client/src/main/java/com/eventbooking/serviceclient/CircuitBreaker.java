@@ -0,0 +1,148 @@
+package com.eventbooking.serviceclient;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker.
+ * <p>
+ * While CLOSED, the outcomes of the last {@code slidingWindowSize} calls are kept in a ring; once at
+ * least {@code minimumCalls} are recorded and the failure rate reaches the threshold, the circuit
+ * OPENs and calls are refused for {@code openDuration}. It then turns HALF_OPEN and lets
+ * {@code halfOpenCalls} trial calls through: one failure opens it again, all of them succeeding
+ * closes it with an empty window. </p>
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+    private final boolean[] failed;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * @param slidingWindowSize the number of recent calls the failure rate is computed on
+     * @param minimumCalls the calls needed in the window before the circuit may open
+     * @param failureRateThreshold the failure rate opening the circuit, in percent
+     * @param openNanos how long the circuit stays open
+     * @param halfOpenCalls the trial calls let through when half open
+     * @param nanoClock the clock, {@link System#nanoTime()} outside tests
+     */
+    public CircuitBreaker(int slidingWindowSize, int minimumCalls, int failureRateThreshold,
+                          long openNanos, int halfOpenCalls, LongSupplier nanoClock) {
+        if (slidingWindowSize <= 0 || minimumCalls <= 0 || minimumCalls > slidingWindowSize || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker window: size " + slidingWindowSize
+                    + ", minimum calls " + minimumCalls + ", half open calls " + halfOpenCalls);
+        }
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+        this.failed = new boolean[slidingWindowSize];
+    }
+
+    /**
+     * Asks for the permission to make a call. A permitted call must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onCancel()}.
+     *
+     * @return true if the call may proceed
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses == halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Gives back the permission of a call cancelled before its outcome was known, so that a
+     * cancelled trial call does not leave the circuit half open for good.
+     */
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenPermits + halfOpenSuccesses < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failed.length) {
+            if (failed[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % failed.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
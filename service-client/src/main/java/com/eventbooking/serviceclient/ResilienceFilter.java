@@ -0,0 +1,165 @@
+package com.eventbooking.serviceclient;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Guards the calls to one downstream service.
+ * <p>
+ * Each attempt must get through the circuit breaker and the bulkhead of the service, else it fails at
+ * once with a {@link ServiceClientException}. Attempts failing before a response was received, by a
+ * connection error or a response timeout, are retried with a jittered exponential backoff when the
+ * method is idempotent. Each attempt is timed in the {@code service.client.requests} histogram, tagged
+ * with the service and the outcome. The filter must come before the load balancer filter, so that a
+ * retry may go to another instance. </p>
+ */
+public class ResilienceFilter implements ExchangeFilterFunction {
+
+    enum Outcome {
+        SUCCESS,
+        CLIENT_ERROR,
+        SERVER_ERROR,
+        ERROR,
+        CANCELLED,
+        SHORT_CIRCUITED,
+        REJECTED
+    }
+
+    private final String target;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retry;
+    private final Set<HttpMethod> retriedMethods;
+    private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+
+    public ResilienceFilter(String target, ServiceClientProperties.Target settings, MeterRegistry meterRegistry) {
+        this.target = target;
+        ServiceClientProperties.CircuitBreakerProperties breaker = settings.getCircuitBreaker();
+        this.circuitBreaker = breaker.isEnabled()
+                ? new CircuitBreaker(breaker.getSlidingWindowSize(), breaker.getMinimumCalls(), breaker.getFailureRateThreshold(),
+                breaker.getOpenDuration().toNanos(), breaker.getHalfOpenCalls(), System::nanoTime)
+                : null;
+        this.bulkhead = settings.getBulkhead().isEnabled() ? new Bulkhead(settings.getBulkhead().getMaxConcurrentCalls()) : null;
+        ServiceClientProperties.RetryProperties retrySettings = settings.getRetry();
+        this.retry = retrySettings.getMaxAttempts() > 1
+                ? Retry.backoff(retrySettings.getMaxAttempts() - 1, retrySettings.getBackoff())
+                .maxBackoff(retrySettings.getMaxBackoff())
+                .jitter(retrySettings.getJitter())
+                .filter(ResilienceFilter::isRetryable)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure())
+                : null;
+        this.retriedMethods = retrySettings.getMethods().stream()
+                .map(HttpMethod::valueOf)
+                .collect(Collectors.toSet());
+
+        for (Outcome outcome : Outcome.values()) {
+            timers.put(outcome, Timer.builder("service.client.requests")
+                    .description("Attempts of calls to a downstream service")
+                    .tag("target", target)
+                    .tag("outcome", outcome.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        if (circuitBreaker != null) {
+            Gauge.builder("service.client.circuit.state", circuitBreaker, cb -> cb.state().ordinal())
+                    .description("State of the circuit breaker of a downstream service: 0 closed, 1 half open, 2 open")
+                    .tag("target", target)
+                    .register(meterRegistry);
+        }
+        if (bulkhead != null) {
+            Gauge.builder("service.client.bulkhead.in-flight", bulkhead, Bulkhead::inFlight)
+                    .description("Calls in flight to a downstream service")
+                    .tag("target", target)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        Mono<ClientResponse> attempt = Mono.defer(() -> attempt(request, next));
+        if (retry != null && retriedMethods.contains(request.method())) {
+            return attempt.retryWhen(retry);
+        }
+        return attempt;
+    }
+
+    /**
+     * @return the circuit breaker of the service, or null if disabled
+     */
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private Mono<ClientResponse> attempt(ClientRequest request, ExchangeFunction next) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+            timers.get(Outcome.SHORT_CIRCUITED).record(0, TimeUnit.NANOSECONDS);
+            return Mono.error(new CallNotPermittedException("The circuit breaker of " + target + " is open"));
+        }
+        if (bulkhead != null && !bulkhead.tryAcquire()) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onCancel();
+            }
+            timers.get(Outcome.REJECTED).record(0, TimeUnit.NANOSECONDS);
+            return Mono.error(new BulkheadFullException("Too many calls in flight to " + target));
+        }
+        long start = System.nanoTime();
+        AtomicBoolean completed = new AtomicBoolean();
+        return next.exchange(request)
+                .doOnSuccess(response -> {
+                    if (completed.compareAndSet(false, true)) {
+                        complete(start, response == null ? Outcome.ERROR : outcomeOf(response));
+                    }
+                })
+                .doOnError(ex -> {
+                    if (completed.compareAndSet(false, true)) {
+                        complete(start, Outcome.ERROR);
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (completed.compareAndSet(false, true)) {
+                        complete(start, Outcome.CANCELLED);
+                    }
+                });
+    }
+
+    private void complete(long start, Outcome outcome) {
+        timers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+        if (circuitBreaker != null) {
+            switch (outcome) {
+                case SERVER_ERROR, ERROR -> circuitBreaker.onFailure();
+                case CANCELLED -> circuitBreaker.onCancel();
+                default -> circuitBreaker.onSuccess();
+            }
+        }
+    }
+
+    private static Outcome outcomeOf(ClientResponse response) {
+        if (response.statusCode().is5xxServerError()) {
+            return Outcome.SERVER_ERROR;
+        }
+        return response.statusCode().is4xxClientError() ? Outcome.CLIENT_ERROR : Outcome.SUCCESS;
+    }
+
+    private static boolean isRetryable(Throwable ex) {
+        return ex instanceof WebClientRequestException;
+    }
+}
@@ -0,0 +1,29 @@
+package com.eventbooking.serviceclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@AutoConfiguration
+@EnableConfigurationProperties(ServiceClientProperties.class)
+public class ServiceClientAutoConfiguration {
+
+    /**
+     * Creates the clients of the downstream services from the WebClient.Builder of the application,
+     * which is expected to be {@code @LoadBalanced}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(WebClient.Builder.class)
+    public ServiceClients serviceClients(WebClient.Builder webClientBuilder,
+                                         ServiceClientProperties properties,
+                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ServiceClients(webClientBuilder, properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
@@ -0,0 +1,10 @@
+package com.eventbooking.serviceclient;
+
+/**
+ * A call to a downstream service that was refused before being sent, to protect the caller or the service.
+ */
+public class ServiceClientException extends RuntimeException {
+    public ServiceClientException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,119 @@
+package com.eventbooking.serviceclient;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of the clients of the downstream services, under {@code service-client.targets.<service-id>}.
+ * A target missing from the map, or a setting missing from a target, gets the defaults below.
+ */
+@Data
+@ConfigurationProperties("service-client")
+public class ServiceClientProperties {
+
+    private Map<String, Target> targets = new HashMap<>();
+
+    /**
+     * Returns the settings of a target.
+     *
+     * @param serviceId the service ID of the target, as registered in Eureka
+     * @return the settings of the target, or the defaults if it is not configured
+     */
+    public Target target(String serviceId) {
+        return targets.getOrDefault(serviceId, new Target());
+    }
+
+    @Data
+    public static class Target {
+        /**
+         * Connections kept open to the target, over all its instances
+         */
+        private int maxConnections = 50;
+
+        /**
+         * Requests waiting for a connection, beyond which new requests fail at once
+         */
+        private int pendingAcquireMaxCount = 100;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Longest wait for the response headers of an attempt
+         */
+        private Duration responseTimeout = Duration.ofSeconds(3);
+
+        private RetryProperties retry = new RetryProperties();
+
+        private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+        private BulkheadProperties bulkhead = new BulkheadProperties();
+    }
+
+    @Data
+    public static class RetryProperties {
+        /**
+         * Attempts per request, the first one included; 1 disables retries
+         */
+        private int maxAttempts = 3;
+
+        private Duration backoff = Duration.ofMillis(100);
+
+        private Duration maxBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Share of each backoff that is randomized, between 0 and 1
+         */
+        private double jitter = 0.5;
+
+        /**
+         * Only idempotent methods are retried, a POST may have been applied before its connection failed
+         */
+        private List<String> methods = List.of("GET", "HEAD", "PUT", "DELETE");
+    }
+
+    @Data
+    public static class CircuitBreakerProperties {
+        private boolean enabled = true;
+
+        /**
+         * Number of recent calls the failure rate is computed on
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Calls needed in the window before the circuit may open
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * Failure rate, in percent, opening the circuit
+         */
+        private int failureRateThreshold = 50;
+
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Trial calls let through once the circuit is half open, all of which must succeed to close it
+         */
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class BulkheadProperties {
+        private boolean enabled = true;
+
+        /**
+         * Calls in flight to the target, beyond which new calls are rejected at once
+         */
+        private int maxConcurrentCalls = 25;
+    }
+}
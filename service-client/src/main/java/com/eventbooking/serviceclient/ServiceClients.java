@@ -0,0 +1,70 @@
+package com.eventbooking.serviceclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides one pre-built {@link WebClient} per downstream service.
+ * <p>
+ * Each client has its own Reactor Netty connection pool, connect and response timeouts, and a
+ * {@link ResilienceFilter} with the retries, circuit breaker and bulkhead of the service, all set under
+ * {@code service-client.targets.<service-id>}. Clients are built from the application's WebClient.Builder,
+ * keeping its load balancer, with {@code http://<service-id>} as base URL. </p>
+ */
+public class ServiceClients {
+    private final WebClient.Builder webClientBuilder;
+    private final ServiceClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, WebClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionProvider> connectionProviders = new ConcurrentHashMap<>();
+
+    public ServiceClients(WebClient.Builder webClientBuilder, ServiceClientProperties properties, MeterRegistry meterRegistry) {
+        this.webClientBuilder = webClientBuilder;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the client of a downstream service, built on first use.
+     *
+     * @param serviceId the service ID of the target, as registered in Eureka
+     * @return the WebClient of the target
+     */
+    public WebClient get(String serviceId) {
+        return clients.computeIfAbsent(serviceId, this::create);
+    }
+
+    @PreDestroy
+    void dispose() {
+        connectionProviders.values().forEach(ConnectionProvider::dispose);
+    }
+
+    private WebClient create(String serviceId) {
+        ServiceClientProperties.Target settings = properties.target(serviceId);
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(serviceId)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .metrics(true)
+                .build();
+        connectionProviders.put(serviceId, connectionProvider);
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .responseTimeout(settings.getResponseTimeout());
+        ResilienceFilter resilienceFilter = new ResilienceFilter(serviceId, settings, meterRegistry);
+        return webClientBuilder.clone()
+                .baseUrl("http://" + serviceId)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filters(filters -> filters.add(0, resilienceFilter))
+                .build();
+    }
+}
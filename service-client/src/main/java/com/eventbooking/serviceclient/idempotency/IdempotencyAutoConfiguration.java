@@ -0,0 +1,64 @@
+package com.eventbooking.serviceclient.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Creates the {@link IdempotencyService} of the services with a JPA data source that set
+ * {@code idempotency.enabled}, and so have the idempotency_key table in their schema, and a pass-through
+ * one for the others, so that their controllers run their requests unconditionally. The package is
+ * registered as an auto-configuration package, so that the idempotency_key entity and its repository are
+ * picked up along with those of the service.
+ */
+@AutoConfiguration(after = HibernateJpaAutoConfiguration.class, before = JpaRepositoriesAutoConfiguration.class)
+@AutoConfigurationPackage
+public class IdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "idempotency", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public IdempotencyService passThroughIdempotencyService() {
+        return IdempotencyService.passThrough();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({EntityManager.class, JpaRepository.class, Caffeine.class})
+    @ConditionalOnBean(EntityManagerFactory.class)
+    @ConditionalOnProperty(prefix = "idempotency", name = "enabled", havingValue = "true")
+    static class StoredIdempotencyConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public IdempotencyService idempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                                                     EntityManager entityManager,
+                                                     TransactionTemplate transactionTemplate,
+                                                     ObjectMapper objectMapper,
+                                                     ObjectProvider<MeterRegistry> meterRegistry,
+                                                     @Value("${idempotency.cache-size:10000}") long cacheSize,
+                                                     @Value("${idempotency.retention:24h}") Duration retention,
+                                                     @Value("${idempotency.in-progress-timeout:1m}") Duration inProgressTimeout) {
+            return new IdempotencyService(idempotencyRecordRepository, entityManager, transactionTemplate, objectMapper,
+                    meterRegistry.getIfAvailable(SimpleMeterRegistry::new), cacheSize, retention, inProgressTimeout);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.eventbooking.serviceclient.idempotency;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.eventbooking.serviceclient.idempotency;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
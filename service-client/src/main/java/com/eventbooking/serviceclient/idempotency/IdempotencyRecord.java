@@ -0,0 +1,49 @@
+package com.eventbooking.serviceclient.idempotency;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A request made with an Idempotency-Key header, and the response returned for it once it completed.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_idempotency_key_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    /**
+     * SHA-256 of the request body, to tell a retry from a different request reusing the key
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * HTTP status of the response, null while the request is in progress
+     */
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    /**
+     * Body of the response, kept inline rather than as a large object
+     */
+    @Column(name = "response_body", length = 1048576)
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist()
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
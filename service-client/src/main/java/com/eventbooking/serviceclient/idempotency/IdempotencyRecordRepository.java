@@ -0,0 +1,37 @@
+package com.eventbooking.serviceclient.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Deletes the keys older than the given time, whatever their state.
+     *
+     * @param before the creation time keys must be older than
+     * @return the number of keys deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Deletes the claim of a key made at the given time, unless it completed meanwhile.
+     *
+     * @param key the key
+     * @param createdAt the time the key was claimed at
+     * @return 1 if the claim was deleted, 0 if it completed or was deleted or claimed again meanwhile
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.createdAt = :createdAt AND r.statusCode IS NULL")
+    int deleteClaim(@Param("key") String key, @Param("createdAt") LocalDateTime createdAt);
+}
@@ -0,0 +1,317 @@
+package com.eventbooking.serviceclient.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes request handling idempotent for clients sending an {@code Idempotency-Key} header.
+ * <p>
+ * The first request with a key claims it by inserting a row in the idempotency_key table, runs, and
+ * stores its response in the row. Retries are answered with that response, from a bounded in-memory
+ * LRU of recent keys when possible and from the table otherwise, without running the request again.
+ * Retries arriving on the same instance while the first request runs wait for its response; on
+ * another instance they are rejected with 409 until it completes. A request that fails releases its
+ * key so it can be retried, and a claim older than {@code idempotency.in-progress-timeout} is taken
+ * over, as the instance that made it is assumed dead. A response that could not be stored is replayed
+ * from memory meanwhile, and storing it is retried every {@code idempotency.completion-retry-interval-ms}
+ * rather than leaving the key to be taken over and the request run again. Keys are kept for
+ * {@code idempotency.retention}.
+ * Created by {@link IdempotencyAutoConfiguration} for the services with a JPA data source, or as a
+ * {@link #passThrough() pass-through} for those that do not enable it. </p>
+ */
+@Slf4j
+public class IdempotencyService {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final Duration inProgressTimeout;
+    private final Cache<String, StoredResponse> recentResponses;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    /**
+     * Responses returned to the client but not stored yet
+     */
+    private final Map<String, StoredResponse> unstoredResponses = new ConcurrentHashMap<>();
+    private final Counter memoryReplays;
+    private final Counter storeReplays;
+    private final Counter inFlightReplays;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              EntityManager entityManager,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              long cacheSize,
+                              Duration retention,
+                              Duration inProgressTimeout) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        this.inProgressTimeout = inProgressTimeout;
+        this.recentResponses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+        this.memoryReplays = replayCounter(meterRegistry, "memory");
+        this.storeReplays = replayCounter(meterRegistry, "store");
+        this.inFlightReplays = replayCounter(meterRegistry, "in_flight");
+    }
+
+    private IdempotencyService() {
+        this.idempotencyRecordRepository = null;
+        this.entityManager = null;
+        this.transactionTemplate = null;
+        this.objectMapper = null;
+        this.retention = null;
+        this.inProgressTimeout = null;
+        this.recentResponses = null;
+        this.memoryReplays = null;
+        this.storeReplays = null;
+        this.inFlightReplays = null;
+    }
+
+    /**
+     * Creates an IdempotencyService that runs every request, ignoring its idempotency key.
+     *
+     * @return the pass-through IdempotencyService
+     */
+    public static IdempotencyService passThrough() {
+        return new IdempotencyService();
+    }
+
+    /**
+     * Runs a request at most once per idempotency key.
+     *
+     * @param key The Idempotency-Key header of the request, or null to run the request unconditionally.
+     * @param request The request body, hashed to detect a key reused for a different request.
+     * @param responseType The type of the response body, used to read stored responses back.
+     * @param action Handles the request.
+     * @return The response of the action, or the response stored for the key with an Idempotent-Replayed header.
+     */
+    public <T> ResponseEntity<T> execute(String key, Object request, Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank() || recentResponses == null) {
+            return action.get();
+        }
+        String requestHash = hash(request);
+        StoredResponse recent = recentResponses.getIfPresent(key);
+        if (recent == null) {
+            recent = unstoredResponses.get(key);
+        }
+        if (recent != null) {
+            memoryReplays.increment();
+            return replay(key, recent, requestHash, responseType);
+        }
+
+        CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            StoredResponse response = await(running);
+            inFlightReplays.increment();
+            return replay(key, response, requestHash, responseType);
+        }
+        try {
+            StoredResponse stored = claimOrFind(key, requestHash, responseType);
+            if (stored != null) {
+                storeReplays.increment();
+                recentResponses.put(key, stored);
+                pending.complete(stored);
+                return replay(key, stored, requestHash, responseType);
+            }
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException ex) {
+                idempotencyRecordRepository.deleteById(key);
+                throw ex;
+            }
+            StoredResponse completed = new StoredResponse(requestHash, response.getStatusCode().value(), response.getBody());
+            recentResponses.put(key, completed);
+            pending.complete(completed);
+            try {
+                complete(key, completed);
+            } catch (RuntimeException ex) {
+                // The request ran: failing it now would only have the client retry it under a new key
+                log.warn("Could not store the response of idempotency key {}, retrying", key, ex);
+                unstoredResponses.put(key, completed);
+            }
+            return response;
+        } catch (RuntimeException ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Deletes the keys older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        if (idempotencyRecordRepository == null) {
+            return;
+        }
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Stores the responses that could not be stored when their request completed.
+     *
+     * @return the number of responses still left to store
+     */
+    @Scheduled(fixedDelayString = "${idempotency.completion-retry-interval-ms:1000}")
+    public int storeUnstoredResponses() {
+        unstoredResponses.forEach((key, response) -> {
+            try {
+                complete(key, response);
+                unstoredResponses.remove(key, response);
+            } catch (RuntimeException ex) {
+                log.debug("Could not store the response of idempotency key {} yet", key, ex);
+            }
+        });
+        return unstoredResponses.size();
+    }
+
+    /**
+     * Claims the key, or returns the response stored for it by an earlier request.
+     *
+     * @return null if the key was claimed, the stored response otherwise
+     */
+    private StoredResponse claimOrFind(String key, String requestHash, Class<?> responseType) {
+        if (claim(key, requestHash)) {
+            return null;
+        }
+        IdempotencyRecord existing = idempotencyRecordRepository.findById(key).orElse(null);
+        if (existing != null && existing.getStatusCode() != null) {
+            return new StoredResponse(existing.getRequestHash(), existing.getStatusCode(),
+                    readBody(existing.getResponseBody(), responseType));
+        }
+        if (existing != null && existing.getCreatedAt().isBefore(LocalDateTime.now().minus(inProgressTimeout))) {
+            // Only one of the retries taking it over at once deletes the claim, the others find it gone
+            if (idempotencyRecordRepository.deleteClaim(key, existing.getCreatedAt()) == 1) {
+                log.warn("Taking over idempotency key {} claimed at {} and never completed", key, existing.getCreatedAt());
+                if (claim(key, requestHash)) {
+                    return null;
+                }
+            }
+        }
+        throw new IdempotencyKeyInProgressException("A request with idempotency key " + key + " is already in progress");
+    }
+
+    private boolean claim(String key, String requestHash) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.persist(IdempotencyRecord.builder().key(key).requestHash(requestHash).build());
+                entityManager.flush();
+            });
+            return true;
+        } catch (PersistenceException | DataIntegrityViolationException ex) {
+            return false;
+        }
+    }
+
+    private void complete(String key, StoredResponse response) {
+        String body = writeBody(response.body());
+        transactionTemplate.executeWithoutResult(status -> {
+            IdempotencyRecord record = entityManager.find(IdempotencyRecord.class, key);
+            if (record == null) {
+                // Purged meanwhile: stored again, so that the request is not run again
+                entityManager.persist(IdempotencyRecord.builder()
+                        .key(key)
+                        .requestHash(response.requestHash())
+                        .statusCode(response.statusCode())
+                        .responseBody(body)
+                        .build());
+                return;
+            }
+            record.setStatusCode(response.statusCode());
+            record.setResponseBody(body);
+        });
+    }
+
+    private <T> ResponseEntity<T> replay(String key, StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency key " + key + " was already used for a different request");
+        }
+        return ResponseEntity.status(stored.statusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body(responseType.cast(stored.body()));
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Could not hash request", ex);
+        }
+    }
+
+    private String writeBody(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize response", ex);
+        }
+    }
+
+    private Object readBody(String body, Class<?> responseType) {
+        try {
+            return body == null ? null : objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read stored response", ex);
+        }
+    }
+
+    private static Counter replayCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("idempotency.replays")
+                .description("Requests answered with the response of an earlier request with the same idempotency key")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private record StoredResponse(String requestHash, int statusCode, Object body) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the requests served at once to what the service can take without queueing, as measured
+ * by their latency.
+ * <p>
+ * The limit follows a gradient: every completed request updates a short-term and a long-term
+ * average of the latency, and while the short-term one stays within {@code tolerance} times the
+ * long-term one the limit grows by about its square root. Past that, requests are queueing
+ * somewhere and the limit shrinks in proportion, down to half. A request that failed from overload
+ * cuts the limit by {@code backoffRatio} at once. The limit only grows while at least half of it is
+ * in use, so a quiet period does not leave it too high for the next spike. </p>
+ * <p>
+ * A request of a given priority is admitted while the requests in flight stay under its share of
+ * the limit, so that low priority requests are the first to be refused. </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double SHORT_RTT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Admits a request if the requests in flight are under the share of the limit of its priority.
+     * An admitted request must be completed with {@link #onSuccess} or {@link #onDropped}.
+     *
+     * @param priority The priority of the request.
+     * @return true if the request is admitted
+     */
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.share()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Completes an admitted request and adjusts the limit to its latency.
+     *
+     * @param rttNanos How long the request took.
+     */
+    public void onSuccess(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) * SHORT_RTT_ALPHA;
+            longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) * LONG_RTT_ALPHA;
+            // After a lasting slowdown ends, let the baseline come down quickly
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+            if (gradient == 1.0 && inFlightBefore < limit / 2) {
+                return;
+            }
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            limit = clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes an admitted request that failed because the service is overloaded, a timeout for
+     * instance, and backs the limit off.
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        lock.lock();
+        try {
+            limit = clamp(limit * backoffRatio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes an admitted request without adjusting the limit.
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return the current concurrency limit
+     */
+    public int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the admitted requests not completed yet
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
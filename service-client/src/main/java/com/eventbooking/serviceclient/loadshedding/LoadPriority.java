@@ -0,0 +1,22 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the priority of a controller method when {@link LoadSheddingInterceptor} sheds load.
+ * Methods without it are of NORMAL priority.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LoadPriority {
+    RequestPriority value();
+
+    /**
+     * @return false for long-running responses such as streams, whose duration says nothing of the load
+     */
+    boolean sampled() default true;
+}
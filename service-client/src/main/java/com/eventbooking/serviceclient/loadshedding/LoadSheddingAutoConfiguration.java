@@ -0,0 +1,51 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Sheds the API requests of the servlet services that set {@code load-shedding.enabled} through a
+ * {@link LoadSheddingInterceptor}.
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(HandlerInterceptor.class)
+@ConditionalOnProperty(name = "load-shedding.enabled", havingValue = "true")
+public class LoadSheddingAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LoadSheddingInterceptor loadSheddingInterceptor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                           @Value("${load-shedding.initial-limit:20}") int initialLimit,
+                                                           @Value("${load-shedding.min-limit:5}") int minLimit,
+                                                           @Value("${load-shedding.max-limit:200}") int maxLimit,
+                                                           @Value("${load-shedding.tolerance:1.5}") double tolerance,
+                                                           @Value("${load-shedding.backoff-ratio:0.9}") double backoffRatio,
+                                                           @Value("${load-shedding.retry-after:1s}") Duration retryAfter) {
+        return new LoadSheddingInterceptor(meterRegistry.getIfAvailable(SimpleMeterRegistry::new),
+                initialLimit, minLimit, maxLimit, tolerance, backoffRatio, retryAfter);
+    }
+
+    @Bean
+    public WebMvcConfigurer loadSheddingConfigurer(LoadSheddingInterceptor loadSheddingInterceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(loadSheddingInterceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
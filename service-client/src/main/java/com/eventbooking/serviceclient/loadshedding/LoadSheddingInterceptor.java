@@ -0,0 +1,100 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sheds the API requests the service cannot serve without queueing, answering them at once with
+ * 503 SERVICE UNAVAILABLE and a Retry-After header.
+ * <p>
+ * Registered on {@code /api/**} by {@link LoadSheddingAutoConfiguration} when {@code load-shedding.enabled}
+ * is true. Each controller method is admitted through an {@link AdaptiveConcurrencyLimiter} according
+ * to its {@link LoadPriority}, and its latency adjusts the limit once it completes, after its async processing if any. A request failing with
+ * 503 or 504, that is overloaded itself or waiting on an overloaded service, backs the limit off.
+ * The Retry-After delay is spread between {@code load-shedding.retry-after} and twice that, so
+ * that the refused clients do not all come back at once. </p>
+ */
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+    private static final String STARTED_AT = LoadSheddingInterceptor.class.getName() + ".startedAt";
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Duration retryAfter;
+    private final Map<RequestPriority, Counter> shedRequests = new EnumMap<>(RequestPriority.class);
+
+    public LoadSheddingInterceptor(MeterRegistry meterRegistry,
+                                   int initialLimit,
+                                   int minLimit,
+                                   int maxLimit,
+                                   double tolerance,
+                                   double backoffRatio,
+                                   Duration retryAfter) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, backoffRatio);
+        this.retryAfter = retryAfter;
+        Gauge.builder("http.server.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Requests the service currently admits at once")
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Admitted requests not completed yet")
+                .register(meterRegistry);
+        for (RequestPriority priority : RequestPriority.values()) {
+            shedRequests.put(priority, Counter.builder("http.server.requests.shed")
+                    .description("Requests refused because the concurrency limit was reached")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches of an admitted request are already counted
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getAttribute(STARTED_AT) != null) {
+            return true;
+        }
+        LoadPriority loadPriority = handlerMethod.getMethodAnnotation(LoadPriority.class);
+        RequestPriority priority = loadPriority == null ? RequestPriority.NORMAL : loadPriority.value();
+        if (!limiter.tryAcquire(priority)) {
+            shedRequests.get(priority).increment();
+            long retryAfterMillis = retryAfter.toMillis() + ThreadLocalRandom.current().nextLong(retryAfter.toMillis() + 1);
+            throw new ServiceOverloadedException("The service is overloaded, please retry later",
+                    Duration.ofSeconds(Math.max(1, Math.round(retryAfterMillis / 1000.0))));
+        }
+        request.setAttribute(STARTED_AT, loadPriority == null || loadPriority.sampled() ? System.nanoTime() : NOT_SAMPLED);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object startedAt = request.getAttribute(STARTED_AT);
+        if (startedAt == null) {
+            return;
+        }
+        request.removeAttribute(STARTED_AT);
+        int status = response.getStatus();
+        if (status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            limiter.onDropped();
+        } else if (ex != null || status >= 500 || (long) startedAt == NOT_SAMPLED) {
+            limiter.onIgnored();
+        } else {
+            limiter.onSuccess(System.nanoTime() - (long) startedAt);
+        }
+    }
+
+    /**
+     * @return the limiter the requests are admitted through
+     */
+    public AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+}
@@ -0,0 +1,32 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+/**
+ * How long an endpoint keeps being served as the service gets overloaded.
+ */
+public enum RequestPriority {
+    /**
+     * Reads and bulk work; shed first, once half of the concurrency limit is in use
+     */
+    LOW(0.5),
+    /**
+     * Other writes, such as new bookings; shed once 80% of the concurrency limit is in use
+     */
+    NORMAL(0.8),
+    /**
+     * Payments and cancellations, which free or settle seats; may use the whole concurrency limit
+     */
+    CRITICAL(1.0);
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * @return the share of the concurrency limit requests of this priority may use
+     */
+    public double share() {
+        return share;
+    }
+}
@@ -0,0 +1,111 @@
+package com.eventbooking.serviceclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+	private static final long OPEN_NANOS = 1_000;
+
+	private final AtomicLong clock = new AtomicLong();
+	private final CircuitBreaker circuitBreaker = new CircuitBreaker(10, 4, 50, OPEN_NANOS, 2, clock::get);
+
+	@Test
+	void opensOnceTheFailureRateIsReached() {
+		call(false);
+		call(true);
+		call(false);
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		call(true);
+
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+	}
+
+	@Test
+	void failuresBelowTheMinimumCallsKeepItClosed() {
+		call(true);
+		call(true);
+		call(true);
+
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void onlyTheLastCallsCount() {
+		for (int i = 0; i < 10; i++) {
+			call(false);
+		}
+		for (int i = 0; i < 4; i++) {
+			call(true);
+		}
+		// 4 failures out of the last 10 calls
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		call(true);
+
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	void successfulTrialCallsCloseIt() {
+		open();
+		clock.addAndGet(OPEN_NANOS);
+
+		assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+		assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+		assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		circuitBreaker.onSuccess();
+		circuitBreaker.onSuccess();
+
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+		// The window starts empty
+		call(true);
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void failedTrialCallOpensItAgain() {
+		open();
+		clock.addAndGet(OPEN_NANOS);
+
+		call(true);
+
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+	}
+
+	@Test
+	void cancelledTrialCallGivesBackItsPermission() {
+		open();
+		clock.addAndGet(OPEN_NANOS);
+		assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+		assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+
+		circuitBreaker.onCancel();
+
+		assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+		assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+	}
+
+	private void open() {
+		for (int i = 0; i < 4; i++) {
+			call(true);
+		}
+		assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	private void call(boolean failure) {
+		assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+		if (failure) {
+			circuitBreaker.onFailure();
+		} else {
+			circuitBreaker.onSuccess();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.eventbooking.serviceclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilienceFilterTest {
+
+	private MeterRegistry meterRegistry;
+	private ServiceClientProperties properties;
+	private AtomicInteger calls;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		properties = new ServiceClientProperties();
+		ServiceClientProperties.Target target = new ServiceClientProperties.Target();
+		target.getRetry().setBackoff(Duration.ofMillis(1));
+		target.getCircuitBreaker().setSlidingWindowSize(4);
+		target.getCircuitBreaker().setMinimumCalls(4);
+		target.getBulkhead().setMaxConcurrentCalls(2);
+		properties.getTargets().put("event-service", target);
+		calls = new AtomicInteger();
+	}
+
+	@Test
+	void connectionFailuresOfIdempotentCallsAreRetried() {
+		WebClient client = client(attempt -> attempt < 3
+				? Mono.error(connectionRefused())
+				: Mono.just(ClientResponse.create(HttpStatus.OK).body("ok").build()));
+
+		String body = client.get().uri("/api/events/1").retrieve().bodyToMono(String.class).block();
+
+		assertThat(body).isEqualTo("ok");
+		assertThat(calls).hasValue(3);
+		assertThat(meterRegistry.get("service.client.requests").tag("outcome", "ERROR").timer().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("service.client.requests").tag("outcome", "SUCCESS").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void postIsNotRetried() {
+		WebClient client = client(attempt -> Mono.error(connectionRefused()));
+
+		assertThatThrownBy(() -> client.post().uri("/api/events/1/reserve").retrieve().toBodilessEntity().block())
+				.isInstanceOf(WebClientRequestException.class);
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void serverErrorsOpenTheCircuit() {
+		WebClient client = client(attempt -> Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> client.get().uri("/api/events/1").retrieve().toBodilessEntity().block())
+					.isInstanceOf(WebClientResponseException.class);
+		}
+
+		assertThatThrownBy(() -> client.get().uri("/api/events/1").retrieve().toBodilessEntity().block())
+				.isInstanceOf(CallNotPermittedException.class);
+		assertThat(calls).hasValue(4);
+		assertThat(meterRegistry.get("service.client.circuit.state").gauge().value())
+				.isEqualTo(CircuitBreaker.State.OPEN.ordinal());
+	}
+
+	@Test
+	void callsOverTheBulkheadAreRejectedAtOnce() {
+		Sinks.One<ClientResponse> slowResponse = Sinks.one();
+		WebClient client = client(attempt -> slowResponse.asMono());
+		List<Mono<String>> inFlight = List.of(
+				client.get().uri("/api/events/1").retrieve().bodyToMono(String.class).cache(),
+				client.get().uri("/api/events/2").retrieve().bodyToMono(String.class).cache());
+		inFlight.forEach(Mono::subscribe);
+
+		assertThatThrownBy(() -> client.get().uri("/api/events/3").retrieve().bodyToMono(String.class).block())
+				.isInstanceOf(BulkheadFullException.class);
+		assertThat(meterRegistry.get("service.client.bulkhead.in-flight").gauge().value()).isEqualTo(2);
+
+		slowResponse.tryEmitValue(ClientResponse.create(HttpStatus.OK).body("ok").build());
+		assertThat(inFlight.get(0).block(Duration.ofSeconds(5))).isEqualTo("ok");
+		assertThat(meterRegistry.get("service.client.bulkhead.in-flight").gauge().value()).isZero();
+	}
+
+	private WebClient client(java.util.function.IntFunction<Mono<ClientResponse>> responses) {
+		WebClient.Builder builder = WebClient.builder()
+				.exchangeFunction(request -> Mono.defer(() -> responses.apply(calls.incrementAndGet())));
+		return new ServiceClients(builder, properties, meterRegistry).get("event-service");
+	}
+
+	private static WebClientRequestException connectionRefused() {
+		return new WebClientRequestException(new ConnectException("Connection refused"),
+				org.springframework.http.HttpMethod.GET, URI.create("http://event-service/api/events/1"),
+				new org.springframework.http.HttpHeaders());
+	}
+}
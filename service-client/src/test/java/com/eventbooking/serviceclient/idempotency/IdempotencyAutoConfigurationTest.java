@@ -0,0 +1,33 @@
+package com.eventbooking.serviceclient.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(IdempotencyAutoConfiguration.class));
+
+	@Test
+	void servicesThatDisableItRunEveryRequest() {
+		contextRunner.withPropertyValues("idempotency.enabled=false").run(context -> {
+			IdempotencyService idempotencyService = context.getBean(IdempotencyService.class);
+			AtomicInteger processed = new AtomicInteger();
+
+			for (int i = 0; i < 2; i++) {
+				ResponseEntity<Integer> response = idempotencyService.execute("key", "request", Integer.class,
+						() -> ResponseEntity.ok(processed.incrementAndGet()));
+				assertThat(response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+			}
+			assertThat(processed.get()).isEqualTo(2);
+			idempotencyService.purgeExpiredKeys();
+			assertThat(idempotencyService.storeUnstoredResponses()).isZero();
+		});
+	}
+}
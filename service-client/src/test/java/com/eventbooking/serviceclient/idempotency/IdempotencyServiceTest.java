@@ -0,0 +1,250 @@
+package com.eventbooking.serviceclient.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:idempotency-test",
+		"idempotency.enabled=true"
+})
+class IdempotencyServiceTest {
+
+	private static final int RETRIES = 16;
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final AtomicInteger processed = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		idempotencyRecordRepository.deleteAll();
+		processed.set(0);
+	}
+
+	@Test
+	void concurrentRetriesAreProcessedExactlyOnce() throws Exception {
+		Order request = new Order("alice", 2);
+		double replaysBefore = replays();
+		ExecutorService executor = Executors.newFixedThreadPool(RETRIES);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<ResponseEntity<Receipt>>> responses = new ArrayList<>();
+		try {
+			for (int i = 0; i < RETRIES; i++) {
+				responses.add(executor.submit(() -> {
+					start.await();
+					return idempotencyService.execute("retry-key", request, Receipt.class, () -> process(request));
+				}));
+			}
+			start.countDown();
+
+			List<Integer> receipts = new ArrayList<>();
+			for (Future<ResponseEntity<Receipt>> response : responses) {
+				receipts.add(response.get().getBody().number());
+			}
+			assertThat(receipts).containsOnly(receipts.get(0));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(processed.get()).isEqualTo(1);
+		assertThat(replays() - replaysBefore).isEqualTo(RETRIES - 1);
+	}
+
+	@Test
+	void laterRetryIsReplayedFromTheStore() {
+		Order request = new Order("alice", 2);
+		ResponseEntity<Receipt> first = idempotencyService.execute("later-key", request, Receipt.class, () -> process(request));
+
+		ResponseEntity<Receipt> retry = idempotencyService.execute("later-key", request, Receipt.class, () -> process(request));
+
+		assertThat(retry.getBody()).isEqualTo(first.getBody());
+		assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+		assertThat(idempotencyRecordRepository.findById("later-key")).get()
+				.extracting(IdempotencyRecord::getStatusCode)
+				.isEqualTo(200);
+		assertThat(processed.get()).isEqualTo(1);
+	}
+
+	@Test
+	void keyReusedForADifferentRequestIsRejected() {
+		Order request = new Order("alice", 2);
+		idempotencyService.execute("reused-key", request, Receipt.class, () -> process(request));
+
+		Order other = new Order("alice", 5);
+		assertThatThrownBy(() -> idempotencyService.execute("reused-key", other, Receipt.class, () -> process(other)))
+				.isInstanceOf(IdempotencyKeyReusedException.class);
+		assertThat(processed.get()).isEqualTo(1);
+	}
+
+	@Test
+	void failedRequestReleasesItsKey() {
+		Order request = new Order("alice", 2);
+		assertThatThrownBy(() -> idempotencyService.execute("failed-key", request, Receipt.class, () -> {
+			throw new IllegalStateException("sold out");
+		})).isInstanceOf(IllegalStateException.class);
+		assertThat(idempotencyRecordRepository.existsById("failed-key")).isFalse();
+
+		ResponseEntity<Receipt> retry = idempotencyService.execute("failed-key", request, Receipt.class, () -> process(request));
+
+		assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+		assertThat(processed.get()).isEqualTo(1);
+	}
+
+	@Test
+	void responseThatCouldNotBeStoredIsReplayedUntilItIsStored() {
+		AtomicBoolean databaseDown = new AtomicBoolean();
+		IdempotencyService instance = anotherInstance(new TransactionTemplate(transactionManager) {
+			@Override
+			public void executeWithoutResult(Consumer<TransactionStatus> action) {
+				if (databaseDown.get()) {
+					throw new CannotCreateTransactionException("Database down");
+				}
+				super.executeWithoutResult(action);
+			}
+		});
+		Order request = new Order("alice", 2);
+		ResponseEntity<Receipt> first = instance.execute("unstored-key", request, Receipt.class, () -> {
+			databaseDown.set(true);
+			return process(request);
+		});
+		assertThat(idempotencyRecordRepository.findById("unstored-key")).get()
+				.extracting(IdempotencyRecord::getStatusCode)
+				.isNull();
+
+		ResponseEntity<Receipt> retry = instance.execute("unstored-key", request, Receipt.class, () -> process(request));
+		assertThat(retry.getBody()).isEqualTo(first.getBody());
+		assertThat(instance.storeUnstoredResponses()).isEqualTo(1);
+
+		databaseDown.set(false);
+		assertThat(instance.storeUnstoredResponses()).isZero();
+		assertThat(idempotencyService.execute("unstored-key", request, Receipt.class, () -> process(request)).getBody())
+				.isEqualTo(first.getBody());
+		assertThat(processed.get()).isEqualTo(1);
+	}
+
+	@Test
+	void staleClaimIsTakenOverByASingleRetry() throws Exception {
+		// Claimed by an instance that stopped before completing it
+		idempotencyRecordRepository.save(IdempotencyRecord.builder().key("stale-key").requestHash("stale").build());
+		jdbcTemplate.update("UPDATE idempotency_key SET created_at = ? WHERE idempotency_key = ?",
+				LocalDateTime.now().minusHours(1), "stale-key");
+		Order request = new Order("alice", 2);
+		ExecutorService executor = Executors.newFixedThreadPool(RETRIES);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<ResponseEntity<Receipt>>> responses = new ArrayList<>();
+		try {
+			for (int i = 0; i < RETRIES; i++) {
+				// Each on an instance of its own, so that they only meet in the table
+				IdempotencyService instance = anotherInstance(new TransactionTemplate(transactionManager));
+				responses.add(executor.submit(() -> {
+					start.await();
+					return instance.execute("stale-key", request, Receipt.class, () -> process(request));
+				}));
+			}
+			start.countDown();
+
+			int inProgress = 0;
+			for (Future<ResponseEntity<Receipt>> response : responses) {
+				try {
+					response.get();
+				} catch (ExecutionException ex) {
+					assertThat(ex.getCause()).isInstanceOf(IdempotencyKeyInProgressException.class);
+					inProgress++;
+				}
+			}
+			assertThat(inProgress).isLessThan(RETRIES);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(processed.get()).isEqualTo(1);
+	}
+
+	private IdempotencyService anotherInstance(TransactionTemplate transactionTemplate) {
+		return new IdempotencyService(idempotencyRecordRepository, entityManager, transactionTemplate, objectMapper,
+				meterRegistry, 100, Duration.ofHours(1), Duration.ofMinutes(1));
+	}
+
+	private ResponseEntity<Receipt> process(Order request) {
+		int number = processed.incrementAndGet();
+		try {
+			// Keeps the first request running while the retries arrive
+			Thread.sleep(200);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		return ResponseEntity.ok(new Receipt(number, request.userName()));
+	}
+
+	private double replays() {
+		return meterRegistry.find("idempotency.replays").counters().stream()
+				.mapToDouble(counter -> counter.count())
+				.sum();
+	}
+
+	record Order(String userName, int quantity) {
+	}
+
+	record Receipt(int number, String userName) {
+	}
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	static class TestApplication {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+}
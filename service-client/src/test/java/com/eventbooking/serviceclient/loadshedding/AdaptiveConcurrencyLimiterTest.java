@@ -0,0 +1,86 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+	@Test
+	void lowerPrioritiesGetASmallerShareOfTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1.5, 0.9);
+
+		assertThat(admitted(limiter, RequestPriority.LOW)).isEqualTo(5);
+		assertThat(admitted(limiter, RequestPriority.NORMAL)).isEqualTo(3);
+		assertThat(admitted(limiter, RequestPriority.CRITICAL)).isEqualTo(2);
+		assertThat(limiter.inFlight()).isEqualTo(10);
+	}
+
+	@Test
+	void limitGrowsWhileLatencyHoldsUnderLoad() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1.5, 0.9);
+
+		for (int i = 0; i < 200; i++) {
+			admitted(limiter, RequestPriority.CRITICAL);
+			limiter.onSuccess(RTT);
+		}
+
+		assertThat(limiter.limit()).isEqualTo(100);
+	}
+
+	@Test
+	void limitHoldsWhenMostOfItIsUnused() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1.5, 0.9);
+
+		for (int i = 0; i < 50; i++) {
+			assertThat(limiter.tryAcquire(RequestPriority.NORMAL)).isTrue();
+			limiter.onSuccess(RTT);
+		}
+
+		assertThat(limiter.limit()).isEqualTo(10);
+	}
+
+	@Test
+	void limitShrinksWhenRequestsQueue() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 5, 100, 1.5, 0.9);
+		for (int i = 0; i < 100; i++) {
+			assertThat(limiter.tryAcquire(RequestPriority.LOW)).isTrue();
+			limiter.onSuccess(RTT);
+		}
+
+		for (int i = 0; i < 60; i++) {
+			admitted(limiter, RequestPriority.CRITICAL);
+			limiter.onSuccess(RTT * 5);
+		}
+
+		assertThat(limiter.limit()).isEqualTo(5);
+	}
+
+	@Test
+	void droppedRequestsBackTheLimitOff() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 8, 100, 1.5, 0.9);
+
+		assertThat(limiter.tryAcquire(RequestPriority.NORMAL)).isTrue();
+		limiter.onDropped();
+		assertThat(limiter.limit()).isEqualTo(9);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(limiter.tryAcquire(RequestPriority.NORMAL)).isTrue();
+			limiter.onDropped();
+		}
+		assertThat(limiter.limit()).isEqualTo(8);
+		assertThat(limiter.inFlight()).isZero();
+	}
+
+	private static int admitted(AdaptiveConcurrencyLimiter limiter, RequestPriority priority) {
+		int admitted = 0;
+		while (limiter.tryAcquire(priority)) {
+			admitted++;
+		}
+		return admitted;
+	}
+}
@@ -0,0 +1,29 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadSheddingAutoConfigurationTest {
+
+	private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+			// As a Spring Boot application does, to read durations such as 1s
+			.withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+			.withConfiguration(AutoConfigurations.of(LoadSheddingAutoConfiguration.class));
+
+	@Test
+	void interceptorIsCreatedWhenEnabled() {
+		contextRunner.withPropertyValues("load-shedding.enabled=true", "load-shedding.initial-limit=30")
+				.run(context -> assertThat(context).getBean(LoadSheddingInterceptor.class)
+						.extracting(interceptor -> interceptor.limiter().limit())
+						.isEqualTo(30));
+	}
+
+	@Test
+	void servicesThatDoNotEnableItAreNotShed() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(LoadSheddingInterceptor.class));
+	}
+}
@@ -0,0 +1,88 @@
+package com.eventbooking.serviceclient.loadshedding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoadSheddingInterceptorTest {
+
+	private MeterRegistry meterRegistry;
+	private LoadSheddingInterceptor interceptor;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		interceptor = new LoadSheddingInterceptor(meterRegistry, 2, 1, 10, 1.5, 0.5, Duration.ofSeconds(2));
+	}
+
+	@Test
+	void lowPriorityRequestsAreShedFirst() throws Exception {
+		MockHttpServletRequest booking = new MockHttpServletRequest();
+		assertThat(interceptor.preHandle(booking, new MockHttpServletResponse(), handler("book"))).isTrue();
+
+		assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("read")))
+				.isInstanceOfSatisfying(ServiceOverloadedException.class, ex -> assertThat(ex.getRetryAfter())
+						.isBetween(Duration.ofSeconds(2), Duration.ofSeconds(4)));
+		assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("cancel"))).isTrue();
+		assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("cancel")))
+				.isInstanceOf(ServiceOverloadedException.class);
+
+		assertThat(meterRegistry.get("http.server.requests.shed").tag("priority", "LOW").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("http.server.requests.shed").tag("priority", "CRITICAL").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("http.server.concurrency.in-flight").gauge().value()).isEqualTo(2);
+	}
+
+	@Test
+	void completedRequestFreesItsPermitOnce() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(request, response, handler("book"));
+
+		// An async request is dispatched again once its result is ready
+		request.setDispatcherType(DispatcherType.ASYNC);
+		interceptor.preHandle(request, response, handler("book"));
+		interceptor.afterCompletion(request, response, handler("book"), null);
+		interceptor.afterCompletion(request, response, handler("book"), null);
+
+		assertThat(interceptor.limiter().inFlight()).isZero();
+	}
+
+	@Test
+	void overloadedResponsesBackTheLimitOff() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(request, response, handler("book"));
+
+		response.setStatus(503);
+		interceptor.afterCompletion(request, response, handler("book"), null);
+
+		assertThat(meterRegistry.get("http.server.concurrency.limit").gauge().value()).isEqualTo(1);
+	}
+
+	private static HandlerMethod handler(String method) throws NoSuchMethodException {
+		return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(method));
+	}
+
+	static class Endpoints {
+		@LoadPriority(RequestPriority.LOW)
+		public void read() {
+		}
+
+		public void book() {
+		}
+
+		@LoadPriority(RequestPriority.CRITICAL)
+		public void cancel() {
+		}
+	}
+}